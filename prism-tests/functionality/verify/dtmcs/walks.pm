@@ -0,0 +1,27 @@
+// Four independent two-dimensional random walks with different drifts,
+// entered from a single initial state (used to test parallel/topological iteration)
+
+dtmc
+
+const int N = 40;
+const int M = 20;
+
+module walks
+
+	c : [0..4] init 0;
+	x : [0..N] init 0;
+	y : [0..N] init 0;
+
+	[] c=0 -> 0.25 : (c'=1)&(x'=M)&(y'=M) + 0.25 : (c'=2)&(x'=M)&(y'=M)
+	        + 0.25 : (c'=3)&(x'=M)&(y'=M) + 0.25 : (c'=4)&(x'=M)&(y'=M);
+	[] c>0 & x>0 & x<N & y>0 & y<N -> 0.2+0.05*c : (x'=x+1) + 0.3-0.05*c : (x'=x-1) + 0.25 : (y'=y+1) + 0.25 : (y'=y-1);
+	[] c>0 & (x=0 | x=N | y=0 | y=N) -> true;
+
+endmodule
+
+label "edge" = c>0 & (x=0 | x=N | y=0 | y=N);
+label "right" = c>0 & x=N;
+
+rewards "steps"
+	c=0 | !(x=0 | x=N | y=0 | y=N) : 1;
+endrewards
@@ -33,6 +33,7 @@ import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
 import java.util.function.Predicate;
 
+import common.functions.primitive.IntIntConsumer;
 import common.iterable.FilteringIterator;
 import common.iterable.MappingIterator;
 
@@ -172,4 +173,27 @@ public class IteratorTools
 		return sum;
 	}
 
+	/**
+	 * Split the elements of an iterator into maximal runs of consecutive (ascending) values,
+	 * and call {@code action.accept(from, to)} for each run {@code [from, to)}, in order.
+	 * This allows, e.g., operations on sets of states to be performed by kernels operating on ranges.
+	 */
+	public static void forEachRange(final OfInt iterator, final IntIntConsumer action)
+	{
+		int from = 0, to = 0;
+		while (iterator.hasNext()) {
+			final int i = iterator.nextInt();
+			if (i != to || from == to) {
+				if (from < to) {
+					action.accept(from, to);
+				}
+				from = i;
+			}
+			to = i + 1;
+		}
+		if (from < to) {
+			action.accept(from, to);
+		}
+	}
+
 }
@@ -0,0 +1,235 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Worklist-based computation of attractors in a nondeterministic model (MDP, STPG, CSG, ...),
+ * as needed for qualitative precomputations such as Prob0 and Prob1.
+ * <br><br>
+ * An attractor is the least set of states containing some target states, plus each state
+ * {@code s} (from a given subset) for which some ("exists" states) or all ("forall" states)
+ * choices have a transition into the set. Only "enabled" choices count: a choice that is
+ * not enabled never counts towards adding a state, so a "forall" state with a disabled
+ * choice is never added. Rather than repeatedly checking all states until a fixed point
+ * is reached, the incoming choices of each newly added state are processed once,
+ * using a counter for the remaining choices of each state, i.e., in linear time.
+ * <br><br>
+ * Optionally, the choices of each state can be partitioned into groups, in which case
+ * the quantification is over groups: a group counts once some enabled choice in it
+ * has a transition into the set (e.g., the rows or columns of the matrix game for a
+ * state of a concurrent game).
+ * <br><br>
+ * States are added in layers, as for the corresponding fixed-point iteration
+ * (layer k = the states added in iteration k), so the number of iterations
+ * and any generated strategies coincide with those of the fixed-point computation.
+ */
+public class Attractor
+{
+	/** The model */
+	private NondetModel model;
+	/** Incoming choices for each state of the model */
+	private IncomingChoiceRelation incoming;
+	/** Number of states */
+	private int numStates;
+	/** Index of the first choice of each state, in a numbering of all choices of the model */
+	private int choiceStart[];
+	/** (Optionally) the group of each choice (indexed as for choiceStart), null if groups are choices */
+	private int choiceGroup[];
+	/** Index of the first group of each state, in a numbering of all groups of the model */
+	private int groupStart[];
+	/** Number of iterations (layers) of the last computation */
+	private int numIters;
+
+	/**
+	 * Create an object for computing attractors in a model, with quantification over choices.
+	 * @param model The model
+	 * @param incoming The incoming choice relation for the model
+	 */
+	public Attractor(NondetModel model, IncomingChoiceRelation incoming)
+	{
+		this(model, incoming, null, null);
+	}
+
+	/**
+	 * Create an object for computing attractors in a model, with quantification over groups of choices.
+	 * The group of each choice is given by {@code choiceGroup}, indexed by {@link #getChoiceIndex(int, int)},
+	 * the groups of a state {@code s} being numbered 0, ..., {@code numGroups[s]-1}.
+	 * If {@code choiceGroup} is null, each choice forms its own group.
+	 * @param model The model
+	 * @param incoming The incoming choice relation for the model
+	 * @param choiceGroup The group of each choice (optional)
+	 * @param numGroups The number of groups of each state (ignored if choiceGroup is null)
+	 */
+	public Attractor(NondetModel model, IncomingChoiceRelation incoming, int choiceGroup[], int numGroups[])
+	{
+		this.model = model;
+		this.incoming = incoming;
+		numStates = model.getNumStates();
+		choiceStart = new int[numStates + 1];
+		for (int s = 0; s < numStates; s++) {
+			choiceStart[s + 1] = choiceStart[s] + model.getNumChoices(s);
+		}
+		this.choiceGroup = choiceGroup;
+		if (choiceGroup == null) {
+			groupStart = choiceStart;
+		} else {
+			groupStart = new int[numStates + 1];
+			for (int s = 0; s < numStates; s++) {
+				groupStart[s + 1] = groupStart[s] + numGroups[s];
+			}
+		}
+	}
+
+	/**
+	 * Get the index of choice {@code c} of state {@code s}, in a numbering of all choices of the model
+	 * (as used for the sets of enabled choices).
+	 */
+	public int getChoiceIndex(int s, int c)
+	{
+		return choiceStart[s] + c;
+	}
+
+	/**
+	 * Get the total number of choices in the model.
+	 */
+	public int getNumChoicesTotal()
+	{
+		return choiceStart[numStates];
+	}
+
+	/**
+	 * Get the number of iterations (layers) of the last attractor computation.
+	 */
+	public int getNumIterations()
+	{
+		return numIters;
+	}
+
+	/**
+	 * Disable (i.e., remove from {@code enabled}) all choices with a transition to a state in {@code states}.
+	 * @param states The states
+	 * @param enabled The enabled choices (indexed by {@link #getChoiceIndex(int, int)})
+	 */
+	public void disableChoicesInto(BitSet states, BitSet enabled)
+	{
+		for (int t = states.nextSetBit(0); t >= 0; t = states.nextSetBit(t + 1)) {
+			for (int i = incoming.getIncomingStart(t), end = incoming.getIncomingEnd(t); i < end; i++) {
+				enabled.clear(choiceStart[incoming.getIncomingState(i)] + incoming.getIncomingChoice(i));
+			}
+		}
+	}
+
+	/**
+	 * Compute the attractor of {@code target}, i.e., the least set containing {@code target}
+	 * and each state {@code s} in {@code subset} such that some (if {@code forall(s)} is false)
+	 * or all (if {@code forall(s)} is true) groups of choices of {@code s} contain an enabled
+	 * choice with a transition into the set.
+	 * <br>
+	 * Optionally, store a strategy for the "exists" states that are added:
+	 * the first enabled choice with a transition into the set when the state is added.
+	 * This is only meaningful if each choice forms its own group.
+	 * @param subset Only add states from this set (optional: null means "all")
+	 * @param target Target states
+	 * @param forall Which states quantify over all (rather than some) groups
+	 * @param enabled The enabled choices, indexed by {@link #getChoiceIndex(int, int)} (optional: null means "all")
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 */
+	public BitSet compute(BitSet subset, BitSet target, IntPredicate forall, BitSet enabled, int strat[])
+	{
+		BitSet result = (BitSet) target.clone();
+		// Groups (indexed as for groupStart) with an enabled choice into the result
+		BitSet hit = new BitSet(groupStart[numStates]);
+		// For each state, the number of groups in 'hit'
+		int numHit[] = new int[numStates];
+		// The current layer, and the next one
+		int layer[] = new int[numStates];
+		int next[] = new int[numStates];
+		int layerSize = 0, nextSize;
+
+		for (int s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+			layer[layerSize++] = s;
+		}
+		// "forall" states without any groups are (vacuously) in the attractor
+		nextSize = 0;
+		for (int s = 0; s < numStates; s++) {
+			if (groupStart[s + 1] == groupStart[s] && !result.get(s) && (subset == null || subset.get(s)) && forall.test(s)) {
+				next[nextSize++] = s;
+			}
+		}
+
+		numIters = 0;
+		while (layerSize > 0 || nextSize > 0) {
+			numIters++;
+			// Collect the states that are added to the next layer
+			for (int j = 0; j < layerSize; j++) {
+				int t = layer[j];
+				for (int i = incoming.getIncomingStart(t), end = incoming.getIncomingEnd(t); i < end; i++) {
+					int s = incoming.getIncomingState(i);
+					if (result.get(s) || (subset != null && !subset.get(s))) {
+						continue;
+					}
+					int choice = choiceStart[s] + incoming.getIncomingChoice(i);
+					if (enabled != null && !enabled.get(choice)) {
+						continue;
+					}
+					int group = choiceGroup == null ? choice : groupStart[s] + choiceGroup[choice];
+					if (hit.get(group)) {
+						continue;
+					}
+					hit.set(group);
+					numHit[s]++;
+					// Each state satisfies this condition exactly once
+					if (forall.test(s) ? numHit[s] == groupStart[s + 1] - groupStart[s] : numHit[s] == 1) {
+						next[nextSize++] = s;
+					}
+				}
+			}
+			// Add the next layer (only now, so that the layers are as for a fixed-point iteration)
+			for (int j = 0; j < nextSize; j++) {
+				int s = next[j];
+				result.set(s);
+				if (strat != null && !forall.test(s)) {
+					for (int c = 0, numChoices = model.getNumChoices(s); c < numChoices; c++) {
+						int choice = choiceStart[s] + c;
+						if ((enabled == null || enabled.get(choice)) && hit.get(choiceGroup == null ? choice : groupStart[s] + choiceGroup[choice])) {
+							strat[s] = c;
+							break;
+						}
+					}
+				}
+			}
+			int tmp[] = layer;
+			layer = next;
+			next = tmp;
+			layerSize = nextSize;
+			nextSize = 0;
+		}
+
+		return result;
+	}
+}
@@ -65,8 +65,6 @@ import explicit.rewards.CSGRewardsSimple;
 import explicit.rewards.MDPRewards;
 import explicit.rewards.MDPRewardsSimple;
 import explicit.rewards.StateRewardsConstant;
-import lpsolve.LpSolve;
-import lpsolve.LpSolveException;
 import parser.State;
 import parser.VarList;
 import parser.ast.Coalition;
@@ -74,12 +72,16 @@ import parser.ast.Declaration;
 import parser.ast.DeclarationInt;
 import parser.ast.Expression;
 import parser.ast.ExpressionTemporal;
+import prism.AccuracyFactory;
 import prism.IntegerBound;
+import prism.OptionsIntervalIteration;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismFileLog;
 import prism.PrismLangException;
 import prism.PrismLog;
+import prism.PrismNotSupportedException;
+import prism.Result;
 import prism.PrismUtils;
 import prism.PrismSettings;
 import strat.CSGStrategy;
@@ -108,6 +110,8 @@ public class CSGModelChecker extends ProbModelChecker {
 	
 	protected double minEntry; 
 	protected double scaleFactor = getSettings().getDouble(PrismSettings.PRISM_ZS_LP_SCALE_FACTOR);
+	protected int simplexMaxSize = getSettings().getInteger(PrismSettings.PRISM_ZS_SIMPLEX_MAX_SIZE);
+	protected double mgCacheTolerance = getSettings().getDouble(PrismSettings.PRISM_ZS_MG_CACHE_TOLERANCE);
 	
 	protected int numCoalitions;
 	protected int numPlayers;
@@ -119,12 +123,48 @@ public class CSGModelChecker extends ProbModelChecker {
 	
 	protected boolean allEqual;
 
+	// Sparse copy of a CSG being solved (see getSparseCSG), and the CSG it was built from
+	protected CSGSparse sparseCSG;
+	protected CSG sparseCSGSource;
+
 	public CSGModelChecker(PrismComponent parent) throws PrismException {
 		super(parent);
 		utilities = new HashMap<BitSet, ArrayList<Double>>();
 		probabilities = new HashMap<BitSet, ArrayList<Distribution>>();
 		actions = new ArrayList<ArrayList<String>>();
 		strategies = new ArrayList<ArrayList<Integer>>();
+		// Optimistic value iteration and strategy iteration are not supported for concurrent games
+		if (solnMethod == SolnMethod.OPTIMISTIC_VALUE_ITERATION || solnMethod == SolnMethod.POLICY_ITERATION) {
+			solnMethod = SolnMethod.VALUE_ITERATION;
+		}
+	}
+	
+	@Override
+	public Result check(Model model, Expression expr) throws PrismException {
+		try {
+			return super.check(model, expr);
+		} finally {
+			// Don't keep the sparse copy of the CSG beyond this call
+			sparseCSG = null;
+			sparseCSGSource = null;
+		}
+	}
+
+	/**
+	 * Get a sparse version of {@code csg}, used for building the matrix games solved at each state:
+	 * {@code csg} itself if it is a {@link CSGSparse}, otherwise a copy of it. A copy is stored,
+	 * and reused for subsequent calls with the same CSG
+	 * (until the end of the current call to {@link #check(Model, Expression)}).
+	 */
+	protected CSGSparse getSparseCSG(CSG csg) {
+		if (csg instanceof CSGSparse) {
+			return (CSGSparse) csg;
+		}
+		if (csg != sparseCSGSource) {
+			sparseCSG = new CSGSparse((CSGSimple) csg);
+			sparseCSGSource = csg;
+		}
+		return sparseCSG;
 	}
 		
 	public ModelCheckerResult computeReachRewards(CSG csg, Coalition coalition, CSGRewards rewards, BitSet target, boolean min1, boolean min2, int unreachingSemantics) throws PrismException {
@@ -185,6 +225,9 @@ public class CSGModelChecker extends ProbModelChecker {
 	}
 	
 	public BitSet AF(CSG csg, BitSet b) throws PrismException {
+		if (preRel) {
+			return AFWorklist(csg, b);
+		}
 		int n = csg.getNumStates();
 		BitSet x, y, sol1;
 		x = new BitSet();
@@ -307,6 +350,9 @@ public class CSGModelChecker extends ProbModelChecker {
 	}
 	
 	public BitSet G(CSG csg, BitSet b) throws PrismException {
+		if (preRel) {
+			return GWorklist(csg, b);
+		}
 		int n = csg.getNumStates();
 		BitSet sol1, x;
 		sol1 = new BitSet();
@@ -324,6 +370,122 @@ public class CSGModelChecker extends ProbModelChecker {
 		return x;
 	}
 	
+	/**
+	 * Compute, for each choice of each state of {@code csg}, its row and column in the matrix game
+	 * of the state (for the current coalitions), numbered as in {@link #buildMatrixDist(CSG, int)},
+	 * and the numbers of rows and columns of each matrix game.
+	 * Choices are indexed consecutively over all states (as in {@link Attractor#getChoiceIndex(int, int)}).
+	 */
+	protected void buildMatrixIndexes(CSG csg, int choiceRow[], int choiceCol[], int numRows[], int numCols[]) {
+		CSGSparse sparse = getSparseCSG(csg);
+		List<Map<BitSet, Integer>> imaps = new ArrayList<Map<BitSet, Integer>>();
+		imaps.add(new HashMap<BitSet, Integer>());
+		imaps.add(new HashMap<BitSet, Integer>());
+		BitSet indexes = new BitSet();
+		int k = 0;
+		for (int s = 0; s < sparse.getNumStates(); s++) {
+			imaps.get(0).clear();
+			imaps.get(1).clear();
+			for (int t = 0; t < sparse.getNumChoices(s); t++, k++) {
+				int[] joint = sparse.getIndexes(s, t);
+				indexes.clear();
+				for (int p = 0; p < numPlayers; p++) {
+					indexes.set(joint[p] != -1 ? joint[p] : sparse.getIdleForPlayer(p));
+				}
+				for (int c = 0; c < 2; c++) {
+					BitSet tmp = (BitSet) actionIndexes[c].clone();
+					tmp.and(indexes);
+					Map<BitSet, Integer> imap = imaps.get(c);
+					Integer i = imap.get(tmp);
+					if (i == null) {
+						i = imap.size();
+						imap.put(tmp, i);
+					}
+					(c == 0 ? choiceRow : choiceCol)[k] = i;
+				}
+			}
+			numRows[s] = imaps.get(0).size();
+			numCols[s] = imaps.get(1).size();
+		}
+	}
+
+	/**
+	 * Worklist-based version of {@link #G(CSG, BitSet)}: the complement is the attractor of the states
+	 * not in {@code b}, where a state is added once every row of its matrix game has some column
+	 * with a transition into the attractor (see {@link Attractor}).
+	 */
+	protected BitSet GWorklist(CSG csg, BitSet b) throws PrismException {
+		int n = csg.getNumStates();
+		int numChoices = csg.getNumChoices();
+		int choiceRow[] = new int[numChoices];
+		int choiceCol[] = new int[numChoices];
+		int numRows[] = new int[n];
+		int numCols[] = new int[n];
+		buildMatrixIndexes(csg, choiceRow, choiceCol, numRows, numCols);
+		Attractor attractor = new Attractor(csg, csg.getIncomingChoiceRelation(this, true), choiceRow, numRows);
+		BitSet notB = new BitSet();
+		notB.set(0, n);
+		notB.andNot(b);
+		BitSet result = attractor.compute(null, notB, s -> true, null, null);
+		result.flip(0, n);
+		return result;
+	}
+
+	/**
+	 * Worklist-based version of {@link #AF(CSG, BitSet)}. For the inner (least) fixed point,
+	 * a state is added once every column of its matrix game has a "safe" row (all of whose transitions
+	 * stay in the current set) with a transition into the set, computed as an attractor (see {@link Attractor}).
+	 * For the outer (greatest) fixed point, the rows leaving the current set are marked unsafe
+	 * as states are removed from it.
+	 */
+	protected BitSet AFWorklist(CSG csg, BitSet b) throws PrismException {
+		int n = csg.getNumStates();
+		int numChoices = csg.getNumChoices();
+		int choiceRow[] = new int[numChoices];
+		int choiceCol[] = new int[numChoices];
+		int numRows[] = new int[n];
+		int numCols[] = new int[n];
+		buildMatrixIndexes(csg, choiceRow, choiceCol, numRows, numCols);
+		IncomingChoiceRelation incoming = csg.getIncomingChoiceRelation(this, true);
+		Attractor attractor = new Attractor(csg, incoming, choiceCol, numCols);
+		int rowStart[] = new int[n + 1];
+		for (int s = 0; s < n; s++) {
+			rowStart[s + 1] = rowStart[s] + numRows[s];
+		}
+		// States with no choices can only be in the result if they are in b
+		BitSet subset = new BitSet();
+		for (int s = 0; s < n; s++) {
+			subset.set(s, csg.getNumChoices(s) > 0);
+		}
+		BitSet unsafeRow = new BitSet();
+		BitSet enabled = new BitSet();
+		enabled.set(0, numChoices);
+		BitSet y = new BitSet();
+		y.set(0, n);
+		while (true) {
+			BitSet x = attractor.compute(subset, b, s -> true, enabled, null);
+			y.andNot(x);
+			if (y.isEmpty()) {
+				return x;
+			}
+			// Rows with a transition to a removed state are no longer safe
+			for (int t = y.nextSetBit(0); t >= 0; t = y.nextSetBit(t + 1)) {
+				for (int i = incoming.getIncomingStart(t), end = incoming.getIncomingEnd(t); i < end; i++) {
+					int s = incoming.getIncomingState(i);
+					unsafeRow.set(rowStart[s] + choiceRow[attractor.getChoiceIndex(s, incoming.getIncomingChoice(i))]);
+				}
+			}
+			for (int s = 0; s < n; s++) {
+				for (int t = 0, k = attractor.getChoiceIndex(s, 0); t < csg.getNumChoices(s); t++, k++) {
+					if (unsafeRow.get(rowStart[s] + choiceRow[k])) {
+						enabled.clear(k);
+					}
+				}
+			}
+			y = x;
+		}
+	}
+	
 	public void buildCoalitions(CSG csg, Coalition coalition, boolean min) throws PrismLangException {
 		int p;
 		numPlayers = csg.getNumPlayers();
@@ -416,15 +578,16 @@ public class CSGModelChecker extends ProbModelChecker {
 			actions.add(c, new ArrayList<String>());
 			strategies.add(c, new ArrayList<Integer>());
 		}
-		for (t = 0; t < csg.getNumChoices(s); t++) {
+		CSGSparse sparse = getSparseCSG(csg);
+		for (t = 0; t < sparse.getNumChoices(s); t++) {
 			jidx = new BitSet();
-			joint = csg.getIndexes(s, t);
+			joint = sparse.getIndexes(s, t);
 			indexes.clear();
 			for (p = 0; p < numPlayers; p++) {
 				if (joint[p] != -1)
 					indexes.set(joint[p]);
 				else 
-					indexes.set(csg.getIdleForPlayer(p));
+					indexes.set(sparse.getIdleForPlayer(p));
 			}
 			for (c = 0; c < 2; c++) {
 				v = 0.0;
@@ -455,8 +618,7 @@ public class CSGModelChecker extends ProbModelChecker {
 			probabilities.put(jidx, new ArrayList<Distribution>());
 			v = 0.0;
 			if (val != null) {
-				for (int d : csg.getChoice(s, t).getSupport()) 
-					v += csg.getChoice(s, t).get(d) * val[d];
+				v += sparse.mvMultSingle(s, t, val);
 			}
 			if (rewards != null)
 				v += rewards.get(0).getTransitionReward(s, t);
@@ -537,71 +699,18 @@ public class CSGModelChecker extends ProbModelChecker {
 		return mdist;
 	}
 	
-	public void buildLPLpsolve(LpSolve lp, ArrayList<ArrayList<Double>> mgame, boolean rew, boolean min) throws LpSolveException {	
-		int nrows = (min)? mgame.get(0).size() : mgame.size(); // Number of rows
-		int ncols = (min)? mgame.size() : mgame.get(0).size(); // Number of columns
-		int[] vari = new int[nrows+1]; // Indexes of variables, should be m + 1 for an m x n matrix
-		double[] row = new double[nrows+1];
-		lp.setColName(1, "v"); 
-		// Sets bounds for each p variable
-		for (int i = 2; i <= nrows + 1; i++) {
-			if (min)
-				lp.setColName(i, actions.get(1).get(i - 2));
-			else 
-				lp.setColName(i, actions.get(0).get(i - 2));
-			lp.setBounds(i, 0, 1.0); 
-		}
-		// Rewards mode
-		if (rew) {
-			lp.setBounds(1, -1.0 * lp.getInfinite(), lp.getInfinite());
-		}
-		else {
-			lp.setBounds(1, 0, 1.0);
-		}
-		lp.setAddRowmode(true); 
-		int k = 0;
-		// Builds each column considering the n + 1 constraints as a matrix
-		for (int j = 0; j < ncols; j++) {
-			vari[k] = 1;
-			row[k] = scaleFactor;
-			for(int i = 0; i < nrows; i++) {
-				k++;
-				vari[k] = k+1;
-				if (min)
-					row[k] = -1.0 * scaleFactor * mgame.get(j).get(i); 
-				else
-					row[k] = -1.0 * scaleFactor * mgame.get(i).get(j); 
+	/**
+	 * Convert a matrix game to an array (for {@link MatrixGameSolver}).
+	 */
+	private double[][] matrixGameToArray(ArrayList<ArrayList<Double>> mgame) {
+		double[][] game = new double[mgame.size()][];
+		for (int row = 0; row < mgame.size(); row++) {
+			game[row] = new double[mgame.get(row).size()];
+			for (int col = 0; col < game[row].length; col++) {
+				game[row][col] = mgame.get(row).get(col);
 			}
-			if (min)
-				lp.addConstraintex(nrows+1, row, vari, LpSolve.GE, 0.0);
-			else
-				lp.addConstraintex(nrows+1, row, vari, LpSolve.LE, 0.0);
-			k = 0;
-		}
-		// Sets name for each row (over ncols as they represent the constraints)
-		for (k = 0; k < ncols; k++) {
-			if (min)
-				lp.setRowName(k + 1, actions.get(0).get(k));
-			else
-				lp.setRowName(k + 1, actions.get(1).get(k));
-		
 		}
-		for (k = 0; k < nrows + 1; k++) {
-			vari[k] = k + 1;
-			row[k] = (k > 0)? 1 : 0;
-		}
-		lp.addConstraintex(k, row, vari, LpSolve.EQ, 1.0);
-		lp.setAddRowmode(false);
-		for (k = 0; k < nrows + 1; k++) {
-			vari[k] = k + 1;
-			row[k] = (k == 0)? 1 : 0;
-		}
-		lp.setObjFnex(k, row, vari);
-		if (min)
-			lp.setMinim();
-		else
-			lp.setMaxim();
-		//lp.printLp();
+		return game;
 	}
 	
 	public int valInfinity(ArrayList<ArrayList<Double>> mgame) {
@@ -641,7 +750,7 @@ public class CSGModelChecker extends ProbModelChecker {
 		return -1;
 	}
 	
-	public double val(LpSolve lp, ArrayList<ArrayList<Double>> mgame, List<Map<BitSet, Double>> strat, Map<Integer, BitSet> rmap, int s, boolean rew, boolean min) throws PrismException {
+	public double val(MatrixGameSolver solver, ArrayList<ArrayList<Double>> mgame, List<Map<BitSet, Double>> strat, Map<Integer, BitSet> rmap, int s, boolean rew, boolean min) throws PrismException {
 		long timer = System.currentTimeMillis();
 		int nrows = mgame.size(); // Number of rows
 		int ncols = mgame.get(0).size(); // Number of columns
@@ -697,81 +806,32 @@ public class CSGModelChecker extends ProbModelChecker {
 				return res;
 			}
 			else {
+				// values of the strategy (for the coalition, or the other player if min)
+				double[] values = new double[(min)? mgame.get(0).size() : mgame.size()];
 				try {
-					buildLPLpsolve(lp, mgame, rew, min);
-				} 
-				catch (LpSolveException e1) {
-					throw new PrismException("Exception raised by lpSolve when building linear program for state  " + s);
-				}
-				//lp.unscale();
-				//lp.setPresolve(LpSolve.PRESOLVE_ROWS, lp.getPresolveloops());
-				//lp.setPresolve(LpSolve.PRESOLVE_COLS, lp.getPresolveloops());
-				//lp.setPresolve(LpSolve.PRESOLVE_ROWDOMINATE, lp.getPresolveloops());
-				//lp.setPresolve(LpSolve.PRESOLVE_COLDOMINATE, lp.getPresolveloops());
-				//lp.setPresolve(LpSolve.PRESOLVE_BOUNDS, lp.getPresolveloops());
-				//lp.setPresolve(LpSolve.PRESOLVE_REDUCEGCD, lp.getPresolveloops());
-				//lp.setScaling(LpSolve.SCALE_GEOMETRIC);
-				//lp.setScaling(LpSolve.SCALE_POWER2);
-				//lp.setScaling(LpSolve.SCALE_EQUILIBRATE);
-				try {
-					int status = lp.solve();
-					if (status == LpSolve.OPTIMAL) {
-						res = lp.getObjective();
-						double[] values = (min)? new double[maxCols + 1] : new double[maxRows + 1];
-						lp.getVariables(values);
-						if (generateStrategy || exportAdv) {
-							for (int row = 1; row <= nrows; row++) {
-								if (values[row] > 0)
-									d.put(rmap.get(row - 1), values[row]);
-							}
-							strat.set(s, d);
-						}
-					}
-					else {
-						throw new PrismException("lpSolve could not find an optimal solution for state " + s);
-					}
+					res = solver.solve(s, matrixGameToArray(mgame), rew, min, values);
 				}
-				catch (Exception e) {
-					//e.printStackTrace();
-					//lp.printLp();
-					mainLog.println("Exception raised by lpSolve when computing value for state " + s + ". lpSolve status: " + lp.getStatustext(lp.getStatus()));
+				catch (PrismException e) {
+					mainLog.println(e.getMessage());
 					mainLog.println("Rounding up entries...");
-					ArrayList<ArrayList<Double>> mcopy = new ArrayList<ArrayList<Double>>(mgame);
-					mgame.clear();
-					for (int row = 0; row < nrows; row++) {
-						mgame.add(row, new ArrayList<Double>());
-						for (int col = 0; col < ncols; col++) {
-							mgame.get(row).add(col, Precision.round(mcopy.get(row).get(col), 9, BigDecimal.ROUND_FLOOR));
-						}	
+					for (ArrayList<Double> mrow : mgame) {
+						for (int col = 0; col < mrow.size(); col++) {
+							mrow.set(col, Precision.round(mrow.get(col), 9, BigDecimal.ROUND_FLOOR));
+						}
 					}
-					mcopy.clear();
 					try {
-						if (min)
-							lp.resizeLp(0, maxCols + 1);
-						else
-							lp.resizeLp(0, maxRows + 1);
-						buildLPLpsolve(lp, mgame, rew, min);
-						int status = lp.solve();
-						if (status == LpSolve.OPTIMAL) {
-							res = lp.getObjective();
-							double[] values = (min)? new double[maxCols + 1] : new double[maxRows + 1];
-							lp.getVariables(values);
-							if (generateStrategy || exportAdv) {
-								for (int row = 1; row <= nrows; row++) {
-									if (values[row] > 0)
-										d.put(rmap.get(row - 1), values[row]);
-								}
-								strat.set(s, d);
-							}
-						}
-						else {
-							throw new PrismException("Rounding up failed for state " + s + ". Failed to compute solution");	
-						}
-					} 
-					catch (LpSolveException e2) {
+						res = solver.solve(s, matrixGameToArray(mgame), rew, min, values);
+					}
+					catch (PrismException e2) {
 						throw new PrismException("Rounding up failed for state " + s + ". Failed to compute solution");
 					}
-					return  res;
+				}
+				if (generateStrategy || exportAdv) {
+					for (int i = 0; i < values.length; i++) {
+						if (values[i] > 0)
+							d.put(rmap.get(i), values[i]);
+					}
+					strat.set(s, d);
 				}
 			}
 		}
@@ -785,7 +845,7 @@ public class CSGModelChecker extends ProbModelChecker {
 			throw new PrismException("Strategy synthesis for bounded properties is not supported yet.");
 		}
 		ModelCheckerResult res = new ModelCheckerResult();
-		LpSolve lp;
+		MatrixGameSolver solver;
 		ArrayList<ArrayList<Double>> mgame = new ArrayList<ArrayList<Double>>();
 		List<List<List<Map<BitSet, Double>>>> lstrat = null;
 		List<Map<BitSet, Double>> kstrat = null;
@@ -818,70 +878,62 @@ public class CSGModelChecker extends ProbModelChecker {
 		timer = System.currentTimeMillis();
 		if (verbosity >= 1)
 			mainLog.println("\nStarting value iteration...");
-		try {
-			lp = LpSolve.makeLp(maxCols + 1, maxRows + 1);
-			lp.setVerbose(LpSolve.CRITICAL);	
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-			throw new PrismException(e.toString());
-		}
+		solver = new MatrixGameSolver(scaleFactor, simplexMaxSize);
+		// Reuse matrix game solutions (not for bounded properties, where convergence is not checked)
+		if (!bounded && mgCacheTolerance >= 0)
+			solver.enableCache(mgCacheTolerance * termCritParam);
 		known.or(no);
 		known.or(yes);
 		for (s = 0; s < csg.getNumStates(); s++) {
 			nsol[s] = ntmp[s] = no.get(s)? 0.0 : yes.get(s)? 1.0 : 0.0;
 		}
 		k = 0;
-		while(!done) {
-			for(s = 0; s < csg.getNumStates(); s++) {
-				if (!known.get(s)) {
-					mgame = buildMatrixGame(csg, null, mmap, ntmp, s, min);
-					try {
-						if (min)
-							lp.resizeLp(0, maxCols + 1);
-						else
-							lp.resizeLp(0, maxRows + 1);
-					
-					} 
-					catch (LpSolveException e) {
-						throw new PrismException("Exception raised by lpSolve when resizing linear program for state " +  s + " at iteration " + k);
-					}
-					nsol[s] = val(lp, mgame, kstrat, mmap, s, false, min);
-					// player -> iteration -> state -> indexes -> value
-					if (bounded && (generateStrategy || exportAdv)) {
-						if (lstrat.get(0).get(k).get(s) == null || !lstrat.get(0).get(k - 1).get(s).equals(kstrat.get(s))) {
-							lstrat.get(0).get(k).set(s, kstrat.get(s));
+		try {
+			while(!done) {
+				for(s = 0; s < csg.getNumStates(); s++) {
+					if (!known.get(s)) {
+						mgame = buildMatrixGame(csg, null, mmap, ntmp, s, min);
+						nsol[s] = val(solver, mgame, kstrat, mmap, s, false, min);
+						// player -> iteration -> state -> indexes -> value
+						if (bounded && (generateStrategy || exportAdv)) {
+							if (lstrat.get(0).get(k).get(s) == null || !lstrat.get(0).get(k - 1).get(s).equals(kstrat.get(s))) {
+								lstrat.get(0).get(k).set(s, kstrat.get(s));
+							}
+							else {
+								lstrat.get(0).get(k).set(s, lstrat.get(0).get(k - 1).get(s));
+							}
 						}
-						else {
-							lstrat.get(0).get(k).set(s, lstrat.get(0).get(k - 1).get(s));
+						else if (generateStrategy || exportAdv) {
+							if (lstrat.get(0).get(0).get(s) == null) {
+								lstrat.get(0).get(0).set(s, kstrat.get(s));
+							}
+							else if (!lstrat.get(0).get(0).get(s).equals(kstrat.get(s))) {
+								lstrat.get(0).get(0).set(s, kstrat.get(s));
+							}
 						}
 					}
 					else if (generateStrategy || exportAdv) {
-						if (lstrat.get(0).get(0).get(s) == null) {
-							lstrat.get(0).get(0).set(s, kstrat.get(s));
-						}
-						else if (!lstrat.get(0).get(0).get(s).equals(kstrat.get(s))) {
-							lstrat.get(0).get(0).set(s, kstrat.get(s));
-						}
+						lstrat.get(0).get(0).add(s, null);
 					}
 				}
-				else if (generateStrategy || exportAdv) {
-					lstrat.get(0).get(0).add(s, null);
+				k++;
+				done = solver.doublesAreClose(nsol, ntmp, termCritParam, termCrit == TermCrit.RELATIVE);
+				if (!done && k == maxIters) {
+					throw new PrismException("Could not converge after " + maxIters + " iterations");
+				}
+				else if(k == limit) {
+					done = true;
+				}
+				else {
+					ntmp = Arrays.copyOf(nsol, nsol.length);
 				}
 			}
-			k++;
-			done = PrismUtils.doublesAreClose(nsol, ntmp, termCritParam, termCrit == TermCrit.RELATIVE);
-			if (!done && k == maxIters) {
-				throw new PrismException("Could not converge after " + maxIters + " iterations");
-			}
-			else if(k == limit) {
-				done = true;
-			}
-			else {
-				ntmp = Arrays.copyOf(nsol, nsol.length);
-			}
-		}		
+		} finally {
+			solver.free();
+		}
 		mainLog.println("\nValue iteration converged after " + k + " iterations.");
+		if (verbosity >= 1 && solver.getNumCacheHits() > 0)
+			mainLog.println("Matrix games: " + solver.getNumSolved() + " solved, " + solver.getNumCacheHits() + " reused from cache.");
 		timer = System.currentTimeMillis() - timer;
 		res.soln = nsol;
 		res.numIters = k;
@@ -891,12 +943,106 @@ public class CSGModelChecker extends ProbModelChecker {
 		return res;
 	}
 	
+	/**
+	 * Compute reachability probabilities using interval iteration, i.e., value iteration
+	 * from below and from above, which yields sound lower and upper bounds on the values.
+	 * This is only supported if there are no end components among the states with unknown values
+	 * (otherwise, the iteration from above may converge to a spurious fixed point).
+	 * @param csg The CSG
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min Min or max probabilities for the coalition (true=min, false=max)
+	 */
+	public ModelCheckerResult computeReachProbsIntervalIter(CSG csg, BitSet no, BitSet yes, boolean min) throws PrismException {
+		if (generateStrategy || exportAdv) {
+			throw new PrismNotSupportedException("Strategy synthesis is not supported for interval iteration on CSGs");
+		}
+		ModelCheckerResult res = new ModelCheckerResult();
+		MatrixGameSolver solver;
+		BitSet unknown = new BitSet();
+		int n = csg.getNumStates();
+		double[] lower = new double[n];
+		double[] upper = new double[n];
+		double[] lower2, upper2, tmp;
+		boolean absolute = termCrit == TermCrit.ABSOLUTE;
+		boolean done = false;
+		long timer;
+		int k, s;
+		timer = System.currentTimeMillis();
+		if (verbosity >= 1)
+			mainLog.println("\nStarting interval iteration...");
+		unknown.set(0, n);
+		unknown.andNot(no);
+		unknown.andNot(yes);
+		ECComputer ecComputer = ECComputer.createECComputer(this, csg);
+		ecComputer.computeMECStates((BitSet) unknown.clone());
+		if (!ecComputer.getMECStates().isEmpty()) {
+			throw new PrismNotSupportedException("Interval iteration for CSGs is only supported if there are no end components among the states with values other than 0 or 1");
+		}
+		solver = new MatrixGameSolver(scaleFactor, simplexMaxSize);
+		for (s = 0; s < n; s++) {
+			lower[s] = yes.get(s) ? 1.0 : 0.0;
+			upper[s] = no.get(s) ? 0.0 : 1.0;
+		}
+		lower2 = lower.clone();
+		upper2 = upper.clone();
+		k = 0;
+		try {
+			while (!done && k < maxIters) {
+				for (s = unknown.nextSetBit(0); s >= 0; s = unknown.nextSetBit(s + 1)) {
+					lower2[s] = valIntervalIter(solver, csg, lower, s, k, min);
+					upper2[s] = valIntervalIter(solver, csg, upper, s, k, min);
+				}
+				k++;
+				tmp = lower;
+				lower = lower2;
+				lower2 = tmp;
+				tmp = upper;
+				upper = upper2;
+				upper2 = tmp;
+				done = PrismUtils.doublesAreClose(lower, upper, termCritParam, absolute);
+			}
+		} finally {
+			solver.free();
+		}
+		timer = System.currentTimeMillis() - timer;
+		if (!done && errorOnNonConverge) {
+			String msg = "Iterative method (interval iteration) did not converge within " + k + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+		// The accuracy of the result is given as an absolute error bound
+		double maxError = Double.POSITIVE_INFINITY;
+		if (done) {
+			mainLog.println("Max " + (!absolute ? "relative " : "") + "diff between upper and lower bound on convergence: " + PrismUtils.formatDouble(PrismUtils.measureSupNormInterval(lower, upper, absolute)));
+			maxError = PrismUtils.measureSupNormInterval(lower, upper, true);
+			if (OptionsIntervalIteration.from(this).isSelectMidpointForResult()) {
+				PrismUtils.selectMidpoint(lower, upper);
+			}
+		}
+		mainLog.println("\nInterval iteration took " + k + " iterations and " + timer / 1000.0 + " seconds.");
+		res.soln = lower;
+		res.accuracy = AccuracyFactory.guaranteedNumericalIterative(maxError, true);
+		res.numIters = k;
+		res.timeTaken = timer / 1000.0;	
+		return res;
+	}
+	
+	/**
+	 * Value of the matrix game for state {@code s}, with utilities given by the vector {@code vect}
+	 * (a single step of interval iteration, at iteration {@code k}).
+	 */
+	private double valIntervalIter(MatrixGameSolver solver, CSG csg, double[] vect, int s, int k, boolean min) throws PrismException {
+		ArrayList<ArrayList<Double>> mgame = buildMatrixGame(csg, null, null, vect, s, min);
+		return val(solver, mgame, null, null, s, false, min);
+	}
+	
 	public ModelCheckerResult computeReachRewardsValIter(CSG csg, CSGRewards rewards, BitSet target, BitSet known, BitSet inf, double init[], int limit, boolean bounded, boolean min) throws PrismException {
 		if ((generateStrategy || exportAdv) && bounded) {
 			throw new PrismException("Strategy synthesis for bounded properties is not supported yet.");
 		}
 		ModelCheckerResult res = new ModelCheckerResult();
-		LpSolve lp;
+		MatrixGameSolver solver;
 		ArrayList<ArrayList<Double>> mgame = new ArrayList<ArrayList<Double>>();
 		List<List<List<Map<BitSet, Double>>>> lstrat = null;
 		List<Map<BitSet, Double>> kstrat = null;
@@ -929,14 +1075,10 @@ public class CSGModelChecker extends ProbModelChecker {
 		timer = System.currentTimeMillis();
 		if (verbosity >= 1)
 			mainLog.println("\nStarting value iteration...");
-		try {
-			lp = LpSolve.makeLp(maxCols + 1, maxRows + 1);
-			lp.setVerbose(LpSolve.CRITICAL);	
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-			throw new PrismException(e.toString());
-		}
+		solver = new MatrixGameSolver(scaleFactor, simplexMaxSize);
+		// Reuse matrix game solutions (not for bounded properties, where convergence is not checked)
+		if (!bounded && mgCacheTolerance >= 0)
+			solver.enableCache(mgCacheTolerance * termCritParam);
 		if (init != null) {
 			if (known !=null) {
 				for (i = 0; i < csg.getNumStates(); i++) 
@@ -955,53 +1097,50 @@ public class CSGModelChecker extends ProbModelChecker {
 		unknown.andNot(target);
 		unknown.andNot(inf);
 		k = 0;
-		while(!done) {
-			for(s = 0; s < csg.getNumStates(); s++) {
-				if (unknown.get(s)) {
-					mgame = buildMatrixGame(csg, rewards, mmap, ntmp, s, min);
-					try {
-						if (min)
-							lp.resizeLp(0, maxCols + 1);
-						else
-							lp.resizeLp(0, maxRows + 1);
-					} 
-					catch (LpSolveException e) {
-						throw new PrismException("Exception raised by lpSolve when resizing linear program for state " +  s + " at iteration " + k);
-					}
-					nsol[s] = val(lp, mgame, kstrat, mmap, s, true, min);
-					nsol[s] += rewards.getStateReward(s);
-					if (bounded && (generateStrategy || exportAdv)) {
-						// player -> iteration -> state -> indexes -> value
-						if (lstrat.get(0).get(k).get(s) == null || !lstrat.get(0).get(k - 1).get(s).equals(kstrat.get(s))) {
-							lstrat.get(0).get(k).set(s, kstrat.get(s));
-						}
-						else {
-							lstrat.get(0).get(k).set(s, lstrat.get(0).get(k - 1).get(s));
-						}
-					}
-					else if (generateStrategy || exportAdv) {
-						if (lstrat.get(0).get(0).get(s) == null) {
-							lstrat.get(0).get(0).set(s, kstrat.get(s));
+		try {
+			while(!done) {
+				for(s = 0; s < csg.getNumStates(); s++) {
+					if (unknown.get(s)) {
+						mgame = buildMatrixGame(csg, rewards, mmap, ntmp, s, min);
+						nsol[s] = val(solver, mgame, kstrat, mmap, s, true, min);
+						nsol[s] += rewards.getStateReward(s);
+						if (bounded && (generateStrategy || exportAdv)) {
+							// player -> iteration -> state -> indexes -> value
+							if (lstrat.get(0).get(k).get(s) == null || !lstrat.get(0).get(k - 1).get(s).equals(kstrat.get(s))) {
+								lstrat.get(0).get(k).set(s, kstrat.get(s));
+							}
+							else {
+								lstrat.get(0).get(k).set(s, lstrat.get(0).get(k - 1).get(s));
+							}
 						}
-						else if (!lstrat.get(0).get(0).get(s).equals(kstrat.get(s))) {
-							lstrat.get(0).get(0).set(s, kstrat.get(s));
+						else if (generateStrategy || exportAdv) {
+							if (lstrat.get(0).get(0).get(s) == null) {
+								lstrat.get(0).get(0).set(s, kstrat.get(s));
+							}
+							else if (!lstrat.get(0).get(0).get(s).equals(kstrat.get(s))) {
+								lstrat.get(0).get(0).set(s, kstrat.get(s));
+							}
 						}
 					}
 				}
+				k++;
+				done = solver.doublesAreClose(nsol, ntmp, termCritParam, termCrit == TermCrit.RELATIVE);
+				if (!done && k == maxIters) {
+					throw new PrismException("Could not converge after " + maxIters + " iterations");
+				}
+				else if(k == limit) {
+					done = true;
+				}
+				else {
+					ntmp = Arrays.copyOf(nsol, nsol.length);
+				}
 			}
-			k++;
-			done = PrismUtils.doublesAreClose(nsol, ntmp, termCritParam, termCrit == TermCrit.RELATIVE);
-			if (!done && k == maxIters) {
-				throw new PrismException("Could not converge after " + maxIters + " iterations");
-			}
-			else if(k == limit) {
-				done = true;
-			}
-			else {
-				ntmp = Arrays.copyOf(nsol, nsol.length);
-			}
+		} finally {
+			solver.free();
 		}
 		mainLog.println("\nValue iteration converged after " + k + " iterations.");
+		if (verbosity >= 1 && solver.getNumCacheHits() > 0)
+			mainLog.println("Matrix games: " + solver.getNumSolved() + " solved, " + solver.getNumCacheHits() + " reused from cache.");
 		timer = System.currentTimeMillis() - timer;
 		res.soln = nsol;
 		res.numIters = k;
@@ -1035,14 +1174,18 @@ public class CSGModelChecker extends ProbModelChecker {
 	}
 
 	public ModelCheckerResult computeUntilProbs(CSG csg, BitSet remain, BitSet target, boolean min1, boolean min2, Coalition coalition) throws PrismException {
-		return computeUntilProbs(csg, remain, target, maxIters, min1, min2, coalition);
+		return computeUntilProbs(csg, remain, target, maxIters, false, min1, min2, coalition);
 	}
 	
 	public ModelCheckerResult computeBoundedUntilProbs(CSG csg, BitSet remain, BitSet target, int k, boolean min1, boolean min2, Coalition coalition) throws PrismException{
-		return computeUntilProbs(csg, remain, target, k, min1, min2, coalition);
+		return computeUntilProbs(csg, remain, target, k, true, min1, min2, coalition);
 	}
 	
-	public ModelCheckerResult computeUntilProbs(CSG csg, BitSet remain, BitSet target, int bound, boolean min1, boolean min2, Coalition coalition) throws PrismException {
+	/**
+	 * Compute until probabilities, for at most {@code bound} steps if {@code bounded} is true,
+	 * and otherwise for unbounded until (with {@code bound} limiting the number of iterations).
+	 */
+	public ModelCheckerResult computeUntilProbs(CSG csg, BitSet remain, BitSet target, int bound, boolean bounded, boolean min1, boolean min2, Coalition coalition) throws PrismException {
 		ModelCheckerResult res = null;
 		BitSet no, tmp, yes;
 		int n, numYes, numNo;
@@ -1083,12 +1226,17 @@ public class CSGModelChecker extends ProbModelChecker {
 		
 		if (verbosity >= 1)
 			mainLog.println("target=" + target.cardinality() + ", yes=" + numYes + ", no=" + numNo + ", maybe=" + (n - (numYes + numNo)));
-		switch (solnMethod) {
-			case VALUE_ITERATION:
-				res = computeReachProbsValIter(csg, no, yes, bound, false, min1);
-				break;
-			default:
-				throw new PrismException("Unknown CSG solution method " + solnMethod);
+		// Interval iteration is only used for unbounded until
+		if (doIntervalIteration && !bounded) {
+			res = computeReachProbsIntervalIter(csg, no, yes, min1);
+		} else {
+			switch (solnMethod) {
+				case VALUE_ITERATION:
+					res = computeReachProbsValIter(csg, no, yes, bound, false, min1);
+					break;
+				default:
+					throw new PrismException("Unknown CSG solution method " + solnMethod);
+			}
 		}
 		
 		res.timeProb0 = timerProb0 / 1000.0;
@@ -1255,7 +1403,7 @@ public class CSGModelChecker extends ProbModelChecker {
 	}
 	
 	public ModelCheckerResult computeInstantaneousRewards(CSG csg, CSGRewards csgRewards, Coalition coalition, int k, boolean min1, boolean min2) throws PrismException {
-		LpSolve lp;
+		MatrixGameSolver solver;
 		ModelCheckerResult res = new ModelCheckerResult();
 		ArrayList<ArrayList<Double>> mgame = new ArrayList<ArrayList<Double>>();
 		List<Map<BitSet, Double>> kstrat = (generateStrategy || exportAdv)? new ArrayList<Map<BitSet, Double>>() : null;
@@ -1271,34 +1419,21 @@ public class CSGModelChecker extends ProbModelChecker {
 			nsol[i] = csgRewards.getStateReward(i);
 		
 		buildCoalitions(csg, coalition, min1);
+		solver = new MatrixGameSolver(scaleFactor, simplexMaxSize);
 		try {
-			lp = LpSolve.makeLp(maxCols + 1, maxRows + 1);
-			lp.setVerbose(LpSolve.IMPORTANT);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-			throw new PrismException(e.toString());
-		}
-		for (i = 0; i < k; i++) {
-			for(int s = 0; s < csg.getNumStates(); s++) {				
-				mgame.clear();
-				mgame = buildMatrixGame(csg, null, null, nsol, s, min1);
-				try {
-					if (min1)
-						lp.resizeLp(0, maxCols + 1);
-					else
-						lp.resizeLp(0, maxRows + 1);
-					nsoln2[s] = val(lp, mgame, kstrat, null, s, true, min1);
-				}
-				catch(Exception e) {
-					e.printStackTrace();
-					throw new PrismException(e.toString());
+			for (i = 0; i < k; i++) {
+				for(int s = 0; s < csg.getNumStates(); s++) {				
+					mgame.clear();
+					mgame = buildMatrixGame(csg, null, null, nsol, s, min1);
+					nsoln2[s] = val(solver, mgame, kstrat, null, s, true, min1);
 				}
+				ntmp = nsol;
+				nsol = nsoln2;
+				nsoln2 = ntmp;
 			}
-			ntmp = nsol;
-			nsol = nsoln2;
-			nsoln2 = ntmp;
-		}		
+		} finally {
+			solver.free();
+		}
 		timer = System.currentTimeMillis() - timer;
 		mainLog.println("Backwards transient instantaneous rewards computation took " + i + " iters and " + timer / 1000.0 + " seconds.");
 		res.soln = nsol;
@@ -1672,8 +1807,9 @@ public class CSGModelChecker extends ProbModelChecker {
 			product = ltlmc.constructProductCSG(this, csg, exprs.get(index), null, allowedAcceptance);
 		}
 		
-		product.productModel.clearInitialStates();
-		product.productModel.addInitialState(product.getModelState(csg.getFirstInitialState()));
+		// (the product is built as a CSGSimple)
+		((CSGSimple) product.productModel).clearInitialStates();
+		((CSGSimple) product.productModel).addInitialState(product.getModelState(csg.getFirstInitialState()));
 
 		//product.productModel.exportToDotFile(path + "/product.dot");
 	
@@ -1754,7 +1890,7 @@ public class CSGModelChecker extends ProbModelChecker {
 			}
 			/*** Optional filtering ***/
 			/*
-			CSG csg_rm = new CSG(csg.getPlayers());
+			CSGSimple csg_rm = new CSGSimple(csg.getPlayers());
 			List<CSGRewards> csg_rew_rm = new ArrayList<CSGRewards>();
 			map_state = new HashMap<Integer, Integer>();
 			list_state = new ArrayList<State>();
@@ -1862,18 +1998,19 @@ public class CSGModelChecker extends ProbModelChecker {
 	protected HashMap<Integer, Integer> map_state;
 	protected List<State> list_state;
 	 
-	public void filterStates(CSG csg, CSG csg_rm, List<CSGRewards> rewards, List<CSGRewards> rew_rm, int s) {
-		Distribution d;
+	public void filterStates(CSG csg, CSGSimple csg_rm, List<CSGRewards> rewards, List<CSGRewards> rew_rm, int s) {
+		Distribution choice, d;
 		int i;
 		list_state.add(csg.getStatesList().get(s));
    		for (int c = 0; c < csg.getNumChoices(s); c++) { // gets all choices
+   			choice = csg.getChoice(s, c);
    			d = new Distribution();
-			for (int t : csg.getChoice(s, c).getSupport()) { // gets all targets
+			for (int t : choice.getSupport()) { // gets all targets
 				if(!map_state.keySet().contains(t)) { //if not yet explored
 					map_state.put(t, csg_rm.addState());
 					filterStates(csg, csg_rm, rewards, rew_rm, t);
 				}
-				d.add(map_state.get(t), csg.getChoice(s, c).get(t)); // adds target to distribution
+				d.add(map_state.get(t), choice.get(t)); // adds target to distribution
 			}
 			i = csg_rm.addActionLabelledChoice(map_state.get(s), d, csg.getAction(s, c));
 			csg_rm.setIndexes(map_state.get(s), i, csg.getIndexes(s, c));
@@ -36,6 +36,7 @@ import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -300,15 +301,16 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 			actions.add(c, new ArrayList<String>());
 			strategies.add(c, new ArrayList<Integer>());
 		}
-		for (t = 0; t < csg.getNumChoices(s); t++) {
+		CSGSparse sparse = getSparseCSG(csg);
+		for (t = 0; t < sparse.getNumChoices(s); t++) {
 			jidx = new BitSet();
-			joint = csg.getIndexes(s, t);
+			joint = sparse.getIndexes(s, t);
 			indexes.clear();
 			for (p = 0; p < numPlayers; p++) {
 				if (joint[p] != -1)
 					indexes.set(joint[p]);
 				else 
-					indexes.set(csg.getIdleForPlayer(p));
+					indexes.set(sparse.getIdleForPlayer(p));
 			}
 			for (c = 0; c < numCoalitions; c++) {
 				v = 0.0;
@@ -339,10 +341,7 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 			}
 			utilities.put(jidx, new ArrayList<Double>());
 			for (c = 0; c < numCoalitions; c++) {
-				v = 0.0;
-				for (int d : csg.getChoice(s, t).getSupport()) {
-					v += csg.getChoice(s, t).get(d) * val[c][d];
-				}
+				v = sparse.mvMultSingle(s, t, val[c]);
 				if (rewards != null) {
 					if (rewards.get(c) != null)
 						v += rewards.get(c).getTransitionReward(s, t);		
@@ -539,8 +538,10 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 				v = 0.0;
 				for (t = 0; t < csg.getNumChoices(s); t++) {
 					sum = 0.0;
-					for (int u : csg.getChoice(s, t).keySet()) {
-						sum += csg.getChoice(s, t).get(u) * sol2[u];
+					Iterator<Map.Entry<Integer, Double>> iter = csg.getTransitionsIterator(s, t);
+					while (iter.hasNext()) {
+						Map.Entry<Integer, Double> e = iter.next();
+						sum += e.getValue() * sol2[e.getKey()];
 					}
 					v = (sum > v)? sum : v;
 				}
@@ -878,7 +879,7 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 		
 		//System.out.println("-- common " + common);
 		
-		CSG newmodel = new CSG();
+		CSGSimple newmodel = new CSGSimple();
 		newmodel.setActions(csg.getActions());
 		newmodel.setPlayers(csg.getPlayers());
 		newmodel.setIndexes(csg.getIndexes());
@@ -1136,9 +1137,9 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 		return false;
 	}
 	
-	public void exploreSat(CSG csg, CSG newmodel, Map<Integer, Integer> nomap, Map<Integer, Integer> extmap, Map<BitSet, BitSet> subgames, List<State> newstatelist, 
+	public void exploreSat(CSG csg, CSGSimple newmodel, Map<Integer, Integer> nomap, Map<Integer, Integer> extmap, Map<BitSet, BitSet> subgames, List<State> newstatelist, 
 									VarList newvarlist, Declaration[] goals, BitSet[] targets, BitSet explored, BitSet subgame, int s) {
-		Distribution d;
+		Distribution choice, d;
 		int l, m, p, t, v;
 		explored.set(s);
 		if (!subgame.isEmpty()) { 
@@ -1147,8 +1148,9 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 			subgames.get(subgame).set(s);
 		}
 		for (t = 0; t < csg.getNumChoices(nomap.get(s)); t++) {
+			choice = csg.getChoice(nomap.get(s), t);
 			d = new Distribution();
-			for (int u : csg.getChoice(nomap.get(s), t).getSupport()) {
+			for (int u : choice.getSupport()) {
 				State ustate = new State(newstatelist.get(s));
 				BitSet usubgame = new BitSet();
 				usubgame.or(subgame);
@@ -1172,7 +1174,7 @@ public class CSGModelCheckerEquilibria extends CSGModelChecker {
 				}
 				if (!explored.get(m)) 
 					exploreSat(csg, newmodel, nomap, extmap, subgames, newstatelist, newvarlist, goals, targets, explored, usubgame, m);
-				d.add(m, csg.getChoice(nomap.get(s), t).get(u));
+				d.add(m, choice.get(u));
 			}	
 			l = newmodel.addActionLabelledChoice(s, d, csg.getAction(nomap.get(s), t));
 			newmodel.setIndexes(s, l, csg.getIndexes(nomap.get(s), t));
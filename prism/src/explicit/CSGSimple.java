@@ -0,0 +1,235 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//  * Gabriel Santos <gabriel.santos@cs.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import java.util.Arrays;
+import explicit.STPGExplicit;
+import prism.ModelType;
+import prism.PrismException;
+
+/**
+ * Simple explicit-state representation of a concurrent stochastic game (CSG).
+ * This is mutable, storing a {@link Distribution} for each choice (joint action).
+ */
+public class CSGSimple extends STPGExplicit implements CSG {
+
+	protected Map<Integer, Map<String, Map<String, Map<String, Double>>>> rewards; 
+	
+	protected List<List<int[]>> transIndexes;
+	
+	protected BitSet[] indexes; // indexes of actions for each player
+	protected String[] players; // names of each player
+	protected Vector<String> actions; // names of actions
+ 	
+	protected int[] idles;
+	
+	public CSGSimple() {
+		super();
+		transIndexes = new ArrayList<List<int[]>>();
+	}
+	
+	public CSGSimple(String[] players) {
+		super();
+		transIndexes = new ArrayList<List<int[]>>();
+		this.players = players;
+		initIndexes();
+	}
+
+	public CSGSimple(CSGSimple csg, int[] permut) {
+		super(csg, permut);
+		//int idle;
+		//System.out.println("-- permut " + Arrays.toString(permut));
+		transIndexes = new ArrayList<List<int[]>>();
+		for (int s = 0; s < csg.getNumStates(); s++) {
+			transIndexes.add(s, null);
+		}
+		for (int s = 0; s < csg.getNumStates(); s++) {
+			//System.out.println("-- state " + s);
+			//csg.getTransIndexes(s).stream().map(t -> Arrays.toString(t)).forEach(System.out::println);
+			transIndexes.set(permut[s], csg.getTransIndexes(s));
+		}
+		indexes = csg.getIndexes();
+		players = csg.getPlayers();
+		actions = csg.getActions();
+		idles = csg.getIdles();
+		/*
+		idle = actions.size() + 1;
+		for (int p = 0; p < indexes.length; p++) {
+			indexes[p].set(idle);
+			idle++;
+		}
+		*/
+	}
+	
+	public void initIndexes() {
+		idles = new int[players.length];
+		indexes = new BitSet[players.length];
+		for (int j = 0; j < players.length; j++) {
+			indexes[j] = new BitSet();
+		}
+	}
+	
+	public BitSet[] getIndexes() {
+		return indexes;
+	}
+	
+	public String[] getPlayers() {
+		return players;
+	}
+	
+	public Vector<String> getActions() {
+		return actions;
+	}
+
+	public List<List<int[]>> getTransIndexes() {
+		return transIndexes;
+	}
+	
+	public List<int[]> getTransIndexes(int s) {
+		return transIndexes.get(s);
+	}
+	
+	public int[] getIndexes(int s, int i) {
+		return transIndexes.get(s).get(i);
+	}
+	
+	public int[] getIdles() {
+		return idles;
+	}
+	
+	public void setIndexes(int s, int t, int[] indexes) {
+		this.transIndexes.get(s).add(t, indexes);
+	}
+	
+	public void setIndexes(BitSet[] indexes) {
+		this.indexes = indexes;
+	}
+	
+	public void setIdles(int[] idles) {
+		this.idles = idles;
+	}
+	
+	public void setPlayers(String[] players) {
+		this.players = players;
+	}
+	
+	public void setActions(List<Object> actions) {
+		this.actions = new Vector<String>();
+		for (Object action : actions) {
+			this.actions.add(action.toString());
+		}
+	}
+	
+	public void setActions(Vector<String> actions) {
+		this.actions = new Vector<String>(actions);
+	}
+	
+	@Override
+	public int addState() {
+		addStates(1);
+		transIndexes.add(numStates - 1, new ArrayList<int[]>());
+		return numStates - 1;
+	}
+	
+	public int addChoice(int s, Distribution distr, int[] indexes) {
+		int i = super.addChoice(s, distr);
+		for (int j = 0; j < indexes.length; j++) {
+			if (indexes[j] >= 0)
+				this.indexes[j].set(indexes[j]);
+		}
+		transIndexes.get(s).add(i, indexes);
+		return i;
+	}
+	
+	public void addIdleIndexes() {
+		int max = actions.size() + 1;
+		for (int p = 0; p < idles.length; p++) {
+			actions.add(max - 1, "<" + p + ">");
+			idles[p] = max++;
+		}
+	}
+	
+	public int addActionLabelledChoice(int s, Distribution distr, int[] indexes) {
+		//System.out.println("\n-- Adding choice for state " + s);
+		//System.out.println("-- distr " + distr);
+		//System.out.println("-- indexes " + Arrays.toString(indexes));		
+		int i, j;
+		String label = "";
+		for (j = 0; j < indexes.length; j++) {
+			if(indexes[j] >= 0)
+				label += "[" +  actions.get(indexes[j] - 1) + "]";
+			else 
+				label += "<" + j + ">";
+		} 
+		i = super.addActionLabelledChoice(s, distr, label);
+		//System.out.println("-- label" + label);
+		for (j = 0; j < indexes.length; j++) {
+			if (indexes[j] >= 0)
+				this.indexes[j].set(indexes[j]);
+			//else 
+				//this.indexes[j].set(idles[j]);
+		}
+		transIndexes.get(s).add(i, indexes);
+		return i;
+	}
+	
+	public void fixDeadlock(int s) {
+		Distribution distr = new Distribution();
+		distr.add(s, 1.0);
+		int[] indexes = new int[players.length];
+		for (int p = 0; p < players.length; p++) {
+			indexes[p] = -1;
+		}
+		addActionLabelledChoice(s, distr, indexes);
+	}
+	
+	public void printModelInfo() {
+		System.out.println(actions);
+		for (int s = 0; s < getNumStates(); s++) {
+			System.out.print("\n## state " + s + " : " + Arrays.toString(getNumActions(s)));
+			for (int p = 0; p < getNumPlayers(); p++) {
+				System.out.print(" : " + getActionsForPlayer(s, p) + " : " + getIndexesForPlayer(s, p));
+			}
+			System.out.println();
+			for (int t = 0; t < getNumChoices(s); t++) {
+				System.out.println(Arrays.toString(getIndexes(s, t)) + " : " + Arrays.toString(getActions(s, t)));
+			}
+		}
+	}
+	
+	@Override
+	public ModelType getModelType() {
+		return ModelType.CSG;
+	}
+}
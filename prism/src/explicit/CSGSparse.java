@@ -0,0 +1,142 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Vector;
+
+import prism.ModelType;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a concurrent stochastic game (CSG).
+ * Transitions are stored as for {@link MDPSparse}, with a choice for each joint action,
+ * and the (joint) action indexes of each choice are stored in a per-choice array.
+ */
+public class CSGSparse extends STPGSparse implements CSG
+{
+	/** Joint action indexes for each choice (indexed as for {@code choiceStarts}) */
+	protected int choiceIndexes[][];
+
+	// Player/action info (see CSGSimple)
+	protected BitSet[] indexes;
+	protected String[] players;
+	protected Vector<String> actionNames;
+	protected int[] idles;
+
+	// Constructors
+
+	/**
+	 * Copy constructor (from CSGSimple).
+	 * Info about players and actions is shared with {@code csg}.
+	 */
+	public CSGSparse(CSGSimple csg)
+	{
+		super(csg);
+		choiceIndexes = new int[numDistrs][];
+		for (int s = 0; s < numStates; s++) {
+			int l1 = rowStarts[s];
+			int h1 = rowStarts[s + 1];
+			for (int j = l1; j < h1; j++) {
+				choiceIndexes[j] = csg.getIndexes(s, j - l1);
+			}
+		}
+		indexes = csg.getIndexes();
+		players = csg.getPlayers();
+		actionNames = csg.getActions();
+		idles = csg.getIdles();
+	}
+
+	/**
+	 * Constructor: build from the sparse (CSR) storage of the transitions (as for
+	 * {@link MDPSparse#MDPSparse(int, int[], int[], int[], double[], Object[])}),
+	 * the joint action indexes of each choice, and the player/action info (see {@link CSG}).
+	 * The arrays are not copied. All states are owned by player 1 (as for {@link CSGSimple}).
+	 */
+	public CSGSparse(int numStates, int rowStarts[], int choiceStarts[], int cols[], double nonZeros[], Object actions[], int choiceIndexes[][], String[] players,
+			Vector<String> actionNames, BitSet[] indexes, int[] idles)
+	{
+		super(numStates, rowStarts, choiceStarts, cols, nonZeros, actions, new int[numStates]);
+		Arrays.fill(statePlayers, 1);
+		this.choiceIndexes = choiceIndexes;
+		this.players = players;
+		this.actionNames = actionNames;
+		this.indexes = indexes;
+		this.idles = idles;
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public ModelType getModelType()
+	{
+		return ModelType.CSG;
+	}
+
+	// Accessors (for CSG)
+
+	@Override
+	public BitSet[] getIndexes()
+	{
+		return indexes;
+	}
+
+	@Override
+	public String[] getPlayers()
+	{
+		return players;
+	}
+
+	@Override
+	public Vector<String> getActions()
+	{
+		return actionNames;
+	}
+
+	@Override
+	public int[] getIndexes(int s, int i)
+	{
+		return choiceIndexes[rowStarts[s] + i];
+	}
+
+	@Override
+	public int[] getIdles()
+	{
+		return idles;
+	}
+
+	@Override
+	public BitSet getIndexesForPlayer(int s, int p)
+	{
+		BitSet result = new BitSet();
+		for (int j = rowStarts[s]; j < rowStarts[s + 1]; j++) {
+			if (choiceIndexes[j][p] > 0)
+				result.set(choiceIndexes[j][p]);
+			else
+				result.set(idles[p]);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,614 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.DeclarationType;
+import prism.PrismLangException;
+
+/**
+ * Class storing an indexed set of states, in which each state is bit-packed
+ * into one or more {@code long}s, using the variable bounds from a {@link VarList}.
+ * Lookup is done with an open-addressing hash table of (primitive) state indices,
+ * so no {@link State} objects are kept; they are recreated when needed, e.g.,
+ * by the (lazy) list returned by {@link #toStatesList(int[])}.
+ * <br><br>
+ * Only usable if all variables are bounded integers or Booleans (see {@link #canStore(VarList)}).
+ * Each variable is stored in {@code ceil(log2(range))} bits, and variables never straddle
+ * two words, with earlier variables in the more significant bits. So, comparing words
+ * (as unsigned values) in order gives the same ordering as {@link State#compareTo(State)}.
+ */
+public class CompactStateStorage implements StateStorage<State>
+{
+	/** Maximum load factor for the hash table */
+	private static final double MAX_LOAD = 0.5;
+	/** Maximum size of the hash table */
+	private static final int MAX_TABLE_SIZE = 1 << 30;
+
+	// Variable info
+	private int numVars;
+	private String names[];
+	private int lows[];
+	private boolean isBool[];
+	/** Word in which each variable is stored */
+	private int varWord[];
+	/** Position (shift) of each variable within its word */
+	private int varShift[];
+	/** Bit mask for each variable (before shifting) */
+	private long varMask[];
+	/** Number of longs per state */
+	private int wordsPerState;
+
+	// Storage
+	/** Packed states, ordered by index ({@code wordsPerState} longs each)
+	 *  (not used by subclasses that store packed states elsewhere) */
+	private long data[];
+	/** Hash table: state index + 1 (or 0 if empty) */
+	private int table[];
+	/** Number of states stored */
+	private int size;
+	private int indexOfLastAdd;
+	/** Buffer for packing states to be looked up */
+	private long buffer[];
+
+	/**
+	 * Can the states for the variables in {@code varList} be stored by this class?
+	 * This is the case if all variables are bounded integers or Booleans.
+	 */
+	public static boolean canStore(VarList varList)
+	{
+		int n = varList.getNumVars();
+		for (int i = 0; i < n; i++) {
+			DeclarationType declType = varList.getDeclarationType(i);
+			if (!(declType instanceof DeclarationInt || declType instanceof DeclarationBool)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create an empty store for states over the variables in {@code varList}.
+	 * This should only be called if {@link #canStore(VarList)} is true for {@code varList}.
+	 */
+	public CompactStateStorage(VarList varList)
+	{
+		numVars = varList.getNumVars();
+		names = new String[numVars];
+		lows = new int[numVars];
+		isBool = new boolean[numVars];
+		varWord = new int[numVars];
+		varShift = new int[numVars];
+		varMask = new long[numVars];
+		// Lay out variables: most significant bits first, none split across words
+		int word = 0, free = 64;
+		for (int i = 0; i < numVars; i++) {
+			int bits = Math.max(1, varList.getRangeLogTwo(i));
+			if (bits > free) {
+				word++;
+				free = 64;
+			}
+			free -= bits;
+			names[i] = varList.getName(i);
+			lows[i] = varList.getLow(i);
+			isBool[i] = varList.getDeclarationType(i) instanceof DeclarationBool;
+			varWord[i] = word;
+			varShift[i] = free;
+			varMask[i] = (1L << bits) - 1;
+		}
+		wordsPerState = word + 1;
+		buffer = new long[wordsPerState];
+		data = new long[16 * wordsPerState];
+		table = new int[32];
+		size = 0;
+		indexOfLastAdd = -1;
+	}
+
+	/**
+	 * Get the number of longs used to store each state.
+	 */
+	public int getWordsPerState()
+	{
+		return wordsPerState;
+	}
+
+	// Packing/unpacking
+
+	/**
+	 * Pack a state into {@code words[offset...offset+wordsPerState-1]}.
+	 * Returns false (leaving the words undefined) if the state cannot be stored (see {@link #checkState(State)}).
+	 */
+	private boolean pack(State state, long words[], int offset)
+	{
+		Object values[] = state.varValues;
+		if (values.length != numVars) {
+			return false;
+		}
+		Arrays.fill(words, offset, offset + wordsPerState, 0L);
+		for (int i = 0; i < numVars; i++) {
+			long val;
+			if (isBool[i]) {
+				val = ((Boolean) values[i]) ? 1 : 0;
+			} else {
+				val = ((Number) values[i]).intValue() - (long) lows[i];
+			}
+			if (val < 0 || val > varMask[i]) {
+				return false;
+			}
+			words[offset + varWord[i]] |= val << varShift[i];
+		}
+		return true;
+	}
+
+	/**
+	 * Check that a state can be stored, i.e., that it has the right number of variables
+	 * and all variable values fit in the bits used to store them; throw an explanatory exception if not.
+	 * Values above the variable's upper bound that still fit (the range is rounded up to a power of two)
+	 * are stored as they are, since explicit-state model construction does not otherwise check ranges.
+	 */
+	public void checkState(State state) throws PrismLangException
+	{
+		Object values[] = state.varValues;
+		if (values.length != numVars) {
+			throw new PrismLangException("State " + state + " has " + values.length + " variables, but " + numVars + " were expected");
+		}
+		for (int i = 0; i < numVars; i++) {
+			long val = isBool[i] ? (((Boolean) values[i]) ? 1 : 0) : ((Number) values[i]).intValue() - (long) lows[i];
+			if (val < 0 || val > varMask[i]) {
+				throw new PrismLangException("Value " + values[i] + " out of range for variable " + names[i]);
+			}
+		}
+	}
+
+	/**
+	 * Unpack the state stored in {@code words[offset...offset+wordsPerState-1]}.
+	 */
+	protected State unpack(long words[], int offset)
+	{
+		State state = new State(numVars);
+		for (int i = 0; i < numVars; i++) {
+			int val = (int) ((words[offset + varWord[i]] >>> varShift[i]) & varMask[i]);
+			state.varValues[i] = isBool[i] ? Boolean.valueOf(val != 0) : Integer.valueOf(val + lows[i]);
+		}
+		return state;
+	}
+
+	/**
+	 * Hash code for the packed state in {@code buffer}.
+	 */
+	private int hashBuffer()
+	{
+		long h = 0;
+		for (int k = 0; k < wordsPerState; k++) {
+			h = (h ^ buffer[k]) * 0x9E3779B97F4A7C15L;
+		}
+		return finishHash(h);
+	}
+
+	/**
+	 * Hash code for the stored state with index {@code s} (same as {@link #hashBuffer()}).
+	 */
+	private int hashStored(int s)
+	{
+		long h = 0;
+		for (int k = 0; k < wordsPerState; k++) {
+			h = (h ^ getWord(s, k)) * 0x9E3779B97F4A7C15L;
+		}
+		return finishHash(h);
+	}
+
+	private static int finishHash(long h)
+	{
+		h ^= h >>> 32;
+		h *= 0xC2B2AE3D27D4EB4FL;
+		h ^= h >>> 29;
+		return (int) h;
+	}
+
+	/**
+	 * Look up the packed state in {@code buffer}, returning the hash table slot
+	 * that contains it or, if not present, the (empty) slot where it should go.
+	 */
+	private int findSlot()
+	{
+		int mask = table.length - 1;
+		int slot = hashBuffer() & mask;
+		while (true) {
+			int entry = table[slot];
+			if (entry == 0 || equalsStored(entry - 1)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Is the packed state in {@code buffer} equal to the stored state with index {@code s}?
+	 */
+	private boolean equalsStored(int s)
+	{
+		for (int k = 0; k < wordsPerState; k++) {
+			if (getWord(s, k) != buffer[k])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Double the size of the hash table and re-insert all states.
+	 */
+	private void rehash()
+	{
+		if (table.length == MAX_TABLE_SIZE) {
+			// Can't grow: just need room for the next state
+			if (size + 1 >= MAX_TABLE_SIZE)
+				throw new IllegalStateException("Too many states to store");
+			return;
+		}
+		int newTable[] = new int[2 * table.length];
+		int mask = newTable.length - 1;
+		for (int s = 0; s < size; s++) {
+			int slot = hashStored(s) & mask;
+			while (newTable[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			newTable[slot] = s + 1;
+		}
+		table = newTable;
+	}
+
+	// Storage of packed states (can be overridden to store them elsewhere)
+
+	/**
+	 * Get the {@code k}th word of the stored state with index {@code s}.
+	 */
+	protected long getWord(int s, int k)
+	{
+		return data[s * wordsPerState + k];
+	}
+
+	/**
+	 * Store the packed state {@code words} as the state with index {@code s},
+	 * which is the next unused one, i.e., equal to the current number of states.
+	 */
+	protected void storeState(int s, long words[])
+	{
+		if ((long) (s + 1) * wordsPerState > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many states to store");
+		}
+		if ((s + 1) * wordsPerState > data.length) {
+			data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, 2L * data.length));
+		}
+		System.arraycopy(words, 0, data, s * wordsPerState, wordsPerState);
+	}
+
+	/**
+	 * Discard all stored packed states.
+	 */
+	protected void clearStates()
+	{
+		data = new long[16 * wordsPerState];
+	}
+
+	// Methods for StateStorage
+
+	@Override
+	public int get(State state)
+	{
+		if (!pack(state, buffer, 0)) {
+			return -1;
+		}
+		return table[findSlot()] - 1;
+	}
+
+	/**
+	 * Add a state to the set, if it is not already present.
+	 * Throws an {@link IllegalArgumentException} if the state cannot be stored
+	 * (see {@link #addState(State)} for a version throwing a checked exception).
+	 */
+	@Override
+	public boolean add(State state)
+	{
+		try {
+			return addState(state);
+		} catch (PrismLangException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Add a state to the set, if it is not already present.
+	 * Throws a {@link PrismLangException} if the state cannot be stored (see {@link #checkState(State)}).
+	 * @return true if the state was added
+	 */
+	public boolean addState(State state) throws PrismLangException
+	{
+		if (!pack(state, buffer, 0)) {
+			checkState(state);
+		}
+		int slot = findSlot();
+		if (table[slot] != 0) {
+			indexOfLastAdd = table[slot] - 1;
+			return false;
+		}
+		storeState(size, buffer);
+		table[slot] = size + 1;
+		indexOfLastAdd = size++;
+		if (size > MAX_LOAD * table.length) {
+			rehash();
+		}
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		clearStates();
+		table = new int[32];
+		size = 0;
+		indexOfLastAdd = -1;
+	}
+
+	@Override
+	public boolean contains(State state)
+	{
+		return get(state) != -1;
+	}
+
+	@Override
+	public int getIndexOfLastAdd()
+	{
+		return indexOfLastAdd;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get the state with index {@code s}.
+	 */
+	public State getState(int s)
+	{
+		if (s < 0 || s >= size)
+			throw new IndexOutOfBoundsException("State index " + s + " out of range");
+		long words[] = new long[wordsPerState];
+		for (int k = 0; k < wordsPerState; k++) {
+			words[k] = getWord(s, k);
+		}
+		return unpack(words, 0);
+	}
+
+	/**
+	 * Get a view of the set as map entries (state, index).
+	 * States are recreated, on demand, during iteration.
+	 */
+	@Override
+	public Set<Map.Entry<State, Integer>> getEntrySet()
+	{
+		return new AbstractSet<Map.Entry<State, Integer>>()
+		{
+			@Override
+			public Iterator<Map.Entry<State, Integer>> iterator()
+			{
+				return new Iterator<Map.Entry<State, Integer>>()
+				{
+					private int s = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return s < size;
+					}
+
+					@Override
+					public Map.Entry<State, Integer> next()
+					{
+						if (!hasNext())
+							throw new NoSuchElementException();
+						Map.Entry<State, Integer> e = new AbstractMap.SimpleImmutableEntry<>(getState(s), s);
+						s++;
+						return e;
+					}
+				};
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+		};
+	}
+
+	@Override
+	public ArrayList<State> toArrayList()
+	{
+		ArrayList<State> list = new ArrayList<State>(size);
+		toArrayList(list);
+		return list;
+	}
+
+	@Override
+	public void toArrayList(ArrayList<State> list)
+	{
+		for (int s = 0; s < size; s++) {
+			list.add(getState(s));
+		}
+	}
+
+	@Override
+	public ArrayList<State> toPermutedArrayList(int permut[])
+	{
+		ArrayList<State> list = new ArrayList<State>(size);
+		toPermutedArrayList(permut, list);
+		return list;
+	}
+
+	@Override
+	public void toPermutedArrayList(int permut[], ArrayList<State> list)
+	{
+		for (int s = 0; s < size; s++)
+			list.add(null);
+		for (int s = 0; s < size; s++) {
+			list.set(permut[s], getState(s));
+		}
+	}
+
+	/**
+	 * Create an (unmodifiable) list of the states, ordered by permuted index
+	 * (index in new list is permut[old_index]), or by index if {@code permut} is null.
+	 * The list stores states in packed form, and recreates them each time they are accessed.
+	 * It is independent of this set, which can be subsequently cleared.
+	 */
+	public List<State> toStatesList(int permut[])
+	{
+		long listData[];
+		if (permut == null) {
+			listData = Arrays.copyOf(data, size * wordsPerState);
+		} else {
+			listData = new long[size * wordsPerState];
+			for (int s = 0; s < size; s++) {
+				System.arraycopy(data, s * wordsPerState, listData, permut[s] * wordsPerState, wordsPerState);
+			}
+		}
+		return new StatesList(listData, size);
+	}
+
+	/**
+	 * Build sort permutation, i.e., a permutation (integer array) mapping
+	 * current indices to new indices under the ordering of {@link State#compareTo(State)}.
+	 */
+	@Override
+	public int[] buildSortingPermutation()
+	{
+		int order[] = new int[size];
+		for (int s = 0; s < size; s++) {
+			order[s] = s;
+		}
+		mergeSort(order, new int[size], 0, size);
+		int perm[] = new int[size];
+		for (int i = 0; i < size; i++) {
+			perm[order[i]] = i;
+		}
+		return perm;
+	}
+
+	/**
+	 * Sort {@code order[lo...hi-1]} (state indices) by packed state, using {@code tmp} as workspace.
+	 */
+	private void mergeSort(int order[], int tmp[], int lo, int hi)
+	{
+		if (hi - lo < 2)
+			return;
+		int mid = (lo + hi) >>> 1;
+		mergeSort(order, tmp, lo, mid);
+		mergeSort(order, tmp, mid, hi);
+		if (compareStored(order[mid - 1], order[mid]) <= 0)
+			return;
+		System.arraycopy(order, lo, tmp, lo, hi - lo);
+		int i = lo, j = mid, k = lo;
+		while (i < mid && j < hi) {
+			order[k++] = compareStored(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+		}
+		while (i < mid) {
+			order[k++] = tmp[i++];
+		}
+		while (j < hi) {
+			order[k++] = tmp[j++];
+		}
+	}
+
+	/**
+	 * Compare the stored states with indices {@code s1} and {@code s2}.
+	 */
+	private int compareStored(int s1, int s2)
+	{
+		for (int k = 0; k < wordsPerState; k++) {
+			int c = Long.compareUnsigned(getWord(s1, k), getWord(s2, k));
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return toArrayList().toString();
+	}
+
+	/**
+	 * Unmodifiable list of packed states, unpacked on access.
+	 */
+	private class StatesList extends AbstractList<State> implements RandomAccess
+	{
+		private long listData[];
+		private int listSize;
+
+		StatesList(long listData[], int listSize)
+		{
+			this.listData = listData;
+			this.listSize = listSize;
+		}
+
+		@Override
+		public State get(int s)
+		{
+			if (s < 0 || s >= listSize)
+				throw new IndexOutOfBoundsException("State index " + s + " out of range");
+			return unpack(listData, s * wordsPerState);
+		}
+
+		@Override
+		public int size()
+		{
+			return listSize;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class storing an indexed set of objects of type T, which can be safely
+ * added to by several threads at once (see {@link #addAndGetIndex(Object)}).
+ * Indices are allocated consecutively, in the order in which objects are added,
+ * so, with multiple threads, they are not deterministic.
+ * Sorting is done on demand, in {@link #buildSortingPermutation()}, so objects
+ * must be {@link Comparable} (or a comparator provided) if this is used.
+ */
+public class ConcurrentIndexedSet<T> implements StateStorage<T>
+{
+	protected ConcurrentHashMap<T, Integer> set;
+	protected AtomicInteger nextIndex;
+	protected Comparator<? super T> comparator;
+	/** Index of last add (only meaningful for single-threaded use of {@link #add(Object)}) */
+	protected int indexOfLastAdd;
+
+	public ConcurrentIndexedSet()
+	{
+		this((Comparator<? super T>) null);
+	}
+
+	public ConcurrentIndexedSet(Comparator<? super T> comparator)
+	{
+		set = new ConcurrentHashMap<T, Integer>();
+		nextIndex = new AtomicInteger(0);
+		this.comparator = comparator;
+		indexOfLastAdd = -1;
+	}
+
+	/**
+	 * Add an object to the set, if it is not already present, and return its index.
+	 * If the object was newly added, and has index {@code i}, then {@code -(i+1)} is returned.
+	 * This method is thread-safe (unlike {@link #add(Object)} and {@link #getIndexOfLastAdd()}).
+	 */
+	public int addAndGetIndex(T t)
+	{
+		// The mapping function is executed at most once, in the calling thread
+		boolean added[] = new boolean[] { false };
+		int i = set.computeIfAbsent(t, k -> {
+			added[0] = true;
+			return nextIndex.getAndIncrement();
+		});
+		return added[0] ? -(i + 1) : i;
+	}
+
+	@Override
+	public void clear()
+	{
+		set.clear();
+		nextIndex.set(0);
+	}
+
+	@Override
+	public boolean add(T state)
+	{
+		int i = addAndGetIndex(state);
+		if (i < 0) {
+			indexOfLastAdd = -(i + 1);
+			return true;
+		} else {
+			indexOfLastAdd = i;
+			return false;
+		}
+	}
+
+	@Override
+	public boolean contains(T state)
+	{
+		return set.get(state) != null;
+	}
+
+	@Override
+	public int getIndexOfLastAdd()
+	{
+		return indexOfLastAdd;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return set.isEmpty();
+	}
+
+	@Override
+	public int size()
+	{
+		return nextIndex.get();
+	}
+
+	@Override
+	public Set<Map.Entry<T, Integer>> getEntrySet()
+	{
+		return set.entrySet();
+	}
+
+	@Override
+	public ArrayList<T> toArrayList()
+	{
+		ArrayList<T> list = new ArrayList<T>(size());
+		toArrayList(list);
+		return list;
+	}
+
+	@Override
+	public void toArrayList(ArrayList<T> list)
+	{
+		int i, n;
+
+		n = size();
+		for (i = 0; i < n; i++)
+			list.add(null);
+		for (Map.Entry<T, Integer> e : set.entrySet()) {
+			list.set(e.getValue(), e.getKey());
+		}
+	}
+
+	@Override
+	public ArrayList<T> toPermutedArrayList(int permut[])
+	{
+		ArrayList<T> list = new ArrayList<T>(size());
+		toPermutedArrayList(permut, list);
+		return list;
+	}
+
+	@Override
+	public void toPermutedArrayList(int permut[], ArrayList<T> list)
+	{
+		int i, n;
+
+		n = size();
+		for (i = 0; i < n; i++)
+			list.add(null);
+		for (Map.Entry<T, Integer> e : set.entrySet()) {
+			list.set(permut[e.getValue()], e.getKey());
+		}
+	}
+
+	/**
+	 * Build sort permutation, i.e., a permutation (integer array) mapping
+	 * current indices to new indices under the sorting order.
+	 * The objects are sorted (in parallel) each time this is called.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public int[] buildSortingPermutation()
+	{
+		int i, n;
+		int perm[];
+
+		// Get objects, ordered by index
+		n = size();
+		Object objs[] = new Object[n];
+		for (Map.Entry<T, Integer> e : set.entrySet()) {
+			objs[e.getValue()] = e.getKey();
+		}
+		// Sort them and read off the permutation
+		if (comparator != null) {
+			Arrays.parallelSort((T[]) objs, comparator);
+		} else {
+			Arrays.parallelSort(objs, (o1, o2) -> ((Comparable<Object>) o1).compareTo(o2));
+		}
+		perm = new int[n];
+		for (i = 0; i < n; i++) {
+			perm[set.get(objs[i])] = i;
+		}
+
+		return perm;
+	}
+
+	@Override
+	public String toString()
+	{
+		return set.toString();
+	}
+
+	@Override
+	public int get(T t)
+	{
+		return set.get(t);
+	}
+}
@@ -45,8 +45,10 @@ import prism.PrismException;
 import prism.PrismLog;
 import prism.PrismNotSupportedException;
 import prism.PrismPrintStreamLog;
+import prism.PrismSettings;
 import prism.ProgressDisplay;
 import prism.UndefinedConstants;
+import simulator.ModulesFileModelGenerator;
 
 /**
  * Class to perform explicit-state reachability and model construction.
@@ -70,6 +72,12 @@ public class ConstructModel extends PrismComponent
 	protected boolean distinguishActions = true;
 	/** Should labels be processed and attached to the model? */
 	protected boolean attachLabels = true;
+	/** Number of threads to use for state space exploration */
+	protected int numThreads = 1;
+	/** Store reachable states on disk (in memory-mapped files), rather than in memory? */
+	protected boolean diskStateStorage = false;
+	/** Directory for disk-based state storage (null/empty for the default temporary directory) */
+	protected String stateStorageDir = null;
 
 	// Details of built model:
 
@@ -79,6 +87,12 @@ public class ConstructModel extends PrismComponent
 	public ConstructModel(PrismComponent parent) throws PrismException
 	{
 		super(parent);
+		// If present, initialise settings from PrismSettings
+		if (settings != null) {
+			setNumThreads(settings.getInteger(PrismSettings.PRISM_NUM_THREADS));
+			setDiskStateStorage(settings.getString(PrismSettings.PRISM_STATE_STORAGE).equals("Disk"));
+			setStateStorageDir(settings.getString(PrismSettings.PRISM_STATE_STORAGE_DIR));
+		}
 	}
 
 	/**
@@ -131,6 +145,35 @@ public class ConstructModel extends PrismComponent
 		this.attachLabels = attachLabels;
 	}
 
+	/**
+	 * Set the number of threads to use for state space exploration.
+	 * If more than one, exploration is multi-threaded (see {@link ParallelStateExplorer}),
+	 * where supported by the model type and model generator.
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Store reachable states on disk (in memory-mapped files), rather than in memory?
+	 * This is only possible if all variables are bounded (see {@link MappedStateStorage}),
+	 * and exploration is single-threaded.
+	 */
+	public void setDiskStateStorage(boolean diskStateStorage)
+	{
+		this.diskStateStorage = diskStateStorage;
+	}
+
+	/**
+	 * Set the directory for disk-based state storage
+	 * (null or empty for the default temporary directory).
+	 */
+	public void setStateStorageDir(String stateStorageDir)
+	{
+		this.stateStorageDir = stateStorageDir;
+	}
+
 	/**
 	 * Build the set of reachable states for a model and return it.
 	 * @param modelGen The ModelGenerator interface providing the model 
@@ -165,6 +208,9 @@ public class ConstructModel extends PrismComponent
 		// State storage
 		StateStorage<State> states;
 		LinkedList<State> explore;
+		CompactStateStorage packedStates = null;
+		ParallelStateExplorer explorer = null;
+		int bfsPermut[] = null;
 		State state, stateNew;
 		// Explicit model storage
 		ModelSimple modelSimple = null;
@@ -174,11 +220,14 @@ public class ConstructModel extends PrismComponent
 		POMDPSimple pomdp = null;
 		CTMDPSimple ctmdp = null;
 		STPGExplicit stpg = null;
-		CSG csg = null;
+		CSGSimple csg = null;
 		SMG smg = null;
 		LTSSimple lts = null;
 		ModelExplicit model = null;
 		Distribution distr = null;
+		// Builder for sparse models (if used, no simple model is built)
+		SparseModelBuilder builder = null;
+		boolean buildSimple;
 		// Game info
 		List<String> playerNames = null;
 		// Misc
@@ -193,8 +242,26 @@ public class ConstructModel extends PrismComponent
 		if (modelGen.containsUnboundedVariables())
 			mainLog.printWarning("Model contains one or more unbounded variables: model construction may not terminate");
 
+		// Check whether states can be bit-packed (needed for disk-based storage)
+		boolean canPack = !modelGen.containsUnboundedVariables() && CompactStateStorage.canStore(varList);
+		if (diskStateStorage && !canPack) {
+			mainLog.printWarning("Disk-based state storage needs all variables to be bounded: storing states in memory");
+		}
+		boolean useDisk = diskStateStorage && canPack;
+
+		// Use multi-threaded exploration, if requested and possible
+		if (numThreads > 1 && useDisk) {
+			mainLog.printWarning("Multi-threaded state space exploration does not support disk-based state storage: using one thread");
+		} else if (numThreads > 1 && !modelType.partiallyObservable()) {
+			try {
+				explorer = new ParallelStateExplorer(modelGen, numThreads, justReach, !sortStates);
+			} catch (PrismNotSupportedException e) {
+				mainLog.printWarning(e.getMessage() + ": using single-threaded state space exploration");
+			}
+		}
+
 		// Starting reachability...
-		mainLog.print("\nComputing reachable states...");
+		mainLog.print("\nComputing reachable states" + (explorer != null ? " (" + numThreads + " threads)" : "") + "...");
 		mainLog.flush();
 		ProgressDisplay progress = new ProgressDisplay(mainLog);
 		progress.start();
@@ -218,7 +285,18 @@ public class ConstructModel extends PrismComponent
 		}
 		
 		// Create model storage
-		if (!justReach) {
+		// (build directly in sparse form where possible; CSG choices are only told apart by action)
+		if (!justReach && buildSparse && SparseModelBuilder.canBuild(modelType) && (distinguishActions || modelType != ModelType.CSG)) {
+			builder = new SparseModelBuilder(modelType);
+			builder.setDistinguishActions(distinguishActions);
+			builder.setDeadlockHandling(findDeadlocks, fixDeadlocks);
+			builder.setPlayerNames(playerNames);
+			if (modelType == ModelType.CSG) {
+				builder.setActions(modelGen.getActions());
+			}
+		}
+		buildSimple = !justReach && builder == null;
+		if (buildSimple) {
 			// Create a (simple, mutable) model of the appropriate type
 			switch (modelType) {
 			case DTMC:
@@ -228,7 +306,7 @@ public class ConstructModel extends PrismComponent
 				modelSimple = ctmc = new CTMCSimple();
 				break;
 			case CSG:
-				modelSimple = csg = new CSG(playerNames.toArray(new String[0]));
+				modelSimple = csg = new CSGSimple(playerNames.toArray(new String[0]));
 				csg.setActions(modelGen.getActions());
 				break;			
 			case MDP:
@@ -258,39 +336,95 @@ public class ConstructModel extends PrismComponent
 	        ((ModelExplicit) modelSimple).setVarList(varList);
 		}
 
-		// Initialise states storage
-		states = new IndexedSet<State>(true);
-		explore = new LinkedList<State>();
-		// Add initial state(s) to 'explore', 'states' and to the model
-		for (State initState : modelGen.getInitialStates()) {
-			explore.add(initState);
-			states.add(initState);
-			if (!justReach) {
-				modelSimple.addState();
-				modelSimple.addInitialState(modelSimple.getNumStates() - 1);
+		// Multi-threaded exploration: find all states first, then build the model
+		if (explorer != null) {
+			explorer.explore(progress);
+			states = explorer.getStates();
+			src = states.size() - 1;
+			// State indices are non-deterministic so, if not sorting, renumber in BFS order
+			if (!sortStates) {
+				bfsPermut = explorer.buildBFSPermutation();
 			}
+			if (builder != null) {
+				for (int initState : explorer.getInitialStates()) {
+					builder.addInitialState(initState);
+				}
+				for (i = 0; i < states.size(); i++) {
+					addExploredState(modelType, builder, i, explorer.getExploredState(i));
+					explorer.clearExploredState(i);
+				}
+			} else if (!justReach) {
+				// (add states one by one, as in sequential exploration, since some models need this)
+				for (i = 0; i < states.size(); i++) {
+					modelSimple.addState();
+				}
+				for (int initState : explorer.getInitialStates()) {
+					modelSimple.addInitialState(initState);
+				}
+				for (i = 0; i < states.size(); i++) {
+					addExploredState(modelType, modelSimple, i, explorer.getExploredState(i));
+					explorer.clearExploredState(i);
+				}
+			}
+			explorer = null;
+			// (nothing left to explore below)
+			explore = new LinkedList<State>();
+		} else {
+			// Initialise states storage
+			// (bit-packed if all variables are bounded; else a sorted set of State objects)
+			if (useDisk) {
+				states = packedStates = new MappedStateStorage(varList, stateStorageDir);
+			} else if (canPack) {
+				states = packedStates = new CompactStateStorage(varList);
+			} else {
+				states = new IndexedSet<State>(true);
+			}
+			explore = new LinkedList<State>();
+			// Add initial state(s) to 'explore', 'states' and to the model
+			// (packed states are stored in the order found, so are explored directly from storage)
+			for (State initState : modelGen.getInitialStates()) {
+				if (packedStates == null) {
+					explore.add(initState);
+				}
+				if (packedStates != null) {
+					packedStates.addState(initState);
+				} else {
+					states.add(initState);
+				}
+				if (builder != null) {
+					builder.addInitialState(states.getIndexOfLastAdd());
+				} else if (!justReach) {
+					modelSimple.addState();
+					modelSimple.addInitialState(modelSimple.getNumStates() - 1);
+				}
+			}
+			src = -1;
 		}
 
 		// Explore...
-		src = -1;
-		while (!explore.isEmpty()) {
+		while (packedStates != null ? src + 1 < packedStates.size() : !explore.isEmpty()) {
 			// Pick next state to explore
 			// (they are stored in order found so know index is src+1)
-			state = explore.removeFirst();
+			state = packedStates != null ? packedStates.getState(src + 1) : explore.removeFirst();
 			src++;
 			// Explore all choices/transitions from this state
 			modelGen.exploreState(state);
 			nc = modelGen.getNumChoices();
+			if (builder != null) {
+				builder.startState(src);
+			}
 			// For turn-based games, first determine which player owns the state
 			if (modelType.multiplePlayers() && !modelType.concurrent()) {
 				player = modelGen.getPlayerOwningState();
-				if (modelType == ModelType.STPG) {
+				if (builder != null) {
+					builder.setPlayer(player);
+				} else if (modelType == ModelType.STPG) {
 					stpg.setPlayer(src, player + 1);
 				} else if (modelType == ModelType.SMG) {
 					smg.setPlayer(src, player + 1);
 				}
 			}
-			else if (modelType == ModelType.CSG) {
+			else if (modelType == ModelType.CSG && builder == null) {
 				csg.setPlayer(src, 1);
 			}
 			// Look at each outgoing choice in turn
@@ -305,7 +439,16 @@ public class ConstructModel extends PrismComponent
 					}
 				}
 				// For nondet models, collect transitions in a Distribution
-				if (!justReach && modelType.nondeterministic()) {
+				// (or, if building a sparse model, start a new choice)
+				if (builder != null) {
+					if (modelType == ModelType.CSG) {
+						builder.startChoice(modelGen.getTransitionIndexes(i));
+					} else if (modelType == ModelType.STPG || modelType == ModelType.SMG) {
+						builder.startChoice(modelGen.getTransitionAction(i, 0));
+					} else {
+						builder.startChoice(modelGen.getChoiceAction(i));
+					}
+				} else if (!justReach && modelType.nondeterministic()) {
 					distr = new Distribution();
 				}
 				// Look at each transition in the choice
@@ -313,18 +456,23 @@ public class ConstructModel extends PrismComponent
 				for (j = 0; j < nt; j++) {
 					stateNew = modelGen.computeTransitionTarget(i, j);
 					// Is this a new state?
-					if (states.add(stateNew)) {
+					// (for packed states, this also checks that variable values are in range)
+					if (packedStates != null ? packedStates.addState(stateNew) : states.add(stateNew)) {
 						// If so, add to the explore list
-						explore.add(stateNew);
+						if (packedStates == null) {
+							explore.add(stateNew);
+						}
 						// And to model
-						if (!justReach) {
+						if (buildSimple) {
 							modelSimple.addState();
 						}
 					}
 					// Get index of state in state set
 					dest = states.getIndexOfLastAdd();
 					// Add transitions to model
-					if (!justReach) {
+					if (builder != null) {
+						builder.addTransition(dest, modelGen.getTransitionProbability(i, j));
+					} else if (!justReach) {
 						switch (modelType) {
 						case DTMC:
 							dtmc.addToProbability(src, dest, modelGen.getTransitionProbability(i, j));
@@ -353,7 +501,7 @@ public class ConstructModel extends PrismComponent
 					}
 				}
 				// For nondet models, add collated transition to model 
-				if (!justReach) {
+				if (buildSimple) {
 					if (modelType == ModelType.MDP) {
 						if (distinguishActions) {
 							mdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
@@ -412,9 +560,14 @@ public class ConstructModel extends PrismComponent
 		mainLog.print("Reachable states exploration" + (justReach ? "" : " and model construction"));
 		mainLog.println(" done in " + ((System.currentTimeMillis() - timer) / 1000.0) + " secs.");
 		//mainLog.println(states);
+		// In verbose mode, report on skipping of guards during exploration
+		if (settings != null && settings.getBoolean(PrismSettings.PRISM_VERBOSE) && modelGen instanceof ModulesFileModelGenerator) {
+			((ModulesFileModelGenerator) modelGen).printExplorationStats(mainLog);
+		}
 		
 		// Find/fix deadlocks (if required)
-		if (!justReach && findDeadlocks) {
+		// (for sparse models, this is done during construction)
+		if (buildSimple && findDeadlocks) {
 			if (modelType != ModelType.CSG) {
 				modelSimple.findDeadlocks(fixDeadlocks);
 			}
@@ -435,8 +588,15 @@ public class ConstructModel extends PrismComponent
 			// Sort states and convert set to list
 			mainLog.println("Sorting reachable states list...");
 			permut = states.buildSortingPermutation();
-			statesList = states.toPermutedArrayList(permut);
 			//mainLog.println("Arrays.toString(permut));
+		} else if (bfsPermut != null) {
+			permut = bfsPermut;
+		}
+		if (states instanceof CompactStateStorage) {
+			// Keep states packed: they are unpacked on access to the list
+			statesList = ((CompactStateStorage) states).toStatesList(permut);
+		} else if (permut != null) {
+			statesList = states.toPermutedArrayList(permut);
 		} else {
 			statesList = states.toArrayList();
 		}
@@ -446,52 +606,58 @@ public class ConstructModel extends PrismComponent
 		//mainLog.println(statesList);
 		
 		// Construct new explicit-state model (with correct state ordering)
-		if (!justReach) {
+		if (builder != null) {
+			model = builder.build(permut);
+			builder = null;
+			model.setVarList(varList);
+		} else if (!justReach) {
 			switch (modelType) {
 			case DTMC:
 				if (buildSparse) {
-					model = sortStates ? new DTMCSparse(dtmc, permut) : new DTMCSparse(dtmc);
+					model = permut != null ? new DTMCSparse(dtmc, permut) : new DTMCSparse(dtmc);
 				} else {
-					model = sortStates ? new DTMCSimple(dtmc, permut) : (DTMCSimple) dtmc;
+					model = permut != null ? new DTMCSimple(dtmc, permut) : (DTMCSimple) dtmc;
 				}
 				break;
 			case CTMC:
-				model = sortStates ? new CTMCSimple(ctmc, permut) : (CTMCSimple) ctmc;
+				model = permut != null ? new CTMCSimple(ctmc, permut) : (CTMCSimple) ctmc;
 				break;
 			case MDP:
 				if (buildSparse) {
-					model = sortStates ? new MDPSparse(mdp, true, permut) : new MDPSparse(mdp);
+					model = permut != null ? new MDPSparse(mdp, true, permut) : new MDPSparse(mdp);
 				} else {
-					model = sortStates ? new MDPSimple(mdp, permut) : mdp;
+					model = permut != null ? new MDPSimple(mdp, permut) : mdp;
 				}
 				break;
 			case POMDP:
-				model = sortStates ? new POMDPSimple(pomdp, permut) : pomdp;
+				model = permut != null ? new POMDPSimple(pomdp, permut) : pomdp;
 				break;
 			case CTMDP:
-				model = sortStates ? new CTMDPSimple(ctmdp, permut) : ctmdp;
+				model = permut != null ? new CTMDPSimple(ctmdp, permut) : ctmdp;
 				break;
 			case CSG:
-				model = sortStates ? new CSG(csg, permut) : csg;
+				model = permut != null ? new CSGSimple(csg, permut) : csg;
 				break;
 			case STPG:
-				model = sortStates ? new STPGExplicit(stpg, permut) : stpg;
+				model = permut != null ? new STPGExplicit(stpg, permut) : stpg;
 				break;
 			case SMG:
-				model = sortStates ? new SMG(smg, permut) : smg;
+				model = permut != null ? new SMG(smg, permut) : smg;
 				break;
 			case LTS:
-				model = sortStates ? new LTSSimple(lts, permut) : lts;
+				model = permut != null ? new LTSSimple(lts, permut) : lts;
 				break;
 			case PTA:
 				throw new PrismNotSupportedException("Model construction not supported for " + modelType + "s");
 			}
+		}
+		if (!justReach) {
 			model.setStatesList(statesList);
 			model.setConstantValues(new Values(modelGen.getConstantValues()));
 		}
 
-		// Add idle actions
-		if (modelType == ModelType.CSG) 
+		// Add idle actions (already done by the builder for sparse models)
+		if (csg != null) 
 			csg.addIdleIndexes();
 		
 		// Discard permutation
@@ -503,6 +669,94 @@ public class ConstructModel extends PrismComponent
 		return model;
 	}
 
+	/**
+	 * Add a state, and its choices/transitions, found by multi-threaded exploration to a model.
+	 */
+	private void addExploredState(ModelType modelType, ModelSimple modelSimple, int src, ParallelStateExplorer.ExploredState es) throws PrismException
+	{
+		int nc = es.getNumChoices();
+		// For games, store the player owning the state
+		if (modelType == ModelType.STPG) {
+			((STPGExplicit) modelSimple).setPlayer(src, es.player + 1);
+		} else if (modelType == ModelType.SMG) {
+			((SMG) modelSimple).setPlayer(src, es.player + 1);
+		} else if (modelType == ModelType.CSG) {
+			((CSGSimple) modelSimple).setPlayer(src, 1);
+		}
+		// Add each choice in turn
+		for (int i = 0; i < nc; i++) {
+			int lo = es.choiceStarts[i];
+			int hi = es.choiceStarts[i + 1];
+			Object action = es.actions == null ? null : es.actions[i];
+			switch (modelType) {
+			case DTMC:
+				for (int t = lo; t < hi; t++) {
+					((DTMCSimple) modelSimple).addToProbability(src, es.succs[t], es.probs[t]);
+				}
+				break;
+			case CTMC:
+				for (int t = lo; t < hi; t++) {
+					((CTMCSimple) modelSimple).addToProbability(src, es.succs[t], es.probs[t]);
+				}
+				break;
+			case LTS:
+				for (int t = lo; t < hi; t++) {
+					if (distinguishActions) {
+						((LTSSimple) modelSimple).addActionLabelledTransition(src, es.succs[t], action);
+					} else {
+						((LTSSimple) modelSimple).addTransition(src, es.succs[t]);
+					}
+				}
+				break;
+			case MDP:
+			case CTMDP:
+			case STPG:
+			case SMG:
+			case CSG:
+				Distribution distr = new Distribution();
+				for (int t = lo; t < hi; t++) {
+					distr.add(es.succs[t], es.probs[t]);
+				}
+				if (modelType == ModelType.CSG) {
+					if (distinguishActions) {
+						((CSGSimple) modelSimple).addActionLabelledChoice(src, distr, es.indexes[i]);
+					} else {
+						((CSGSimple) modelSimple).addChoice(src, distr, es.indexes[i]);
+					}
+				} else if (distinguishActions) {
+					((MDPSimple) modelSimple).addActionLabelledChoice(src, distr, action);
+				} else {
+					((MDPSimple) modelSimple).addChoice(src, distr);
+				}
+				break;
+			default:
+				throw new PrismNotSupportedException("Multi-threaded model construction not supported for " + modelType + "s");
+			}
+		}
+	}
+
+	/**
+	 * Add a state, and its choices/transitions, found by multi-threaded exploration to a sparse model builder.
+	 */
+	private void addExploredState(ModelType modelType, SparseModelBuilder builder, int src, ParallelStateExplorer.ExploredState es)
+	{
+		int nc = es.getNumChoices();
+		builder.startState(src);
+		if (es.player != -1) {
+			builder.setPlayer(es.player);
+		}
+		for (int i = 0; i < nc; i++) {
+			if (es.indexes != null) {
+				builder.startChoice(es.indexes[i]);
+			} else {
+				builder.startChoice(es.actions == null ? null : es.actions[i]);
+			}
+			for (int t = es.choiceStarts[i]; t < es.choiceStarts[i + 1]; t++) {
+				builder.addTransition(es.succs[t], es.probs[t]);
+			}
+		}
+	}
+
 	private void setStateObservation(ModelGenerator modelGen, POMDPSimple pomdp, int s, State state) throws PrismException
 	{
 		// Get observation for the current state
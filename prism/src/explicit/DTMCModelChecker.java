@@ -635,9 +635,11 @@ public class DTMCModelChecker extends ProbModelChecker
 			switch (linEqMethod) {
 			case POWER:
 				iterationMethod = new IterationMethodPower(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numThreads);
 				break;
 			case JACOBI:
 				iterationMethod = new IterationMethodJacobi(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numThreads);
 				break;
 			case GAUSS_SEIDEL:
 			case BACKWARDS_GAUSS_SEIDEL: {
@@ -1031,6 +1033,7 @@ public class DTMCModelChecker extends ProbModelChecker
 	protected ModelCheckerResult computeReachProbsValIter(DTMC dtmc, BitSet no, BitSet yes, double init[], BitSet known) throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numThreads);
 		return doValueIterationReachProbs(dtmc, no, yes, init, known, iterationMethod, false);
 	}
 
@@ -1749,9 +1752,11 @@ public class DTMCModelChecker extends ProbModelChecker
 			switch (linEqMethod) {
 			case POWER:
 				iterationMethod = new IterationMethodPower(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numThreads);
 				break;
 			case JACOBI:
 				iterationMethod = new IterationMethodJacobi(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numThreads);
 				break;
 			case GAUSS_SEIDEL:
 			case BACKWARDS_GAUSS_SEIDEL: {
@@ -38,6 +38,7 @@ import java.util.PrimitiveIterator.OfInt;
 import java.util.function.Function;
 
 import common.IterableStateSet;
+import common.IteratorTools;
 import common.iterable.IterableInt;
 import common.iterable.MappingIterator;
 import explicit.rewards.MCRewards;
@@ -135,6 +136,21 @@ public class DTMCSparse extends DTMCExplicit
 		}
 	}
 
+	/**
+	 * Build a new DTMCSparse directly from arrays in CSR format (which are then owned by this model).
+	 * Initial states, etc. should be added separately.
+	 * @param numStates Number of states
+	 * @param rows Start of the transitions for each state (array of size numStates+1)
+	 * @param columns Destination for each transition
+	 * @param probabilities Probability for each transition
+	 */
+	public DTMCSparse(final int numStates, final int[] rows, final int[] columns, final double[] probabilities) {
+		initialise(numStates);
+		this.rows = rows;
+		this.columns = columns;
+		this.probabilities = probabilities;
+	}
+
 
 
 	//--- Model ---
@@ -342,6 +358,94 @@ public class DTMCSparse extends DTMCExplicit
 		return d;
 	}
 
+	@Override
+	public void mvMult(final double[] vect, final double[] result, final OfInt states)
+	{
+		IteratorTools.forEachRange(states, (from, to) -> mvMultRange(from, to, vect, result));
+	}
+
+	/**
+	 * Do a matrix-vector multiplication for the states {@code from}, ..., {@code to}-1,
+	 * i.e., for all s in the range: result[s] = sum_j P(s,j)*vect[j].
+	 * This gives the same results as {@link #mvMultSingle(int, double[])}, but as a single loop over the sparse storage.
+	 * @param from First state of the range
+	 * @param to End of the range (exclusive)
+	 * @param vect Vector to multiply by
+	 * @param result Vector to store result in
+	 */
+	public void mvMultRange(final int from, final int to, final double[] vect, final double[] result)
+	{
+		for (int state = from; state < to; state++) {
+			double d = 0.0;
+			for (int i=rows[state], stop=rows[state+1]; i < stop; i++) {
+				d += probabilities[i] * vect[columns[i]];
+			}
+			result[state] = d;
+		}
+	}
+
+	@Override
+	public void mvMultJac(final double[] vect, final double[] result, final OfInt states)
+	{
+		IteratorTools.forEachRange(states, (from, to) -> mvMultJacRange(from, to, vect, result));
+	}
+
+	/**
+	 * Do a Jacobi matrix-vector multiplication for the states {@code from}, ..., {@code to}-1,
+	 * i.e., for all s in the range: result[s] = (sum_{j!=s} P(s,j)*vect[j]) / (1-P(s,s)).
+	 * This gives the same results as {@link #mvMultJacSingle(int, double[])}, but as a single loop over the sparse storage.
+	 * @param from First state of the range
+	 * @param to End of the range (exclusive)
+	 * @param vect Vector to multiply by
+	 * @param result Vector to store result in
+	 */
+	public void mvMultJacRange(final int from, final int to, final double[] vect, final double[] result)
+	{
+		for (int state = from; state < to; state++) {
+			double diag = 1.0;
+			double d = 0.0;
+			for (int i=rows[state], stop=rows[state+1]; i < stop; i++) {
+				final int target = columns[i];
+				if (target != state) {
+					d += probabilities[i] * vect[target];
+				} else {
+					diag -= probabilities[i];
+				}
+			}
+			if (diag > 0) {
+				d /= diag;
+			}
+			result[state] = d;
+		}
+	}
+
+	@Override
+	public void mvMultRew(final double[] vect, final MCRewards mcRewards, final double[] result, final OfInt states)
+	{
+		IteratorTools.forEachRange(states, (from, to) -> mvMultRewRange(from, to, vect, mcRewards, result));
+	}
+
+	/**
+	 * Do a matrix-vector multiplication and sum of (state) rewards for the states {@code from}, ..., {@code to}-1,
+	 * i.e., for all s in the range: result[s] = rew(s) + sum_j P(s,j)*vect[j].
+	 * This gives the same results as {@link #mvMultRewSingle(int, double[], MCRewards)}, but as a single loop over the sparse storage.
+	 * @param from First state of the range
+	 * @param to End of the range (exclusive)
+	 * @param vect Vector to multiply by
+	 * @param mcRewards The rewards
+	 * @param result Vector to store result in
+	 */
+	public void mvMultRewRange(final int from, final int to, final double[] vect, final MCRewards mcRewards, final double[] result)
+	{
+		for (int state = from; state < to; state++) {
+			double d = mcRewards.getStateReward(state);
+			for (int i=rows[state], stop=rows[state+1]; i < stop; i++) {
+				d += probabilities[i] * vect[columns[i]];
+			}
+			result[state] = d;
+		}
+	}
+
 	@Override
 	public void vmMult(final double[] vect, final double[] result)
 	{
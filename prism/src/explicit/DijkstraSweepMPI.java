@@ -102,7 +102,7 @@ public class DijkstraSweepMPI {
 		this.target = target;
 		this.rewards = rewards;
 
-		incoming = IncomingChoiceRelation.forModel(parent, mdp);
+		incoming = mdp.getIncomingChoiceRelation(parent, true);
 
 		queue = new PriorityQueue<QueueEntry>();
 		pState = new double[mdp.getNumStates()];
@@ -160,17 +160,20 @@ public class DijkstraSweepMPI {
 			wState[x] = v.w;
 			pState[x] = v.p;
 
-			for (Choice c : incoming.getIncomingChoices(x)) {
-				if (fin.get(c.getState())) {
+			for (int i = incoming.getIncomingStart(x), end = incoming.getIncomingEnd(x); i < end; i++) {
+				int y = incoming.getIncomingState(i);
+				if (fin.get(y)) {
 					// already handled, skip
 					continue;
 				}
 
-				if (!unknown.get(c.getState())) {
+				if (!unknown.get(y)) {
 					// uninteresting state
 					continue;
 				}
 
+				Choice c = new Choice(y, incoming.getIncomingChoice(i));
+
 				if (!validChoice(c)) {
 					// some successor go outside unknown U target (e.g., to some infinity or undefined state)
 					// skip
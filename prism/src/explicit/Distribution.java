@@ -26,14 +26,19 @@
 
 package explicit;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
+import common.functions.primitive.IntDoubleConsumer;
 import parser.State;
 import prism.PrismException;
 import prism.PrismUtils;
@@ -41,10 +46,23 @@ import prism.PrismUtils;
 /**
  * Explicit representation of a probability distribution.
  * Basically, a mapping from (integer-valued) indices to (non-zero, double-valued) probabilities. 
+ * <br><br>
+ * Entries are stored in a pair of parallel (primitive) arrays, sorted by index,
+ * so lookups are by binary search and iteration is in increasing order of index.
+ * Adding entries in increasing order of index is cheapest.
+ * For iteration without allocation (e.g. in numerical computation), use {@link #forEach(IntDoubleConsumer)}.
  */
 public class Distribution implements Iterable<Entry<Integer, Double>>
 {
-	private HashMap<Integer, Double> map;
+	private static final int[] EMPTY_INDICES = new int[0];
+	private static final double[] EMPTY_PROBS = new double[0];
+
+	/** Indices in the support, in increasing order (first {@code size} elements used) */
+	private int indices[];
+	/** Probabilities, corresponding to {@code indices} */
+	private double probs[];
+	/** Number of entries */
+	private int size;
 
 	/**
 	 * Create an empty distribution.
@@ -59,7 +77,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution(Distribution distr)
 	{
-		this(distr.iterator());
+		indices = Arrays.copyOf(distr.indices, distr.size);
+		probs = Arrays.copyOf(distr.probs, distr.size);
+		size = distr.size;
 	}
 
 	/**
@@ -82,11 +102,31 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution(Distribution distr, int permut[])
 	{
-		this();
-		Iterator<Entry<Integer, Double>> i = distr.iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			add(permut[e.getKey()], e.getValue());
+		int n = distr.size;
+		indices = new int[n];
+		probs = new double[n];
+		size = 0;
+		// Sort (new index, old position) pairs, packed into longs, in one go
+		long keys[] = new long[n];
+		for (int k = 0; k < n; k++) {
+			keys[k] = ((long) permut[distr.indices[k]] << 32) | k;
+		}
+		Arrays.sort(keys);
+		// Copy across in sorted order, merging any duplicate indices (as add() would)
+		for (int k = 0; k < n; k++) {
+			int j = (int) (keys[k] >>> 32);
+			double prob = distr.probs[(int) keys[k]];
+			if (size > 0 && indices[size - 1] == j) {
+				double d = probs[size - 1] + prob;
+				if (d == 0.0)
+					size--;
+				else
+					probs[size - 1] = d;
+			} else {
+				indices[size] = j;
+				probs[size] = prob;
+				size++;
+			}
 		}
 	}
 
@@ -95,7 +135,59 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public void clear()
 	{
-		map = new HashMap<Integer, Double>();
+		indices = EMPTY_INDICES;
+		probs = EMPTY_PROBS;
+		size = 0;
+	}
+
+	/**
+	 * Find the position of index 'j' in the arrays; if absent, return (-(insertion point) - 1).
+	 */
+	private int find(int j)
+	{
+		// Fast path for the common case of appending/looking up the last entry
+		if (size == 0 || j > indices[size - 1])
+			return -size - 1;
+		return Arrays.binarySearch(indices, 0, size, j);
+	}
+
+	/**
+	 * Make sure that there is space for at least n entries.
+	 */
+	private void ensureCapacity(int n)
+	{
+		if (n > indices.length) {
+			int capacity = Math.max(n, indices.length < 2 ? 2 : indices.length + (indices.length >> 1));
+			indices = Arrays.copyOf(indices, capacity);
+			probs = Arrays.copyOf(probs, capacity);
+		}
+	}
+
+	/**
+	 * Insert a new entry at position 'pos' in the arrays.
+	 */
+	private void insertAt(int pos, int j, double prob)
+	{
+		ensureCapacity(size + 1);
+		if (pos < size) {
+			System.arraycopy(indices, pos, indices, pos + 1, size - pos);
+			System.arraycopy(probs, pos, probs, pos + 1, size - pos);
+		}
+		indices[pos] = j;
+		probs[pos] = prob;
+		size++;
+	}
+
+	/**
+	 * Remove the entry at position 'pos' in the arrays.
+	 */
+	private void removeAt(int pos)
+	{
+		if (pos < size - 1) {
+			System.arraycopy(indices, pos + 1, indices, pos, size - pos - 1);
+			System.arraycopy(probs, pos + 1, probs, pos, size - pos - 1);
+		}
+		size--;
 	}
 
 	/**
@@ -105,12 +197,16 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean add(int j, double prob)
 	{
-		Double d = (Double) map.get(j);
-		if (d == null) {
-			map.put(j, prob);
+		int pos = find(j);
+		if (pos < 0) {
+			insertAt(-(pos + 1), j, prob);
 			return false;
 		} else {
-			set(j, d + prob);
+			double d = probs[pos] + prob;
+			if (d == 0.0)
+				removeAt(pos);
+			else
+				probs[pos] = d;
 			return true;
 		}
 	}
@@ -120,10 +216,16 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public void set(int j, double prob)
 	{
-		if (prob == 0.0)
-			map.remove(j);
-		else
-			map.put(j, prob);
+		int pos = find(j);
+		if (pos < 0) {
+			if (prob != 0.0)
+				insertAt(-(pos + 1), j, prob);
+		} else {
+			if (prob == 0.0)
+				removeAt(pos);
+			else
+				probs[pos] = prob;
+		}
 	}
 
 	/**
@@ -131,9 +233,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public double get(int j)
 	{
-		Double d;
-		d = (Double) map.get(j);
-		return d == null ? 0.0 : d.doubleValue();
+		int pos = find(j);
+		return pos < 0 ? 0.0 : probs[pos];
 	}
 
 	/**
@@ -141,7 +242,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean contains(int j)
 	{
-		return map.get(j) != null;
+		return find(j) >= 0;
 	}
 
 	/**
@@ -149,10 +250,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isSubsetOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (!set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (!set.get(indices[k]))
 				return false;
 		}
 		return true;
@@ -163,21 +262,80 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean containsOneOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (set.get(indices[k]))
 				return true;
 		}
 		return false;
 	}
 
 	/**
-	 * Get the support of the distribution.
+	 * Call {@code c.accept(j, prob)} for each index j in the support of the distribution
+	 * (in increasing order), where prob is its probability.
+	 */
+	public void forEach(IntDoubleConsumer c)
+	{
+		for (int k = 0; k < size; k++) {
+			c.accept(indices[k], probs[k]);
+		}
+	}
+
+	/**
+	 * Get the support of the distribution
+	 * (a read-only view, which reflects subsequent changes to the distribution).
 	 */
 	public Set<Integer> getSupport()
 	{
-		return map.keySet();
+		return new Support();
+	}
+
+	/**
+	 * Get an iterator over the support of the distribution, in increasing order.
+	 */
+	public PrimitiveIterator.OfInt getSupportIterator()
+	{
+		return new PrimitiveIterator.OfInt()
+		{
+			private int k = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < size;
+			}
+
+			@Override
+			public int nextInt()
+			{
+				if (k >= size)
+					throw new NoSuchElementException();
+				return indices[k++];
+			}
+		};
+	}
+
+	/**
+	 * Read-only view of the support of the distribution.
+	 */
+	private class Support extends AbstractSet<Integer>
+	{
+		@Override
+		public Iterator<Integer> iterator()
+		{
+			return getSupportIterator();
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			return (o instanceof Integer) && Distribution.this.contains((Integer) o);
+		}
+
+		@Override
+		public int size()
+		{
+			return size;
+		}
 	}
 
 	/**
@@ -185,7 +343,36 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Iterator<Entry<Integer, Double>> iterator()
 	{
-		return map.entrySet().iterator();
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			private int k = 0;
+			private boolean canRemove = false;
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < size;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				if (k >= size)
+					throw new NoSuchElementException();
+				canRemove = true;
+				k++;
+				return new AbstractMap.SimpleImmutableEntry<Integer, Double>(indices[k - 1], probs[k - 1]);
+			}
+
+			@Override
+			public void remove()
+			{
+				if (!canRemove)
+					throw new IllegalStateException();
+				canRemove = false;
+				removeAt(--k);
+			}
+		};
 	}
 
 	/**
@@ -193,7 +380,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isEmpty()
 	{
-		return map.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -201,7 +388,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public int size()
 	{
-		return map.size();
+		return size;
 	}
 
 	/**
@@ -256,10 +443,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public double sum()
 	{
 		double mean = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			mean += e.getValue();
+		for (int k = 0; k < size; k++) {
+			mean += probs[k];
 		}
 		return mean;
 	}
@@ -270,11 +455,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public double sumAllBut(int j)
 	{
 		double d = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (e.getKey() != j)
-				d += e.getValue();
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != j)
+				d += probs[k];
 		}
 		return d;
 	}
@@ -285,13 +468,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution map(int map[])
 	{
-		Distribution distrNew = new Distribution();
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			distrNew.add(map[e.getKey()], e.getValue());
-		}
-		return distrNew;
+		return new Distribution(this, map);
 	}
 
 	/**
@@ -300,22 +477,18 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Set<Integer> keySet()
 	{
-		return map.keySet();
+		return getSupport();
 	}
 
 	@Override
 	public boolean equals(Object o)
 	{
-		Double d1, d2;
 		Distribution d = (Distribution) o;
-		if (d.size() != size())
+		if (d.size != size)
 			return false;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			d1 = e.getValue();
-			d2 = d.map.get(e.getKey());
-			if (d2 == null || !PrismUtils.doublesAreEqual(d1, d2))
+		// Both sorted by index, so can compare entry by entry
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != d.indices[k] || !PrismUtils.doublesAreEqual(probs[k], d.probs[k]))
 				return false;
 		}
 		return true;
@@ -325,13 +498,20 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public int hashCode()
 	{
 		// Simple hash code
-		return map.size();
+		return size;
 	}
 
 	@Override
 	public String toString()
 	{
-		return map.toString();
+		// Same format as for a Map
+		StringBuilder sb = new StringBuilder("{");
+		for (int k = 0; k < size; k++) {
+			if (k > 0)
+				sb.append(", ");
+			sb.append(indices[k]).append("=").append(probs[k]);
+		}
+		return sb.append("}").toString();
 	}
 	
 	public String toStringCSV()
@@ -27,21 +27,23 @@
 
 package explicit;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import prism.PrismComponent;
 import prism.PrismException;
 
 /**
  * Explicit maximal end component computer for a nondeterministic model such as an MDP.
- * Implements the algorithm from p.48 of:
+ * Implements (a worklist-based version of) the algorithm from p.48 of:
  * Luca de Alfaro. Formal Verification of Probabilistic Systems. Ph.D. thesis, Stanford University (1997)
+ * <br>
+ * MECs are cached for models that support this (see {@link NondetModel#getMECCache()}),
+ * and MECs of restricted submodels are computed by refining those of the whole model.
  */
 public class ECComputerDefault extends ECComputer
 {
@@ -87,154 +89,276 @@ public class ECComputerDefault extends ECComputer
 	}
 
 	// Computation
-	
+
 	/**
 	 * Find all accepting maximal end components (MECs) in the submodel obtained
 	 * by restricting this one to the set of states {@code restrict},
 	 * where acceptance is defined as those which intersect with {@code accept}.
 	 * If {@code restrict} is null, we look at the whole model, not a submodel.
 	 * If {@code accept} is null, the acceptance condition is trivially satisfied.
+	 * Neither {@code restrict} nor {@code accept} is modified.
+	 * <br>
+	 * If the model provides a {@link MECCache}, results are looked up in, and stored to, the cache
+	 * and, for a restricted submodel, the computation starts from the (cached) MECs of the whole model:
+	 * any end component of the submodel is contained in one of these.
 	 * @param restrict BitSet for the set of states to restrict to
 	 * @param accept BitSet for the set of accepting states
 	 * @return a list of BitSets representing the MECs
 	 */
 	private List<BitSet> findEndComponents(BitSet restrict, BitSet accept) throws PrismException
 	{
-		// If restrict is null, look within set of all reachable states
-		if (restrict == null) {
-			restrict = new BitSet();
-			restrict.set(0, model.getNumStates());
-		}
-		// Initialise L with set of all states to look in (if non-empty)
-		List<BitSet> L = new ArrayList<BitSet>();
-		if (restrict.isEmpty())
+		MECCache cache = model.getMECCache();
+		List<BitSet> L = cache == null ? null : cache.get(restrict, accept);
+		if (L != null) {
 			return L;
-		L.add(restrict);
-		// Find MECs
-		boolean changed = true;
-		while (changed) {
-			changed = false;
-			BitSet E = L.remove(0);
-			SubNondetModel submodel = restrict(model, E);
-			List<BitSet> sccs = translateStates(submodel, computeSCCs(submodel));
-			L = replaceEWithSCCs(L, E, sccs);
-			changed = canLBeChanged(L, E);
 		}
-		// Filter and return those that contain a state in accept
 		if (accept != null) {
-			int i = 0;
-			while (i < L.size()) {
-				if (!L.get(i).intersects(accept)) {
-					L.remove(i);
-				} else {
-					i++;
+			// Filter the MECs of the submodel, keeping those that contain a state in accept
+			L = findEndComponents(restrict, null);
+			L.removeIf(mec -> !mec.intersects(accept));
+		} else {
+			// Initial candidates for MECs
+			List<BitSet> candidates = new ArrayList<BitSet>();
+			if (restrict == null) {
+				BitSet all = new BitSet();
+				all.set(0, model.getNumStates());
+				candidates.add(all);
+			} else if (cache != null) {
+				for (BitSet mec : findEndComponents(null, null)) {
+					mec.and(restrict);
+					candidates.add(mec);
 				}
+			} else {
+				candidates.add((BitSet) restrict.clone());
 			}
+			L = refineCandidates(candidates);
+		}
+		if (cache != null) {
+			cache.put(restrict, accept, L);
 		}
 		return L;
 	}
 
-	private Set<BitSet> processedSCCs = new HashSet<BitSet>();
-
-	private boolean canLBeChanged(List<BitSet> L, BitSet E)
+	/**
+	 * Compute the MECs contained within a list of disjoint sets of states ("candidates"),
+	 * assuming that each end component of interest is contained in one of the candidates.
+	 * Each candidate is refined in turn: states without a choice that stays within the
+	 * candidate are (repeatedly) removed, using the incoming choices of each removed state
+	 * to update the choice counts of its predecessors; then the strongly connected components
+	 * (SCCs) of the remainder (using the remaining choices only) are computed.
+	 * If there is a single SCC, it is a MEC; otherwise, each SCC becomes a new candidate.
+	 * @param candidates The candidates (may be empty)
+	 * @return a list of BitSets representing the MECs, sorted by their smallest state
+	 */
+	private List<BitSet> refineCandidates(List<BitSet> candidates)
 	{
-		processedSCCs.add(E);
-		for (int i = 0; i < L.size(); i++) {
-			if (!processedSCCs.contains(L.get(i))) {
-				return true;
+		int n = model.getNumStates();
+		IncomingChoiceRelation incoming = model.getIncomingChoiceRelation(this, true);
+		Refinement ref = new Refinement(n);
+		Deque<int[]> work = new ArrayDeque<int[]>();
+		for (BitSet candidate : candidates) {
+			if (!candidate.isEmpty()) {
+				work.push(ref.newCandidate(candidate.stream().toArray()));
 			}
 		}
-		return false;
-	}
-
-	private List<BitSet> replaceEWithSCCs(List<BitSet> L, BitSet E, List<BitSet> sccs)
-	{
-		if (sccs.size() > 0) {
-			List<BitSet> toAdd = new ArrayList<BitSet>();
-			for (int i = 0; i < sccs.size(); i++) {
-				if (!L.contains(sccs.get(i))) {
-					toAdd.add(sccs.get(i));
+		List<BitSet> mecs = new ArrayList<BitSet>();
+		int prune[] = new int[n];
+		while (!work.isEmpty()) {
+			int states[] = work.pop();
+			int id = ref.cand[states[0]];
+			// Find the choices that stay within the candidate
+			int pruneSize = 0;
+			for (int s : states) {
+				ref.count[s] = 0;
+				for (int c = 0, numChoices = model.getNumChoices(s); c < numChoices; c++) {
+					if (ref.staysWithin(s, c, id)) {
+						ref.alive.set(ref.choiceStart[s] + c);
+						ref.count[s]++;
+					} else {
+						ref.alive.clear(ref.choiceStart[s] + c);
+					}
+				}
+				if (ref.count[s] == 0) {
+					prune[pruneSize++] = s;
 				}
 			}
-			if (toAdd.size() > 0) {
-				L.addAll(toAdd);
-			}
-		}
-		return L;
-	}
-
-	private SubNondetModel restrict(NondetModel model, BitSet states)
-	{
-		Map<Integer, BitSet> actions = new HashMap<Integer, BitSet>();
-		BitSet initialStates = new BitSet();
-		initialStates.set(states.nextSetBit(0));
-
-		boolean changed = true;
-		while (changed) {
-			changed = false;
-			actions.clear();
-			for (int i = 0; i < model.getNumStates(); i++) {
-				BitSet act = new BitSet();
-				if (states.get(i)) {
-					for (int j = 0; j < model.getNumChoices(i); j++) {
-						if (model.allSuccessorsInSet(i, j, states)) {
-							act.set(j);
+			// Remove states with no such choice, and any choices into them
+			int size = states.length;
+			while (pruneSize > 0) {
+				int t = prune[--pruneSize];
+				ref.cand[t] = -1;
+				size--;
+				for (int i = incoming.getIncomingStart(t), end = incoming.getIncomingEnd(t); i < end; i++) {
+					int u = incoming.getIncomingState(i);
+					int choice = ref.choiceStart[u] + incoming.getIncomingChoice(i);
+					if (ref.cand[u] == id && ref.alive.get(choice)) {
+						ref.alive.clear(choice);
+						if (--ref.count[u] == 0) {
+							prune[pruneSize++] = u;
 						}
 					}
-					if (act.isEmpty()) {
-						states.clear(i);
-						changed = true;
-					}
-					actions.put(i, act);
+				}
+			}
+			if (size == 0) {
+				continue;
+			}
+			// Split the remainder into SCCs, or store it as a MEC if it is strongly connected
+			List<int[]> sccs = ref.computeSCCs(states, id);
+			if (sccs.size() == 1) {
+				BitSet mec = new BitSet();
+				for (int s : sccs.get(0)) {
+					mec.set(s);
+				}
+				mecs.add(mec);
+			} else {
+				for (int[] scc : sccs) {
+					work.push(ref.newCandidate(scc));
 				}
 			}
 		}
-
-		return new SubNondetModel(model, states, actions, initialStates);
+		mecs.sort((mec1, mec2) -> Integer.compare(mec1.nextSetBit(0), mec2.nextSetBit(0)));
+		return mecs;
 	}
 
-	private List<BitSet> computeSCCs(NondetModel model) throws PrismException
+	/**
+	 * Storage for the refinement of MEC candidates (see {@link #refineCandidates(List)}).
+	 */
+	private class Refinement
 	{
-		SCCConsumerStore sccs = new SCCConsumerStore();
-		SCCComputer sccc = SCCComputer.createSCCComputer(this, model, sccs);
-		sccc.computeSCCs();
-		return sccs.getSCCs();
-	}
+		/** Index of the first choice of each state, in a numbering of all choices of the model */
+		int choiceStart[];
+		/** The candidate (id) that each state belongs to (-1 if none) */
+		int cand[];
+		int numCands = 0;
+		/** For states in the candidate currently processed, the number of choices in {@code alive} */
+		int count[];
+		/** Choices (indexed as for choiceStart) which stay within the candidate currently processed */
+		BitSet alive = new BitSet();
+		/* Storage for Tarjan's algorithm: node indices/lowlinks, SCC stack and depth-first search stack */
+		int index[];
+		int lowlink[];
+		int stack[];
+		int stackSize;
+		BitSet onStack = new BitSet();
+		int dfsStates[];
+		int dfsChoices[];
+		SuccessorsIterator dfsIterators[];
 
-	private List<BitSet> translateStates(SubNondetModel model, List<BitSet> sccs)
-	{
-		List<BitSet> r = new ArrayList<BitSet>();
-		for (int i = 0; i < sccs.size(); i++) {
-			BitSet set = sccs.get(i);
-			BitSet set2 = new BitSet();
-			r.add(set2);
-			for (int j = set.nextSetBit(0); j >= 0; j = set.nextSetBit(j + 1)) {
-				set2.set(model.translateState(j));
+		Refinement(int n)
+		{
+			choiceStart = new int[n + 1];
+			for (int s = 0; s < n; s++) {
+				choiceStart[s + 1] = choiceStart[s] + model.getNumChoices(s);
+			}
+			cand = new int[n];
+			Arrays.fill(cand, -1);
+			count = new int[n];
+			index = new int[n];
+			lowlink = new int[n];
+			stack = new int[n];
+			dfsStates = new int[n];
+			dfsChoices = new int[n];
+			dfsIterators = new SuccessorsIterator[n];
+		}
 
+		/**
+		 * Assign a new candidate id to some states, returning them.
+		 */
+		int[] newCandidate(int states[])
+		{
+			int id = numCands++;
+			for (int s : states) {
+				cand[s] = id;
 			}
+			return states;
 		}
-		return r;
-	}
 
-	private boolean isMEC(BitSet b)
-	{
-		if (b.isEmpty())
-			return false;
-
-		int state = b.nextSetBit(0);
-		while (state != -1) {
-			boolean atLeastOneAction = false;
-			for (int i = 0; i < model.getNumChoices(state); i++) {
-				if (model.allSuccessorsInSet(state, i, b)) {
-					atLeastOneAction = true;
+		/**
+		 * Do all successors of choice {@code c} of state {@code s} belong to candidate {@code id}?
+		 */
+		boolean staysWithin(int s, int c, int id)
+		{
+			SuccessorsIterator it = model.getSuccessors(s, c);
+			while (it.hasNext()) {
+				if (cand[it.nextInt()] != id) {
+					return false;
 				}
 			}
-			if (!atLeastOneAction) {
-				return false;
-			}
-			state = b.nextSetBit(state + 1);
+			return true;
 		}
 
-		return true;
+		/**
+		 * Compute the SCCs of the states in {@code states} that are (still) in candidate {@code id},
+		 * considering transitions of the choices in {@code alive} only (using Tarjan's algorithm).
+		 */
+		List<int[]> computeSCCs(int states[], int id)
+		{
+			List<int[]> sccs = new ArrayList<int[]>();
+			for (int s : states) {
+				index[s] = -1;
+			}
+			int nextIndex = 0;
+			stackSize = 0;
+			for (int root : states) {
+				if (cand[root] != id || index[root] != -1) {
+					continue;
+				}
+				int dfsSize = 0;
+				index[root] = lowlink[root] = nextIndex++;
+				stack[stackSize++] = root;
+				onStack.set(root);
+				dfsStates[dfsSize] = root;
+				dfsChoices[dfsSize] = 0;
+				dfsIterators[dfsSize++] = null;
+				while (dfsSize > 0) {
+					int v = dfsStates[dfsSize - 1];
+					SuccessorsIterator it = dfsIterators[dfsSize - 1];
+					int w = -1;
+					// Find the next successor of v (via a choice in alive) that has not been visited
+					while (w == -1) {
+						if (it != null && it.hasNext()) {
+							int t = it.nextInt();
+							if (index[t] == -1) {
+								w = t;
+							} else if (onStack.get(t)) {
+								lowlink[v] = Math.min(lowlink[v], index[t]);
+							}
+						} else {
+							int c = alive.nextSetBit(choiceStart[v] + dfsChoices[dfsSize - 1]);
+							if (c == -1 || c >= choiceStart[v + 1]) {
+								break;
+							}
+							dfsChoices[dfsSize - 1] = c - choiceStart[v] + 1;
+							it = dfsIterators[dfsSize - 1] = model.getSuccessors(v, c - choiceStart[v]);
+						}
+					}
+					if (w != -1) {
+						// Descend to w
+						index[w] = lowlink[w] = nextIndex++;
+						stack[stackSize++] = w;
+						onStack.set(w);
+						dfsStates[dfsSize] = w;
+						dfsChoices[dfsSize] = 0;
+						dfsIterators[dfsSize++] = null;
+						continue;
+					}
+					// All successors of v done
+					dfsIterators[--dfsSize] = null;
+					if (lowlink[v] == index[v]) {
+						int start = stackSize;
+						do {
+							onStack.clear(stack[--start]);
+						} while (stack[start] != v);
+						sccs.add(Arrays.copyOfRange(stack, start, stackSize));
+						stackSize = start;
+					}
+					if (dfsSize > 0) {
+						int u = dfsStates[dfsSize - 1];
+						lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+					}
+				}
+			}
+			return sccs;
+		}
 	}
 }
@@ -26,9 +26,10 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
+import java.util.stream.IntStream;
+
 import prism.PrismComponent;
 
 /**
@@ -38,6 +39,12 @@ import prism.PrismComponent;
  * <p>
  * As NondetModel only provide easy access to successors of states,
  * the predecessor relation is computed and stored for subsequent efficient access.
+ * As in {@link PredecessorRelation}, the incoming choices are stored in a
+ * compressed sparse row (CSR) layout: the incoming choices of state {@code t}
+ * have indices {@code getIncomingStart(t)}, ..., {@code getIncomingEnd(t) - 1},
+ * with source state and choice index given by {@link #getIncomingState(int)}
+ * and {@link #getIncomingChoice(int)}. Each choice occurs once,
+ * even if it has several transitions to {@code t}.
  * <p>
  * Note: Naturally, if the NondetModel changes, the predecessor relation
  * has to be recomputed to remain accurate.
@@ -107,9 +114,12 @@ public class IncomingChoiceRelation
 	};
 
 	/**
-	 * pre[i] provides the list of incoming choices of the state with index i.
+	 * The incoming choices of the state with index i are the pairs
+	 * (inStates[j], inChoices[j]) for j = inStart[i], ..., inStart[i+1]-1.
 	 */
-	List<ArrayList<Choice>> pre;
+	private int inStart[];
+	private int inStates[];
+	private int inChoices[];
 
 	/**
 	 * Constructor. Computes the predecessor relation for the given model
@@ -119,12 +129,6 @@ public class IncomingChoiceRelation
 	 */
 	public IncomingChoiceRelation(NondetModel model)
 	{
-		pre = new ArrayList<ArrayList<Choice>>(model.getNumStates());
-		// construct the (empty) array list for all states
-		for (int s = 0; s < model.getNumStates(); s++) {
-			pre.add(s, new ArrayList<Choice>());
-		}
-
 		compute(model);
 	}
 
@@ -132,28 +136,101 @@ public class IncomingChoiceRelation
 	private void compute(NondetModel model)
 	{
 		int n = model.getNumStates();
+		inStart = new int[n + 1];
+		// lastSeen[t] = last choice (numbered consecutively over all states) found with a transition to t
+		int lastSeen[] = new int[n];
 
+		// First pass: count the incoming choices of each state
+		Arrays.fill(lastSeen, -1);
+		int id = 0;
 		for (int s = 0; s < n; s++) {
-			for (int c = 0, m = model.getNumChoices(s); c < m; c++) {
-				Choice choice = new Choice(s, c);
-
-				Iterator<Integer> it = model.getSuccessorsIterator(s, c);
+			for (int c = 0, m = model.getNumChoices(s); c < m; c++, id++) {
+				SuccessorsIterator it = model.getSuccessors(s, c);
 				while (it.hasNext()) {
-					int successor = it.next();
+					int t = it.nextInt();
+					if (lastSeen[t] != id) {
+						lastSeen[t] = id;
+						inStart[t + 1]++;
+					}
+				}
+			}
+		}
+		for (int t = 0; t < n; t++) {
+			inStart[t + 1] += inStart[t];
+		}
 
-					// Add the current choice s to pre[successor].
-					pre.get(successor).add(choice);
+		// Second pass: store the incoming choices
+		inStates = new int[inStart[n]];
+		inChoices = new int[inStart[n]];
+		int next[] = Arrays.copyOf(inStart, n);
+		Arrays.fill(lastSeen, -1);
+		id = 0;
+		for (int s = 0; s < n; s++) {
+			for (int c = 0, m = model.getNumChoices(s); c < m; c++, id++) {
+				SuccessorsIterator it = model.getSuccessors(s, c);
+				while (it.hasNext()) {
+					int t = it.nextInt();
+					if (lastSeen[t] != id) {
+						lastSeen[t] = id;
+						inStates[next[t]] = s;
+						inChoices[next[t]] = c;
+						next[t]++;
+					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Get the number of incoming choices of state {@code t}.
+	 */
+	public int getNumIncomingChoices(int t)
+	{
+		return inStart[t + 1] - inStart[t];
+	}
+
+	/**
+	 * Get the index of the first incoming choice of state {@code t}
+	 * (see {@link #getIncomingState(int)} and {@link #getIncomingChoice(int)}).
+	 */
+	public int getIncomingStart(int t)
+	{
+		return inStart[t];
+	}
+
+	/**
+	 * Get the index after the last incoming choice of state {@code t}
+	 * (see {@link #getIncomingState(int)} and {@link #getIncomingChoice(int)}).
+	 */
+	public int getIncomingEnd(int t)
+	{
+		return inStart[t + 1];
+	}
+
+	/**
+	 * Get the source state of the incoming choice stored at index {@code i}.
+	 */
+	public int getIncomingState(int i)
+	{
+		return inStates[i];
+	}
+
+	/**
+	 * Get the choice index (within its source state) of the incoming choice stored at index {@code i}.
+	 */
+	public int getIncomingChoice(int i)
+	{
+		return inChoices[i];
+	}
+
 	/**
 	 * Get an Iterable over the incoming choices of state {@code s}.
+	 * Note: this creates a new {@code Choice} object for each element;
+	 * for efficient access, use the index-based methods.
 	 */
 	public Iterable<Choice> getIncomingChoices(int s)
 	{
-		return pre.get(s);
+		return () -> getIncomingChoicesIterator(s);
 	}
 
 	/**
@@ -161,7 +238,7 @@ public class IncomingChoiceRelation
 	 */
 	public Iterator<Choice> getIncomingChoicesIterator(int s)
 	{
-		return getIncomingChoices(s).iterator();
+		return IntStream.range(inStart[s], inStart[s + 1]).mapToObj(i -> new Choice(inStates[i], inChoices[i])).iterator();
 	}
 
 	/**
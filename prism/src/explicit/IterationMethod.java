@@ -29,6 +29,9 @@
 package explicit;
 
 import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntToDoubleFunction;
 
 import common.IntSet;
 import common.PeriodicTimer;
@@ -61,6 +64,16 @@ public abstract class IterationMethod {
 		/** Perform one iteration (over the set of states) and return true if convergence has been detected. */
 		public boolean iterateAndCheckConvergence(IntSet states) throws PrismException;
 
+		/**
+		 * Perform one iteration over the states of an SCC and return true if convergence has been detected,
+		 * as for {@link #iterateAndCheckConvergence(IntSet)}, but such that this can be done concurrently
+		 * for several disjoint SCCs (whose successors outside the SCC are finished):
+		 * only the solution values for {@code states} are modified, the current error
+		 * for them is stored in {@code error[0]} (rather than in this object), and the values
+		 * are always up-to-date in all solution vectors, i.e., there is no need to call {@link #doneWith(IntSet)}.
+		 */
+		public boolean iterateSCCAndCheckConvergence(IntSet states, double error[]) throws PrismException;
+
 		/**
 		 * Notify that the given states are done (e.g., because the given SCC is finished
 		 * during a topological iteration).
@@ -169,6 +182,25 @@ public abstract class IterationMethod {
 		{
 			super(model);
 		}
+
+		/** Perform one iteration (in place) and return the max difference between old and new values */
+		public abstract double doIterate(IntSet states) throws PrismException;
+
+		@Override
+		public boolean iterateAndCheckConvergence(IntSet states) throws PrismException
+		{
+			error = doIterate(states);
+			// Check termination
+			return (error < termCritParam);
+		}
+
+		@Override
+		public boolean iterateSCCAndCheckConvergence(IntSet states, double error[]) throws PrismException
+		{
+			error[0] = doIterate(states);
+			// Check termination
+			return (error[0] < termCritParam);
+		}
 	}
 
 	/** Abstract base class for an IterationIntervalIter with a single solution vector */
@@ -205,6 +237,8 @@ public abstract class IterationMethod {
 		protected double[] soln2;
 		/** Post processing, may be null */
 		protected final IterationPostProcessor postProcessor;
+		/** Partition of the last set of states iterated over, for parallel iteration (null if not used) */
+		private ParallelIteration.Partition partition;
 
 		/** Constructor */
 		protected TwoVectorIteration(Model model, IterationMethod.IterationPostProcessor postProcessor)
@@ -226,6 +260,41 @@ public abstract class IterationMethod {
 		/** Perform one iteration */
 		public abstract void doIterate(IntSet states) throws PrismException;
 
+		/**
+		 * Perform one iteration, i.e., set {@code soln2[s] = op(s)} for all {@code states},
+		 * in parallel, if this is enabled (see {@link IterationMethod#setNumThreads(int)})
+		 * and worthwhile for this set of states. Returns false, doing nothing,
+		 * if not, in which case the caller should perform the iteration sequentially.
+		 */
+		protected boolean doIterateParallel(IntSet states, IntToDoubleFunction op)
+		{
+			ParallelIteration.Partition partition = getPartition(states);
+			if (partition == null) {
+				return false;
+			}
+			parallel.apply(partition, soln2, op);
+			return true;
+		}
+
+		/**
+		 * Get the partition of a set of states for parallel iteration
+		 * (null if parallel iteration is not enabled or not worthwhile).
+		 * The partition of the last set of states is reused.
+		 */
+		private ParallelIteration.Partition getPartition(IntSet states)
+		{
+			if (parallel == null) {
+				return null;
+			}
+			// (read the field once, since SCCs may be iterated concurrently)
+			ParallelIteration.Partition partition = this.partition;
+			if (partition == null || partition.getSource() != states) {
+				partition = parallel.partition(model, states);
+				this.partition = partition;
+			}
+			return partition;
+		}
+
 		@Override
 		public void iterate(IntSet states) throws PrismException
 		{
@@ -251,8 +320,14 @@ public abstract class IterationMethod {
 			if (postProcessor != null) {
 				postProcessor.apply(soln, soln2, states);
 			}
-			// check convergence (on the set of states)
-			boolean done = PrismUtils.doublesAreClose(soln, soln2, states.iterator(), termCritParam, absolute);
+			// check convergence (on the set of states, in parallel if possible)
+			ParallelIteration.Partition partition = getPartition(states);
+			boolean done;
+			if (partition != null) {
+				done = parallel.doublesAreClose(partition, soln, soln2, termCritParam, absolute);
+			} else {
+				done = PrismUtils.doublesAreClose(soln, soln2, states.iterator(), termCritParam, absolute);
+			}
 
 			// switch vectors
 			double[] tmp = soln;
@@ -262,6 +337,33 @@ public abstract class IterationMethod {
 			return done;
 		}
 
+		@Override
+		public boolean iterateSCCAndCheckConvergence(IntSet states, double error[]) throws PrismException
+		{
+			// do the iteration
+			doIterate(states);
+			// optionally, post processing
+			if (postProcessor != null) {
+				postProcessor.apply(soln, soln2, states);
+			}
+			// check convergence (on the set of states)
+			boolean done = PrismUtils.doublesAreClose(soln, soln2, states.iterator(), termCritParam, absolute);
+
+			// copy the new values back to the first vector, rather than switching vectors
+			// (which would affect other SCCs), and measure the error along the way
+			error[0] = 0.0;
+			PrimitiveIterator.OfInt it = states.iterator();
+			while (it.hasNext()) {
+				int state = it.nextInt();
+				double diff = absolute ? PrismUtils.measureSupNormAbs(soln2[state], soln[state]) : PrismUtils.measureSupNormRel(soln2[state], soln[state]);
+				if (diff > error[0])
+					error[0] = diff;
+				soln[state] = soln2[state];
+			}
+
+			return done;
+		}
+
 		@Override
 		public double getError()
 		{
@@ -312,6 +414,8 @@ public abstract class IterationMethod {
 	protected final boolean absolute;
 	/** Convergence check: epsilon value */
 	protected final double termCritParam;
+	/** For multi-threaded iteration (null if single-threaded) */
+	protected ParallelIteration parallel = null;
 
 	/**
 	 * Constructor.
@@ -324,6 +428,16 @@ public abstract class IterationMethod {
 		this.termCritParam = termCritParam;
 	}
 
+	/**
+	 * Set the number of threads to use for iterations that update each state
+	 * independently (currently, those of the Power and Jacobi methods).
+	 * Default is 1 (single-threaded).
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		parallel = numThreads > 1 ? new ParallelIteration(numThreads) : null;
+	}
+
 	// ------------ Abstract DTMC methods ----------------------------
 
 	/** Obtain an Iteration object using mvMult (matrix-vector multiplication) in a DTMC */
@@ -483,6 +597,12 @@ public abstract class IterationMethod {
 	 */
 	public ModelCheckerResult doTopologicalValueIteration(ProbModelChecker mc, String description, SCCInfo sccs, IterationMethod.IterationValIter iterator, SingletonSCCSolver singletonSCCSolver, long startTime, ExportIterations iterationsExport) throws PrismException
 	{
+		// If multi-threaded, process independent SCCs concurrently
+		// (unless exporting the solution vectors after each iteration)
+		if (mc.getNumThreads() > 1 && iterationsExport == null) {
+			return doTopologicalValueIterationParallel(mc, description, sccs, iterator, singletonSCCSolver, startTime);
+		}
+
 		// Start iterations
 		int iters = 0;
 		long mvCount = 0;
@@ -581,6 +701,87 @@ public abstract class IterationMethod {
 		return res;
 	}
 
+	/**
+	 * Perform the actual work of a topological value iteration, i.e., iterate until convergence or abort,
+	 * using multiple threads (see {@link ProbModelChecker#setNumThreads(int)}).
+	 * SCCs are dispatched to worker threads once all their successor SCCs are finished
+	 * (see {@link SCCScheduler}), and each SCC is iterated using
+	 * {@link IterationValIter#iterateSCCAndCheckConvergence(IntSet, double[])}.
+	 * Since the iteration for an SCC only depends on the (final) values of its successors,
+	 * the results are the same as for {@link #doTopologicalValueIteration}.
+	 *
+	 * @param mc ProbModelChecker (for log and settings)
+	 * @param description (for logging)
+	 * @param sccs The information about the SCCs and topological order
+	 * @param iteration The iteration object
+	 * @param singletonSCCSolver The solver for singleton SCCs
+	 * @param startTime The start time (for logging purposes, obtained from a call to System.currentTimeMillis())
+	 * @return a ModelChecker result with the solution vector and statistics
+	 * @throws PrismException on non-convergence (if mc.errorOnNonConverge is set)
+	 */
+	protected ModelCheckerResult doTopologicalValueIterationParallel(ProbModelChecker mc, String description, SCCInfo sccs, IterationMethod.IterationValIter iterator, SingletonSCCSolver singletonSCCSolver, long startTime) throws PrismException
+	{
+		final int maxIters = mc.maxIters;
+		LongAdder iters = new LongAdder();
+		LongAdder mvCount = new LongAdder();
+		DoubleAccumulator error = new DoubleAccumulator(Math::max, 0.0);
+
+		int numSCCs = sccs.getNumSCCs();
+		int numNonSingletonSCCs = sccs.countNonSingletonSCCs();
+		int numThreads = mc.getNumThreads();
+
+		SCCScheduler scheduler = new SCCScheduler(sccs, iterator.getModel(), numThreads);
+		boolean done = scheduler.run(scc -> {
+			if (sccs.isSingletonSCC(scc)) {
+				// get the single state in this SCC
+				int state = sccs.getStatesForSCC(scc).iterator().nextInt();
+				iterator.solveSingletonSCC(state, singletonSCCSolver);
+				mvCount.add(iterator.getModel().getNumTransitions(state));
+				iters.increment();
+				return true;
+			}
+			// complex SCC: do VI
+			IntSet statesForSCC = sccs.getStatesForSCC(scc);
+			double errorSCC[] = new double[1];
+			boolean doneSCC = false;
+			int itersInSCC = 0;
+			// abort on convergence or if iterations *in this SCC* are above maxIters
+			while (!doneSCC && itersInSCC < maxIters) {
+				itersInSCC++;
+				doneSCC = iterator.iterateSCCAndCheckConvergence(statesForSCC, errorSCC);
+			}
+			error.accumulate(errorSCC[0]);
+			iters.add(itersInSCC);
+			mvCount.add(itersInSCC * iterator.getModel().getNumTransitions(statesForSCC.iterator()));
+			return doneSCC;
+		}, ProbModelChecker.UPDATE_DELAY, finished -> {
+			mc.getLog().print(finished + " of " + numSCCs + " SCCs finished");
+			mc.getLog().println(", " + PrismUtils.formatDouble2dp((System.currentTimeMillis() - startTime) / 1000.0) + " sec so far");
+		});
+
+		// Finished value iteration
+		long timer = System.currentTimeMillis() - startTime;
+		mc.getLog().print("Value iteration (" + description + ", with " + numNonSingletonSCCs + " non-singleton SCCs, " + numThreads + " threads)");
+		mc.getLog().print(" took " + iters.sum() + " iterations, ");
+		mc.getLog().print(mvCount.sum() + " multiplications");
+		mc.getLog().println(" and " + timer / 1000.0 + " seconds.");
+
+		// Non-convergence is an error (usually)
+		if (!done && mc.errorOnNonConverge) {
+			String msg = "Iterative method did not converge within " + maxIters + " iterations in an SCC.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		ModelCheckerResult res = new ModelCheckerResult();
+		res.soln = iterator.getSolnVector();
+		res.accuracy = AccuracyFactory.valueIteration(termCritParam, error.get(), absolute);
+		res.numIters = (int) iters.sum();
+		res.timeTaken = timer / 1000.0;
+		return res;
+	}
+
 	/**
 	 * Perform the actual work of an interval iteration, i.e., iterate until convergence or abort.
 	 *
@@ -55,15 +55,12 @@ public class IterationMethodGS extends IterationMethod {
 	{
 		return new SingleVectorIterationValIter(dtmc) {
 			@Override
-			public boolean iterateAndCheckConvergence(IntSet states)
+			public double doIterate(IntSet states)
 			{
-				// Matrix-vector multiply
-				error = dtmc.mvMultGS(soln,
-				                               backwards ? states.reversedIterator() : states.iterator(),
-				                               absolute);
-
-				// Check termination
-				return (error < termCritParam);
+				// Matrix-vector multiply (returning the max difference)
+				return dtmc.mvMultGS(soln,
+				                              backwards ? states.reversedIterator() : states.iterator(),
+				                              absolute);
 			}
 		};
 	}
@@ -90,16 +87,13 @@ public class IterationMethodGS extends IterationMethod {
 	{
 		return new SingleVectorIterationValIter(dtmc) {
 			@Override
-			public boolean iterateAndCheckConvergence(IntSet states)
+			public double doIterate(IntSet states)
 			{
-				// Matrix-vector multiply
-				error = dtmc.mvMultRewGS(soln,
-				                                  rew,
-				                                  backwards ? states.reversedIterator() : states.iterator(),
-				                                  absolute);
-
-				// Check termination
-				return (error < termCritParam);
+				// Matrix-vector multiply (returning the max difference)
+				return dtmc.mvMultRewGS(soln,
+				                                 rew,
+				                                 backwards ? states.reversedIterator() : states.iterator(),
+				                                 absolute);
 			}
 		};
 	}
@@ -127,17 +121,14 @@ public class IterationMethodGS extends IterationMethod {
 	{
 		return new SingleVectorIterationValIter(mdp) {
 			@Override
-			public boolean iterateAndCheckConvergence(IntSet states)
+			public double doIterate(IntSet states)
 			{
-				// Matrix-vector multiply
-				error = mdp.mvMultGSMinMax(soln,
-				                                    min,
-				                                    backwards ? states.reversedIterator() : states.iterator(),
-				                                    absolute,
-				                                    strat);
-
-				// Check termination
-				return (error < termCritParam);
+				// Matrix-vector multiply (returning the max difference)
+				return mdp.mvMultGSMinMax(soln,
+				                                   min,
+				                                   backwards ? states.reversedIterator() : states.iterator(),
+				                                   absolute,
+				                                   strat);
 			}
 		};
 	}
@@ -168,18 +159,15 @@ public class IterationMethodGS extends IterationMethod {
 	{
 		return new SingleVectorIterationValIter(mdp) {
 			@Override
-			public boolean iterateAndCheckConvergence(IntSet states)
+			public double doIterate(IntSet states)
 			{
-				// Matrix-vector multiply
-				error = mdp.mvMultRewGSMinMax(soln,
-				                                       rewards,
-				                                       min,
-				                                       backwards ? states.reversedIterator() : states.iterator(),
-				                                       absolute,
-				                                       strat);
-
-				// Check termination
-				return (error < termCritParam);
+				// Matrix-vector multiply (returning the max difference)
+				return mdp.mvMultRewGSMinMax(soln,
+				                                      rewards,
+				                                      min,
+				                                      backwards ? states.reversedIterator() : states.iterator(),
+				                                      absolute,
+				                                      strat);
 			}
 		};
 	}
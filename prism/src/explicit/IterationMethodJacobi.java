@@ -54,7 +54,9 @@ class IterationMethodJacobi extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultJac(soln, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultJacSingle(s, soln))) {
+					dtmc.mvMultJac(soln, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -70,7 +72,9 @@ class IterationMethodJacobi extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultJac(soln, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultJacSingle(s, soln))) {
+					dtmc.mvMultJac(soln, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -82,7 +86,9 @@ class IterationMethodJacobi extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultRewJacSingle(s, soln, rew))) {
+					dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -98,7 +104,9 @@ class IterationMethodJacobi extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultRewJacSingle(s, soln, rew))) {
+					dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -53,7 +53,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMult(soln, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultSingle(s, soln))) {
+					dtmc.mvMult(soln, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -69,7 +71,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMult(soln, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultSingle(s, soln))) {
+					dtmc.mvMult(soln, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -81,7 +85,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultRewSingle(s, soln, rew))) {
+					dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -97,7 +103,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				if (!doIterateParallel(states, s -> dtmc.mvMultRewSingle(s, soln, rew))) {
+					dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				}
 			}
 		};
 	}
@@ -109,7 +117,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				if (!doIterateParallel(states, s -> mdp.mvMultMinMaxSingle(s, soln, min, strat))) {
+					mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				}
 			}
 		};
 	}
@@ -126,7 +136,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				if (!doIterateParallel(states, s -> mdp.mvMultMinMaxSingle(s, soln, min, strat))) {
+					mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				}
 			}
 		};
 	}
@@ -144,7 +156,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				if (!doIterateParallel(states, s -> mdp.mvMultRewMinMaxSingle(s, soln, rewards, min, strat))) {
+					mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				}
 			}
 		};
 	}
@@ -161,7 +175,9 @@ public class IterationMethodPower extends IterationMethod {
 			@Override
 			public void doIterate(IntSet states)
 			{
-				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				if (!doIterateParallel(states, s -> mdp.mvMultRewMinMaxSingle(s, soln, rewards, min, strat))) {
+					mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				}
 			}
 		};
 	}
@@ -573,7 +573,7 @@ public class LTLModelChecker extends PrismComponent
 		ModelSimple prodModel = null;
 		switch (modelType) {
 		case CSG:
-			CSG csgProd = new CSG();
+			CSGSimple csgProd = new CSGSimple();
 			csgProd.setVarList(newVarList);
 			prodModel = csgProd;
 			break;
@@ -607,10 +607,10 @@ public class LTLModelChecker extends PrismComponent
 
 		// Add player information for CSGs
 		if (modelType == ModelType.CSG) {
-			((CSG) prodModel).setActions(((CSG) model).getActions());
-			((CSG) prodModel).setPlayers(((CSG) model).getPlayers());
-			((CSG) prodModel).setIndexes(((CSG) model).getIndexes());
-			((CSG) prodModel).setIdles(((CSG) model).getIdles());
+			((CSGSimple) prodModel).setActions(((CSG) model).getActions());
+			((CSGSimple) prodModel).setPlayers(((CSG) model).getPlayers());
+			((CSGSimple) prodModel).setIndexes(((CSG) model).getIndexes());
+			((CSGSimple) prodModel).setIdles(((CSG) model).getIdles());
 		}
 		
 		// Encoding: 
@@ -653,7 +653,7 @@ public class LTLModelChecker extends PrismComponent
 				((STPGExplicit) prodModel).addState(((STPG) model).getPlayer(s_0));
 				break;
 			case SMG:
-				((SMG) prodModel).addState(((SMG) model).getPlayer(s_0));
+				((SMG) prodModel).addState(((STPG) model).getPlayer(s_0));
 				break;
 			default:
 				prodModel.addState();
@@ -693,7 +693,7 @@ public class LTLModelChecker extends PrismComponent
 					iter = ((STPG) model).getTransitionsIterator(s_1, j);
 					break;
 				case SMG:
-					iter = ((SMG) model).getTransitionsIterator(s_1, j);
+					iter = ((STPG) model).getTransitionsIterator(s_1, j);
 					break;
 				default:
 					throw new PrismNotSupportedException("Product construction not implemented for " + modelType + "s");
@@ -723,7 +723,7 @@ public class LTLModelChecker extends PrismComponent
 							((STPGExplicit) prodModel).addState(((STPG) model).getPlayer(s_2));
 							break;
 						case SMG:
-							((SMG) prodModel).addState(((SMG) model).getPlayer(s_2));
+							((SMG) prodModel).addState(((STPG) model).getPlayer(s_2));
 							break;
 						default:
 							prodModel.addState();
@@ -751,8 +751,8 @@ public class LTLModelChecker extends PrismComponent
 				}
 				switch (modelType) {
 				case CSG:
-					t_2 = ((CSG) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((CSG) model).getAction(s_1, j));
-					((CSG) prodModel).setIndexes(map[s_1 * daSize + q_1], t_2, ((CSG) model).getIndexes(s_1, j));
+					t_2 = ((CSGSimple) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((CSG) model).getAction(s_1, j));
+					((CSGSimple) prodModel).setIndexes(map[s_1 * daSize + q_1], t_2, ((CSG) model).getIndexes(s_1, j));
 					break;
 				case MDP:
 					((MDPSimple) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((MDP) model).getAction(s_1, j));
@@ -761,7 +761,7 @@ public class LTLModelChecker extends PrismComponent
 					((STPGExplicit) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((STPG) model).getAction(s_1, j));
 					break;
 				case SMG:
-					((SMG) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((SMG) model).getAction(s_1, j));
+					((SMG) prodModel).addActionLabelledChoice(map[s_1 * daSize + q_1], prodDistr, ((STPG) model).getAction(s_1, j));
 					break;
 				default:
 					break;
@@ -771,8 +771,13 @@ public class LTLModelChecker extends PrismComponent
 
 		// For SMGs, copy player/coalition info too
 		if (modelType == ModelType.SMG) {
-			((SMG) prodModel).copyPlayerInfo((SMG) model);
-			((SMG) prodModel).copyCoalitionInfo((SMG) model);
+			if (model instanceof SMGSparse) {
+				((SMG) prodModel).copyPlayerInfo((SMGSparse) model);
+				((SMG) prodModel).copyCoalitionInfo((SMGSparse) model);
+			} else {
+				((SMG) prodModel).copyPlayerInfo((SMG) model);
+				((SMG) prodModel).copyCoalitionInfo((SMG) model);
+			}
 		}
 
 		// Build a mapping from state indices to states (s,q), encoded as (s * daSize + q) 
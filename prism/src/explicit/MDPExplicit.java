@@ -27,6 +27,7 @@
 
 package explicit;
 
+import prism.PrismComponent;
 import strat.MDStrategy;
 
 /**
@@ -34,6 +35,21 @@ import strat.MDStrategy;
  */
 public abstract class MDPExplicit extends ModelExplicit implements MDP
 {
+	/**
+	 * (Optionally) the stored incoming choice relation. Becomes inaccurate after the model is changed!
+	 */
+	protected IncomingChoiceRelation incomingChoiceRelation = null;
+
+	/**
+	 * (Optionally) the cache of maximal end components, created on demand. Must be cleared after the model is changed!
+	 */
+	protected MECCache mecCache = null;
+
+	/**
+	 * (Optionally) the cache of previous numerical results, created on demand. Must be cleared after the model is changed!
+	 */
+	protected WarmStartCache warmStartCache = null;
+
 	// Accessors (for MDP)
 
 	@Override
@@ -41,4 +57,65 @@ public abstract class MDPExplicit extends ModelExplicit implements MDP
 	{
 		return new DTMCFromMDPAndMDStrategy(this, strat);
 	}
+
+	@Override
+	public boolean hasStoredIncomingChoiceRelation()
+	{
+		return (incomingChoiceRelation != null);
+	}
+
+	@Override
+	public IncomingChoiceRelation getIncomingChoiceRelation(PrismComponent parent, boolean storeIfNew)
+	{
+		if (incomingChoiceRelation != null) {
+			return incomingChoiceRelation;
+		}
+
+		IncomingChoiceRelation pre = IncomingChoiceRelation.forModel(parent, this);
+
+		if (storeIfNew) {
+			incomingChoiceRelation = pre;
+		}
+		return pre;
+	}
+
+	@Override
+	public void clearIncomingChoiceRelation()
+	{
+		incomingChoiceRelation = null;
+	}
+
+	@Override
+	public synchronized MECCache getMECCache()
+	{
+		if (mecCache == null) {
+			mecCache = new MECCache();
+		}
+		return mecCache;
+	}
+
+	@Override
+	public void clearMECCache()
+	{
+		if (mecCache != null) {
+			mecCache.clear();
+		}
+	}
+
+	@Override
+	public synchronized WarmStartCache getWarmStartCache()
+	{
+		if (warmStartCache == null) {
+			warmStartCache = new WarmStartCache();
+		}
+		return warmStartCache;
+	}
+
+	@Override
+	public void clearWarmStartCache()
+	{
+		if (warmStartCache != null) {
+			warmStartCache.clear();
+		}
+	}
 }
@@ -50,6 +50,7 @@ import explicit.rewards.MCRewardsFromMDPRewards;
 import explicit.rewards.MDPRewards;
 import explicit.rewards.Rewards;
 import parser.ast.Expression;
+import prism.Accuracy.AccuracyLevel;
 import prism.AccuracyFactory;
 import prism.OptionsIntervalIteration;
 import prism.Prism;
@@ -324,6 +325,21 @@ public class MDPModelChecker extends ProbModelChecker
 				throw new PrismException("Policy iteration methods cannot be passed 'known' values for some states");
 			}
 		}
+		if (mdpSolnMethod == MDPSolnMethod.OPTIMISTIC_VALUE_ITERATION) {
+			if (doIntervalIteration) {
+				throw new PrismNotSupportedException("Interval iteration currently not supported for optimistic value iteration");
+			}
+			if (!min && (genStrat || exportAdv)) {
+				throw new PrismNotSupportedException("Currently, explicit engine does not support adversary construction for optimistic value iteration and Pmax");
+			}
+			if (!(precomp && prob0 && prob1)) {
+				throw new PrismNotSupportedException("Precomputations (Prob0 & Prob1) must be enabled for optimistic value iteration");
+			}
+			// For Pmax, end components need to be collapsed for the upper bound to be verifiable
+			if (!min) {
+				doPmaxQuotient = true;
+			}
+		}
 
 		if (doPmaxQuotient && min) {
 			// for Pmin, don't do quotient
@@ -364,10 +380,17 @@ public class MDPModelChecker extends ProbModelChecker
 			exportLabels(mdp, labels, labelNames, Prism.EXPORT_PLAIN, new PrismFileLog(getExportTargetFilename()));
 		}
 
+		// If required, get the cache of previous results on this model to warm-start from
+		boolean polIter = mdpSolnMethod == MDPSolnMethod.POLICY_ITERATION || mdpSolnMethod == MDPSolnMethod.MODIFIED_POLICY_ITERATION;
+		WarmStartCache warmStartCache = null;
+		if (warmStart && init == null && known == null && valIterDir == ValIterDir.BELOW) {
+			warmStartCache = mdp.getWarmStartCache();
+		}
+
 		// If required, create/initialise strategy storage
 		// Set choices to -1, denoting unknown
 		// (except for target states, which are -2, denoting arbitrary)
-		if (genStrat || generateStrategy || exportAdv) {
+		if (genStrat || generateStrategy || exportAdv || (warmStartCache != null && polIter)) {
 			strat = new int[n];
 			for (int i = 0; i < n; i++) {
 				strat[i] = target.get(i) ? -2 : -1;
@@ -414,6 +437,26 @@ public class MDPModelChecker extends ProbModelChecker
 		// Compute probabilities (if needed)
 		if (numYes + numNo < n) {
 
+			// Warm-start from previous results, if available: for policy iteration, the strategy
+			// (but not in the MEC quotient, whose choices differ); otherwise, lower and
+			// (for interval iteration) upper bounds on the probabilities, by monotonicity
+			double initNumeric[] = init;
+			double initUpper[] = null;
+			int initStrat[] = null;
+			if (warmStartCache != null) {
+				if (polIter) {
+					initStrat = (!min && doPmaxQuotient) ? null : warmStartCache.findReachProbsStrategy(min);
+				} else {
+					initNumeric = warmStartCache.findReachProbsLowerBound(remain, target, min);
+					if (doIntervalIteration) {
+						initUpper = warmStartCache.findReachProbsUpperBound(remain, target, min);
+					}
+				}
+				if (initNumeric != null || initUpper != null || initStrat != null) {
+					mainLog.println("Warm-starting from previous results for this model");
+				}
+			}
+
 			if (!min && doPmaxQuotient) {
 				MDPEquiv maxQuotient = maxQuotient(mdp, yes, no);
 				// MDPEquiv retains original state space, making the states that are not used
@@ -435,9 +478,11 @@ public class MDPModelChecker extends ProbModelChecker
 				                                                   noInQuotient,
 				                                                   yesInQuotient,
 				                                                   min,
-				                                                   init,
+				                                                   initNumeric,
 				                                                   known,
-				                                                   strat);
+				                                                   strat,
+				                                                   initUpper,
+				                                                   null);
 
 				res = new ModelCheckerResult();
 				res.numIters = res1.numIters;
@@ -454,7 +499,7 @@ public class MDPModelChecker extends ProbModelChecker
 				}
 				res.accuracy = res1.accuracy;
 			} else {
-				res = computeReachProbsNumeric(mdp, mdpSolnMethod, no, yes, min, init, known, strat);
+				res = computeReachProbsNumeric(mdp, mdpSolnMethod, no, yes, min, initNumeric, known, strat, initUpper, initStrat);
 			}
 		} else {
 			res = new ModelCheckerResult();
@@ -467,6 +512,26 @@ public class MDPModelChecker extends ProbModelChecker
 		if(verbosity >=1)
 			mainLog.println("Probabilistic reachability took " + timer / 1000.0 + " seconds.");
 
+		// Store the result for warm-starting later computations
+		if (warmStartCache != null) {
+			double lower[] = null, upper[] = null;
+			AccuracyLevel level = res.accuracy == null ? null : res.accuracy.getLevel();
+			if (level == AccuracyLevel.EXACT || level == AccuracyLevel.EXACT_FLOATING_POINT || level == AccuracyLevel.BOUNDED) {
+				// Guaranteed error bound (e.g. interval/optimistic value iteration): both bounds are known
+				// (this also holds, state-wise, for a midpoint of lower/upper bounds)
+				lower = new double[n];
+				upper = new double[n];
+				for (int i = 0; i < n; i++) {
+					lower[i] = Math.max(0.0, res.accuracy.getResultLowerBound(res.soln[i], true));
+					upper[i] = Math.min(1.0, res.accuracy.getResultUpperBound(res.soln[i], true));
+				}
+			} else if (!polIter || !min) {
+				// Value iteration from below, or the values of a strategy for Pmax: a lower bound
+				lower = res.soln;
+			}
+			warmStartCache.storeReachProbs(remain, target, min, lower, upper, (polIter && !(!min && doPmaxQuotient)) ? strat : null);
+		}
+
 		// Store strategy
 		if (genStrat) {
 			res.strat = new MDStrategyArray(mdp, strat);
@@ -494,7 +559,7 @@ public class MDPModelChecker extends ProbModelChecker
 		return res;
 	}
 
-	protected ModelCheckerResult computeReachProbsNumeric(MDP mdp, MDPSolnMethod method, BitSet no, BitSet yes, boolean min, double init[], BitSet known, int strat[]) throws PrismException
+	protected ModelCheckerResult computeReachProbsNumeric(MDP mdp, MDPSolnMethod method, BitSet no, BitSet yes, boolean min, double init[], BitSet known, int strat[], double initUpper[], int initStrat[]) throws PrismException
 	{
 		ModelCheckerResult res = null;
 
@@ -502,6 +567,7 @@ public class MDPModelChecker extends ProbModelChecker
 		switch (method) {
 		case VALUE_ITERATION:
 			iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+			iterationMethod.setNumThreads(numThreads);
 			break;
 		case GAUSS_SEIDEL:
 			iterationMethod = new IterationMethodGS(termCrit == TermCrit.ABSOLUTE, termCritParam, false);
@@ -510,13 +576,16 @@ public class MDPModelChecker extends ProbModelChecker
 			if (doIntervalIteration) {
 				throw new PrismNotSupportedException("Interval iteration currently not supported for policy iteration");
 			}
-			res = computeReachProbsPolIter(mdp, no, yes, min, strat);
+			res = computeReachProbsPolIter(mdp, no, yes, min, strat, initStrat);
 			break;
 		case MODIFIED_POLICY_ITERATION:
 			if (doIntervalIteration) {
 				throw new PrismNotSupportedException("Interval iteration currently not supported for policy iteration");
 			}
-			res = computeReachProbsModPolIter(mdp, no, yes, min, strat);
+			res = computeReachProbsModPolIter(mdp, no, yes, min, strat, initStrat);
+			break;
+		case OPTIMISTIC_VALUE_ITERATION:
+			res = doOptimisticValueIterationReachProbs(mdp, no, yes, min, init, known, strat);
 			break;
 		default:
 			throw new PrismException("Unknown MDP solution method " + mdpSolnMethod.fullName());
@@ -526,7 +595,7 @@ public class MDPModelChecker extends ProbModelChecker
 			if (!doIntervalIteration) {
 				res = doValueIterationReachProbs(mdp, no, yes, min, init, known, iterationMethod, getDoTopologicalValueIteration(), strat);
 			} else {
-				res = doIntervalIterationReachProbs(mdp, no, yes, min, init, known, iterationMethod, getDoTopologicalValueIteration(), strat);
+				res = doIntervalIterationReachProbs(mdp, no, yes, min, init, known, initUpper, iterationMethod, getDoTopologicalValueIteration(), strat);
 			}
 		}
 
@@ -581,22 +650,33 @@ public class MDPModelChecker extends ProbModelChecker
 		if (remain != null)
 			unknown.and(remain);
 
-		// Fixed point loop
 		iters = 0;
-		u_done = false;
-		// Least fixed point - should start from 0 but we optimise by
-		// starting from 'target', thus bypassing first iteration
-		u.or(target);
-		soln.or(target);
-		while (!u_done) {
-			iters++;
-			// Single step of Prob0
-			mdp.prob0step(unknown, u, min, soln);
-			// Check termination
-			u_done = soln.equals(u);
-			// u = soln
-			u.clear();
-			u.or(soln);
+		if (!min && preRel) {
+			// For max, this is a graph search: calculate all states that can reach 'target'
+			// while remaining in 'remain', where all the 'target' states are made absorbing
+			u = mdp.getPredecessorRelation(this, true).calculatePreStar(remain, target, target);
+		} else if (preRel) {
+			// For min, compute the attractor (all choices lead to it) using a worklist
+			Attractor attractor = new Attractor(mdp, mdp.getIncomingChoiceRelation(this, true));
+			u = attractor.compute(unknown, target, s -> true, null, null);
+			iters = attractor.getNumIterations();
+		} else {
+			// Fixed point loop
+			u_done = false;
+			// Least fixed point - should start from 0 but we optimise by
+			// starting from 'target', thus bypassing first iteration
+			u.or(target);
+			soln.or(target);
+			while (!u_done) {
+				iters++;
+				// Single step of Prob0
+				mdp.prob0step(unknown, u, min, soln);
+				// Check termination
+				u_done = soln.equals(u);
+				// u = soln
+				u.clear();
+				u.or(soln);
+			}
 		}
 
 		// Negate
@@ -669,6 +749,10 @@ public class MDPModelChecker extends ProbModelChecker
 		if (remain != null)
 			unknown.and(remain);
 
+		if (preRel) {
+			return prob1Worklist(mdp, unknown, target, min, strat, timer);
+		}
+
 		// Nested fixed point loop
 		iters = 0;
 		u_done = false;
@@ -735,6 +819,59 @@ public class MDPModelChecker extends ProbModelChecker
 		return u;
 	}
 
+	/**
+	 * Prob1 precomputation algorithm, using worklist-based attractor computations
+	 * (see {@link Attractor}) for the inner (least) fixed point of {@link #prob1(MDPGeneric, BitSet, BitSet, boolean, int[])}.
+	 * For the outer (greatest) fixed point, the choices leaving the current set of states
+	 * are disabled incrementally, as states are removed.
+	 * @param mdp The MDP
+	 * @param unknown The states to be determined (i.e., in 'remain' and not in 'target')
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param timer Start time of the precomputation (for logging)
+	 */
+	private BitSet prob1Worklist(MDPGeneric<?> mdp, BitSet unknown, BitSet target, boolean min, int strat[], long timer)
+	{
+		int n = mdp.getNumStates();
+		int iters = 0;
+		Attractor attractor = new Attractor(mdp, mdp.getIncomingChoiceRelation(this, true));
+		// Choices whose transitions all stay in u
+		BitSet enabled = new BitSet();
+		enabled.set(0, attractor.getNumChoicesTotal());
+		BitSet u = new BitSet();
+		u.set(0, n);
+		while (true) {
+			BitSet v = attractor.compute(unknown, target, s -> min, enabled, null);
+			iters += attractor.getNumIterations();
+			// Remove states not in v from u, and disable the choices that lead to them
+			u.andNot(v);
+			if (u.isEmpty()) {
+				u = v;
+				break;
+			}
+			attractor.disableChoicesInto(u, enabled);
+			u = v;
+		}
+
+		// If we need to generate a strategy, do this in another attractor computation,
+		// restricted to the states in u (as in the fixed-point version)
+		if (!min && strat != null) {
+			BitSet unknownU = (BitSet) unknown.clone();
+			unknownU.and(u);
+			attractor.compute(unknownU, target, s -> false, enabled, strat);
+		}
+
+		// Finished precomputation
+		timer = System.currentTimeMillis() - timer;
+		if (!silentPrecomputations) {
+			mainLog.print("Prob1 (" + (min ? "min" : "max") + ")");
+			mainLog.println(" took " + iters + " iterations and " + timer / 1000.0 + " seconds.");
+		}
+
+		return u;
+	}
+
 	/**
 	 * Compute reachability probabilities using value iteration.
 	 * Optionally, store optimal (memoryless) strategy info. 
@@ -751,6 +888,7 @@ public class MDPModelChecker extends ProbModelChecker
 			throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numThreads);
 		return doValueIterationReachProbs(mdp, no, yes, min, init, known, iterationMethod, false, strat);
 	}
 
@@ -844,6 +982,55 @@ public class MDPModelChecker extends ProbModelChecker
 		}
 	}
 
+	/**
+	 * Compute reachability probabilities using optimistic value iteration.
+	 * Optionally, store optimal (memoryless) strategy info.
+	 * @param mdp The MDP
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten)
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * Note: if 'known' is specified (i.e. is non-null), 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are the starting point for the iteration, so must be lower bounds.
+	 */
+	protected ModelCheckerResult doOptimisticValueIterationReachProbs(MDP mdp, BitSet no, BitSet yes, boolean min, double init[], BitSet known, int strat[])
+			throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+		long timer;
+
+		// Start optimistic value iteration
+		timer = System.currentTimeMillis();
+		String description = (min ? "min" : "max");
+		mainLog.println("Starting optimistic value iteration (" + description + ")...");
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) passed in initial value (a lower bound); (4) 0.0
+		soln = (init == null) ? new double[n] : init;
+		for (i = 0; i < n; i++)
+			soln[i] = (known != null && known.get(i)) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : (init != null) ? init[i] : 0.0;
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		OptimisticValueIteration ovi = new OptimisticValueIteration(this, termCrit == TermCrit.ABSOLUTE, termCritParam, 1.0);
+		return ovi.solve(description, soln, unknown,
+				(s, vect) -> mdp.mvMultMinMaxSingle(s, vect, min, strat),
+				(s, vect) -> mdp.mvMultMinMaxSingle(s, vect, min, null), timer);
+	}
+
 	/**
 	 * Compute reachability probabilities using interval iteration.
 	 * Optionally, store optimal (memoryless) strategy info.
@@ -853,12 +1040,14 @@ public class MDPModelChecker extends ProbModelChecker
 	 * @param min Min or max probabilities (true=min, false=max)
 	 * @param init Optionally, an initial solution vector (will be overwritten)
 	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param initUpper Optionally, upper bounds to start from, for states not in yes/no/known
 	 * @param iterationMethod The iteration method
 	 * @param topological Do topological value iteration?
 	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
 	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are the starting point for the lower bound, so must be lower bounds.
 	 */
-	protected ModelCheckerResult doIntervalIterationReachProbs(MDP mdp, BitSet no, BitSet yes, boolean min, double init[], BitSet known, IterationMethod iterationMethod, boolean topological, int strat[])
+	protected ModelCheckerResult doIntervalIterationReachProbs(MDP mdp, BitSet no, BitSet yes, boolean min, double init[], BitSet known, double initUpper[], IterationMethod iterationMethod, boolean topological, int strat[])
 			throws PrismException
 	{
 		BitSet unknown;
@@ -888,17 +1077,17 @@ public class MDPModelChecker extends ProbModelChecker
 		initAbove = new double[n];
 
 		// Initialise solution vectors. Use (where available) the following in order of preference:
-		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) initVal
-		// where initVal is 0.0 or 1.0, depending on whether we converge from below/above.
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) passed in initial value/upper bound;
+		// (4) initVal, where initVal is 0.0 or 1.0, depending on whether we converge from below/above.
 		if (known != null && init != null) {
 			for (i = 0; i < n; i++) {
 				initBelow[i] = known.get(i) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : 0.0;
-				initAbove[i] = known.get(i) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : 1.0;
+				initAbove[i] = known.get(i) ? init[i] : yes.get(i) ? 1.0 : no.get(i) ? 0.0 : (initUpper != null) ? initUpper[i] : 1.0;
 			}
 		} else {
 			for (i = 0; i < n; i++) {
-				initBelow[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 :  0.0;
-				initAbove[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 :  1.0;
+				initBelow[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : (init != null) ? init[i] : 0.0;
+				initAbove[i] = yes.get(i) ? 1.0 : no.get(i) ? 0.0 : (initUpper != null) ? initUpper[i] : 1.0;
 			}
 		}
 
@@ -980,6 +1169,21 @@ public class MDPModelChecker extends ProbModelChecker
 	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
 	 */
 	protected ModelCheckerResult computeReachProbsPolIter(MDP mdp, BitSet no, BitSet yes, boolean min, int strat[]) throws PrismException
+	{
+		return computeReachProbsPolIter(mdp, no, yes, min, strat, null);
+	}
+
+	/**
+	 * Compute reachability probabilities using policy iteration.
+	 * Optionally, store optimal (memoryless) strategy info. 
+	 * @param mdp: The MDP
+	 * @param no: Probability 0 states
+	 * @param yes: Probability 1 states
+	 * @param min: Min or max probabilities (true=min, false=max)
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param initStrat Optionally, an initial strategy (choice indices, used where non-negative, for states not in yes/no)
+	 */
+	protected ModelCheckerResult computeReachProbsPolIter(MDP mdp, BitSet no, BitSet yes, boolean min, int strat[], int initStrat[]) throws PrismException
 	{
 		ModelCheckerResult res;
 		int i, n, iters, totalIters;
@@ -1026,6 +1230,12 @@ public class MDPModelChecker extends ProbModelChecker
 				if (!(no.get(i) || yes.get(i)))
 					strat[i] = 0;
 		}
+		// If given, start from the initial strategy instead
+		if (initStrat != null) {
+			for (i = 0; i < n; i++)
+				if (!(no.get(i) || yes.get(i)) && initStrat[i] >= 0)
+					strat[i] = initStrat[i];
+		}
 
 		boolean backwardsGS = (linEqMethod == LinEqMethod.BACKWARDS_GAUSS_SEIDEL);
 
@@ -1081,6 +1291,20 @@ public class MDPModelChecker extends ProbModelChecker
 	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
 	 */
 	protected ModelCheckerResult computeReachProbsModPolIter(MDP mdp, BitSet no, BitSet yes, boolean min, int strat[]) throws PrismException
+	{
+		return computeReachProbsModPolIter(mdp, no, yes, min, strat, null);
+	}
+
+	/**
+	 * Compute reachability probabilities using modified policy iteration.
+	 * @param mdp: The MDP
+	 * @param no: Probability 0 states
+	 * @param yes: Probability 1 states
+	 * @param min: Min or max probabilities (true=min, false=max)
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * @param initStrat Optionally, an initial strategy (choice indices, used where non-negative, for states not in yes/no)
+	 */
+	protected ModelCheckerResult computeReachProbsModPolIter(MDP mdp, BitSet no, BitSet yes, boolean min, int strat[], int initStrat[]) throws PrismException
 	{
 		ModelCheckerResult res;
 		int i, n, iters, totalIters;
@@ -1128,6 +1352,12 @@ public class MDPModelChecker extends ProbModelChecker
 				if (!(no.get(i) || yes.get(i)))
 					strat[i] = 0;
 		}
+		// If given, start from the initial strategy instead
+		if (initStrat != null) {
+			for (i = 0; i < n; i++)
+				if (!(no.get(i) || yes.get(i)) && initStrat[i] >= 0)
+					strat[i] = initStrat[i];
+		}
 
 		boolean backwardsGS = (linEqMethod == LinEqMethod.BACKWARDS_GAUSS_SEIDEL);
 
@@ -2078,7 +2308,8 @@ public class MDPModelChecker extends ProbModelChecker
 		MDPSolnMethod mdpSolnMethod = this.mdpSolnMethod;
 
 		// Switch to a supported method, if necessary
-		if (!(mdpSolnMethod == MDPSolnMethod.VALUE_ITERATION || mdpSolnMethod == MDPSolnMethod.GAUSS_SEIDEL || mdpSolnMethod == MDPSolnMethod.POLICY_ITERATION)) {
+		if (!(mdpSolnMethod == MDPSolnMethod.VALUE_ITERATION || mdpSolnMethod == MDPSolnMethod.GAUSS_SEIDEL || mdpSolnMethod == MDPSolnMethod.POLICY_ITERATION
+				|| mdpSolnMethod == MDPSolnMethod.OPTIMISTIC_VALUE_ITERATION)) {
 			mdpSolnMethod = MDPSolnMethod.GAUSS_SEIDEL;
 			mainLog.printWarning("Switching to MDP solution method \"" + mdpSolnMethod.fullName() + "\"");
 		}
@@ -2127,6 +2358,12 @@ public class MDPModelChecker extends ProbModelChecker
 			exportLabels(mdp, labels, labelNames, Prism.EXPORT_PLAIN, new PrismFileLog(getExportTargetFilename()));
 		}
 
+		// If required, get the cache of previous results on this model to warm-start value iteration from
+		WarmStartCache warmStartCache = null;
+		if (warmStart && init == null && known == null && !doIntervalIteration && (mdpSolnMethod == MDPSolnMethod.VALUE_ITERATION || mdpSolnMethod == MDPSolnMethod.GAUSS_SEIDEL)) {
+			warmStartCache = mdp.getWarmStartCache();
+		}
+
 		// If required, create/initialise strategy storage
 		// Set choices to -1, denoting unknown
 		// (except for target states, which are -2, denoting arbitrary)
@@ -2203,7 +2440,19 @@ public class MDPModelChecker extends ProbModelChecker
 				res = computeReachRewardsNumeric(quotient.getModel(), quotient.getRewards(), mdpSolnMethod, target, newInfStates, min, init, known, strat);
 				quotient.mapResults(res.soln);
 			} else {
-				res = computeReachRewardsNumeric(mdp, mdpRewards, mdpSolnMethod, target, inf, min, init, known, strat);
+				// Warm-start from a previous lower bound, if available
+				double initNumeric[] = init;
+				if (warmStartCache != null) {
+					initNumeric = warmStartCache.findReachRewardsLowerBound(mdp, mdpRewards, target, min);
+					if (initNumeric != null) {
+						mainLog.println("Warm-starting from previous results for this model");
+					}
+				}
+				res = computeReachRewardsNumeric(mdp, mdpRewards, mdpSolnMethod, target, inf, min, initNumeric, known, strat);
+				// Store the result (a lower bound) for warm-starting later computations
+				if (warmStartCache != null) {
+					warmStartCache.storeReachRewards(mdp, mdpRewards, target, min, res.soln);
+				}
 			}
 		} else {
 			res = new ModelCheckerResult();
@@ -2249,6 +2498,7 @@ public class MDPModelChecker extends ProbModelChecker
 		switch (method) {
 		case VALUE_ITERATION:
 			iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+			iterationMethod.setNumThreads(numThreads);
 			break;
 		case GAUSS_SEIDEL:
 			iterationMethod = new IterationMethodGS(termCrit == TermCrit.ABSOLUTE, termCritParam, false);
@@ -2259,6 +2509,9 @@ public class MDPModelChecker extends ProbModelChecker
 			}
 			res = computeReachRewardsPolIter(mdp, mdpRewards, target, inf, min, strat);
 			break;
+		case OPTIMISTIC_VALUE_ITERATION:
+			res = doOptimisticValueIterationReachRewards(mdp, mdpRewards, target, inf, min, init, known, strat);
+			break;
 		default:
 			throw new PrismException("Unknown MDP solution method " + method.fullName());
 		}
@@ -2291,6 +2544,7 @@ public class MDPModelChecker extends ProbModelChecker
 			throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numThreads);
 		return doValueIterationReachRewards(mdp, mdpRewards, iterationMethod, target, inf, min, init, known, false, strat);
 	}
 
@@ -2398,6 +2652,56 @@ public class MDPModelChecker extends ProbModelChecker
 		return doValueIterationReachRewards(mdp, mdpRewards, iterationMethod, target, inf, min, init, known, false, strat);
 	}
 
+	/**
+	 * Compute expected reachability rewards using optimistic value iteration.
+	 * Optionally, store optimal (memoryless) strategy info.
+	 * @param mdp The MDP
+	 * @param mdpRewards The rewards
+	 * @param target Target states
+	 * @param inf States for which reward is infinite
+	 * @param min Min or max rewards (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten)
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * @param strat Storage for (memoryless) strategy choice indices (ignored if null)
+	 * Note: if 'known' is specified (i.e. is non-null), 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are ignored, since iteration needs to start from a lower bound.
+	 */
+	protected ModelCheckerResult doOptimisticValueIterationReachRewards(MDP mdp, MDPRewards mdpRewards, BitSet target, BitSet inf, boolean min, double init[], BitSet known, int strat[])
+			throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+		long timer;
+
+		// Start optimistic value iteration
+		timer = System.currentTimeMillis();
+		String description = (min ? "min" : "max");
+		mainLog.println("Starting optimistic value iteration (" + description + ")...");
+
+		// Store num states
+		n = mdp.getNumStates();
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 0.0/infinity if in target/inf; (3) 0.0
+		soln = (init == null) ? new double[n] : init;
+		for (i = 0; i < n; i++)
+			soln[i] = (known != null && known.get(i)) ? init[i] : inf.get(i) ? Double.POSITIVE_INFINITY : 0.0;
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(target);
+		unknown.andNot(inf);
+		if (known != null)
+			unknown.andNot(known);
+
+		OptimisticValueIteration ovi = new OptimisticValueIteration(this, termCrit == TermCrit.ABSOLUTE, termCritParam, Double.POSITIVE_INFINITY);
+		return ovi.solve(description, soln, unknown,
+				(s, vect) -> mdp.mvMultRewMinMaxSingle(s, vect, mdpRewards, min, strat),
+				(s, vect) -> mdp.mvMultRewMinMaxSingle(s, vect, mdpRewards, min, null), timer);
+	}
+
 	/**
 	 * Compute expected reachability rewards using interval iteration
 	 * Optionally, store optimal (memoryless) strategy info.
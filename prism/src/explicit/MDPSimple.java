@@ -185,6 +185,11 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			trans.add(new ArrayList<Distribution>());
 		}
 		actions = new ChoiceActionsSimple();
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 	}
 
 	@Override
@@ -202,6 +207,11 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		maxNumDistrsOk = false;
 		trans.get(s).clear();
 		actions.clearState(s);
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 	}
 
 	@Override
@@ -218,6 +228,11 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 			trans.add(new ArrayList<Distribution>());
 			numStates++;
 		}
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 	}
 
 	@Override
@@ -348,6 +363,11 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		numDistrs++;
 		maxNumDistrs = Math.max(maxNumDistrs, set.size());
 		numTransitions += distr.size();
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 		return set.size() - 1;
 	}
 
@@ -378,6 +398,11 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		numDistrs++;
 		maxNumDistrs = Math.max(maxNumDistrs, set.size());
 		numTransitions += distr.size();
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 		return set.size() - 1;
 	}
 
@@ -489,7 +514,7 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 	@Override
 	public SuccessorsIterator getSuccessors(final int s, final int i)
 	{
-		return SuccessorsIterator.from(getSuccessorsIterator(s, i), true);
+		return SuccessorsIterator.from(trans.get(s).get(i).getSupportIterator(), true);
 	}
 
 	// Accessors (for MDP)
@@ -506,6 +531,12 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		return trans.get(s).get(i).iterator();
 	}
 
+	@Override
+	public void forEachTransition(int s, int i, TransitionConsumer c)
+	{
+		trans.get(s).get(i).forEach((t, prob) -> c.accept(s, t, prob));
+	}
+
 	
 
 	// Accessors (other)
@@ -38,9 +38,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PrimitiveIterator;
 import java.util.TreeMap;
 
 import common.IterableStateSet;
+import common.IteratorTools;
 import explicit.rewards.MCRewards;
 import explicit.rewards.MDPRewards;
 import parser.State;
@@ -302,6 +304,32 @@ public class MDPSparse extends MDPExplicit
 		actions = new ChoiceActionsSimple(mdp.actions, permut).convertToSparseStorage(this);
 	}
 
+	/**
+	 * Constructor: Build a new MDPSparse directly from arrays in CSR format
+	 * (which are then owned by this model). Initial states, etc. should be added separately.
+	 * @param numStates Number of states
+	 * @param rowStarts Start of the choices for each state (array of size numStates+1)
+	 * @param choiceStarts Start of the transitions for each choice (array of size numDistrs+1)
+	 * @param cols Destination for each transition
+	 * @param nonZeros Probability for each transition
+	 * @param actions Action for each choice (or null if there are none)
+	 */
+	public MDPSparse(int numStates, int rowStarts[], int choiceStarts[], int cols[], double nonZeros[], Object actions[])
+	{
+		initialise(numStates);
+		this.rowStarts = rowStarts;
+		this.choiceStarts = choiceStarts;
+		this.cols = cols;
+		this.nonZeros = nonZeros;
+		this.actions = actions;
+		numDistrs = rowStarts[numStates];
+		numTransitions = choiceStarts[numDistrs];
+		maxNumDistrs = 0;
+		for (int s = 0; s < numStates; s++) {
+			maxNumDistrs = Math.max(maxNumDistrs, rowStarts[s + 1] - rowStarts[s]);
+		}
+	}
+
 	/**
 	 * Copy constructor for a (sub-)MDP from a given MDP.
 	 * The states and actions will be indexed as given by the order
@@ -376,6 +404,11 @@ public class MDPSparse extends MDPExplicit
 		super.initialise(numStates);
 		numDistrs = numTransitions = maxNumDistrs = 0;
 		actions = null;
+		// Any stored predecessor/incoming choice relations, MECs and results are no longer valid
+		clearPredecessorRelation();
+		clearIncomingChoiceRelation();
+		clearMECCache();
+		clearWarmStartCache();
 	}
 
 	@Override
@@ -785,6 +818,137 @@ public class MDPSparse extends MDPExplicit
 		return some && all;
 	}
 
+	@Override
+	public void mvMultMinMax(double vect[], boolean min, double result[], PrimitiveIterator.OfInt states, int strat[])
+	{
+		if (strat != null) {
+			while (states.hasNext()) {
+				final int s = states.nextInt();
+				result[s] = mvMultMinMaxSingle(s, vect, min, strat);
+			}
+			return;
+		}
+		// Without strategy generation, process runs of consecutive states in one go
+		IteratorTools.forEachRange(states, (from, to) -> mvMultMinMaxRange(from, to, vect, min, result));
+	}
+
+	/**
+	 * Do a matrix-vector multiplication followed by min/max for the states {@code from}, ..., {@code to}-1,
+	 * i.e. for all s in the range: result[s] = min/max_k { sum_j P_k(s,j)*vect[j] }
+	 * This gives the same results as {@link #mvMultMinMaxSingle(int, double[], boolean, int[])}
+	 * (without strategy generation), but as a single loop over the sparse storage,
+	 * with separate versions for min and max.
+	 * @param from First state of the range
+	 * @param to End of the range (exclusive)
+	 * @param vect Vector to multiply by
+	 * @param min Min or max for (true=min, false=max)
+	 * @param result Vector to store result in
+	 */
+	public void mvMultMinMaxRange(int from, int to, double vect[], boolean min, double result[])
+	{
+		if (min) {
+			for (int s = from; s < to; s++) {
+				result[s] = mvMultMinSingle(s, vect);
+			}
+		} else {
+			for (int s = from; s < to; s++) {
+				result[s] = mvMultMaxSingle(s, vect);
+			}
+		}
+	}
+
+	/**
+	 * Do a matrix-vector multiplication and sum of rewards followed by min/max
+	 * for the states {@code from}, ..., {@code to}-1,
+	 * i.e. for all s in the range: result[s] = min/max_k { rew(s) + rew_k(s) + sum_j P_k(s,j)*vect[j] }
+	 * This gives the same results as {@link #mvMultRewMinMaxSingle(int, double[], MDPRewards, boolean, int[])}
+	 * (without strategy generation), but as a single loop over the sparse storage,
+	 * with a separate version for the case of state rewards only.
+	 * @param from First state of the range
+	 * @param to End of the range (exclusive)
+	 * @param vect Vector to multiply by
+	 * @param mdpRewards The rewards
+	 * @param min Min or max for (true=min, false=max)
+	 * @param result Vector to store result in
+	 */
+	public void mvMultRewMinMaxRange(int from, int to, double vect[], MDPRewards mdpRewards, boolean min, double result[])
+	{
+		if (!mdpRewards.hasTransitionRewards()) {
+			// State rewards only: as for probabilities, then add the state reward
+			if (min) {
+				for (int s = from; s < to; s++) {
+					result[s] = mvMultMinSingle(s, vect) + mdpRewards.getStateReward(s);
+				}
+			} else {
+				for (int s = from; s < to; s++) {
+					result[s] = mvMultMaxSingle(s, vect) + mdpRewards.getStateReward(s);
+				}
+			}
+			return;
+		}
+		for (int s = from; s < to; s++) {
+			int l1 = rowStarts[s];
+			int h1 = rowStarts[s + 1];
+			double minmax = 0;
+			for (int j = l1; j < h1; j++) {
+				double d = mdpRewards.getTransitionReward(s, j - l1);
+				for (int k = choiceStarts[j], h2 = choiceStarts[j + 1]; k < h2; k++) {
+					d += nonZeros[k] * vect[cols[k]];
+				}
+				if (j == l1 || (min ? d < minmax : d > minmax))
+					minmax = d;
+			}
+			result[s] = minmax + mdpRewards.getStateReward(s);
+		}
+	}
+
+	/**
+	 * Do a single row of matrix-vector multiplication followed by min,
+	 * i.e. return min_k { sum_j P_k(s,j)*vect[j] } (0 if there are no choices).
+	 */
+	private double mvMultMinSingle(int s, double vect[])
+	{
+		int l1 = rowStarts[s];
+		int h1 = rowStarts[s + 1];
+		double min = (l1 < h1) ? mvMultChoice(l1, vect) : 0;
+		for (int j = l1 + 1; j < h1; j++) {
+			double d = mvMultChoice(j, vect);
+			if (d < min)
+				min = d;
+		}
+		return min;
+	}
+
+	/**
+	 * Do a single row of matrix-vector multiplication followed by max,
+	 * i.e. return max_k { sum_j P_k(s,j)*vect[j] } (0 if there are no choices).
+	 */
+	private double mvMultMaxSingle(int s, double vect[])
+	{
+		int l1 = rowStarts[s];
+		int h1 = rowStarts[s + 1];
+		double max = (l1 < h1) ? mvMultChoice(l1, vect) : 0;
+		for (int j = l1 + 1; j < h1; j++) {
+			double d = mvMultChoice(j, vect);
+			if (d > max)
+				max = d;
+		}
+		return max;
+	}
+
+	/**
+	 * Compute the sum for a single choice (distribution) with index {@code j} into {@code choiceStarts},
+	 * i.e. sum_t P(j,t)*vect[t].
+	 */
+	private double mvMultChoice(int j, double vect[])
+	{
+		double d = 0.0;
+		for (int k = choiceStarts[j], h2 = choiceStarts[j + 1]; k < h2; k++) {
+			d += nonZeros[k] * vect[cols[k]];
+		}
+		return d;
+	}
+
 	@Override
 	public double mvMultMinMaxSingle(int s, double vect[], boolean min, int strat[])
 	{
@@ -946,6 +1110,26 @@ public class MDPSparse extends MDPExplicit
 		return d;
 	}
 
+	@Override
+	public void mvMultRewMinMax(double vect[], MDPRewards mdpRewards, boolean min, double result[], BitSet subset, boolean complement, int strat[])
+	{
+		mvMultRewMinMax(vect, mdpRewards, min, result, new IterableStateSet(subset, numStates, complement).iterator(), strat);
+	}
+
+	@Override
+	public void mvMultRewMinMax(double vect[], MDPRewards mdpRewards, boolean min, double result[], PrimitiveIterator.OfInt states, int strat[])
+	{
+		if (strat != null) {
+			while (states.hasNext()) {
+				final int s = states.nextInt();
+				result[s] = mvMultRewMinMaxSingle(s, vect, mdpRewards, min, strat);
+			}
+			return;
+		}
+		// Without strategy generation, process runs of consecutive states in one go
+		IteratorTools.forEachRange(states, (from, to) -> mvMultRewMinMaxRange(from, to, vect, mdpRewards, min, result));
+	}
+
 	@Override
 	public double mvMultRewMinMaxSingle(int s, double vect[], MDPRewards mdpRewards, boolean min, int strat[])
 	{
@@ -0,0 +1,133 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A cache of maximal end component (MEC) decompositions for a nondeterministic model,
+ * keyed by the restriction and acceptance sets used to compute them
+ * (see {@link ECComputer#computeMECStates(BitSet, BitSet)}).
+ * This avoids recomputing the same MECs when several queries on a model
+ * (e.g., several LTL properties, or interval iteration) use the same sets.
+ * A bounded number of entries are kept, the least recently used ones being discarded.
+ * <p>
+ * Note: Naturally, if the model changes, the cache has to be cleared.
+ */
+public class MECCache
+{
+	/** Maximum number of entries */
+	public static final int MAX_ENTRIES = 32;
+
+	/** The cached MECs */
+	@SuppressWarnings("serial")
+	private Map<Key, List<BitSet>> cache = new LinkedHashMap<Key, List<BitSet>>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, List<BitSet>> eldest)
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * Get the MECs stored for the given restriction/acceptance sets, or null if there are none.
+	 * The returned list is a copy, which can be freely modified by the caller.
+	 * @param restrict The set of states restricted to (null means "all")
+	 * @param accept The set of accepting states (null means "no acceptance condition")
+	 */
+	public synchronized List<BitSet> get(BitSet restrict, BitSet accept)
+	{
+		List<BitSet> mecs = cache.get(new Key(restrict, accept));
+		return mecs == null ? null : copy(mecs);
+	}
+
+	/**
+	 * Store the MECs for the given restriction/acceptance sets.
+	 * Copies of the sets and MECs are stored, so these can be subsequently modified by the caller.
+	 * @param restrict The set of states restricted to (null means "all")
+	 * @param accept The set of accepting states (null means "no acceptance condition")
+	 * @param mecs The MECs
+	 */
+	public synchronized void put(BitSet restrict, BitSet accept, List<BitSet> mecs)
+	{
+		BitSet restrictCopy = restrict == null ? null : (BitSet) restrict.clone();
+		BitSet acceptCopy = accept == null ? null : (BitSet) accept.clone();
+		cache.put(new Key(restrictCopy, acceptCopy), copy(mecs));
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear()
+	{
+		cache.clear();
+	}
+
+	private static List<BitSet> copy(List<BitSet> mecs)
+	{
+		List<BitSet> copy = new ArrayList<BitSet>(mecs.size());
+		for (BitSet mec : mecs) {
+			copy.add((BitSet) mec.clone());
+		}
+		return copy;
+	}
+
+	/**
+	 * Key for the cache: a pair of (possibly null) sets.
+	 */
+	private static class Key
+	{
+		private BitSet restrict;
+		private BitSet accept;
+
+		Key(BitSet restrict, BitSet accept)
+		{
+			this.restrict = restrict;
+			this.accept = accept;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(restrict, accept);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return Objects.equals(restrict, other.restrict) && Objects.equals(accept, other.accept);
+		}
+	}
+}
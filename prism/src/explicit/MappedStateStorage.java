@@ -0,0 +1,242 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import parser.State;
+import parser.VarList;
+import prism.PrismException;
+
+/**
+ * Version of {@link CompactStateStorage} in which the packed states are kept in a
+ * memory-mapped temporary file, rather than on the Java heap. Only the hash table
+ * (an int per slot) is stored in memory, so the number of states that can be stored
+ * is limited mainly by disk space. States are appended to the file in index order,
+ * so, during breadth-first exploration, the file also serves as the exploration queue
+ * (see {@link #getState(int)}). The list of states produced at the end
+ * ({@link #toStatesList(int[])}) is also kept in a memory-mapped file.
+ * <br><br>
+ * Temporary files are deleted as soon as they have been opened, where the OS allows it,
+ * and otherwise when the JVM exits.
+ */
+public class MappedStateStorage extends CompactStateStorage
+{
+	/** Maximum number of longs in each separately mapped segment of a file */
+	private static final int SEGMENT_WORDS = 1 << 24;
+
+	/** Directory for temporary files (null means the default temporary directory) */
+	private File dir;
+	/** File storing the packed states (created when the first state is stored) */
+	private StateFile file;
+
+	/**
+	 * Create an empty store for states over the variables in {@code varList},
+	 * using temporary files in the directory {@code dirName}
+	 * (or the default temporary directory if this is null or empty).
+	 * This should only be called if {@link #canStore(VarList)} is true for {@code varList}.
+	 */
+	public MappedStateStorage(VarList varList, String dirName) throws PrismException
+	{
+		super(varList);
+		if (dirName != null && !"".equals(dirName)) {
+			dir = new File(dirName);
+			if (!dir.isDirectory()) {
+				throw new PrismException("State storage directory \"" + dirName + "\" does not exist");
+			}
+		}
+	}
+
+	/**
+	 * A temporary file of packed states, mapped into memory in segments.
+	 */
+	private class StateFile
+	{
+		private RandomAccessFile raf;
+		private FileChannel channel;
+		/** Mapped segments, each holding {@code statesPerSegment} states */
+		private List<LongBuffer> segments = new ArrayList<>();
+		private int statesPerSegment;
+
+		StateFile() throws IOException
+		{
+			File f = File.createTempFile("prism-states", ".tmp", dir);
+			raf = new RandomAccessFile(f, "rw");
+			channel = raf.getChannel();
+			if (!f.delete()) {
+				f.deleteOnExit();
+			}
+			statesPerSegment = Math.max(1, SEGMENT_WORDS / getWordsPerState());
+		}
+
+		/**
+		 * Make sure that there is space to store states with indices 0...n-1.
+		 */
+		void ensureCapacity(int n) throws IOException
+		{
+			long segmentBytes = 8L * statesPerSegment * getWordsPerState();
+			while ((long) segments.size() * statesPerSegment < n) {
+				// (mapping beyond the end of the file extends it)
+				long pos = segments.size() * segmentBytes;
+				LongBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, pos, segmentBytes).order(ByteOrder.nativeOrder()).asLongBuffer();
+				segments.add(segment);
+			}
+		}
+
+		long getWord(int s, int k)
+		{
+			return segments.get(s / statesPerSegment).get((s % statesPerSegment) * getWordsPerState() + k);
+		}
+
+		void putWord(int s, int k, long word)
+		{
+			segments.get(s / statesPerSegment).put((s % statesPerSegment) * getWordsPerState() + k, word);
+		}
+
+		/**
+		 * Close the file. Any mapped segments remain usable.
+		 */
+		void close()
+		{
+			try {
+				raf.close();
+			} catch (IOException e) {
+				// Nothing left to lose
+			}
+		}
+	}
+
+	// Storage of packed states
+
+	@Override
+	protected long getWord(int s, int k)
+	{
+		return file.getWord(s, k);
+	}
+
+	@Override
+	protected void storeState(int s, long words[])
+	{
+		try {
+			if (file == null) {
+				file = new StateFile();
+			}
+			file.ensureCapacity(s + 1);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not extend state storage file: " + e.getMessage(), e);
+		}
+		for (int k = 0; k < words.length; k++) {
+			file.putWord(s, k, words[k]);
+		}
+	}
+
+	@Override
+	protected void clearStates()
+	{
+		if (file != null) {
+			file.close();
+			file = null;
+		}
+	}
+
+	/**
+	 * Create an (unmodifiable) list of the states, ordered by permuted index
+	 * (index in new list is permut[old_index]), or by index if {@code permut} is null.
+	 * The list is backed by a memory-mapped file of packed states, and recreates states
+	 * each time they are accessed. It is independent of this set, which can be subsequently cleared.
+	 */
+	@Override
+	public List<State> toStatesList(int permut[])
+	{
+		int n = size();
+		StateFile listFile;
+		if (n == 0) {
+			return new ArrayList<State>();
+		}
+		if (permut == null) {
+			// Just take over the existing file
+			listFile = file;
+			file = null;
+		} else {
+			try {
+				listFile = new StateFile();
+				listFile.ensureCapacity(n);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not create state storage file: " + e.getMessage(), e);
+			}
+			int w = getWordsPerState();
+			for (int s = 0; s < n; s++) {
+				for (int k = 0; k < w; k++) {
+					listFile.putWord(permut[s], k, file.getWord(s, k));
+				}
+			}
+		}
+		listFile.close();
+		return new MappedStatesList(listFile, n);
+	}
+
+	/**
+	 * Unmodifiable list of packed states, stored in a (mapped) file and unpacked on access.
+	 */
+	private class MappedStatesList extends AbstractList<State> implements RandomAccess
+	{
+		private StateFile listFile;
+		private int listSize;
+
+		MappedStatesList(StateFile listFile, int listSize)
+		{
+			this.listFile = listFile;
+			this.listSize = listSize;
+		}
+
+		@Override
+		public State get(int s)
+		{
+			if (s < 0 || s >= listSize)
+				throw new IndexOutOfBoundsException("State index " + s + " out of range");
+			long words[] = new long[getWordsPerState()];
+			for (int k = 0; k < words.length; k++) {
+				words[k] = listFile.getWord(s, k);
+			}
+			return unpack(words, 0);
+		}
+
+		@Override
+		public int size()
+		{
+			return listSize;
+		}
+	}
+}
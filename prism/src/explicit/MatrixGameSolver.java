@@ -0,0 +1,487 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import lpsolve.LpSolve;
+import lpsolve.LpSolveException;
+import prism.PrismException;
+import prism.PrismUtils;
+
+/**
+ * Solver for (zero-sum) matrix games, i.e., computation of the value of a matrix game
+ * and an optimal (mixed) strategy for the player who optimises, as needed in each step of
+ * value iteration for CSGs.
+ * <br><br>
+ * Small games (with at most {@code simplexMaxSize} actions for each player) are solved with a
+ * simple dense simplex method, in Java. Larger games are solved with lp_solve. One LP is kept
+ * for each shape of game (numbers of actions, reward or probability, min or max) and reused for
+ * all games of that shape: only the coefficients of the matrix that have changed are updated,
+ * and the simplex is warm-started from the final basis found for the previous game solved
+ * for the same state (if any).
+ * <br><br>
+ * Optionally (see {@link #enableCache(double)}), the solution of the last game solved for each state is cached,
+ * and reused if the next game for that state is (almost) the same. Since the value of a matrix game changes
+ * by at most the maximum change of its entries, the error of a reused value is bounded by this difference,
+ * which is taken into account in convergence checks (see {@link #doublesAreClose(double[], double[], double, boolean)}).
+ * <br><br>
+ * A solver is not thread-safe: each thread (e.g. each value iteration) should use its own.
+ * The LPs should be freed (see {@link #free()}) once the solver is no longer needed.
+ */
+public class MatrixGameSolver
+{
+	/** Default maximum number of actions (for each player) for games solved in Java */
+	public static final int DEFAULT_SIMPLEX_MAX_SIZE = 10;
+
+	/** Tolerance for the Java simplex method */
+	private static final double SIMPLEX_EPSILON = 1e-12;
+
+	/** Scale factor for the coefficients of the LP */
+	private double scaleFactor;
+	/** Maximum number of actions (for each player) for games solved in Java */
+	private int simplexMaxSize;
+
+	/**
+	 * An LP for matrix games of a given shape.
+	 */
+	private static class MatrixGameLp
+	{
+		/** The LP */
+		private LpSolve lp;
+		/** Current coefficients of the LP, i.e., entries of the last matrix game (in the orientation of the LP) */
+		private double matrix[][];
+		/** Final bases of the LP, for each state */
+		private Map<Integer, int[]> bases = new HashMap<Integer, int[]>();
+	}
+
+	/** LPs built so far, for each shape of game (see {@link #lpShape(int, int, boolean, boolean)}) */
+	private Map<Long, MatrixGameLp> lps = new HashMap<Long, MatrixGameLp>();
+
+	/**
+	 * A cached solution of a matrix game.
+	 */
+	private static class CachedSolution
+	{
+		/** The game (and type) solved exactly */
+		private double game[][];
+		private boolean rew;
+		private boolean min;
+		/** Value and optimal strategy */
+		private double value;
+		private double strat[];
+		/** Bound on the error of the value, for the game it was last used for */
+		private double error;
+	}
+
+	/** Tolerance for reusing cached solutions (negative if the cache is disabled) */
+	private double cacheTolerance = -1.0;
+	/** Cached solutions, for each state */
+	private Map<Integer, CachedSolution> cache = new HashMap<Integer, CachedSolution>();
+	/** Number of games solved, and of cached solutions reused */
+	private long numSolved = 0;
+	private long numCacheHits = 0;
+
+	/**
+	 * Create a matrix game solver.
+	 * @param scaleFactor Scale factor for the coefficients of the LP
+	 * @param simplexMaxSize Maximum number of actions (for each player) for games solved in Java
+	 */
+	public MatrixGameSolver(double scaleFactor, int simplexMaxSize)
+	{
+		this.scaleFactor = scaleFactor;
+		this.simplexMaxSize = simplexMaxSize;
+	}
+
+	/**
+	 * Solve the matrix game {@code game} (with rows/columns for the actions of the first/second player),
+	 * i.e., compute max_p min_j sum_i p_i game[i][j] if {@code min} is false,
+	 * or min_q max_i sum_j q_j game[i][j] if {@code min} is true.
+	 * An optimal strategy (p or q) is stored in {@code strat}, which should have the appropriate size.
+	 * @param s The state the game is solved for (used to warm-start the LP)
+	 * @param game The matrix game
+	 * @param rew Whether the entries are rewards (otherwise, they are probabilities)
+	 * @param min Whether the second (rather than the first) player optimises
+	 * @param strat Array to store the optimal strategy in
+	 */
+	public double solve(int s, double game[][], boolean rew, boolean min, double strat[]) throws PrismException
+	{
+		int nrows = game.length;
+		int ncols = game[0].length;
+		CachedSolution cached = null;
+		if (cacheTolerance >= 0) {
+			cached = cache.get(s);
+			if (cached != null && cached.rew == rew && cached.min == min) {
+				// Reuse the cached solution if the game is (almost) unchanged
+				double diff = maxDifference(cached.game, game);
+				if (diff <= cacheTolerance * Math.max(1.0, Math.abs(cached.value))) {
+					cached.error = diff;
+					System.arraycopy(cached.strat, 0, strat, 0, strat.length);
+					numCacheHits++;
+					return cached.value;
+				}
+			}
+		}
+		double value;
+		if (nrows <= simplexMaxSize && ncols <= simplexMaxSize) {
+			value = solveSimplex(game, min, strat);
+		} else {
+			value = solveLpSolve(s, game, rew, min, strat);
+		}
+		numSolved++;
+		if (cacheTolerance >= 0) {
+			if (cached == null) {
+				cached = new CachedSolution();
+				cache.put(s, cached);
+			}
+			cached.game = new double[nrows][];
+			for (int i = 0; i < nrows; i++) {
+				cached.game[i] = game[i].clone();
+			}
+			cached.rew = rew;
+			cached.min = min;
+			cached.value = value;
+			cached.strat = strat.clone();
+			cached.error = 0.0;
+		}
+		return value;
+	}
+
+	/**
+	 * Enable caching of solutions: the solution for a state is reused if no entry of the game has changed
+	 * by more than {@code tolerance} (multiplied by the magnitude of the value, if larger than 1)
+	 * since it was last solved. A tolerance of 0 means that solutions are only reused for identical games.
+	 */
+	public void enableCache(double tolerance)
+	{
+		cacheTolerance = tolerance;
+	}
+
+	/**
+	 * Get the number of games solved (i.e., not using the cache).
+	 */
+	public long getNumSolved()
+	{
+		return numSolved;
+	}
+
+	/**
+	 * Get the number of times a cached solution was reused.
+	 */
+	public long getNumCacheHits()
+	{
+		return numCacheHits;
+	}
+
+	/**
+	 * Check convergence, as for {@link PrismUtils#doublesAreClose(double[], double[], double, boolean)},
+	 * where the values {@code d1} (for each state) have been computed from the values of matrix games solved
+	 * with this solver (plus some constant), so that those computed from a reused, cached solution
+	 * may be off by up to its error. To be sound, any value within the error must be close to the one in {@code d2}.
+	 * If the check only fails because of such errors, the corresponding solutions are removed from the cache,
+	 * so that they are computed exactly next time (and so the convergence check can eventually succeed).
+	 */
+	public boolean doublesAreClose(double d1[], double d2[], double epsilon, boolean abs)
+	{
+		boolean close = true;
+		Iterator<Map.Entry<Integer, CachedSolution>> it = cache.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Integer, CachedSolution> e = it.next();
+			int s = e.getKey();
+			double error = e.getValue().error;
+			if (error > 0 && s < d1.length && s < d2.length) {
+				// Check both ends of the interval (sufficient, by convexity)
+				if (!PrismUtils.doublesAreClose(d1[s] - error, d2[s], epsilon, abs) || !PrismUtils.doublesAreClose(d1[s] + error, d2[s], epsilon, abs)) {
+					close = false;
+					it.remove();
+				}
+			}
+		}
+		return close && PrismUtils.doublesAreClose(d1, d2, epsilon, abs);
+	}
+
+	/**
+	 * Maximum absolute difference between the entries of two games (infinite if the sizes differ).
+	 */
+	private static double maxDifference(double game1[][], double game2[][])
+	{
+		if (game1.length != game2.length || game1[0].length != game2[0].length) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double diff = 0.0;
+		for (int i = 0; i < game1.length; i++) {
+			for (int j = 0; j < game1[i].length; j++) {
+				diff = Math.max(diff, Math.abs(game1[i][j] - game2[i][j]));
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * Free the LPs (the solver can still be used; new LPs are built if needed).
+	 */
+	public void free()
+	{
+		for (MatrixGameLp mgLp : lps.values()) {
+			mgLp.lp.deleteLp();
+		}
+		lps.clear();
+	}
+
+	// Java simplex
+
+	/**
+	 * Solve a matrix game with the simplex method (see {@link #solve(int, double[][], boolean, boolean, double[])}).
+	 * For max_p min_j sum_i p_i a[i][j], the entries are first made positive by adding {@code c}. Then the LP
+	 * max sum_j x_j s.t. sum_j a[i][j] x_j <= 1 for all i, x >= 0, is solved (i.e., the LP for the opponent).
+	 * The value is 1/sum_j x_j - c, and p is given by the (normalised) optimal dual solution.
+	 * The min case is reduced to this by negating and transposing the game.
+	 */
+	private double solveSimplex(double game[][], boolean min, double strat[]) throws PrismException
+	{
+		int m = min ? game[0].length : game.length; // constraints (actions of the optimising player)
+		int n = min ? game.length : game[0].length; // variables (actions of the opponent)
+		// Game a[i][j] from the point of view of the optimising (maximising) player
+		double a[][] = new double[m][n];
+		double minEntry = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				a[i][j] = min ? -game[j][i] : game[i][j];
+				minEntry = Math.min(minEntry, a[i][j]);
+			}
+		}
+		double c = 1.0 - minEntry;
+		// Tableau: rows 0..m-1 for the constraints, row m for the objective;
+		// columns 0..n-1 for x, n..n+m-1 for the slack variables, n+m for the right-hand side
+		double t[][] = new double[m + 1][n + m + 1];
+		int basis[] = new int[m];
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < n; j++) {
+				t[i][j] = a[i][j] + c;
+			}
+			t[i][n + i] = 1.0;
+			t[i][n + m] = 1.0;
+			basis[i] = n + i;
+		}
+		for (int j = 0; j < n; j++) {
+			t[m][j] = -1.0;
+		}
+		// Pivot (using Bland's rule, to avoid cycling) until optimal
+		int maxIters = 100 * (n + m);
+		for (int iters = 0;; iters++) {
+			if (iters == maxIters) {
+				throw new PrismException("Simplex method did not terminate for matrix game");
+			}
+			// Entering variable: first with negative reduced cost
+			int enter = -1;
+			for (int j = 0; j < n + m; j++) {
+				if (t[m][j] < -SIMPLEX_EPSILON) {
+					enter = j;
+					break;
+				}
+			}
+			if (enter == -1) {
+				break;
+			}
+			// Leaving variable: minimum ratio (ties broken by smallest variable index)
+			int leave = -1;
+			double minRatio = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < m; i++) {
+				if (t[i][enter] > SIMPLEX_EPSILON) {
+					double ratio = t[i][n + m] / t[i][enter];
+					if (leave == -1 || ratio < minRatio - SIMPLEX_EPSILON || (ratio <= minRatio + SIMPLEX_EPSILON && basis[i] < basis[leave])) {
+						minRatio = ratio;
+						leave = i;
+					}
+				}
+			}
+			if (leave == -1) {
+				// Cannot happen, since the entries are positive
+				throw new PrismException("Unbounded LP for matrix game");
+			}
+			pivot(t, leave, enter);
+			basis[leave] = enter;
+		}
+		// Extract value and strategy (the dual solution is given by the reduced costs of the slack variables)
+		double sum = t[m][n + m];
+		for (int i = 0; i < m; i++) {
+			strat[i] = Math.max(0.0, t[m][n + i]) / sum;
+		}
+		double value = 1.0 / sum - c;
+		return min ? -value : value;
+	}
+
+	/**
+	 * Pivot the tableau {@code t} on entry ({@code row}, {@code col}).
+	 */
+	private static void pivot(double t[][], int row, int col)
+	{
+		int w = t[row].length;
+		double p = t[row][col];
+		for (int k = 0; k < w; k++) {
+			t[row][k] /= p;
+		}
+		t[row][col] = 1.0;
+		for (int j = 0; j < t.length; j++) {
+			double f = t[j][col];
+			if (j != row && f != 0.0) {
+				for (int k = 0; k < w; k++) {
+					t[j][k] -= f * t[row][k];
+				}
+				t[j][col] = 0.0;
+			}
+		}
+	}
+
+	// lp_solve
+
+	/**
+	 * Solve a matrix game with lp_solve (see {@link #solve(int, double[][], boolean, boolean, double[])}).
+	 * The LP has variables v (column 1) and the strategy (columns 2,...), one constraint for each
+	 * action of the opponent, v - sum_i p_i game[i][j] <= 0 (or >= 0 if min, transposed),
+	 * and sum_i p_i = 1, and maximises (or minimises if min) v.
+	 */
+	private double solveLpSolve(int s, double game[][], boolean rew, boolean min, double strat[]) throws PrismException
+	{
+		int numVars = min ? game[0].length : game.length;
+		int numCons = min ? game.length : game[0].length;
+		long shape = lpShape(numVars, numCons, rew, min);
+		MatrixGameLp mgLp = lps.get(shape);
+		try {
+			if (mgLp == null) {
+				mgLp = buildLp(shape, game, numVars, numCons, rew, min);
+			} else {
+				// Only update the coefficients that have changed
+				for (int j = 0; j < numCons; j++) {
+					for (int i = 0; i < numVars; i++) {
+						double a = min ? game[j][i] : game[i][j];
+						if (Double.compare(a, mgLp.matrix[j][i]) != 0) {
+							mgLp.lp.setMat(j + 1, i + 2, -scaleFactor * a);
+							mgLp.matrix[j][i] = a;
+						}
+					}
+				}
+			}
+			// Warm-start from the previous basis for this state, if any
+			int basis[] = mgLp.bases.get(s);
+			if (basis != null) {
+				mgLp.lp.setBasis(basis, true);
+			}
+			int status = mgLp.lp.solve();
+			if (status != LpSolve.OPTIMAL) {
+				String msg = "lpSolve could not find an optimal solution for state " + s + " (status: " + mgLp.lp.getStatustext(status) + ")";
+				freeLp(shape);
+				throw new PrismException(msg);
+			}
+			if (basis == null) {
+				basis = new int[1 + numCons + 1 + numVars + 1];
+				mgLp.bases.put(s, basis);
+			}
+			mgLp.lp.getBasis(basis, true);
+			double values[] = new double[numVars + 1];
+			mgLp.lp.getVariables(values);
+			System.arraycopy(values, 1, strat, 0, numVars);
+			return mgLp.lp.getObjective();
+		} catch (LpSolveException e) {
+			freeLp(shape);
+			throw new PrismException("Exception raised by lpSolve when solving matrix game for state " + s + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Key identifying the shape of an LP (see {@link #solveLpSolve(int, double[][], boolean, boolean, double[])}),
+	 * i.e., numbers of strategy variables and constraints, reward mode and min/max.
+	 */
+	private static long lpShape(int numVars, int numCons, boolean rew, boolean min)
+	{
+		return ((long) numVars << 32) | ((long) numCons << 2) | (rew ? 2 : 0) | (min ? 1 : 0);
+	}
+
+	/**
+	 * Free the LP (and its stored bases) for a given shape, if it exists.
+	 */
+	private void freeLp(long shape)
+	{
+		MatrixGameLp mgLp = lps.remove(shape);
+		if (mgLp != null) {
+			mgLp.lp.deleteLp();
+		}
+	}
+
+	/**
+	 * Build the LP for a matrix game (see {@link #solveLpSolve(int, double[][], boolean, boolean, double[])}),
+	 * and store it for the given shape (straight away, so that it is freed along with the others if building fails).
+	 */
+	private MatrixGameLp buildLp(long shape, double game[][], int numVars, int numCons, boolean rew, boolean min) throws LpSolveException
+	{
+		MatrixGameLp mgLp = new MatrixGameLp();
+		LpSolve lp = LpSolve.makeLp(0, numVars + 1);
+		mgLp.lp = lp;
+		lps.put(shape, mgLp);
+		lp.setVerbose(LpSolve.CRITICAL);
+		// Bounds: strategy in [0,1], value unbounded (rewards) or in [0,1] (probabilities)
+		for (int i = 2; i <= numVars + 1; i++) {
+			lp.setBounds(i, 0, 1.0);
+		}
+		if (rew) {
+			lp.setBounds(1, -1.0 * lp.getInfinite(), lp.getInfinite());
+		} else {
+			lp.setBounds(1, 0, 1.0);
+		}
+		mgLp.matrix = new double[numCons][numVars];
+		int vari[] = new int[numVars + 1];
+		double row[] = new double[numVars + 1];
+		lp.setAddRowmode(true);
+		for (int j = 0; j < numCons; j++) {
+			vari[0] = 1;
+			row[0] = scaleFactor;
+			for (int i = 0; i < numVars; i++) {
+				mgLp.matrix[j][i] = min ? game[j][i] : game[i][j];
+				vari[i + 1] = i + 2;
+				row[i + 1] = -1.0 * scaleFactor * mgLp.matrix[j][i];
+			}
+			lp.addConstraintex(numVars + 1, row, vari, min ? LpSolve.GE : LpSolve.LE, 0.0);
+		}
+		for (int i = 0; i <= numVars; i++) {
+			vari[i] = i + 1;
+			row[i] = (i > 0) ? 1 : 0;
+		}
+		lp.addConstraintex(numVars + 1, row, vari, LpSolve.EQ, 1.0);
+		lp.setAddRowmode(false);
+		for (int i = 0; i <= numVars; i++) {
+			vari[i] = i + 1;
+			row[i] = (i == 0) ? 1 : 0;
+		}
+		lp.setObjFnex(numVars + 1, row, vari);
+		if (min) {
+			lp.setMinim();
+		} else {
+			lp.setMaxim();
+		}
+		return mgLp;
+	}
+}
@@ -356,7 +356,8 @@ public class NonProbModelChecker extends StateModelChecker
 			// if there are no remaining successors into T, i.e, if count[s]==0
 
 			// For all predecessors s of t....
-			for (int s : pre.getPre(t)) {
+			for (int j = pre.getPreStart(t), end = pre.getPreEnd(t); j < end; j++) {
+				int s = pre.getPreState(j);
 				// ... ignore if we have already proven that it does not satisfy E[ a R b ]
 				if (!T.get(s)) continue;
 
@@ -432,7 +433,8 @@ public class NonProbModelChecker extends StateModelChecker
 
 			// For all predecessors s of t....
 
-			for (int s : pre.getPre(t)) {
+			for (int j = pre.getPreStart(t), end = pre.getPreEnd(t); j < end; j++) {
+				int s = pre.getPreState(j);
 				// ... ignore if we have already proven that it does not satisfy E[ a R b ]
 				if (!T.get(s)) continue;
 
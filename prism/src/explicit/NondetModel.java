@@ -33,6 +33,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.function.IntPredicate;
 
+import prism.PrismComponent;
 import prism.PrismLog;
 import strat.MDStrategy;
 
@@ -310,4 +311,57 @@ public interface NondetModel extends Model
 	 * Export to a dot file, highlighting states in 'mark' and choices for a (memoryless) strategy.
 	 */
 	public void exportToDotFileWithStrat(PrismLog out, BitSet mark, int strat[]);
+
+	/** Has this model a stored IncomingChoiceRelation? */
+	public default boolean hasStoredIncomingChoiceRelation()
+	{
+		return false;
+	}
+
+	/**
+	 * If there is an IncomingChoiceRelation stored for this model, return that.
+	 * Otherwise, create one and return that. If {@code storeIfNew},
+	 * store it for later use (if supported by the implementation;
+	 * by default, the relation is not stored).
+	 *
+	 * @param parent a PrismComponent (for obtaining the log)
+	 * @param storeIfNew if the incoming choice relation is newly created, store it
+	 */
+	public default IncomingChoiceRelation getIncomingChoiceRelation(PrismComponent parent, boolean storeIfNew)
+	{
+		return IncomingChoiceRelation.forModel(parent, this);
+	}
+
+	/** Clear any stored incoming choice relation, e.g., because the model was modified */
+	public default void clearIncomingChoiceRelation()
+	{
+	}
+
+	/**
+	 * Get the cache of maximal end components (MECs) for this model,
+	 * or null if MECs are not cached for this model (the default).
+	 */
+	public default MECCache getMECCache()
+	{
+		return null;
+	}
+
+	/** Clear any cached maximal end components, e.g., because the model was modified */
+	public default void clearMECCache()
+	{
+	}
+
+	/**
+	 * Get the cache of previous numerical results, used to warm-start subsequent computations,
+	 * for this model, or null if results are not cached for this model (the default).
+	 */
+	public default WarmStartCache getWarmStartCache()
+	{
+		return null;
+	}
+
+	/** Clear any cached numerical results, e.g., because the model was modified */
+	public default void clearWarmStartCache()
+	{
+	}
 }
\ No newline at end of file
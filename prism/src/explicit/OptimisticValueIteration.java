@@ -0,0 +1,211 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.BitSet;
+
+import common.PeriodicTimer;
+import prism.AccuracyFactory;
+import prism.OptionsIntervalIteration;
+import prism.PrismException;
+import prism.PrismUtils;
+
+/**
+ * Optimistic value iteration (Hartmanns and Kiefer, CAV 2020)
+ * for computing least fixed points of Bellman operators,
+ * e.g., for reachability probabilities or expected rewards in MDPs and stochastic games.
+ * <br><br>
+ * Standard value iteration (from below) is run until the difference between successive
+ * iterations falls below some threshold. Then, an upper bound is guessed by adding
+ * the required precision to the current (lower) values, and this guess is verified
+ * by iterating it further: if one iteration does not increase the value of any state,
+ * the vector is inductive and thus an upper bound on the least fixed point.
+ * If the verification fails, value iteration is resumed with a smaller threshold.
+ * The result is a lower and an upper bound that differ by at most the required precision,
+ * i.e., a sound result, usually at a cost close to that of standard value iteration.
+ * <br><br>
+ * All updates are done in place (i.e., Gauss-Seidel style).
+ */
+public class OptimisticValueIteration
+{
+	/** Relative tolerance for floating-point round-off when checking that an upper bound is inductive */
+	public static final double ROUNDING_TOLERANCE = 1e-14;
+
+	/**
+	 * Functional interface for a single state update of a Bellman operator,
+	 * i.e., returning the new value of state {@code s} for the solution vector {@code vect}.
+	 */
+	@FunctionalInterface
+	public interface BellmanOperator
+	{
+		public double apply(int s, double vect[]);
+	}
+
+	/** The model checker (for settings and logging) */
+	private ProbModelChecker mc;
+	/** Absolute (or relative) precision? */
+	private boolean absolute;
+	/** Required precision */
+	private double epsilon;
+	/** Largest possible value, e.g. 1.0 for probabilities (used to cap guessed upper bounds) */
+	private double maxValue;
+
+	/**
+	 * Constructor.
+	 * @param mc The model checker (for settings and logging)
+	 * @param absolute Absolute (or relative) precision?
+	 * @param epsilon Required precision
+	 * @param maxValue Largest possible value, e.g. 1.0 for probabilities, or +infinity for rewards
+	 */
+	public OptimisticValueIteration(ProbModelChecker mc, boolean absolute, double epsilon, double maxValue)
+	{
+		this.mc = mc;
+		this.absolute = absolute;
+		this.epsilon = epsilon;
+		this.maxValue = maxValue;
+	}
+
+	/**
+	 * Run optimistic value iteration.
+	 * The operators are applied to the states in {@code unknown} only,
+	 * the values of all other states are assumed to be fixed in {@code soln}.
+	 * The operator for the lower bound may, e.g., also store strategy information,
+	 * the one for the upper bound should not have any side effects.
+	 * @param description Description (for logging purposes)
+	 * @param soln The initial solution vector (a lower bound); will be overwritten with the result
+	 * @param unknown The states whose value should be determined
+	 * @param lowerOp The Bellman operator, as applied to the lower bound
+	 * @param upperOp The Bellman operator, as applied to the upper bound
+	 * @param timer The start time (for logging purposes, obtained from a call to System.currentTimeMillis())
+	 * @return a ModelChecker result with the solution vector and statistics
+	 * @throws PrismException on non-convergence (if mc.errorOnNonConverge is set)
+	 */
+	public ModelCheckerResult solve(String description, double soln[], BitSet unknown, BellmanOperator lowerOp, BellmanOperator upperOp, long timer) throws PrismException
+	{
+		double lower[] = soln;
+		double upper[] = soln.clone();
+		int states[] = unknown.stream().toArray();
+		int iters = 0, verifs = 0;
+		int maxIters = mc.maxIters;
+		boolean done = false;
+		// Threshold for the value iteration phase
+		double viEpsilon = epsilon;
+
+		PeriodicTimer updatesTimer = new PeriodicTimer(ProbModelChecker.UPDATE_DELAY);
+		updatesTimer.start();
+
+		while (!done && iters < maxIters) {
+			// Value iteration (from below), until successive iterations are close
+			int viIters = 0;
+			double diff = Double.POSITIVE_INFINITY;
+			while (diff >= viEpsilon && iters < maxIters) {
+				iters++;
+				viIters++;
+				diff = 0.0;
+				for (int s : states) {
+					double d = lowerOp.apply(s, lower);
+					double err = absolute ? PrismUtils.measureSupNormAbs(d, lower[s]) : PrismUtils.measureSupNormRel(d, lower[s]);
+					if (err > diff) {
+						diff = err;
+					}
+					lower[s] = d;
+				}
+				if (updatesTimer.triggered()) {
+					mc.getLog().print("Iteration " + iters + ": ");
+					mc.getLog().print("max " + (absolute ? "" : "relative ") + "diff=" + PrismUtils.formatDouble(diff));
+					mc.getLog().println(", " + PrismUtils.formatDouble2dp(updatesTimer.elapsedMillisTotal() / 1000.0) + " sec so far");
+				}
+			}
+			if (diff >= viEpsilon) {
+				break;
+			}
+			// Guess an upper bound
+			for (int s : states) {
+				upper[s] = Math.min(maxValue, absolute ? lower[s] + epsilon : lower[s] * (1 + epsilon));
+			}
+			// Verification: iterate both bounds, for (at most) as many iterations as the value iteration took
+			verifs++;
+			boolean abort = false;
+			for (int i = 0; i < viIters && !done && !abort && iters < maxIters; i++) {
+				iters++;
+				boolean inductive = true;
+				for (int s : states) {
+					lower[s] = lowerOp.apply(s, lower);
+					double d = upperOp.apply(s, upper);
+					if (d > upper[s]) {
+						// Ignore increases that are only due to floating-point round-off
+						if (d - upper[s] > ROUNDING_TOLERANCE * d) {
+							inductive = false;
+						}
+					} else {
+						upper[s] = d;
+					}
+					// The bounds have crossed: the guess was not an upper bound
+					if (lower[s] - upper[s] > ROUNDING_TOLERANCE * lower[s]) {
+						abort = true;
+					}
+				}
+				done = inductive && !abort;
+			}
+			if (!done) {
+				viEpsilon /= 2;
+			}
+		}
+
+		// The accuracy of the result is given as an absolute error bound,
+		// which (unlike a relative one) remains valid for, e.g., 1 - p
+		double maxError = Double.POSITIVE_INFINITY;
+		if (done) {
+			double diff = PrismUtils.measureSupNormInterval(lower, upper, absolute);
+			mc.getLog().println("Max " + (!absolute ? "relative " : "") + "diff between upper and lower bound on convergence: " + PrismUtils.formatDouble(diff));
+			maxError = PrismUtils.measureSupNormInterval(lower, upper, true);
+		}
+
+		// Finished optimistic value iteration
+		timer = System.currentTimeMillis() - timer;
+		mc.getLog().print("Optimistic value iteration (" + description + ")");
+		mc.getLog().print(" took " + iters + " iterations (" + verifs + " verification phases)");
+		mc.getLog().println(" and " + timer / 1000.0 + " seconds.");
+
+		if (done && OptionsIntervalIteration.from(mc.getSettings()).isSelectMidpointForResult()) {
+			PrismUtils.selectMidpoint(lower, upper);
+		}
+
+		// Non-convergence is an error (usually)
+		if (!done && mc.errorOnNonConverge) {
+			String msg = "Iterative method (optimistic value iteration) did not converge within " + iters + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		ModelCheckerResult res = new ModelCheckerResult();
+		res.soln = lower;
+		res.accuracy = AccuracyFactory.guaranteedNumericalIterative(maxError, true);
+		res.numIters = iters;
+		res.timeTaken = timer / 1000.0;
+		return res;
+	}
+}
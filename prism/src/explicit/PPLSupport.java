@@ -42,6 +42,7 @@ import parma_polyhedra_library.C_Polyhedron;
 import parma_polyhedra_library.Coefficient;
 import parma_polyhedra_library.Constraint;
 import parma_polyhedra_library.Constraint_System;
+import parma_polyhedra_library.Degenerate_Element;
 import parma_polyhedra_library.Generator;
 import parma_polyhedra_library.Generator_System;
 import parma_polyhedra_library.Generator_Type;
@@ -138,6 +139,24 @@ public class PPLSupport
 		return Generator.point(r_num, new Coefficient(r_den));
 	}
 
+	/**
+	 * Convert a Pareto set represented as a point set (i.e. the downward closure of its points)
+	 * to a PPL polyhedron.
+	 */
+	public static Pareto paretoFromPointSet(ParetoPointSet X) throws PrismException
+	{
+		int n = X.getDimension();
+		if (X.isEmpty())
+			return new Pareto(new C_Polyhedron(n, Degenerate_Element.EMPTY));
+		Generator_System gs = new Generator_System();
+		for (double[] p : X.getPoints())
+			gs.add(generatorFromPoint(p));
+		// downward closure
+		for (int i = 0; i < n; i++)
+			gs.add(Generator.ray(new Linear_Expression_Times(new Coefficient((BigInteger.ONE).negate()), new Variable(i))));
+		return new Pareto(new C_Polyhedron(gs));
+	}
+
 	public static Map<Integer, BigInteger> getCoefficients(Linear_Expression le)
 	{
 		Map<Variable, BigInteger> map = new HashMap<Variable, BigInteger>();
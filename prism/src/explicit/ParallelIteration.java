@@ -0,0 +1,255 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+import common.IntSet;
+import prism.PrismException;
+import prism.PrismUtils;
+
+/**
+ * Multi-threaded execution of the steps of iterative numerical methods that update
+ * each state independently (e.g. the Power and Jacobi methods, where the new value of
+ * each state only depends on the old solution vector), along with the accompanying
+ * convergence checks (as a parallel reduction).
+ * <br><br>
+ * A set of states is split into contiguous blocks, each with roughly the same number
+ * of transitions (rather than states), and the blocks are processed in a fork-join pool.
+ * Since each state is computed exactly as in the sequential case, results are identical.
+ */
+public class ParallelIteration
+{
+	/** Minimum number of transitions in a block (smaller sets of states are processed sequentially) */
+	public static final int MIN_BLOCK_SIZE = 8192;
+	/** Number of blocks per thread (for load balancing) */
+	private static final int BLOCKS_PER_THREAD = 4;
+
+	/** Shared pools, one for each number of threads requested
+	 *  (pool threads are daemon threads, and terminate when idle, so pools are never shut down) */
+	private static final Map<Integer, ForkJoinPool> pools = new HashMap<Integer, ForkJoinPool>();
+
+	/**
+	 * A set of states, split into blocks.
+	 */
+	public static class Partition
+	{
+		/** The set of states partitioned */
+		private IntSet source;
+		/** The states (in the order of the original set) */
+		private int states[];
+		/** Start of each block in {@code states} (length is number of blocks + 1) */
+		private int blockStarts[];
+
+		/**
+		 * Get the set of states that was partitioned.
+		 */
+		public IntSet getSource()
+		{
+			return source;
+		}
+
+		/**
+		 * Get the number of blocks.
+		 */
+		public int getNumBlocks()
+		{
+			return blockStarts.length - 1;
+		}
+
+		/**
+		 * Get an iterator over the states in block {@code b}.
+		 */
+		public PrimitiveIterator.OfInt blockIterator(int b)
+		{
+			return Arrays.stream(states, blockStarts[b], blockStarts[b + 1]).iterator();
+		}
+	}
+
+	/**
+	 * An operation on a single state, which may throw an exception.
+	 */
+	@FunctionalInterface
+	public interface StateOperation
+	{
+		public void apply(int s) throws PrismException;
+	}
+
+	/** Number of threads */
+	private int numThreads;
+
+	/**
+	 * Create an object for parallel iteration with the given number of threads.
+	 */
+	public ParallelIteration(int numThreads)
+	{
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Get the number of threads.
+	 */
+	public int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	/**
+	 * Split a set of states of a model into blocks with similar numbers of transitions.
+	 * Returns null if it is not worth using more than one block.
+	 */
+	public Partition partition(Model model, IntSet states)
+	{
+		if (numThreads <= 1) {
+			return null;
+		}
+		int n = states.cardinality();
+		int list[] = new int[n];
+		long weights[] = new long[n + 1];
+		int i = 0;
+		PrimitiveIterator.OfInt it = states.iterator();
+		while (it.hasNext()) {
+			int s = it.nextInt();
+			list[i] = s;
+			// Count each state as well as its transitions
+			weights[i + 1] = weights[i] + model.getNumTransitions(s) + 1;
+			i++;
+		}
+		long total = weights[n];
+		int numBlocks = (int) Math.min(numThreads * BLOCKS_PER_THREAD, total / MIN_BLOCK_SIZE);
+		if (numBlocks <= 1) {
+			return null;
+		}
+		Partition partition = new Partition();
+		partition.source = states;
+		partition.states = list;
+		partition.blockStarts = new int[numBlocks + 1];
+		// Block b ends at the first state where the cumulative weight reaches (b + 1) / numBlocks of the total
+		int j = 0;
+		for (int b = 1; b < numBlocks; b++) {
+			long target = total * b / numBlocks;
+			while (j < n && weights[j] < target) {
+				j++;
+			}
+			partition.blockStarts[b] = j;
+		}
+		partition.blockStarts[numBlocks] = n;
+		return partition;
+	}
+
+	/**
+	 * Set {@code result[s] = op(s)} for all states {@code s} in a partitioned set, in parallel.
+	 */
+	public void apply(Partition partition, double result[], IntToDoubleFunction op)
+	{
+		run(() -> IntStream.range(0, partition.getNumBlocks()).parallel().forEach(b -> {
+			PrimitiveIterator.OfInt it = partition.blockIterator(b);
+			while (it.hasNext()) {
+				int s = it.nextInt();
+				result[s] = op.applyAsDouble(s);
+			}
+		}));
+	}
+
+	/**
+	 * Apply {@code op} to each of the states {@code 0,...,n-1}, in parallel.
+	 * This is intended for expensive per-state operations (e.g. on Pareto sets), so, unlike
+	 * for {@link #partition(Model, IntSet)}, there is no minimum number of states per thread.
+	 * If any of the operations throws an exception, one of these is rethrown
+	 * (and the remaining states may not have been processed).
+	 */
+	public void forEachState(int n, StateOperation op) throws PrismException
+	{
+		AtomicReference<PrismException> error = new AtomicReference<PrismException>();
+		run(() -> IntStream.range(0, n).parallel().forEach(s -> {
+			if (error.get() == null) {
+				try {
+					op.apply(s);
+				} catch (PrismException e) {
+					error.compareAndSet(null, e);
+				}
+			}
+		}));
+		if (error.get() != null) {
+			throw error.get();
+		}
+	}
+
+	/**
+	 * Parallel version of {@link PrismUtils#doublesAreClose(double[], double[], PrimitiveIterator.OfInt, double, boolean)},
+	 * for the states in a partitioned set.
+	 */
+	public boolean doublesAreClose(Partition partition, double d1[], double d2[], double epsilon, boolean abs)
+	{
+		boolean res[] = new boolean[1];
+		run(() -> {
+			res[0] = IntStream.range(0, partition.getNumBlocks()).parallel()
+					.allMatch(b -> PrismUtils.doublesAreClose(d1, d2, partition.blockIterator(b), epsilon, abs));
+		});
+		return res[0];
+	}
+
+	/**
+	 * Parallel version of {@link PrismUtils#doublesAreClose(double[], double[], double, boolean)}.
+	 */
+	public boolean doublesAreClose(double d1[], double d2[], double epsilon, boolean abs)
+	{
+		int n = Math.min(d1.length, d2.length);
+		int numBlocks = Math.min(numThreads * BLOCKS_PER_THREAD, n / MIN_BLOCK_SIZE);
+		if (numBlocks <= 1) {
+			return PrismUtils.doublesAreClose(d1, d2, epsilon, abs);
+		}
+		boolean res[] = new boolean[1];
+		run(() -> {
+			res[0] = IntStream.range(0, numBlocks).parallel()
+					.allMatch(b -> PrismUtils.doublesAreClose(d1, d2, IntStream.range((int) ((long) n * b / numBlocks), (int) ((long) n * (b + 1) / numBlocks)).iterator(), epsilon, abs));
+		});
+		return res[0];
+	}
+
+	/**
+	 * Run a (parallel) task in the pool, so that it uses the requested number of threads.
+	 */
+	private void run(Runnable task)
+	{
+		getPool(numThreads).invoke(ForkJoinTask.adapt(task));
+	}
+
+	/**
+	 * Get the shared pool with the given number of threads (creating it if needed).
+	 */
+	static synchronized ForkJoinPool getPool(int numThreads)
+	{
+		return pools.computeIfAbsent(numThreads, ForkJoinPool::new);
+	}
+}
@@ -0,0 +1,427 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import parser.State;
+import prism.ModelGenerator;
+import prism.ModelType;
+import prism.PrismException;
+import prism.ProgressDisplay;
+
+/**
+ * Multi-threaded explicit-state reachability, as used by {@link ConstructModel}.
+ * <br><br>
+ * States are explored level by level (breadth-first). The states in each level
+ * are shared out, in small chunks, between a pool of worker threads, each of which
+ * has its own copy of the {@link ModelGenerator}. States are stored in a
+ * {@link ConcurrentIndexedSet}, whose indices reflect the (non-deterministic)
+ * order in which the threads found them. The choices/transitions of each state
+ * are kept (using these indices) until the model is built from them.
+ * {@link #buildBFSPermutation()} gives a deterministic renumbering of the states,
+ * which matches the order in which sequential breadth-first exploration finds them.
+ */
+public class ParallelStateExplorer
+{
+	/** Number of states handed to a worker thread at once */
+	private static final int CHUNK_SIZE = 64;
+	/** Levels smaller than this are explored directly, without the worker threads */
+	private static final int MIN_PARALLEL_LEVEL = 4 * CHUNK_SIZE;
+
+	/**
+	 * Information stored for an explored state: the player owning it (for turn-based games)
+	 * and its choices/transitions, in the order given by the model generator.
+	 */
+	public static class ExploredState
+	{
+		/** Player owning the state (0-indexed; -1 if not applicable) */
+		public int player = -1;
+		/** Action for each choice (or null if not needed) */
+		public Object actions[];
+		/** Action indexes for each choice (CSGs only) */
+		public int indexes[][];
+		/** Start of each choice in succs/probs (length is number of choices + 1) */
+		public int choiceStarts[];
+		/** Successor state indices */
+		public int succs[];
+		/** Transition probabilities/rates */
+		public double probs[];
+
+		public int getNumChoices()
+		{
+			return choiceStarts.length - 1;
+		}
+	}
+
+	// Model info
+	private ModelType modelType;
+	// One model generator per thread
+	private ModelGenerator modelGens[];
+	// States found so far
+	private ConcurrentIndexedSet<State> states;
+	// Initial state indices
+	private int initialStates[];
+	// Explored state info, indexed by state index
+	private ExploredState explored[];
+	// Store choices/transitions of explored states?
+	private boolean storeTransitions;
+	// Store successor indices of explored states (needed for buildBFSPermutation)?
+	private boolean storeSuccessors;
+
+	/**
+	 * Create a new explorer for the model provided by {@code modelGen}, using {@code numThreads} threads.
+	 * This requires {@code modelGen} to support {@link ModelGenerator#createCopy()}.
+	 * If {@code justReach} is true, only the reachable states are needed, so no transitions are stored
+	 * (except for successor indices, if {@code bfsOrder} is true, so that {@link #buildBFSPermutation()} can be used).
+	 */
+	public ParallelStateExplorer(ModelGenerator modelGen, int numThreads, boolean justReach, boolean bfsOrder) throws PrismException
+	{
+		modelType = modelGen.getModelType();
+		storeTransitions = !justReach;
+		storeSuccessors = !justReach || bfsOrder;
+		modelGens = new ModelGenerator[numThreads];
+		modelGens[0] = modelGen;
+		for (int i = 1; i < numThreads; i++) {
+			modelGens[i] = modelGen.createCopy();
+		}
+		states = new ConcurrentIndexedSet<State>();
+		explored = new ExploredState[0];
+	}
+
+	/**
+	 * Explore the reachable state space, periodically updating {@code progress}.
+	 */
+	public void explore(ProgressDisplay progress) throws PrismException
+	{
+		// Add initial states
+		List<State> initStates = modelGens[0].getInitialStates();
+		State frontierStates[] = new State[initStates.size()];
+		int frontierIds[] = new int[initStates.size()];
+		int numFrontier = 0;
+		initialStates = new int[initStates.size()];
+		int numInit = 0;
+		for (State initState : initStates) {
+			int i = states.addAndGetIndex(initState);
+			if (i < 0) {
+				i = -(i + 1);
+				frontierStates[numFrontier] = initState;
+				frontierIds[numFrontier++] = i;
+			}
+			initialStates[numInit++] = i;
+		}
+		initialStates = Arrays.copyOf(initialStates, numInit);
+		frontierStates = Arrays.copyOf(frontierStates, numFrontier);
+		frontierIds = Arrays.copyOf(frontierIds, numFrontier);
+
+		// Explore, level by level
+		ExecutorService executor = Executors.newFixedThreadPool(modelGens.length);
+		try {
+			int numExplored = 0;
+			while (frontierStates.length > 0) {
+				// Make room to store info for the states in this level
+				if (explored.length < states.size()) {
+					explored = Arrays.copyOf(explored, Math.max(states.size(), 2 * explored.length));
+				}
+				Level level = new Level(frontierStates, frontierIds);
+				if (frontierStates.length < MIN_PARALLEL_LEVEL) {
+					level.exploreChunks(modelGens[0]);
+				} else {
+					List<Future<?>> futures = new ArrayList<>();
+					for (ModelGenerator modelGen : modelGens) {
+						futures.add(executor.submit((Callable<Void>) () -> {
+							level.exploreChunks(modelGen);
+							return null;
+						}));
+					}
+					for (Future<?> future : futures) {
+						waitFor(future);
+					}
+				}
+				numExplored += frontierStates.length;
+				progress.updateIfReady(numExplored);
+				// Next level is formed of the states found in this one
+				frontierStates = Arrays.copyOf(level.newStates.states, level.newStates.size);
+				frontierIds = Arrays.copyOf(level.newStates.ids, level.newStates.size);
+			}
+		} finally {
+			executor.shutdownNow();
+			releaseCopies();
+		}
+		explored = Arrays.copyOf(explored, states.size());
+	}
+
+	/**
+	 * Release the copies of the model generator used by worker threads (see {@link ModelGenerator#releaseCopy()}),
+	 * so that they pass back any statistics and do not outlive the exploration.
+	 */
+	private void releaseCopies()
+	{
+		for (int i = 1; i < modelGens.length; i++) {
+			modelGens[i].releaseCopy();
+		}
+		modelGens = Arrays.copyOf(modelGens, 1);
+	}
+
+	/**
+	 * Wait for a worker task to complete, passing on any exception it threw.
+	 */
+	private static void waitFor(Future<?> future) throws PrismException
+	{
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PrismException("Interrupted during model construction");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof PrismException) {
+				throw (PrismException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new PrismException("Error during model construction: " + cause);
+		}
+	}
+
+	/**
+	 * A list of newly found states and their indices.
+	 */
+	private static class NewStates
+	{
+		private State states[] = new State[16];
+		private int ids[] = new int[16];
+		private int size = 0;
+
+		void add(State state, int id)
+		{
+			if (size == states.length) {
+				states = Arrays.copyOf(states, 2 * size);
+				ids = Arrays.copyOf(ids, 2 * size);
+			}
+			states[size] = state;
+			ids[size++] = id;
+		}
+
+		void addAll(NewStates other)
+		{
+			for (int i = 0; i < other.size; i++) {
+				add(other.states[i], other.ids[i]);
+			}
+		}
+	}
+
+	/**
+	 * One level of the breadth-first exploration, to be explored in chunks by the worker threads.
+	 */
+	private class Level
+	{
+		private State levelStates[];
+		private int levelIds[];
+		private AtomicInteger nextChunk = new AtomicInteger(0);
+		// States found for the first time in this level
+		private NewStates newStates = new NewStates();
+
+		Level(State levelStates[], int levelIds[])
+		{
+			this.levelStates = levelStates;
+			this.levelIds = levelIds;
+		}
+
+		/**
+		 * Repeatedly take (and explore) chunks of states from this level, until there are none left.
+		 */
+		void exploreChunks(ModelGenerator modelGen) throws PrismException
+		{
+			NewStates localNewStates = new NewStates();
+			int n = levelStates.length;
+			int lo;
+			while ((lo = nextChunk.getAndAdd(CHUNK_SIZE)) < n) {
+				int hi = Math.min(lo + CHUNK_SIZE, n);
+				for (int k = lo; k < hi; k++) {
+					ExploredState es = exploreState(modelGen, levelStates[k], localNewStates);
+					if (storeSuccessors) {
+						explored[levelIds[k]] = es;
+					}
+				}
+			}
+			synchronized (this) {
+				newStates.addAll(localNewStates);
+			}
+		}
+
+		/**
+		 * Explore a single state, storing any newly found successors in {@code localNewStates}.
+		 * If transitions are not stored, only successor indices are filled in.
+		 */
+		private ExploredState exploreState(ModelGenerator modelGen, State state, NewStates localNewStates) throws PrismException
+		{
+			ExploredState es = new ExploredState();
+			modelGen.exploreState(state);
+			int nc = modelGen.getNumChoices();
+			int nt = modelGen.getNumTransitions();
+			es.succs = new int[nt];
+			if (!storeTransitions) {
+				int t = 0;
+				for (int i = 0; i < nc; i++) {
+					int ntc = modelGen.getNumTransitions(i);
+					for (int j = 0; j < ntc; j++) {
+						State stateNew = modelGen.computeTransitionTarget(i, j);
+						int dest = states.addAndGetIndex(stateNew);
+						if (dest < 0) {
+							dest = -(dest + 1);
+							localNewStates.add(stateNew, dest);
+						}
+						es.succs[t++] = dest;
+					}
+				}
+				return es;
+			}
+			if (modelType.multiplePlayers() && !modelType.concurrent()) {
+				es.player = modelGen.getPlayerOwningState();
+			}
+			es.choiceStarts = new int[nc + 1];
+			if (modelType == ModelType.CSG) {
+				es.indexes = new int[nc][];
+			} else if (modelType.nondeterministic()) {
+				es.actions = new Object[nc];
+			}
+			es.probs = new double[nt];
+			int t = 0;
+			for (int i = 0; i < nc; i++) {
+				switch (modelType) {
+				case DTMC:
+				case CTMC:
+					break;
+				case STPG:
+				case SMG:
+					es.actions[i] = modelGen.getTransitionAction(i, 0);
+					break;
+				case CSG:
+					es.indexes[i] = modelGen.getTransitionIndexes(i);
+					break;
+				default:
+					es.actions[i] = modelGen.getChoiceAction(i);
+				}
+				int ntc = modelGen.getNumTransitions(i);
+				for (int j = 0; j < ntc; j++) {
+					State stateNew = modelGen.computeTransitionTarget(i, j);
+					int dest = states.addAndGetIndex(stateNew);
+					if (dest < 0) {
+						dest = -(dest + 1);
+						localNewStates.add(stateNew, dest);
+					}
+					es.succs[t] = dest;
+					es.probs[t] = modelGen.getTransitionProbability(i, j);
+					t++;
+				}
+				es.choiceStarts[i + 1] = t;
+			}
+			return es;
+		}
+	}
+
+	/**
+	 * Get the number of states found.
+	 */
+	public int getNumStates()
+	{
+		return states.size();
+	}
+
+	/**
+	 * Get the storage for the states found.
+	 */
+	public ConcurrentIndexedSet<State> getStates()
+	{
+		return states;
+	}
+
+	/**
+	 * Get the indices of the initial states.
+	 */
+	public int[] getInitialStates()
+	{
+		return initialStates;
+	}
+
+	/**
+	 * Get the info stored for the state with index {@code s}
+	 * (null if only reachability was requested and successors are not needed).
+	 */
+	public ExploredState getExploredState(int s)
+	{
+		return explored[s];
+	}
+
+	/**
+	 * Discard the info stored for the state with index {@code s}.
+	 */
+	public void clearExploredState(int s)
+	{
+		explored[s] = null;
+	}
+
+	/**
+	 * Build a permutation (integer array) mapping current state indices to those that
+	 * sequential breadth-first exploration would have given, i.e., the order in which states
+	 * are first found when exploring states, choices and transitions in order.
+	 * Needs to be called before any explored state info is discarded.
+	 */
+	public int[] buildBFSPermutation()
+	{
+		int n = states.size();
+		int permut[] = new int[n];
+		int order[] = new int[n];
+		Arrays.fill(permut, -1);
+		int numFound = 0;
+		for (int s : initialStates) {
+			if (permut[s] == -1) {
+				permut[s] = numFound;
+				order[numFound++] = s;
+			}
+		}
+		for (int k = 0; k < numFound; k++) {
+			ExploredState es = explored[order[k]];
+			for (int dest : es.succs) {
+				if (permut[dest] == -1) {
+					permut[dest] = numFound;
+					order[numFound++] = dest;
+				}
+			}
+		}
+		return permut;
+	}
+}
@@ -0,0 +1,813 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A Pareto set, represented as the downward closure of the convex hull of a finite set of points,
+ * stored in double precision. This is a pure-Java alternative to the (exact) PPL polyhedra
+ * used by {@link Pareto}, for value iteration of conjunctive queries in multi-objective SMGs
+ * (see {@link SMG#pMultiObjective(ParetoPointSet[], List, boolean, long, double[], List[], boolean, boolean, boolean, long, ParallelIteration, BitSet, PredecessorRelation)}).
+ * <br><br>
+ * Only the vertices (extreme points) of a set are stored: after each operation, dominated points
+ * and points in the downward-closed convex hull of the others are pruned. Sets are immutable,
+ * i.e., operations return new sets. Comparisons are made up to a (relative) tolerance {@link #TOLERANCE}.
+ * <br><br>
+ * Facets (needed for containment checks, intersections and pruning) are computed with the
+ * double description method; in 2 dimensions, pruning is done by a simple sweep instead.
+ * The implementation is intended for small dimensions (up to {@link #MAX_DIMENSION}).
+ */
+public class ParetoPointSet
+{
+	/** Maximum dimension for which point sets are intended to be used */
+	public static final int MAX_DIMENSION = 4;
+
+	/** Relative tolerance for floating-point comparisons */
+	public static final double TOLERANCE = 1e-10;
+
+	/** Dimension */
+	private final int n;
+	/** Vertices (empty for the empty set) */
+	private final double points[][];
+	/** Facets, as normals (non-negative, summing to 1) and offsets, i.e., w.x <= b (computed lazily) */
+	private double facetNormals[][];
+	private double facetOffsets[];
+
+	/**
+	 * Create an empty set of dimension {@code n}.
+	 */
+	public ParetoPointSet(int n)
+	{
+		this.n = n;
+		points = new double[0][];
+	}
+
+	/**
+	 * Create the downward closure of a single point.
+	 */
+	public ParetoPointSet(double point[])
+	{
+		n = point.length;
+		points = new double[][] { point.clone() };
+	}
+
+	/**
+	 * Create the downward-closed convex hull of a list of points of dimension {@code n}.
+	 * The points are not copied, so should not be subsequently modified.
+	 */
+	public ParetoPointSet(int n, List<double[]> points)
+	{
+		this.n = n;
+		this.points = prune(n, points);
+	}
+
+	/**
+	 * Create a set from its (already pruned) vertices.
+	 */
+	private ParetoPointSet(int n, double points[][])
+	{
+		this.n = n;
+		this.points = points;
+	}
+
+	// Accessors
+
+	/**
+	 * Get the dimension.
+	 */
+	public int getDimension()
+	{
+		return n;
+	}
+
+	/**
+	 * Is this the empty set?
+	 */
+	public boolean isEmpty()
+	{
+		return points.length == 0;
+	}
+
+	/**
+	 * Get the number of vertices.
+	 */
+	public int getNumPoints()
+	{
+		return points.length;
+	}
+
+	/**
+	 * Get the vertices (which should not be modified).
+	 */
+	public List<double[]> getPoints()
+	{
+		return Arrays.asList(points);
+	}
+
+	// Operations
+
+	/**
+	 * Get the downward-closed convex hull of the union of this set and {@code other}.
+	 */
+	public ParetoPointSet union(ParetoPointSet other)
+	{
+		if (other.isEmpty()) {
+			return this;
+		} else if (isEmpty()) {
+			return other;
+		}
+		List<double[]> all = new ArrayList<double[]>(points.length + other.points.length);
+		all.addAll(Arrays.asList(points));
+		all.addAll(Arrays.asList(other.points));
+		return new ParetoPointSet(n, all);
+	}
+
+	/**
+	 * Get the downward-closed convex hull of the union of a list of sets of dimension {@code n}.
+	 */
+	public static ParetoPointSet union(int n, List<ParetoPointSet> sets)
+	{
+		List<double[]> all = new ArrayList<double[]>();
+		for (ParetoPointSet set : sets) {
+			all.addAll(Arrays.asList(set.points));
+		}
+		return new ParetoPointSet(n, all);
+	}
+
+	/**
+	 * Get the intersection of this set and {@code other}.
+	 */
+	public ParetoPointSet intersection(ParetoPointSet other)
+	{
+		if (isEmpty() || other.isEmpty()) {
+			return new ParetoPointSet(n);
+		} else if (contains(other, 0.0)) {
+			return other;
+		} else if (other.contains(this, 0.0)) {
+			return this;
+		}
+		// Cut this set with the facets of the other one
+		DoubleDescription dd = homogenise();
+		other.computeFacets();
+		for (int f = 0; f < other.facetOffsets.length; f++) {
+			dd.addConstraint(homogeniseConstraint(other.facetNormals[f], other.facetOffsets[f]));
+		}
+		return new ParetoPointSet(n, dd.getPoints());
+	}
+
+	/**
+	 * Get the weighted (Minkowski) sum of the sets {@code sets}, weighted by {@code probs},
+	 * i.e., the set of all sums of probs[i] * x_i, for x_i in sets[i].
+	 */
+	public static ParetoPointSet weightedSum(double probs[], ParetoPointSet sets[])
+	{
+		int n = sets[0].n;
+		for (ParetoPointSet set : sets) {
+			if (set.isEmpty()) {
+				return new ParetoPointSet(n);
+			}
+		}
+		// Sum the sets one by one, pruning each partial sum
+		ParetoPointSet result = sets[0].scale(probs[0]);
+		for (int t = 1; t < sets.length; t++) {
+			List<double[]> sums = new ArrayList<double[]>(result.points.length * sets[t].points.length);
+			for (double p[] : result.points) {
+				for (double q[] : sets[t].points) {
+					double sum[] = new double[n];
+					for (int i = 0; i < n; i++) {
+						sum[i] = p[i] + probs[t] * q[i];
+					}
+					sums.add(sum);
+				}
+			}
+			result = new ParetoPointSet(n, sums);
+		}
+		return result;
+	}
+
+	/**
+	 * Get this set, translated by the vector {@code r}.
+	 */
+	public ParetoPointSet translate(double r[])
+	{
+		double result[][] = new double[points.length][n];
+		for (int j = 0; j < points.length; j++) {
+			for (int i = 0; i < n; i++) {
+				result[j][i] = points[j][i] + r[i];
+			}
+		}
+		return new ParetoPointSet(n, result);
+	}
+
+	/**
+	 * Get this set, scaled by the (positive) factor {@code alpha} in all dimensions.
+	 */
+	public ParetoPointSet scale(double alpha)
+	{
+		double alphas[] = new double[n];
+		Arrays.fill(alphas, alpha);
+		return scale(alphas);
+	}
+
+	/**
+	 * Get this set, scaled by the (positive) factor {@code alpha[i]} in each dimension {@code i}.
+	 */
+	public ParetoPointSet scale(double alpha[])
+	{
+		double result[][] = new double[points.length][n];
+		for (int j = 0; j < points.length; j++) {
+			for (int i = 0; i < n; i++) {
+				result[j][i] = points[j][i] * alpha[i];
+			}
+		}
+		return new ParetoPointSet(n, result);
+	}
+
+	/**
+	 * Get the downward closure of the intersection of this set with the box [-M,0]^n.
+	 */
+	public ParetoPointSet cutBox(long M)
+	{
+		// Nothing to do if all vertices are already in the box
+		boolean inBox = true;
+		for (double p[] : points) {
+			for (int i = 0; i < n; i++) {
+				if (p[i] > 0.0 || p[i] < -M) {
+					inBox = false;
+				}
+			}
+		}
+		if (inBox) {
+			return this;
+		}
+		// Otherwise, cut with the box (which leaves a polytope), and take the downward closure
+		DoubleDescription dd = homogenise();
+		for (int i = 0; i < n; i++) {
+			dd.addConstraint(homogeniseConstraint(unitVector(n, i, 1.0), 0.0));
+			dd.addConstraint(homogeniseConstraint(unitVector(n, i, -1.0), M));
+		}
+		return new ParetoPointSet(n, dd.getPoints());
+	}
+
+	/**
+	 * Is {@code other} contained in this set, translated by {@code shift} in all dimensions?
+	 */
+	public boolean contains(ParetoPointSet other, double shift)
+	{
+		for (double p[] : other.points) {
+			if (!containsPoint(p, shift)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Is this set equal to {@code other} (up to the tolerance)?
+	 */
+	public boolean isEqualTo(ParetoPointSet other)
+	{
+		return contains(other, 0.0) && other.contains(this, 0.0);
+	}
+
+	/**
+	 * Does this set have exactly the same vertices as {@code other} (in any order)?
+	 * Unlike {@link #isEqualTo(ParetoPointSet)}, no tolerance is used, so any change to the vertices counts.
+	 */
+	public boolean isIdenticalTo(ParetoPointSet other)
+	{
+		if (this == other) {
+			return true;
+		}
+		if (n != other.n || points.length != other.points.length) {
+			return false;
+		}
+		for (double p[] : points) {
+			boolean found = false;
+			for (double q[] : other.points) {
+				if (Arrays.equals(p, q)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Is the point {@code p} contained in this set?
+	 */
+	public boolean containsPoint(double p[])
+	{
+		return containsPoint(p, 0.0);
+	}
+
+	/**
+	 * Is the point {@code p} contained in this set, translated by {@code shift} in all dimensions?
+	 */
+	private boolean containsPoint(double p[], double shift)
+	{
+		if (isEmpty()) {
+			return false;
+		}
+		computeFacets();
+		double eps = tolerance(getPoints());
+		for (int f = 0; f < facetOffsets.length; f++) {
+			// (normals sum to 1)
+			if (dot(facetNormals[f], p) > facetOffsets[f] + shift + eps) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("{");
+		for (int j = 0; j < points.length; j++) {
+			sb.append(j > 0 ? ", " : "").append(Arrays.toString(points[j]));
+		}
+		return sb.append("}").toString();
+	}
+
+	// Geometry
+
+	/**
+	 * Compute (if not done already) the facets of this (non-empty) set.
+	 */
+	private synchronized void computeFacets()
+	{
+		if (facetOffsets != null) {
+			return;
+		}
+		List<double[]> normals = new ArrayList<double[]>();
+		List<Double> offsets = new ArrayList<Double>();
+		computeFacets(n, points, normals, offsets);
+		facetNormals = normals.toArray(new double[normals.size()][]);
+		facetOffsets = new double[offsets.size()];
+		for (int f = 0; f < facetOffsets.length; f++) {
+			facetOffsets[f] = offsets.get(f);
+		}
+	}
+
+	/**
+	 * Compute the facets w.x <= b of the downward-closed convex hull of a (non-empty) set of points,
+	 * i.e., the extreme rays of the cone of valid inequalities (w,b), with w >= 0 and w.p <= b for all points p.
+	 * The normals are scaled to sum to 1.
+	 */
+	private static void computeFacets(int n, double pts[][], List<double[]> normals, List<Double> offsets)
+	{
+		// Start with the cone for the first point p: w >= 0 and b >= w.p,
+		// generated by (e_i, p_i) for each i, and (0, 1)
+		List<double[]> rays = new ArrayList<double[]>(n + 1);
+		List<double[]> constraints = new ArrayList<double[]>(n + 1);
+		for (int i = 0; i < n; i++) {
+			double ray[] = unitVector(n + 1, i, 1.0);
+			ray[n] = pts[0][i];
+			rays.add(ray);
+			constraints.add(unitVector(n + 1, i, -1.0));
+		}
+		rays.add(unitVector(n + 1, n, 1.0));
+		constraints.add(pointConstraint(pts[0]));
+		DoubleDescription dd = new DoubleDescription(n + 1, rays, constraints);
+		// Then add the constraints for the other points
+		for (int j = 1; j < pts.length; j++) {
+			dd.addConstraint(pointConstraint(pts[j]));
+		}
+		// Extract the facets (other than the trivial inequality 0 <= 1)
+		for (double ray[] : dd.rays) {
+			double sum = 0.0;
+			for (int i = 0; i < n; i++) {
+				sum += ray[i];
+			}
+			if (sum > TOLERANCE) {
+				double w[] = new double[n];
+				for (int i = 0; i < n; i++) {
+					w[i] = Math.max(ray[i] / sum, 0.0);
+				}
+				normals.add(w);
+				offsets.add(ray[n] / sum);
+			}
+		}
+	}
+
+	/**
+	 * Constraint w.p - b <= 0 on valid inequalities (w,b) for a point p.
+	 */
+	private static double[] pointConstraint(double p[])
+	{
+		double a[] = Arrays.copyOf(p, p.length + 1);
+		a[p.length] = -1.0;
+		return a;
+	}
+
+	/**
+	 * Get the homogenisation of this (non-empty) set, i.e., the cone generated by (p, 1) for its vertices p
+	 * and by (-e_i, 0) for the rays of the downward closure, and given by the constraints (w, -b)
+	 * for its facets w.x <= b, plus t >= 0 for the last coordinate t.
+	 */
+	private DoubleDescription homogenise()
+	{
+		computeFacets();
+		List<double[]> rays = new ArrayList<double[]>(points.length + n);
+		for (double p[] : points) {
+			double ray[] = Arrays.copyOf(p, n + 1);
+			ray[n] = 1.0;
+			rays.add(ray);
+		}
+		for (int i = 0; i < n; i++) {
+			rays.add(unitVector(n + 1, i, -1.0));
+		}
+		List<double[]> constraints = new ArrayList<double[]>(facetOffsets.length + 1);
+		for (int f = 0; f < facetOffsets.length; f++) {
+			constraints.add(homogeniseConstraint(facetNormals[f], facetOffsets[f]));
+		}
+		constraints.add(unitVector(n + 1, n, -1.0));
+		return new DoubleDescription(n + 1, rays, constraints);
+	}
+
+	/**
+	 * Get the homogenisation (w, -b) of the constraint w.x <= b.
+	 */
+	private static double[] homogeniseConstraint(double w[], double b)
+	{
+		double a[] = Arrays.copyOf(w, w.length + 1);
+		a[w.length] = -b;
+		return a;
+	}
+
+	/**
+	 * A pointed polyhedral cone in R^d, given both by its extreme rays and by constraints a.x <= 0,
+	 * to which further constraints can be added, updating the rays incrementally
+	 * (the double description method, with the combinatorial adjacency test,
+	 * cf. Fukuda and Prodon, "Double description method revisited", 1996).
+	 */
+	private static class DoubleDescription
+	{
+		/** Dimension */
+		private int d;
+		/** Constraints */
+		private List<double[]> constraints;
+		/** Extreme rays (scaled to a maximum absolute entry of 1) */
+		private List<double[]> rays = new ArrayList<double[]>();
+		/** For each ray, the indices of the constraints that are tight for it */
+		private List<BitSet> tight = new ArrayList<BitSet>();
+
+		/**
+		 * Create from the extreme rays and constraints of a cone.
+		 */
+		DoubleDescription(int d, List<double[]> rays, List<double[]> constraints)
+		{
+			this.d = d;
+			this.constraints = new ArrayList<double[]>(constraints);
+			for (double ray[] : rays) {
+				ray = scaleRay(ray);
+				BitSet t = new BitSet();
+				for (int c = 0; c < constraints.size(); c++) {
+					if (Math.abs(dot(constraints.get(c), ray)) <= tolerance(constraints.get(c))) {
+						t.set(c);
+					}
+				}
+				this.rays.add(ray);
+				tight.add(t);
+			}
+		}
+
+		/**
+		 * Add the constraint a.x <= 0.
+		 */
+		void addConstraint(double a[])
+		{
+			int numRays = rays.size();
+			double eps = tolerance(a);
+			double val[] = new double[numRays];
+			boolean anyPos = false;
+			for (int r = 0; r < numRays; r++) {
+				val[r] = dot(a, rays.get(r));
+				anyPos |= val[r] > eps;
+			}
+			// Nothing to do if the constraint is redundant
+			if (!anyPos) {
+				return;
+			}
+			int c = constraints.size();
+			constraints.add(a);
+			List<double[]> newRays = new ArrayList<double[]>();
+			List<BitSet> newTight = new ArrayList<BitSet>();
+			// Keep the rays that satisfy the constraint
+			for (int r = 0; r < numRays; r++) {
+				if (val[r] <= eps) {
+					BitSet t = tight.get(r);
+					if (val[r] >= -eps) {
+						t.set(c);
+					}
+					newRays.add(rays.get(r));
+					newTight.add(t);
+				}
+			}
+			// Add a new ray for each pair of adjacent rays on opposite sides of the constraint
+			for (int p = 0; p < numRays; p++) {
+				if (val[p] <= eps) {
+					continue;
+				}
+				for (int q = 0; q < numRays; q++) {
+					if (val[q] >= -eps) {
+						continue;
+					}
+					BitSet common = (BitSet) tight.get(p).clone();
+					common.and(tight.get(q));
+					if (common.cardinality() < d - 2 || !adjacent(p, q, common)) {
+						continue;
+					}
+					double ray[] = new double[d];
+					double rp[] = rays.get(p), rq[] = rays.get(q);
+					for (int i = 0; i < d; i++) {
+						ray[i] = val[p] * rq[i] - val[q] * rp[i];
+					}
+					common.set(c);
+					newRays.add(scaleRay(ray));
+					newTight.add(common);
+				}
+			}
+			rays = newRays;
+			tight = newTight;
+		}
+
+		/**
+		 * Are rays p and q, which are both tight for the constraints {@code common}, adjacent,
+		 * i.e., is there no other ray that is tight for all of these constraints?
+		 */
+		private boolean adjacent(int p, int q, BitSet common)
+		{
+			for (int r = 0; r < rays.size(); r++) {
+				if (r != p && r != q) {
+					BitSet t = (BitSet) common.clone();
+					t.andNot(tight.get(r));
+					if (t.isEmpty()) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * For a homogenised set (see {@link ParetoPointSet#homogenise()}), get the points (p, 1)
+		 * among the extreme rays, i.e., the candidate vertices of the set.
+		 */
+		List<double[]> getPoints()
+		{
+			List<double[]> pts = new ArrayList<double[]>();
+			for (double ray[] : rays) {
+				double t = ray[d - 1];
+				if (t > TOLERANCE) {
+					double p[] = new double[d - 1];
+					for (int i = 0; i < d - 1; i++) {
+						p[i] = ray[i] / t;
+					}
+					pts.add(p);
+				}
+			}
+			return pts;
+		}
+
+		/**
+		 * Absolute tolerance for the value of a constraint for (scaled) rays.
+		 */
+		private static double tolerance(double a[])
+		{
+			return TOLERANCE * Math.max(1.0, norm1(a));
+		}
+
+		/**
+		 * Scale a ray to a maximum absolute entry of 1.
+		 */
+		private static double[] scaleRay(double ray[])
+		{
+			double max = 0.0;
+			for (double x : ray) {
+				max = Math.max(max, Math.abs(x));
+			}
+			if (max > 0.0) {
+				for (int i = 0; i < ray.length; i++) {
+					ray[i] /= max;
+				}
+			}
+			return ray;
+		}
+	}
+
+	/**
+	 * Prune a list of points of dimension {@code n} to the vertices of its downward-closed convex hull.
+	 */
+	private static double[][] prune(int n, List<double[]> pts)
+	{
+		if (pts.size() <= 1) {
+			return pts.toArray(new double[pts.size()][]);
+		}
+		// Remove (weakly) dominated points, and duplicates
+		double eps = tolerance(pts);
+		List<double[]> nonDominated = new ArrayList<double[]>(pts.size());
+		for (int j = 0; j < pts.size(); j++) {
+			double p[] = pts.get(j);
+			boolean dominated = false;
+			for (int j2 = 0; j2 < pts.size() && !dominated; j2++) {
+				if (j2 != j && dominates(pts.get(j2), p, eps)) {
+					// For (near) duplicates, keep the first one
+					dominated = j2 < j || !dominates(p, pts.get(j2), eps);
+				}
+			}
+			if (!dominated) {
+				nonDominated.add(p);
+			}
+		}
+		if (nonDominated.size() <= 1 || n == 1) {
+			return nonDominated.toArray(new double[nonDominated.size()][]);
+		}
+		if (n == 2) {
+			return prune2D(nonDominated);
+		}
+		// Otherwise, keep the points for which the normals of the tight facets span the space
+		double candidates[][] = nonDominated.toArray(new double[nonDominated.size()][]);
+		List<double[]> normals = new ArrayList<double[]>();
+		List<Double> offsets = new ArrayList<Double>();
+		computeFacets(n, candidates, normals, offsets);
+		List<double[]> vertices = new ArrayList<double[]>(candidates.length);
+		for (double p[] : candidates) {
+			List<double[]> tightNormals = new ArrayList<double[]>();
+			for (int f = 0; f < offsets.size(); f++) {
+				if (dot(normals.get(f), p) >= offsets.get(f) - eps) {
+					tightNormals.add(normals.get(f));
+				}
+			}
+			if (rank(tightNormals.toArray(new double[tightNormals.size()][]), n) == n) {
+				vertices.add(p);
+			}
+		}
+		return vertices.toArray(new double[vertices.size()][]);
+	}
+
+	/**
+	 * Prune a list of (non-dominated) 2-dimensional points to the vertices of its downward-closed convex hull.
+	 */
+	private static double[][] prune2D(List<double[]> pts)
+	{
+		pts.sort(Comparator.comparingDouble(p -> p[0]));
+		double hull[][] = new double[pts.size()][];
+		int size = 0;
+		for (double p[] : pts) {
+			// Remove the last vertex while it is not strictly above the line from the previous one to p
+			while (size >= 2) {
+				double a[] = hull[size - 2], b[] = hull[size - 1];
+				double ux = b[0] - a[0], uy = b[1] - a[1], vx = p[0] - a[0], vy = p[1] - a[1];
+				double cross = ux * vy - uy * vx;
+				if (cross < -TOLERANCE * Math.hypot(ux, uy) * Math.hypot(vx, vy)) {
+					break;
+				}
+				size--;
+			}
+			hull[size++] = p;
+		}
+		return Arrays.copyOf(hull, size);
+	}
+
+	// Linear algebra utilities
+
+	/**
+	 * Absolute tolerance for comparisons of points of the given magnitude.
+	 */
+	private static double tolerance(List<double[]> pts)
+	{
+		double max = 1.0;
+		for (double p[] : pts) {
+			for (double x : p) {
+				max = Math.max(max, Math.abs(x));
+			}
+		}
+		return TOLERANCE * max;
+	}
+
+	private static boolean dominates(double p[], double q[], double eps)
+	{
+		for (int i = 0; i < p.length; i++) {
+			if (p[i] < q[i] - eps) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static double dot(double w[], double x[])
+	{
+		double d = 0.0;
+		for (int i = 0; i < w.length; i++) {
+			d += w[i] * x[i];
+		}
+		return d;
+	}
+
+	private static double norm1(double w[])
+	{
+		double d = 0.0;
+		for (double x : w) {
+			d += Math.abs(x);
+		}
+		return d;
+	}
+
+	private static double[] unitVector(int n, int i, double value)
+	{
+		double u[] = new double[n];
+		u[i] = value;
+		return u;
+	}
+
+	/**
+	 * Gaussian elimination (with partial pivoting) of the rows of {@code a} (which is modified),
+	 * with {@code n} columns; returns the pivot column of each row (-1 if none).
+	 */
+	private static int[] eliminate(double a[][], int n)
+	{
+		int rows = a.length;
+		int pivots[] = new int[rows];
+		Arrays.fill(pivots, -1);
+		int r = 0;
+		for (int c = 0; c < n && r < rows; c++) {
+			int best = r;
+			for (int i = r + 1; i < rows; i++) {
+				if (Math.abs(a[i][c]) > Math.abs(a[best][c])) {
+					best = i;
+				}
+			}
+			double scale = 0.0;
+			for (int i = r; i < rows; i++) {
+				scale = Math.max(scale, norm1(a[i]));
+			}
+			if (Math.abs(a[best][c]) <= TOLERANCE * scale) {
+				continue;
+			}
+			double tmp[] = a[r];
+			a[r] = a[best];
+			a[best] = tmp;
+			for (int i = 0; i < rows; i++) {
+				if (i != r && a[i][c] != 0.0) {
+					double f = a[i][c] / a[r][c];
+					for (int j = 0; j < a[i].length; j++) {
+						a[i][j] -= f * a[r][j];
+					}
+				}
+			}
+			pivots[r++] = c;
+		}
+		return pivots;
+	}
+
+	/**
+	 * Compute the rank of a set of vectors of length {@code n}.
+	 */
+	private static int rank(double vectors[][], int n)
+	{
+		double a[][] = new double[vectors.length][];
+		for (int i = 0; i < vectors.length; i++) {
+			a[i] = Arrays.copyOf(vectors[i], n);
+		}
+		int rank = 0;
+		for (int p : eliminate(a, n)) {
+			if (p >= 0) {
+				rank++;
+			}
+		}
+		return rank;
+	}
+}
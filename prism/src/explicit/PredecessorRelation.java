@@ -26,20 +26,23 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Stack;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 import prism.PrismComponent;
-import common.IterableBitSet;
 
 /**
  * A class for storing and accessing the predecessor relation of an explicit Model.
  * <p>
  * As Model only provide easy access to successors of states,
  * the predecessor relation is computed and stored for subsequent efficient access.
+ * The predecessors are stored in a compressed sparse row (CSR) layout, i.e.,
+ * the predecessors of state {@code s} are the entries at indices
+ * {@code getPreStart(s)} (inclusive) to {@code getPreEnd(s)} (exclusive),
+ * obtained using {@link #getPreState(int)}, which allows access without boxing.
+ * Each predecessor occurs once, even if it has several transitions to {@code s}.
  * <p>
  * Note: Naturally, if the model changes, the predecessor relation
  * has to be recomputed to remain accurate.
@@ -47,9 +50,11 @@ import common.IterableBitSet;
 public class PredecessorRelation
 {
 	/**
-	 * pre[i] provides the list of predecessors of state with index i.
+	 * The predecessors of the state with index i are
+	 * pre[preStart[i]], ..., pre[preStart[i+1]-1].
 	 */
-	List<ArrayList<Integer>> pre;
+	private int preStart[];
+	private int pre[];
 
 	/**
 	 * Constructor. Computes the predecessor relation for the given model
@@ -59,49 +64,99 @@ public class PredecessorRelation
 	 */
 	public PredecessorRelation(Model model)
 	{
-		pre = new ArrayList<ArrayList<Integer>>(model.getNumStates());
-		// construct the (empty) array list for all states
-		for (int s = 0; s < model.getNumStates(); s++) {
-			pre.add(s, new ArrayList<Integer>());
-		}
-
 		compute(model);
 	}
 
-	/** Compute the predecessor relation using getSuccessorsIterator. */
+	/** Compute the predecessor relation using getSuccessors. */
 	private void compute(Model model)
 	{
 		int n = model.getNumStates();
+		preStart = new int[n + 1];
+		// lastSeen[t] = last state found with a transition to t (to remove duplicates)
+		int lastSeen[] = new int[n];
 
+		// First pass: count the predecessors of each state
+		Arrays.fill(lastSeen, -1);
 		for (int s = 0; s < n; s++) {
-			Iterator<Integer> it = model.getSuccessorsIterator(s);
+			SuccessorsIterator it = model.getSuccessors(s);
 			while (it.hasNext()) {
-				Integer successor = it.next();
-
-				// Add the current state s to pre[successor].
-				//
-				// As getSuccessorsIterator guarantees that
-				// there are no duplicates in the successors,
-				// s will be added to successor exactly once.
-				pre.get(successor).add(s);
+				int t = it.nextInt();
+				if (lastSeen[t] != s) {
+					lastSeen[t] = s;
+					preStart[t + 1]++;
+				}
 			}
 		}
+		for (int t = 0; t < n; t++) {
+			preStart[t + 1] += preStart[t];
+		}
+
+		// Second pass: store the predecessors (in ascending order)
+		pre = new int[preStart[n]];
+		int next[] = Arrays.copyOf(preStart, n);
+		Arrays.fill(lastSeen, -1);
+		for (int s = 0; s < n; s++) {
+			SuccessorsIterator it = model.getSuccessors(s);
+			while (it.hasNext()) {
+				int t = it.nextInt();
+				if (lastSeen[t] != s) {
+					lastSeen[t] = s;
+					pre[next[t]++] = s;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the number of (distinct) predecessor states of {@code s}.
+	 */
+	public int getNumPredecessors(int s)
+	{
+		return preStart[s + 1] - preStart[s];
+	}
+
+	/**
+	 * Get the index of the first predecessor of state {@code s} (see {@link #getPreState(int)}).
+	 */
+	public int getPreStart(int s)
+	{
+		return preStart[s];
+	}
+
+	/**
+	 * Get the index after the last predecessor of state {@code s} (see {@link #getPreState(int)}).
+	 */
+	public int getPreEnd(int s)
+	{
+		return preStart[s + 1];
+	}
+
+	/**
+	 * Get the predecessor state stored at index {@code i},
+	 * where the predecessors of state {@code s} have indices
+	 * {@code getPreStart(s)}, ..., {@code getPreEnd(s) - 1}.
+	 */
+	public int getPreState(int i)
+	{
+		return pre[i];
 	}
 
 	/**
 	 * Get an Iterable over the predecessor states of {@code s}.
+	 * Note: this boxes the state indices; for efficient access,
+	 * use {@link #getPredecessorsIterator(int)} or the index-based methods.
 	 */
 	public Iterable<Integer> getPre(int s)
 	{
-		return pre.get(s);
+		return () -> getPredecessorsIterator(s);
 	}
 
 	/**
-	 * Get an Iterator over the predecessor states of {@code s}.
+	 * Get an iterator over the predecessor states of {@code s}.
 	 */
-	public Iterator<Integer> getPredecessorsIterator(int s)
+	public PrimitiveIterator.OfInt getPredecessorsIterator(int s)
 	{
-		return getPre(s).iterator();
+		return IntStream.range(preStart[s], preStart[s + 1]).map(i -> pre[i]).iterator();
 	}
 
 	/**
@@ -155,36 +210,30 @@ public class PredecessorRelation
 		result = (BitSet)target.clone();
 
 		// the stack of states whose predecessors have to be considered
-		Stack<Integer> todo = new Stack<Integer>();
+		// (each state is pushed at most once, when it is added to the result)
+		int todo[] = new int[preStart.length - 1];
+		int todoSize = 0;
 
 		// initial todo: all the target states
-		for (Integer s : IterableBitSet.getSetBits(target)) {
-			todo.add(s);
-		};
-
-		// the set of states that are finished
-		BitSet done = new BitSet();
-
-		while (!todo.isEmpty()) {
-			int s = todo.pop();
-			// already considered?
-			if (done.get(s)) continue;
+		for (int s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+			todo[todoSize++] = s;
+		}
 
-			done.set(s);
+		while (todoSize > 0) {
+			int s = todo[--todoSize];
 
 			// for each predecessor in the graph
-			for (int p : getPre(s)) {
+			for (int i = preStart[s], end = preStart[s + 1]; i < end; i++) {
+				int p = pre[i];
 				if (absorbing != null && absorbing.get(p)) {
 					// predecessor is absorbing, thus the edge is considered to not exist
 					continue;
 				}
-				if (remain == null || remain.get(p)) {
+				if ((remain == null || remain.get(p)) && !result.get(p)) {
 					// can reach result (and is in remain)
 					result.set(p);
-					if (!done.get(p)) {
-						// add to stack
-						todo.add(p);
-					}
+					// add to stack
+					todo[todoSize++] = p;
 				}
 			}
 		}
@@ -34,6 +34,7 @@ import java.util.function.IntPredicate;
 
 import prism.PrismComponent;
 import prism.PrismException;
+import prism.PrismSettings;
 
 /**
  * Abstract class for (explicit) classes that compute (B)SCCs,
@@ -46,12 +47,14 @@ public abstract class SCCComputer extends PrismComponent
 
 	// Method used for finding (B)SCCs
 	public enum SCCMethod {
-		TARJAN;
+		TARJAN, FORWARD_BACKWARD;
 		public String fullName()
 		{
 			switch (this) {
 			case TARJAN:
 				return "Tarjan";
+			case FORWARD_BACKWARD:
+				return "Forward-backward";
 			default:
 				return this.toString();
 			}
@@ -63,8 +66,25 @@ public abstract class SCCComputer extends PrismComponent
 	 */
 	public static SCCComputer createSCCComputer(PrismComponent parent, Model model, SCCConsumer consumer) throws PrismException
 	{
-		// Only one algorithm implemented currently
-		return new SCCComputerTarjan(parent, model, consumer);
+		PrismSettings settings = parent.getSettings();
+		if (settings != null && settings.getString(PrismSettings.PRISM_EXPLICIT_SCC_METHOD).equals("Forward-backward")) {
+			return createSCCComputer(parent, model, consumer, SCCMethod.FORWARD_BACKWARD);
+		}
+		return createSCCComputer(parent, model, consumer, SCCMethod.TARJAN);
+	}
+
+	/**
+	 * Static method to create a new SCCComputer object, using the specified method.
+	 */
+	public static SCCComputer createSCCComputer(PrismComponent parent, Model model, SCCConsumer consumer, SCCMethod sccMethod) throws PrismException
+	{
+		switch (sccMethod) {
+		case FORWARD_BACKWARD:
+			return new SCCComputerForwardBackward(parent, model, consumer);
+		case TARJAN:
+		default:
+			return new SCCComputerTarjan(parent, model, consumer);
+		}
 	}
 
 	/**
@@ -0,0 +1,428 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.PrismSettings;
+
+/**
+ * Multi-threaded SCC computation operating on a Model object,
+ * using the forward-backward algorithm with colouring.
+ * <br>
+ * States with no predecessors or successors (in the relevant sub-graph) are first repeatedly
+ * removed as singleton SCCs ("trimming"). For the remaining states, a (random) pivot state is picked
+ * and the intersection of its forward and backward reachable sets forms an SCC.
+ * The rest of the states splits into three sets (forward only, backward only, neither),
+ * no SCC of which spans more than one set, so these are processed independently, in parallel.
+ * States are labelled with the "colour" of the set they currently belong to.
+ * <br>
+ * Once all SCCs are known, they are passed to the consumer in the same kind of order as
+ * {@link SCCComputerTarjan}, i.e., each SCC after all of the SCCs reachable from it.
+ */
+public class SCCComputerForwardBackward extends SCCComputer
+{
+	/* The model to compute (B)SCCs for */
+	private Model model;
+	/* Number of nodes (model states) */
+	private int numNodes;
+	/* Number of threads */
+	private int numThreads;
+
+	/* Successors/predecessors of nodes (excluding self-loops and non-relevant nodes), in CSR form */
+	private int succStart[];
+	private int succ[];
+	private int predStart[];
+	private int pred[];
+	/* Relevant nodes */
+	private BitSet relevant;
+	/* Nodes with a self-loop */
+	private BitSet selfloop;
+
+	/* SCC index for each node (-1 if unknown/not relevant) */
+	private int sccIndex[];
+	/* Number of SCCs found so far */
+	private AtomicInteger numSCCs;
+	/* Colour of each node (while the SCC is unknown) */
+	private int colour[];
+	/* Next colour to use */
+	private AtomicInteger nextColour;
+	/* Number of tasks not yet completed, and signal for when this reaches 0 */
+	private AtomicInteger numPending;
+	private CountDownLatch done;
+	/* First error (if any) occurring in a worker thread */
+	private volatile Throwable error;
+
+	/**
+	 * Build (B)SCC computer for a given model.
+	 * The number of threads used is taken from the settings ({@link PrismSettings#PRISM_NUM_THREADS}).
+	 */
+	public SCCComputerForwardBackward(PrismComponent parent, Model model, SCCConsumer consumer) throws PrismException
+	{
+		super(parent, consumer);
+		this.model = model;
+		this.numNodes = model.getNumStates();
+		numThreads = (settings == null) ? 1 : Math.max(1, settings.getInteger(PrismSettings.PRISM_NUM_THREADS));
+	}
+
+	// Methods for SCCComputer interface
+
+	@Override
+	public void computeSCCs(boolean filterTrivialSCCs, IntPredicate restrict) throws PrismException
+	{
+		consumer.notifyStart(model);
+		buildGraph(restrict);
+		sccIndex = new int[numNodes];
+		Arrays.fill(sccIndex, -1);
+		numSCCs = new AtomicInteger(0);
+		colour = new int[numNodes];
+		nextColour = new AtomicInteger(1);
+		int remaining[] = trim();
+		forwardBackward(remaining);
+		notifySCCs(filterTrivialSCCs);
+		consumer.notifyDone();
+	}
+
+	// SCC Computation
+
+	/**
+	 * Store the (relevant part of the) graph of the model in CSR form, in both directions.
+	 */
+	private void buildGraph(IntPredicate restrict)
+	{
+		relevant = new BitSet();
+		selfloop = new BitSet();
+		for (int s = 0; s < numNodes; s++) {
+			if (restrict == null || restrict.test(s)) {
+				relevant.set(s);
+			}
+		}
+		succStart = new int[numNodes + 1];
+		int predCount[] = new int[numNodes + 1];
+		int list[] = new int[16];
+		int numEdges = 0;
+		for (int s = 0; s < numNodes; s++) {
+			succStart[s] = numEdges;
+			if (!relevant.get(s)) {
+				continue;
+			}
+			PrimitiveIterator.OfInt it = model.getSuccessors(s).distinct();
+			while (it.hasNext()) {
+				int t = it.nextInt();
+				if (t == s) {
+					selfloop.set(s);
+				} else if (relevant.get(t)) {
+					if (numEdges == list.length) {
+						list = Arrays.copyOf(list, 2 * list.length);
+					}
+					list[numEdges++] = t;
+					predCount[t + 1]++;
+				}
+			}
+		}
+		succStart[numNodes] = numEdges;
+		succ = Arrays.copyOf(list, numEdges);
+		// Predecessors (by counting sort)
+		for (int s = 0; s < numNodes; s++) {
+			predCount[s + 1] += predCount[s];
+		}
+		predStart = predCount;
+		pred = new int[numEdges];
+		int pos[] = Arrays.copyOf(predStart, numNodes);
+		for (int s = 0; s < numNodes; s++) {
+			for (int j = succStart[s]; j < succStart[s + 1]; j++) {
+				pred[pos[succ[j]]++] = s;
+			}
+		}
+	}
+
+	/**
+	 * Repeatedly remove relevant nodes with no (remaining) predecessors or successors,
+	 * each of which is a singleton SCC. Returns the nodes that remain.
+	 */
+	private int[] trim()
+	{
+		int inDeg[] = new int[numNodes];
+		int outDeg[] = new int[numNodes];
+		int queue[] = new int[numNodes];
+		int head = 0, tail = 0;
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			inDeg[s] = predStart[s + 1] - predStart[s];
+			outDeg[s] = succStart[s + 1] - succStart[s];
+			if (inDeg[s] == 0 || outDeg[s] == 0) {
+				queue[tail++] = s;
+				sccIndex[s] = numSCCs.getAndIncrement();
+			}
+		}
+		while (head < tail) {
+			int s = queue[head++];
+			for (int j = succStart[s]; j < succStart[s + 1]; j++) {
+				int t = succ[j];
+				if (sccIndex[t] == -1 && --inDeg[t] == 0) {
+					queue[tail++] = t;
+					sccIndex[t] = numSCCs.getAndIncrement();
+				}
+			}
+			for (int j = predStart[s]; j < predStart[s + 1]; j++) {
+				int t = pred[j];
+				if (sccIndex[t] == -1 && --outDeg[t] == 0) {
+					queue[tail++] = t;
+					sccIndex[t] = numSCCs.getAndIncrement();
+				}
+			}
+		}
+		int remaining[] = new int[relevant.cardinality() - tail];
+		int n = 0;
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			if (sccIndex[s] == -1) {
+				remaining[n++] = s;
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Find the SCCs of the given nodes (all of colour 0), using the forward-backward algorithm.
+	 */
+	private void forwardBackward(int nodes[]) throws PrismException
+	{
+		if (nodes.length == 0) {
+			return;
+		}
+		numPending = new AtomicInteger(1);
+		done = new CountDownLatch(1);
+		try {
+			ParallelIteration.getPool(numThreads).execute(new FBTask(nodes, 0));
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PrismException("SCC computation interrupted");
+		}
+		if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			PrismException e = new PrismException("Error during SCC computation: " + error.getMessage());
+			e.initCause(error);
+			throw e;
+		}
+	}
+
+	/**
+	 * A set of nodes (all of the same colour) that is a union of SCCs, still to be decomposed.
+	 * New tasks are forked (but not joined), so the recursion is not on the Java stack;
+	 * completion is detected by counting pending tasks.
+	 */
+	@SuppressWarnings("serial")
+	private class FBTask extends RecursiveAction
+	{
+		private int nodes[];
+		private int c;
+
+		FBTask(int nodes[], int c)
+		{
+			this.nodes = nodes;
+			this.c = c;
+		}
+
+		@Override
+		protected void compute()
+		{
+			try {
+				decompose();
+			} catch (Throwable e) {
+				error = e;
+			} finally {
+				if (numPending.decrementAndGet() == 0) {
+					done.countDown();
+				}
+			}
+		}
+
+		private void decompose()
+		{
+			int n = nodes.length;
+			// Random pivot (avoids quadratic behaviour on long chains of SCCs)
+			int pivot = nodes[ThreadLocalRandom.current().nextInt(n)];
+			int cF = nextColour.getAndIncrement();
+			int cB = nextColour.getAndIncrement();
+			int cS = nextColour.getAndIncrement();
+			int queue[] = new int[n];
+			// Forward: recolour c -> cF
+			int head = 0, tail = 0;
+			colour[pivot] = cF;
+			queue[tail++] = pivot;
+			while (head < tail) {
+				int s = queue[head++];
+				for (int j = succStart[s]; j < succStart[s + 1]; j++) {
+					int t = succ[j];
+					if (sccIndex[t] == -1 && colour[t] == c) {
+						colour[t] = cF;
+						queue[tail++] = t;
+					}
+				}
+			}
+			// Backward: recolour cF -> cS (the SCC), c -> cB
+			head = tail = 0;
+			colour[pivot] = cS;
+			queue[tail++] = pivot;
+			while (head < tail) {
+				int s = queue[head++];
+				for (int j = predStart[s]; j < predStart[s + 1]; j++) {
+					int t = pred[j];
+					if (sccIndex[t] != -1) {
+						continue;
+					}
+					if (colour[t] == cF) {
+						colour[t] = cS;
+						queue[tail++] = t;
+					} else if (colour[t] == c) {
+						colour[t] = cB;
+						queue[tail++] = t;
+					}
+				}
+			}
+			// Split nodes into the SCC and the three remaining sets
+			int scc = numSCCs.getAndIncrement();
+			int numF = 0, numB = 0, numRest = 0;
+			for (int s : nodes) {
+				if (colour[s] == cF) {
+					numF++;
+				} else if (colour[s] == cB) {
+					numB++;
+				} else if (colour[s] == c) {
+					numRest++;
+				}
+			}
+			int nodesF[] = new int[numF];
+			int nodesB[] = new int[numB];
+			int nodesRest[] = new int[numRest];
+			numF = numB = numRest = 0;
+			for (int s : nodes) {
+				if (colour[s] == cS) {
+					sccIndex[s] = scc;
+				} else if (colour[s] == cF) {
+					nodesF[numF++] = s;
+				} else if (colour[s] == cB) {
+					nodesB[numB++] = s;
+				} else {
+					nodesRest[numRest++] = s;
+				}
+			}
+			if (numF > 0) {
+				fork(nodesF, cF);
+			}
+			if (numB > 0) {
+				fork(nodesB, cB);
+			}
+			if (numRest > 0) {
+				fork(nodesRest, c);
+			}
+		}
+
+		private void fork(int nodes[], int c)
+		{
+			numPending.incrementAndGet();
+			new FBTask(nodes, c).fork();
+		}
+	}
+
+	/**
+	 * Notify the consumer of the SCCs, each after all the SCCs reachable from it
+	 * (states within an SCC are in ascending order).
+	 */
+	private void notifySCCs(boolean filterTrivialSCCs) throws PrismException
+	{
+		int num = numSCCs.get();
+		// Renumber SCCs in order of their lowest state, so that the result is deterministic
+		int renumber[] = new int[num];
+		Arrays.fill(renumber, -1);
+		int next = 0;
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			if (renumber[sccIndex[s]] == -1) {
+				renumber[sccIndex[s]] = next++;
+			}
+			sccIndex[s] = renumber[sccIndex[s]];
+		}
+		// Group states by SCC
+		int sccStart[] = new int[num + 1];
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			sccStart[sccIndex[s] + 1]++;
+		}
+		for (int i = 0; i < num; i++) {
+			sccStart[i + 1] += sccStart[i];
+		}
+		int sccStates[] = new int[sccStart[num]];
+		int pos[] = Arrays.copyOf(sccStart, num);
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			sccStates[pos[sccIndex[s]]++] = s;
+		}
+		// Count edges leaving each SCC
+		int outCount[] = new int[num];
+		for (int s = relevant.nextSetBit(0); s >= 0; s = relevant.nextSetBit(s + 1)) {
+			for (int j = succStart[s]; j < succStart[s + 1]; j++) {
+				if (sccIndex[succ[j]] != sccIndex[s]) {
+					outCount[sccIndex[s]]++;
+				}
+			}
+		}
+		// Process SCCs in reverse topological order, starting with bottom SCCs
+		int queue[] = new int[num];
+		int head = 0, tail = 0;
+		for (int i = 0; i < num; i++) {
+			if (outCount[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		while (head < tail) {
+			int scc = queue[head++];
+			int first = sccStart[scc], last = sccStart[scc + 1];
+			if (!(filterTrivialSCCs && last - first == 1 && !selfloop.get(sccStates[first]))) {
+				consumer.notifyStartSCC();
+				for (int k = first; k < last; k++) {
+					consumer.notifyStateInSCC(sccStates[k]);
+				}
+				consumer.notifyEndSCC();
+			}
+			for (int k = first; k < last; k++) {
+				int s = sccStates[k];
+				for (int j = predStart[s]; j < predStart[s + 1]; j++) {
+					int p = sccIndex[pred[j]];
+					if (p != scc && --outCount[p] == 0) {
+						queue[tail++] = p;
+					}
+				}
+			}
+		}
+	}
+}
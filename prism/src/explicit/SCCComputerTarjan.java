@@ -27,10 +27,8 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.function.IntPredicate;
 
 import prism.PrismComponent;
@@ -38,6 +36,9 @@ import prism.PrismException;
 
 /**
  * Tarjan's SCC algorithm operating on a Model object.
+ * <br>
+ * The depth-first search is iterative (with an explicit stack), rather than recursive,
+ * so that long paths in the model do not overflow the Java stack.
  */
 public class SCCComputerTarjan extends SCCComputer
 {
@@ -48,12 +49,21 @@ public class SCCComputerTarjan extends SCCComputer
 
 	/* Next index to give to a node */
 	private int index = 0;
-	/* Stack of nodes */
-	private List<Integer> stack = new LinkedList<Integer>();
-	/* List of nodes in the graph. Invariant: {@code nodeList.get(i).id == i} */
-	private ArrayList<Node> nodeList;
+	/* Index of each node (-1 if not yet visited) */
+	private int nodeIndex[];
+	/* Lowlink of each node */
+	private int nodeLowlink[];
+	/* Stack of nodes (top at position stackSize - 1) */
+	private int stack[];
+	private int stackSize = 0;
 	/* Nodes currently on the stack. */
 	private BitSet onStack;
+	/* Nodes with a self-loop (among those visited) */
+	private BitSet hadSelfloop;
+	/* Depth-first search stack: nodes and the iterators over their remaining successors */
+	private int dfsNodes[];
+	private SuccessorsIterator dfsIterators[];
+	private int dfsSize = 0;
 	/** Should we filter trivial SCCs? */
 	private boolean filterTrivialSCCs;
 	private IntPredicate restrict;
@@ -66,11 +76,14 @@ public class SCCComputerTarjan extends SCCComputer
 		super(parent, consumer);
 		this.model = model;
 		this.numNodes = model.getNumStates();
-		this.nodeList = new ArrayList<Node>(numNodes);
-		for (int i = 0; i < numNodes; i++) {
-			nodeList.add(new Node(i));
-		}
+		nodeIndex = new int[numNodes];
+		Arrays.fill(nodeIndex, -1);
+		nodeLowlink = new int[numNodes];
+		stack = new int[numNodes];
 		onStack = new BitSet();
+		hadSelfloop = new BitSet();
+		dfsNodes = new int[16];
+		dfsIterators = new SuccessorsIterator[16];
 	}
 
 	// Methods for SCCComputer interface
@@ -96,78 +109,102 @@ public class SCCComputerTarjan extends SCCComputer
 		for (int i = 0; i < numNodes; i++) {
 			if (restrict != null && !restrict.test(i))
 				continue; // skip state if not one of the relevant states
-			if (nodeList.get(i).lowlink == -1)
+			if (nodeIndex[i] == -1)
 				tarjan(i);
 		}
 
 	}
 
+	/**
+	 * Run the depth-first search of Tarjan's algorithm from node {@code i}.
+	 */
 	private void tarjan(int i) throws PrismException
 	{
-		final Node v = nodeList.get(i);
-		v.index = index;
-		v.lowlink = index;
-		index++;
-		stack.add(0, i);
-		onStack.set(i);
+		visit(i);
+		while (dfsSize > 0) {
+			int v = dfsNodes[dfsSize - 1];
+			SuccessorsIterator it = dfsIterators[dfsSize - 1];
+			boolean descended = false;
+			while (it.hasNext()) {
+				int e = it.nextInt();
+
+				if (e == v) {
+					hadSelfloop.set(v);
+					continue;
+				}
 
-		boolean hadSelfloop = false;
-		SuccessorsIterator it = model.getSuccessors(i);
-		while (it.hasNext()) {
-			int e = it.nextInt();
+				if (restrict != null && !restrict.test(e)) {
+					continue; // ignore edge to state that is not relevant
+				}
 
-			if (e == i) {
-				hadSelfloop = true;
+				if (nodeIndex[e] == -1) {
+					// Descend to e (and continue with v's remaining successors later)
+					visit(e);
+					descended = true;
+					break;
+				} else if (onStack.get(e)) {
+					nodeLowlink[v] = Math.min(nodeLowlink[v], nodeIndex[e]);
+				}
+			}
+			if (descended) {
 				continue;
 			}
-
-			if (restrict != null && !restrict.test(e)) {
-				continue; // ignore edge to state that is not relevant
+			// All successors of v done
+			dfsIterators[--dfsSize] = null;
+			if (nodeLowlink[v] == nodeIndex[v]) {
+				foundSCC(v);
 			}
-
-			Node n = nodeList.get(e);
-			if (n.index == -1) {
-				tarjan(e);
-				v.lowlink = Math.min(v.lowlink, n.lowlink);
-			} else if (onStack.get(e)) {
-				v.lowlink = Math.min(v.lowlink, n.index);
+			// Propagate lowlink to parent
+			if (dfsSize > 0) {
+				int u = dfsNodes[dfsSize - 1];
+				nodeLowlink[u] = Math.min(nodeLowlink[u], nodeLowlink[v]);
 			}
 		}
-		if (v.lowlink == v.index) {
-			// this is a singleton SCC if the top of the stack equals i
-			boolean singletonSCC = (stack.get(0) == i);
-			if (singletonSCC && filterTrivialSCCs) {
-				if (!hadSelfloop) { // singleton SCC & no selfloop -> trivial
-					stack.remove(0);
-					onStack.set(i, false);
-					return;
-				}
-			}
+	}
 
-			int n;
-			consumer.notifyStartSCC();
-			do {
-				n = stack.remove(0);
-				onStack.set(n, false);
-				consumer.notifyStateInSCC(n);
-			} while (n != i);
-			consumer.notifyEndSCC();
+	/**
+	 * Start the visit of node {@code i}: assign its index and push it onto both stacks.
+	 */
+	private void visit(int i)
+	{
+		nodeIndex[i] = index;
+		nodeLowlink[i] = index;
+		index++;
+		stack[stackSize++] = i;
+		onStack.set(i);
+		if (dfsSize == dfsNodes.length) {
+			int newLength = Math.min(numNodes, 2 * dfsNodes.length);
+			dfsNodes = Arrays.copyOf(dfsNodes, newLength);
+			dfsIterators = Arrays.copyOf(dfsIterators, newLength);
 		}
+		dfsNodes[dfsSize] = i;
+		dfsIterators[dfsSize] = model.getSuccessors(i);
+		dfsSize++;
 	}
 
 	/**
-	 * A small class wrapping a node.
-	 * It carries extra information necessary for Tarjan's algorithm.
+	 * Pop the SCC with root {@code i} from the stack and notify the consumer
+	 * (unless it is trivial and these are being filtered).
 	 */
-	protected static class Node
+	private void foundSCC(int i) throws PrismException
 	{
-		public int lowlink = -1;
-		public int index = -1;
-		public int id;
-
-		public Node(int id)
-		{
-			this.id = id;
+		// this is a singleton SCC if the top of the stack equals i
+		boolean singletonSCC = (stack[stackSize - 1] == i);
+		if (singletonSCC && filterTrivialSCCs) {
+			if (!hadSelfloop.get(i)) { // singleton SCC & no selfloop -> trivial
+				stackSize--;
+				onStack.set(i, false);
+				return;
+			}
 		}
+
+		int n;
+		consumer.notifyStartSCC();
+		do {
+			n = stack[--stackSize];
+			onStack.set(n, false);
+			consumer.notifyStateInSCC(n);
+		} while (n != i);
+		consumer.notifyEndSCC();
 	}
 }
@@ -0,0 +1,354 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+import prism.PrismException;
+
+/**
+ * Multi-threaded processing of the SCCs of a model in (reverse) topological order,
+ * e.g., for topological value iteration.
+ * <br>
+ * The SCCs form a DAG, and each SCC is dispatched to a pool of worker threads
+ * as soon as all of its successor SCCs have been processed ("dataflow" scheduling),
+ * so that independent SCCs are processed concurrently.
+ * Singleton SCCs, which are cheap to process, are handled in chunks:
+ * a task continues with the singleton SCCs that become ready while it runs,
+ * up to {@link #SINGLETON_CHUNK_SIZE} of them, rather than creating a task for each one.
+ */
+public class SCCScheduler
+{
+	/** Maximum number of singleton SCCs processed in a single task */
+	public static final int SINGLETON_CHUNK_SIZE = 256;
+
+	/**
+	 * Functional interface for the processing of a single SCC.
+	 */
+	@FunctionalInterface
+	public interface SCCProcessor
+	{
+		/**
+		 * Process SCC {@code scc}, all of whose successor SCCs have already been processed.
+		 * This may be called concurrently for different SCCs.
+		 * Returns false if processing should stop (i.e., no further SCCs are started).
+		 */
+		public boolean process(int scc) throws PrismException;
+	}
+
+	/* The SCCs */
+	private SCCInfo sccs;
+	/* Number of SCCs */
+	private int numSCCs;
+	/* Number of threads */
+	private int numThreads;
+
+	/* SCCs with a transition into each SCC, in CSR form */
+	private int predStart[];
+	private int pred[];
+	/* For each SCC, the number of distinct successor SCCs */
+	private int numSucc[];
+
+	/* The processor for SCCs */
+	private SCCProcessor processor;
+	/* For each SCC, the number of successor SCCs not yet processed */
+	private AtomicIntegerArray numWaiting;
+	/* Number of SCCs processed */
+	private AtomicInteger numFinished;
+	/* Number of tasks not yet completed, and signal for when this reaches 0 */
+	private AtomicInteger numPending;
+	private CountDownLatch done;
+	/* Set once processing should stop */
+	private volatile boolean stop;
+	/* First error (if any) occurring in a worker thread */
+	private volatile Throwable error;
+
+	/**
+	 * Create a scheduler for the SCCs of a model.
+	 * Dependencies between SCCs are given by the transitions of the model;
+	 * states that are not in any SCC of {@code sccs} are ignored.
+	 * @param sccs The SCCs, in reverse topological order (see {@link SCCComputer#computeTopologicalOrdering})
+	 * @param model The model
+	 * @param numThreads The number of threads to use
+	 */
+	public SCCScheduler(SCCInfo sccs, Model model, int numThreads)
+	{
+		this.sccs = sccs;
+		this.numSCCs = sccs.getNumSCCs();
+		this.numThreads = numThreads;
+		buildDependencies(model);
+	}
+
+	/**
+	 * Compute the distinct successor SCCs of each SCC,
+	 * stored as the number of successors and the lists of predecessors.
+	 */
+	private void buildDependencies(Model model)
+	{
+		numSucc = new int[numSCCs];
+		predStart = new int[numSCCs + 1];
+		// lastSeen[d] = last SCC found with a transition into d (to remove duplicates)
+		int lastSeen[] = new int[numSCCs];
+		// First pass: count
+		Arrays.fill(lastSeen, -1);
+		for (int scc = 0; scc < numSCCs; scc++) {
+			PrimitiveIterator.OfInt it = sccs.getStatesForSCC(scc).iterator();
+			while (it.hasNext()) {
+				SuccessorsIterator succs = model.getSuccessors(it.nextInt());
+				while (succs.hasNext()) {
+					int d = sccs.getSCCIndex(succs.nextInt());
+					if (d != -1 && d != scc && lastSeen[d] != scc) {
+						lastSeen[d] = scc;
+						numSucc[scc]++;
+						predStart[d + 1]++;
+					}
+				}
+			}
+		}
+		for (int scc = 0; scc < numSCCs; scc++) {
+			predStart[scc + 1] += predStart[scc];
+		}
+		// Second pass: store
+		pred = new int[predStart[numSCCs]];
+		int next[] = Arrays.copyOf(predStart, numSCCs);
+		Arrays.fill(lastSeen, -1);
+		for (int scc = 0; scc < numSCCs; scc++) {
+			PrimitiveIterator.OfInt it = sccs.getStatesForSCC(scc).iterator();
+			while (it.hasNext()) {
+				SuccessorsIterator succs = model.getSuccessors(it.nextInt());
+				while (succs.hasNext()) {
+					int d = sccs.getSCCIndex(succs.nextInt());
+					if (d != -1 && d != scc && lastSeen[d] != scc) {
+						lastSeen[d] = scc;
+						pred[next[d]++] = scc;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process all SCCs, each one once all of its successor SCCs have been processed.
+	 * Returns true if all SCCs were processed, or false if processing was stopped
+	 * because {@link SCCProcessor#process(int)} returned false for some SCC.
+	 * @param processor The processor for SCCs
+	 * @param updateDelay Delay (in milliseconds) between calls to {@code progress}
+	 * @param progress Called periodically with the number of SCCs processed so far (optional, ignored if null)
+	 */
+	public boolean run(SCCProcessor processor, long updateDelay, IntConsumer progress) throws PrismException
+	{
+		this.processor = processor;
+		numWaiting = new AtomicIntegerArray(numSucc);
+		numFinished = new AtomicInteger(0);
+		stop = false;
+		error = null;
+		// Collect the SCCs which are ready initially (no successor SCCs)
+		int initial[] = new int[numSCCs];
+		int numInitial = 0;
+		for (int scc = 0; scc < numSCCs; scc++) {
+			if (numSucc[scc] == 0) {
+				initial[numInitial++] = scc;
+			}
+		}
+		if (numInitial == 0) {
+			return true;
+		}
+		numPending = new AtomicInteger(1);
+		done = new CountDownLatch(1);
+		try {
+			// Start from a task that dispatches all the initially ready SCCs
+			ParallelIteration.getPool(numThreads).execute(new SCCTask(Arrays.copyOf(initial, numInitial), false));
+			while (!done.await(updateDelay, TimeUnit.MILLISECONDS)) {
+				if (progress != null) {
+					progress.accept(numFinished.get());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new PrismException("SCC processing interrupted");
+		}
+		if (error instanceof PrismException) {
+			throw (PrismException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			PrismException e = new PrismException("Error during SCC processing: " + error.getMessage());
+			e.initCause(error);
+			throw e;
+		}
+		return numFinished.get() == numSCCs;
+	}
+
+	/**
+	 * Get the number of SCCs processed (so far).
+	 */
+	public int getNumFinished()
+	{
+		return numFinished == null ? 0 : numFinished.get();
+	}
+
+	/**
+	 * A task processing some SCCs that are ready, along with
+	 * (up to a limit) any singleton SCCs that become ready as a result.
+	 * Other SCCs that become ready are dispatched as new tasks, which are forked
+	 * (but not joined); completion is detected by counting pending tasks.
+	 */
+	@SuppressWarnings("serial")
+	private class SCCTask extends RecursiveAction
+	{
+		/* Stack of SCCs to be processed by this task */
+		private int stack[];
+		private int stackSize;
+		/* Process the SCCs initially on the stack (or just dispatch them)? */
+		private boolean process;
+		/* Number of singleton SCCs this task may still take on */
+		private int budget = SINGLETON_CHUNK_SIZE;
+		/* Ready singleton SCCs beyond the budget, to be dispatched as a new task */
+		private int spill[];
+		private int spillSize;
+
+		SCCTask(int sccList[], boolean process)
+		{
+			this.stack = sccList;
+			this.stackSize = sccList.length;
+			this.process = process;
+		}
+
+		@Override
+		protected void compute()
+		{
+			try {
+				if (process) {
+					processAll();
+				} else {
+					dispatchAll();
+				}
+			} catch (Throwable e) {
+				error = e;
+				stop = true;
+			} finally {
+				if (numPending.decrementAndGet() == 0) {
+					done.countDown();
+				}
+			}
+		}
+
+		/**
+		 * Dispatch the SCCs on the stack: non-singletons as a task each, singletons in chunks.
+		 */
+		private void dispatchAll()
+		{
+			for (int i = 0; i < stackSize; i++) {
+				dispatch(stack[i]);
+			}
+			flushSpill();
+		}
+
+		/**
+		 * Process the SCCs on the stack, and those that become ready (within the budget).
+		 */
+		private void processAll() throws PrismException
+		{
+			budget -= stackSize;
+			while (stackSize > 0 && !stop) {
+				int scc = stack[--stackSize];
+				if (!processor.process(scc)) {
+					stop = true;
+					return;
+				}
+				numFinished.incrementAndGet();
+				// Notify SCCs that depend on this one
+				for (int j = predStart[scc]; j < predStart[scc + 1]; j++) {
+					int p = pred[j];
+					if (numWaiting.decrementAndGet(p) == 0) {
+						if (budget > 0 && sccs.isSingletonSCC(p)) {
+							budget--;
+							push(p);
+						} else {
+							dispatch(p);
+						}
+					}
+				}
+			}
+			flushSpill();
+		}
+
+		/**
+		 * Push an SCC onto this task's stack.
+		 */
+		private void push(int scc)
+		{
+			if (stackSize == stack.length) {
+				stack = Arrays.copyOf(stack, Math.max(16, 2 * stack.length));
+			}
+			stack[stackSize++] = scc;
+		}
+
+		/**
+		 * Dispatch a ready SCC to another task.
+		 */
+		private void dispatch(int scc)
+		{
+			if (sccs.isSingletonSCC(scc)) {
+				if (spill == null) {
+					spill = new int[SINGLETON_CHUNK_SIZE];
+				}
+				spill[spillSize++] = scc;
+				if (spillSize == SINGLETON_CHUNK_SIZE) {
+					flushSpill();
+				}
+			} else {
+				fork(new int[] { scc });
+			}
+		}
+
+		/**
+		 * Dispatch any spilled singleton SCCs as a new task.
+		 */
+		private void flushSpill()
+		{
+			if (spillSize > 0) {
+				fork(Arrays.copyOf(spill, spillSize));
+				spillSize = 0;
+			}
+		}
+
+		private void fork(int sccList[])
+		{
+			if (stop) {
+				return;
+			}
+			numPending.incrementAndGet();
+			new SCCTask(sccList, true).fork();
+		}
+	}
+}
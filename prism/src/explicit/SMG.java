@@ -31,6 +31,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -124,6 +125,31 @@ public class SMG extends STPGExplicit implements STPG
 		coalitionPlayerMap = smg.coalitionPlayerMap == null ? null : smg.coalitionPlayerMap.clone(); 
 	}
 
+	/**
+	 * Construct an SMG from an SMGSparse.
+	 * Player and coalition info is also copied across.
+	 */
+	public SMG(SMGSparse smg)
+	{
+		super(smg.getNumStates());
+		copyFrom(smg);
+		for (int s = 0; s < numStates; s++) {
+			stateOwners.add(smg.stateOwners[s]);
+			int numChoices = smg.getNumChoices(s);
+			for (int i = 0; i < numChoices; i++) {
+				Distribution distr = new Distribution();
+				Iterator<Entry<Integer, Double>> iter = smg.getTransitionsIterator(s, i);
+				while (iter.hasNext()) {
+					Entry<Integer, Double> e = iter.next();
+					distr.add(e.getKey(), e.getValue());
+				}
+				addActionLabelledChoice(s, distr, smg.getAction(s, i));
+			}
+		}
+		playerNames = new HashMap<Integer, String>(smg.playerNames);
+		coalitionPlayerMap = smg.coalitionPlayerMap == null ? null : smg.coalitionPlayerMap.clone();
+	}
+
 	/**
 	 * Remove state by disabling all accessing transitions.
 	 * 
@@ -226,6 +252,14 @@ public class SMG extends STPGExplicit implements STPG
 		setPlayerInfo(smg.playerNames);
 	}
 
+	/**
+	 * Copy player info from an SMGSparse.
+	 */
+	public void copyPlayerInfo(SMGSparse smg)
+	{
+		setPlayerInfo(smg.playerNames);
+	}
+
 	/**
 	 * Set a coalition of players for this SMG
 	 * (which effectively makes it an STPG with player 1 representing the coalition and 2 the rest).
@@ -279,6 +313,14 @@ public class SMG extends STPGExplicit implements STPG
 		coalitionPlayerMap = smg.coalitionPlayerMap == null ? null : smg.coalitionPlayerMap.clone();
 	}
 
+	/**
+	 * Copy coalition info from an SMGSparse.
+	 */
+	public void copyCoalitionInfo(SMGSparse smg)
+	{
+		coalitionPlayerMap = smg.coalitionPlayerMap == null ? null : smg.coalitionPlayerMap.clone();
+	}
+
 	/**
 	 * Makes a half-deep (up to one reference level) copy of itself
 	 */
@@ -354,13 +396,38 @@ public class SMG extends STPGExplicit implements STPG
 					List<Pareto>[] stochasticStates, boolean rounding,
 					boolean union_with_previous, boolean cut, long M)
 	    throws PrismException
+	{
+		return pMultiObjective(Xk, rewards, gaussSeidel, baseline_accuracy, biggest_reward, stochasticStates, rounding, union_with_previous, cut, M, null, null);
+	}
+
+	/**
+	 * take X^k and apply F(X^k)(s) for each state, as for {@link #pMultiObjective(Pareto[], List, boolean, long, double[], List[], boolean, boolean, boolean, long)},
+	 * but only for the states in {@code todo} (if non-null), i.e., those for which the Pareto set of a successor (or of the state itself)
+	 * may have changed since it was last computed. For the other states, the Pareto set is unchanged
+	 * (and {@code stochasticStates} is not updated, i.e., should contain the sets from the previous call).
+	 * On return, {@code todo} contains the states to be recomputed in the next iteration,
+	 * i.e., the states whose Pareto set changed and their predecessors (according to {@code pre}).
+	 *
+	 * @param todo States to recompute (null means "all"); updated to those to recompute in the next iteration
+	 * @param pre Predecessor relation (needed if {@code todo} is non-null)
+	 */
+	public Pareto[] pMultiObjective(Pareto[] Xk, List<SMGRewards> rewards, boolean gaussSeidel,
+					long baseline_accuracy, double[] biggest_reward,
+					List<Pareto>[] stochasticStates, boolean rounding,
+					boolean union_with_previous, boolean cut, long M, BitSet todo, PredecessorRelation pre)
+	    throws PrismException
 	{
 		Pareto[] result = new Pareto[Xk.length];
 		Pareto[] Yk = gaussSeidel ? null : new Pareto[Xk.length]; // if Gauss-Seidel, no memory allocation required
 		System.arraycopy(Xk, 0, gaussSeidel ? result : Yk, 0, Xk.length); // if Gauss-Seidel, update result in-place
+		BitSet next = todo == null ? null : new BitSet(numStates);
 		// iterate for each state separately
 		for (int s = 0; s < numStates; s++) {
-			// first, check if cancelled
+			if (todo != null && !todo.get(s)) {
+				// unchanged (but take a copy, since the result may be modified by the caller)
+				result[s] = new Pareto(new C_Polyhedron((C_Polyhedron) Xk[s].get()));
+				continue;
+			}
 			// initialize the polyhedra for the stochastic states of s
 			List<Pareto> distPolys = new ArrayList<Pareto>(trans.get(s).size());
 			// apply F to (X^k)(s)
@@ -371,22 +438,117 @@ public class SMG extends STPGExplicit implements STPG
 			// store stochastic states if requested (by the reference being non-null)
 			if (stochasticStates != null)
 				stochasticStates[s] = distPolys;
+			// if changed, schedule recomputation of the predecessors
+			if (todo != null && !result[s].get().equals(Xk[s].get()))
+				markChanged(s, pre, gaussSeidel ? todo : next, next);
+		}
+		if (todo != null) {
+			todo.clear();
+			todo.or(next);
 		}
 
 		// return X^{k+1}
 		return result;
 	}
 
-    private Polyhedron round(Generator_System ngs, long baseline_accuracy, double[] biggest_reward, boolean energy_objective) throws PrismException
+	/**
+	 * take X^k and apply F(X^k)(s) for each state, as for {@link #pMultiObjective(Pareto[], List, boolean, long, double[], List[], boolean, boolean, boolean, long)},
+	 * but with the Pareto sets represented as point sets (see {@link ParetoPointSet}) rather than PPL polyhedra.
+	 * If not Gauss-Seidel, states are updated independently, and so this is done in parallel if {@code parallel} is non-null.
+	 * As for {@link #pMultiObjective(Pareto[], List, boolean, long, double[], List[], boolean, boolean, boolean, long, BitSet, PredecessorRelation)},
+	 * only the states in {@code todo} are recomputed, if it is non-null.
+	 */
+	public ParetoPointSet[] pMultiObjective(ParetoPointSet[] Xk, List<SMGRewards> rewards, boolean gaussSeidel,
+					long baseline_accuracy, double[] biggest_reward,
+					List<ParetoPointSet>[] stochasticStates, boolean rounding,
+					boolean union_with_previous, boolean cut, long M, ParallelIteration parallel, BitSet todo, PredecessorRelation pre)
+	    throws PrismException
+	{
+		ParetoPointSet[] result = new ParetoPointSet[Xk.length];
+		ParetoPointSet[] Yk = gaussSeidel ? null : new ParetoPointSet[Xk.length]; // if Gauss-Seidel, no memory allocation required
+		System.arraycopy(Xk, 0, gaussSeidel ? result : Yk, 0, Xk.length); // if Gauss-Seidel, update result in-place
+		BitSet next = todo == null ? null : new BitSet(numStates);
+		boolean[] changed = todo == null || gaussSeidel ? null : new boolean[numStates];
+		// iterate for each state separately
+		ParallelIteration.StateOperation op = s -> {
+			if (todo != null && !todo.get(s)) {
+				// unchanged (sets are immutable, so no need to copy)
+				result[s] = Xk[s];
+				return;
+			}
+			// initialize the sets for the stochastic states of s
+			List<ParetoPointSet> distPolys = new ArrayList<ParetoPointSet>(trans.get(s).size());
+			// apply F to (X^k)(s)
+			result[s] = pMultiObjectiveSingle(s, gaussSeidel ? result : Yk, rewards, baseline_accuracy, biggest_reward, distPolys, rounding,
+							  union_with_previous, cut, M);
+			// store stochastic states if requested (by the reference being non-null)
+			if (stochasticStates != null)
+				stochasticStates[s] = distPolys;
+			// if changed, schedule recomputation of the predecessors
+			// (for Jacobi, this is done afterwards, since states may be processed in parallel)
+			// (exact comparison, since changes within the tolerance may still add up over the iterations)
+			if (todo != null && !result[s].isIdenticalTo(Xk[s])) {
+				if (gaussSeidel)
+					markChanged(s, pre, todo, next);
+				else
+					changed[s] = true;
+			}
+		};
+		if (parallel != null && !gaussSeidel) {
+			// each thread only writes the entries of result, stochasticStates and changed for its own states
+			parallel.forEachState(numStates, op);
+		} else {
+			for (int s = 0; s < numStates; s++)
+				op.apply(s);
+		}
+		if (todo != null) {
+			if (!gaussSeidel) {
+				for (int s = 0; s < numStates; s++)
+					if (changed[s])
+						markChanged(s, pre, next, next);
+			}
+			todo.clear();
+			todo.or(next);
+		}
+
+		// return X^{k+1}
+		return result;
+	}
+
+	/**
+	 * The Pareto set of state {@code s} has changed, so mark it and its predecessors for recomputation:
+	 * those after {@code s} in {@code current} (i.e., still in this iteration, if Gauss-Seidel), and the others in {@code next}.
+	 */
+	private void markChanged(int s, PredecessorRelation pre, BitSet current, BitSet next)
+	{
+		// the state itself (in case of deadlocks, or union with the previous result)
+		next.set(s);
+		for (int i = pre.getPreStart(s), end = pre.getPreEnd(s); i < end; i++) {
+			int p = pre.getPreState(i);
+			(p > s ? current : next).set(p);
+		}
+	}
+
+	/**
+	 * accuracy (denominators) in each dimension for rounding
+	 */
+	private long[] roundingAccuracy(long baseline_accuracy, double[] biggest_reward, boolean energy_objective)
 	{
 		int n = biggest_reward.length;
-		// accuracy
 		long[] accuracy = new long[n];
 		for (int i = 0; i < n; i++) {
 		        long tmp_a = energy_objective ? baseline_accuracy : ((long) (((double) baseline_accuracy) / biggest_reward[i]));
 			// sanity check to prevent overflow
 			accuracy[i] = tmp_a < Long.MAX_VALUE && tmp_a > 0 ? tmp_a : Long.MAX_VALUE;
 		}
+		return accuracy;
+	}
+
+    private Polyhedron round(Generator_System ngs, long baseline_accuracy, double[] biggest_reward, boolean energy_objective) throws PrismException
+	{
+		int n = biggest_reward.length;
+		// accuracy
+		long[] accuracy = roundingAccuracy(baseline_accuracy, biggest_reward, energy_objective);
 
 		Generator_System new_ngs = new Generator_System();
 		for (Generator ng : ngs) {
@@ -430,6 +592,38 @@ public class SMG extends STPGExplicit implements STPG
 		return result;
 	}
 
+	/**
+	 * round the vertices of a point set down, as for {@link #round(Generator_System, long, double[], boolean)}
+	 */
+	private ParetoPointSet round(ParetoPointSet X, long baseline_accuracy, double[] biggest_reward, boolean energy_objective)
+	{
+		int n = biggest_reward.length;
+		long[] accuracy = roundingAccuracy(baseline_accuracy, biggest_reward, energy_objective);
+		List<double[]> points = new ArrayList<double[]>(X.getNumPoints());
+		for (double[] p : X.getPoints()) {
+			double[] q = new double[n];
+			for (int i = 0; i < n; i++) {
+				long rounded = ((long) (Math.floor(p[i] * accuracy[i]) * baseline_accuracy / ((double) accuracy[i])));
+				q[i] = ((double) rounded) / baseline_accuracy;
+			}
+			points.add(q);
+		}
+		return new ParetoPointSet(n, points);
+	}
+
+	/**
+	 * the state (if d < 0) or transition (otherwise) rewards of s as a vector
+	 */
+	private double[] rewardVector(int s, int d, List<SMGRewards> rewards)
+	{
+		double[] r = new double[rewards.size()];
+		int i = 0;
+		for (SMGRewards reward : rewards) {
+			r[i++] = d < 0 ? reward.getStateReward(s) : reward.getTransitionReward(s, d);
+		}
+		return r;
+	}
+
     protected Pareto stochasticState(int s, Distribution distr, int d, Pareto[] Xk, List<SMGRewards> rewards, double[] extra_rewards, boolean cut, long M)
 			throws PrismException
 	{
@@ -510,6 +704,45 @@ public class SMG extends STPGExplicit implements STPG
 		return new Pareto(Yk1);
 	}
 
+	/**
+	 * as {@link #stochasticState(int, Distribution, int, Pareto[], List, double[], boolean, long)}, but for point sets
+	 */
+	protected ParetoPointSet stochasticState(int s, Distribution distr, int d, ParetoPointSet[] Xk, List<SMGRewards> rewards, boolean cut, long M)
+			throws PrismException
+	{
+		// the successors of the distribution d
+		ArrayList<Integer> states = new ArrayList<Integer>(distr.keySet());
+		int b = states.size();
+
+		ParetoPointSet cp;
+		if (b == 0) {
+			throw new PrismException("Distribution " + s + ", " + d + " has no successors.");
+		} else if (b == 1) {
+			// distribution assigns 1 to first successor
+			cp = Xk[states.get(0)];
+		} else { // need to compute Minkowski sum
+			// first need to make sure probabilities add to one
+			double[] probs = new double[b];
+			ParetoPointSet[] sets = new ParetoPointSet[b];
+			double residual = 1.0;
+			for (int i = 0; i < b; i++) {
+				probs[i] = distr.get(states.get(i));
+				residual -= probs[i];
+				sets[i] = Xk[states.get(i)];
+			}
+			probs[0] += residual; // just add residual to first probability
+			cp = ParetoPointSet.weightedSum(probs, sets);
+		}
+
+		// add rewards
+		ParetoPointSet Yk1 = cp.translate(rewardVector(s, d, rewards));
+
+		// cut everything but the negative orthant bounded by -M
+		if (cut) Yk1 = Yk1.cutBox(M);
+
+		return Yk1;
+	}
+
 	// distPolys will hold the polyhedra of the stochastic states
 	private Pareto pMultiObjectiveSingle(int s, Pareto[] Xk, List<SMGRewards> rewards, long baseline_accuracy, double[] biggest_reward, List<Pareto> distPolys,
 					     boolean rounding, boolean union_with_previous, boolean cut, long M) throws PrismException
@@ -595,6 +828,48 @@ public class SMG extends STPGExplicit implements STPG
 		return new Pareto(Xk1s);
 	}
 
+	// as pMultiObjectiveSingle above, but for point sets
+	private ParetoPointSet pMultiObjectiveSingle(int s, ParetoPointSet[] Xk, List<SMGRewards> rewards, long baseline_accuracy, double[] biggest_reward,
+						     List<ParetoPointSet> distPolys, boolean rounding, boolean union_with_previous, boolean cut, long M) throws PrismException
+	{
+		int n = rewards.size();
+
+		// STOCHASTIC STATE OPERATIONS
+		int d = 0;
+		for (Distribution distr : trans.get(s)) {
+			distPolys.add(stochasticState(s, distr, d, Xk, rewards, cut, M));
+			d++;
+		}
+
+		// PLAYER ONE AND PLAYER TWO OPERATIONS
+		ParetoPointSet Xk1s;
+		if (distPolys.size() > 0) {
+			if (getPlayer(s) == 1) {
+				// Player 1: convex hull of the union
+				Xk1s = ParetoPointSet.union(n, distPolys);
+			} else {
+				// Player 2: intersection (empty if any of the sets is empty)
+				Xk1s = distPolys.get(0);
+				for (int cp_i = 1; cp_i < distPolys.size(); cp_i++)
+					Xk1s = Xk1s.intersection(distPolys.get(cp_i));
+			}
+		} else { // deadlock
+			Xk1s = Xk[s];
+		}
+
+		// ADD STATE REWARDS
+		Xk1s = Xk1s.translate(rewardVector(s, -1, rewards));
+
+		// ROUNDING (if required)
+		if (rounding) Xk1s = round(Xk1s, baseline_accuracy, biggest_reward, cut);
+
+		// CLEAN UP: UNION WITH PREVIOUS RESULT OR CUT
+		if (rounding && union_with_previous) Xk1s = Xk1s.union(Xk[s]);
+		if (cut) Xk1s = Xk1s.cutBox(M);
+
+		return Xk1s;
+	}
+
 	// Standard methods
 
 	@Override
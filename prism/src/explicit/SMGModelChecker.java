@@ -78,6 +78,7 @@ import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismLangException;
 import prism.PrismSettings;
+import prism.Result;
 import prism.PrismUtils;
 import strat.StochasticUpdateStrategy;
 
@@ -96,6 +97,8 @@ public class SMGModelChecker extends ProbModelChecker
 	protected double increase_factor = 1.01;
 	protected long max_accuracy = Integer.MAX_VALUE / 4;
 	protected boolean gaussSeidel = true;
+	protected boolean paretoPointSets = false;
+	protected boolean worklist = false;
 
 	// logging options for Pareto sets and Strategy
 	protected boolean logCPareto = false;
@@ -110,6 +113,10 @@ public class SMGModelChecker extends ProbModelChecker
 	private List<String> strictToNonstrict = new ArrayList<String>();
 	private List<String> unfolded = new ArrayList<String>();
 
+	// Sparse copy of an SMG being solved (see getSparseSMG), and the SMG it was built from
+	private SMGSparse sparseSMG;
+	private SMG sparseSMGSource;
+
 	/**
 	 * Create a new SMGModelChecker, inherit basic state from parent (unless null).
 	 */
@@ -121,6 +128,8 @@ public class SMGModelChecker extends ProbModelChecker
 			if (varepsilon < 0)
 				throw new PrismException(String.format("Must have %s >= 0", settings.getSettingName(PrismSettings.PRISM_PARETO_EPSILON)));
 			gaussSeidel = settings.getBoolean(PrismSettings.PRISM_MULTI_GAUSS_SEIDEL);
+			paretoPointSets = settings.getString(PrismSettings.PRISM_MULTI_PARETO_SETS).equals("Point sets");
+			worklist = settings.getBoolean(PrismSettings.PRISM_MULTI_WORKLIST);
 			maxCIter = settings.getInteger(PrismSettings.PRISM_MULTI_MAX_C_ITER);
 			if (maxCIter < 1)
 				throw new PrismException(String.format("Must have %s >= 1", settings.getSettingName(PrismSettings.PRISM_MULTI_MAX_C_ITER)));
@@ -154,6 +163,10 @@ public class SMGModelChecker extends ProbModelChecker
 	        // initialise the Parma Polyhedra Library
 	        PPLSupport.initPPL();
 
+		// the multi-objective engine works on the (mutable) SMG class, so convert a sparse SMG
+		if (model instanceof SMGSparse)
+			model = new SMG((SMGSparse) model);
+
 		// extract simple expression from MQ
 		MultiParameters params = initialiseRewards(model, cnf);
 
@@ -353,29 +366,69 @@ public class SMGModelChecker extends ProbModelChecker
 
 		// Initialise vectors
 		n = stpg.getNumStates();
-		u = new BitSet(n);
-		soln = new BitSet(n);
-
-		// Fixed point loop
+		u = (BitSet) origin.clone();
+
+		// Worklist (breadth-first, so that each layer corresponds to an iteration
+		// of the fixed-point computation using reachpositivestep): each state is expanded once,
+		// adding the states reached in one step by some/all choices (depending on the player)
+		int layer[] = new int[n];
+		int next[] = new int[n];
+		int layerSize = 0, nextSize;
+		// For "forall" states s: the number of choices of s with a transition to each state (if stamp[t] == s)
+		int count[] = new int[n];
+		int stamp[] = new int[n];
+		Arrays.fill(stamp, -1);
+		for (int s = origin.nextSetBit(0); s >= 0; s = origin.nextSetBit(s + 1)) {
+			layer[layerSize++] = s;
+		}
 		iters = 0;
 		u_done = false;
-		// Least fixed point - should start from 0 but we optimise by
-		// starting from 'origin', thus bypassing first iteration
-		u.or(origin);
-		soln.or(origin);
 		while (!u_done) {
 			iters++;
-			// Single step of ReachPositive
-			((STPGExplicit) stpg).reachpositivestep(u, min1, min2, soln);
-			// ensure to remain in set
-			if (remain != null)
-				soln.and(remain);
-			// Check termination
-			u_done = soln.equals(u);
-			// u = soln
-			u.clear();
-			u.or(soln);
+			nextSize = 0;
+			for (int j = 0; j < layerSize; j++) {
+				int s = layer[j];
+				int numChoices = stpg.getNumChoices(s);
+				if (numChoices == 0)
+					continue;
+				boolean forall = ((stpg.getPlayer(s) == 1) ? min1 : min2) && numChoices > 1;
+				if (forall) {
+					for (int c = 0; c < numChoices; c++) {
+						for (SuccessorsIterator it = stpg.getSuccessors(s, c); it.hasNext();) {
+							int t = it.nextInt();
+							if (stamp[t] != s) {
+								stamp[t] = s;
+								count[t] = 0;
+							}
+							count[t]++;
+						}
+					}
+				}
+				// States reached in one step (by some choice, or by all choices, i.e., those of the first one)
+				for (int c = 0; c < (forall ? 1 : numChoices); c++) {
+					for (SuccessorsIterator it = stpg.getSuccessors(s, c); it.hasNext();) {
+						int t = it.nextInt();
+						if (forall && count[t] != numChoices)
+							continue;
+						// ensure to remain in set
+						if (remain != null && !remain.get(t))
+							continue;
+						if (!u.get(t)) {
+							u.set(t);
+							next[nextSize++] = t;
+						}
+					}
+				}
+			}
+			u_done = nextSize == 0;
+			int tmp[] = layer;
+			layer = next;
+			next = tmp;
+			layerSize = nextSize;
 		}
+		// Origin states only remain if they are in 'remain'
+		if (remain != null)
+			u.and(remain);
 
 		// Finished precomputation
 		timer = System.currentTimeMillis() - timer;
@@ -1019,11 +1072,10 @@ public class SMGModelChecker extends ProbModelChecker
 	@Override
 	protected StateValues checkProbPathFormulaCosafeLTL(Model model, Expression expr, boolean qual, MinMax minMax, BitSet statesOfInterest) throws PrismException
 	{
-		// Temporarily make SMG into an STPG by setting coalition and do computation on STPG
-		SMG smg = (SMG) model;
-		smg.setCoalition(minMax.getCoalition());
+		// Temporarily make SMG into an STPG by setting coalition and do computation on (a sparse copy of) STPG
+		setCoalition((STPG) model, minMax.getCoalition());
 		StateValues probs = createSTPGModelChecker().checkProbPathFormulaCosafeLTL(model, expr, qual, minMax, statesOfInterest);
-		smg.setCoalition(null);
+		setCoalition((STPG) model, null);
 		return probs;
 	}
 	
@@ -1034,7 +1086,7 @@ public class SMGModelChecker extends ProbModelChecker
 	{
 		// Build product of SMG and DFA for the LTL formula, convert rewards and do any required exports
 		LTLModelChecker mcLtl = new LTLModelChecker(this);
-		LTLModelChecker.LTLProduct<SMG> product = mcLtl.constructDFAProductForCosafetyReward(this, (SMG) model, expr, statesOfInterest);
+		LTLModelChecker.LTLProduct<STPG> product = mcLtl.constructDFAProductForCosafetyReward(this, (STPG) model, expr, statesOfInterest);
 		SMGRewards productRewards = ((SMGRewards) modelRewards).liftFromModel(product);
 		doProductExports(product);
 
@@ -2119,6 +2171,13 @@ public class SMGModelChecker extends ProbModelChecker
 		// or if we have an energy objective
 		boolean localGaussSeidel = gaussSeidel && ((params.objective_type == MultiParameters.ETCR) || energy_objective);
 
+		// use point sets instead of polyhedra during the iteration, if requested
+		if (paretoPointSets) {
+			if (n <= ParetoPointSet.MAX_DIMENSION)
+				return computeCQParetoSetPoints(smg, params, Px, stochasticStates, checkBounds, energy_objective, localGaussSeidel);
+			mainLog.printWarning("Point-set Pareto sets are only supported for up to " + ParetoPointSet.MAX_DIMENSION + " objectives; using polyhedra.");
+		}
+
 		// INITIALISATION: compute polyhedra X_s^0
 		Pareto[] Qx = initialiseCQParetoSet(gameSize, n, params.MIN);
 
@@ -2131,6 +2190,15 @@ public class SMGModelChecker extends ProbModelChecker
 		for (int i = 0; i < n; i++)
 			base_bounds[i] = params.bounds.get(i) - params.shifts.get(i);
 
+		// if using a worklist, only recompute states for which a successor has changed (initially all)
+		BitSet todo = null;
+		PredecessorRelation pre = null;
+		if (worklist) {
+			todo = new BitSet(gameSize);
+			todo.set(0, gameSize);
+			pre = smg.getPredecessorRelation(this, true);
+		}
+
 		// ITERATE FUNCTIONAL APPLICATION: compute X_s^k+1 = F(X_s^k), cf. MFCS'13 / TACAS'15
 		boolean converged = false;
 		long baseline_accuracy = params.baseline_accuracy;
@@ -2152,7 +2220,7 @@ public class SMGModelChecker extends ProbModelChecker
 
 			// VALUE ITERATION STEP
 			Pareto[] temp = smg.pMultiObjective(Qx, params.rewards, localGaussSeidel, baseline_accuracy, params.biggest_reward,
-					stochasticStates, params.rounding, !params.no_union_with_previous & !energy_objective, energy_objective, params.M);
+					stochasticStates, params.rounding, !params.no_union_with_previous & !energy_objective, energy_objective, params.M, todo, pre);
 			System.arraycopy(temp, 0, Px, 0, temp.length); // copy to result
 
 			if (logCPareto)
@@ -2172,7 +2240,11 @@ public class SMGModelChecker extends ProbModelChecker
 				break iterate_cq; // if target met, break cq iteration 
 
 			// increase accuracy
+			long prev_accuracy = baseline_accuracy;
 			baseline_accuracy = increaseBaselineAccuracy(baseline_accuracy);
+			// with rounding, a change of accuracy may change any of the sets
+			if (todo != null && params.rounding && baseline_accuracy != prev_accuracy)
+				todo.set(0, gameSize);
 
 			// keep current as previous Pareto (for convergence check)
 			System.arraycopy(Px, 0, Qx, 0, Px.length);
@@ -2195,6 +2267,158 @@ public class SMGModelChecker extends ProbModelChecker
 		return converged;
 	}
 
+	/**
+	 * Compute CQ Pareto sets, as for {@link #computeCQParetoSet(SMG, MultiParameters, Pareto[], List[], boolean, boolean)},
+	 * but representing the sets during value iteration as point sets (see {@link ParetoPointSet}), i.e.,
+	 * in double precision rather than with exact (PPL) arithmetic.
+	 * Unlike with PPL, which is not thread-safe, states are updated in parallel (if not Gauss-Seidel and multiple threads are requested).
+	 * The final sets are converted to polyhedra, stored in {@code Px} and {@code stochasticStates}.
+	 */
+	private boolean computeCQParetoSetPoints(SMG smg, MultiParameters params, Pareto[] Px, List<Pareto>[] stochasticStates, boolean checkBounds,
+			boolean energy_objective, boolean localGaussSeidel) throws PrismException
+	{
+		int gameSize = smg.getNumStates();
+		int n = params.rewards.size();
+		int init = smg.getFirstInitialState();
+
+		// INITIALISATION: compute sets X_s^0
+		ParetoPointSet[] Qx = new ParetoPointSet[gameSize];
+		for (int s = 0; s < gameSize; s++) {
+			double[] x = new double[n];
+			for (int i = 0; i < n; i++)
+				x[i] = params.MIN[i][s];
+			Qx[s] = new ParetoPointSet(x);
+		}
+		ParetoPointSet[] Rx = Qx;
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<ParetoPointSet>[] stochasticSets = stochasticStates == null ? null : new List[gameSize];
+		// states can be updated in parallel if not Gauss-Seidel
+		ParallelIteration parallel = (numThreads > 1 && !localGaussSeidel) ? new ParallelIteration(numThreads) : null;
+		if (parallel != null)
+			mainLog.println("Using " + numThreads + " threads for Pareto set computation");
+
+		// set up arrays for average reward (needed to check bounds and convergence and later rescale the sets)
+		int[] step = new int[n];
+		Arrays.fill(step, 1); // default is 1
+		double[] bounds = new double[n];
+		double[] base_bounds = new double[n];
+		// apply shift to bounds - note: this is not used for energy objectives
+		for (int i = 0; i < n; i++)
+			base_bounds[i] = params.bounds.get(i) - params.shifts.get(i);
+
+		// if using a worklist, only recompute states for which a successor has changed (initially all)
+		BitSet todo = null;
+		PredecessorRelation pre = null;
+		if (worklist) {
+			todo = new BitSet(gameSize);
+			todo.set(0, gameSize);
+			pre = smg.getPredecessorRelation(this, true);
+		}
+
+		// ITERATE FUNCTIONAL APPLICATION: compute X_s^k+1 = F(X_s^k)
+		boolean converged = false;
+		long baseline_accuracy = params.baseline_accuracy;
+		iterate_cq: for (int k = 0; k < params.maxCIter; k++) {
+			if (logCPareto)
+			        mainLog.print(String.format("C-ITER %d/%s, %s", k + 1, params.maxCIter,
+						params.rounding ? String.format("acc = %d, ", baseline_accuracy) : ""));
+			mainLog.flush();
+			// set up factors for average reward
+			for (int i = 0; i < n; i++) {
+				if (!energy_objective && params.reward_types.get(i) == MultiParameters.EAR) {
+					// take step count times two, because every iteration the functional is applied twice!
+					step[i] = (k + 1) * 2;
+					bounds[i] = base_bounds[i] * ((double) ((k + 1) * 2));
+				} else {
+					bounds[i] = base_bounds[i];
+				}
+			}
+
+			// VALUE ITERATION STEP
+			Rx = smg.pMultiObjective(Qx, params.rewards, localGaussSeidel, baseline_accuracy, params.biggest_reward,
+					stochasticSets, params.rounding, !params.no_union_with_previous & !energy_objective, energy_objective, params.M, parallel, todo, pre);
+
+			if (logCPareto)
+				mainLog.println(Rx[init]);
+
+			// test varepsilon-convergence
+			if (convergeNorm(Rx, Qx, step, energy_objective, init)) {
+				if (logCPareto)
+					mainLog.print("CQ value iteration converged.\n");
+				converged = true;
+				break iterate_cq; // if converged, break cq iteration
+			}
+
+			// test if target met
+			if (checkBounds && !energy_objective && Rx[init].containsPoint(bounds))
+				break iterate_cq; // if target met, break cq iteration 
+
+			// increase accuracy
+			long prev_accuracy = baseline_accuracy;
+			baseline_accuracy = increaseBaselineAccuracy(baseline_accuracy);
+			// with rounding, a change of accuracy may change any of the sets
+			if (todo != null && params.rounding && baseline_accuracy != prev_accuracy)
+				todo.set(0, gameSize);
+
+			// keep current as previous Pareto (for convergence check)
+			Qx = Rx;
+		}
+
+		// MEAN/TOTAL/RATIO: rescale if required by average reward if not energy objective
+		double[] alpha = new double[n]; // scaling factor
+		Arrays.fill(alpha, 1.0); // default is 1.0
+		if (!energy_objective) {
+			for (int i = 0; i < n; i++)
+				if (params.reward_types.get(i) == MultiParameters.EAR)
+					alpha[i] = 1.0 / ((double) step[i]);
+		}
+
+		// convert to polyhedra - Pareto sets now in Px and stochasticStates
+		for (int s = 0; s < gameSize; s++) {
+			Px[s] = PPLSupport.paretoFromPointSet(Rx[s].scale(alpha));
+			if (stochasticStates != null) {
+				stochasticStates[s] = new ArrayList<Pareto>(stochasticSets[s].size());
+				for (ParetoPointSet Y : stochasticSets[s])
+					stochasticStates[s].add(PPLSupport.paretoFromPointSet(Y.scale(alpha)));
+			}
+		}
+
+		// return whether converged
+		return converged;
+	}
+
+	/**
+	 * Tests convergence as for {@link #convergeNorm(Pareto[], Pareto[], int, int[], boolean, int)}, but for point sets.
+	 **/
+	private boolean convergeNorm(final ParetoPointSet[] result, final ParetoPointSet[] prev_result, int[] k, boolean energy_objective, int init)
+	{
+		int n = k.length;
+		double[] alpha1 = new double[n];
+		double[] alpha = new double[n];
+		for (int i = 0; i < n; i++) {
+			alpha1[i] = k[i] > 1 ? 1.0 / k[i] : 1.0;
+			alpha[i] = k[i] > 1 ? 1.0 / (k[i] - 1) : 1.0;
+		}
+		for (int s = 0; s < result.length; s++) {
+			ParetoPointSet ck1 = result[s].scale(alpha1); // current
+			ParetoPointSet ck = prev_result[s].scale(alpha); // previous
+
+			// if not monotonically increasing anyway, aply union and intersection
+			if (!ck1.contains(ck, 0.0)) {
+				ParetoPointSet ck_prime = ck;
+				ck = ck.intersection(ck1); // the set that's supposed to be smaller holds the intersection
+				ck1 = ck1.union(ck_prime); // the set that's supposed to be larger holds the union
+			}
+
+			// now test containment in the previous set shifted by (varepsilon, varepsilon, ...)
+			if (ck1.isEmpty())
+				continue; // converged for this state
+			if (!ck.contains(ck1, varepsilon))
+				return false; // not converged yet
+		}
+		return true; // only fall through if all sets converge
+	}
+
 	/**
 	 * Tests convergence using epsilon-growth criterion (relative!),
 	 * that is, test whether (prev \cap current) + epsilon \supseteq (prev \cup current).
@@ -2285,12 +2509,12 @@ public class SMGModelChecker extends ProbModelChecker
 	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
 	 * @param coalition The coalition of players which define player 1
 	 */
-	public ModelCheckerResult computeNextProbs(SMG smg, BitSet target, boolean min1, boolean min2, Coalition coalition) throws PrismException
+	public ModelCheckerResult computeNextProbs(STPG smg, BitSet target, boolean min1, boolean min2, Coalition coalition) throws PrismException
 	{
-		// Temporarily make SMG into an STPG by setting coalition and do computation on STPG
-		smg.setCoalition(coalition);
-		ModelCheckerResult res = createSTPGModelChecker().computeNextProbs(smg, target, min1, min2);
-		smg.setCoalition(null);
+		// Temporarily make SMG into an STPG by setting coalition and do computation on (a sparse copy of) STPG
+		setCoalition(smg, coalition);
+		ModelCheckerResult res = createSTPGModelChecker().computeNextProbs(getSparseSMG(smg), target, min1, min2);
+		setCoalition(smg, null);
 		return res;
 	}
 
@@ -2306,12 +2530,12 @@ public class SMGModelChecker extends ProbModelChecker
 	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
 	 * @param coalition The coalition of players which define player 1
 	 */
-	public ModelCheckerResult computeBoundedUntilProbs(SMG smg, BitSet remain, BitSet target, int k, boolean min1, boolean min2, Coalition coalition) throws PrismException
+	public ModelCheckerResult computeBoundedUntilProbs(STPG smg, BitSet remain, BitSet target, int k, boolean min1, boolean min2, Coalition coalition) throws PrismException
 	{
-		// Temporarily make SMG into an STPG by setting coalition and do computation on STPG
-		smg.setCoalition(coalition);
-		ModelCheckerResult res = createSTPGModelChecker().computeBoundedUntilProbs(smg, remain, target, k, min1, min2);
-		smg.setCoalition(null);
+		// Temporarily make SMG into an STPG by setting coalition and do computation on (a sparse copy of) STPG
+		setCoalition(smg, coalition);
+		ModelCheckerResult res = createSTPGModelChecker().computeBoundedUntilProbs(getSparseSMG(smg), remain, target, k, min1, min2);
+		setCoalition(smg, null);
 		return res;
 	}
 
@@ -2326,12 +2550,12 @@ public class SMGModelChecker extends ProbModelChecker
 	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
 	 * @param coalition The coalition of players which define player 1
 	 */
-	public ModelCheckerResult computeUntilProbs(SMG smg, BitSet remain, BitSet target, boolean min1, boolean min2, Coalition coalition) throws PrismException
+	public ModelCheckerResult computeUntilProbs(STPG smg, BitSet remain, BitSet target, boolean min1, boolean min2, Coalition coalition) throws PrismException
 	{
-		// Temporarily make SMG into an STPG by setting coalition and do computation on STPG
-		smg.setCoalition(coalition);
-		ModelCheckerResult res = createSTPGModelChecker().computeUntilProbs(smg, remain, target, min1, min2, -1);
-		smg.setCoalition(null);
+		// Temporarily make SMG into an STPG by setting coalition and do computation on (a sparse copy of) STPG
+		setCoalition(smg, coalition);
+		ModelCheckerResult res = createSTPGModelChecker().computeUntilProbs(getSparseSMG(smg), remain, target, min1, min2, -1);
+		setCoalition(smg, null);
 		return res;
 	}
 
@@ -2346,17 +2570,62 @@ public class SMGModelChecker extends ProbModelChecker
 	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
 	 * @param coalition The coalition of players which define player 1
 	 */
-	public ModelCheckerResult computeReachRewards(SMG smg, SMGRewards rewards, BitSet target, int unreachingSemantics, boolean min1, boolean min2, Coalition coalition) throws PrismException
+	public ModelCheckerResult computeReachRewards(STPG smg, SMGRewards rewards, BitSet target, int unreachingSemantics, boolean min1, boolean min2, Coalition coalition) throws PrismException
 	{
-		// Temporarily make SMG into an STPG by setting coalition and do computation on STPG
-		smg.setCoalition(coalition);
-		ModelCheckerResult res = createSTPGModelChecker().computeReachRewards(smg, rewards, target, min1, min2, null, null, unreachingSemantics);
-		smg.setCoalition(null);
+		// Temporarily make SMG into an STPG by setting coalition and do computation on (a sparse copy of) STPG
+		setCoalition(smg, coalition);
+		ModelCheckerResult res = createSTPGModelChecker().computeReachRewards(getSparseSMG(smg), rewards, target, min1, min2, null, null, unreachingSemantics);
+		setCoalition(smg, null);
 		return res;
 	}
 	
 	// Utility methods
 	
+	@Override
+	public Result check(Model model, Expression expr) throws PrismException
+	{
+		try {
+			return super.check(model, expr);
+		} finally {
+			// Don't keep the sparse copy of the SMG beyond this call
+			sparseSMG = null;
+			sparseSMGSource = null;
+		}
+	}
+
+	/**
+	 * Set a coalition of players for an SMG, stored as either an {@link SMG} or an {@link SMGSparse}
+	 * (pass null to remove any coalition info).
+	 */
+	private static void setCoalition(STPG smg, Coalition coalition) throws PrismException
+	{
+		if (smg instanceof SMGSparse) {
+			((SMGSparse) smg).setCoalition(coalition);
+		} else {
+			((SMG) smg).setCoalition(coalition);
+		}
+	}
+
+	/**
+	 * Get a sparse version of the SMG {@code smg} (including its current coalition), for numerical solution:
+	 * {@code smg} itself if it is an {@link SMGSparse}, otherwise a copy of it. A copy is stored,
+	 * and reused for subsequent calls with the same SMG
+	 * (until the end of the current call to {@link #check(Model, Expression)}).
+	 */
+	private SMGSparse getSparseSMG(STPG smg)
+	{
+		if (smg instanceof SMGSparse) {
+			return (SMGSparse) smg;
+		}
+		if (smg != sparseSMGSource) {
+			sparseSMG = new SMGSparse((SMG) smg);
+			sparseSMGSource = (SMG) smg;
+		} else {
+			sparseSMG.copyCoalitionInfo((SMG) smg);
+		}
+		return sparseSMG;
+	}
+
 	/**
 	 * Create a new STPG model checker with the same settings as this one. 
 	 */
@@ -0,0 +1,190 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import parser.VarList;
+import parser.ast.Coalition;
+import prism.ModelType;
+import prism.Prism;
+import prism.PrismException;
+import prism.PrismLog;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a (turn-based) stochastic multi-player game (SMG).
+ * Transitions are stored as for {@link MDPSparse}. As for {@link SMG}, states are labelled with player indices,
+ * and a coalition of players can be set, which effectively makes it an STPG
+ * (player 1 representing the coalition and 2 the rest).
+ */
+public class SMGSparse extends STPGSparse
+{
+	/** Player index owning each state (as for {@link SMG}) */
+	protected int stateOwners[];
+
+	// A definition of the players in the game, i.e., the (integer) index and name of each one (see SMG)
+	protected Map<Integer, String> playerNames;
+
+	// Optionally, a mapping from player indices to 1 or 2, as induced by a coalition of players (see SMG)
+	protected int[] coalitionPlayerMap;
+
+	// Constructors
+
+	/**
+	 * Copy constructor (from SMG). Player and coalition info is also copied across.
+	 */
+	public SMGSparse(SMG smg)
+	{
+		super(smg);
+		stateOwners = new int[numStates];
+		for (int s = 0; s < numStates; s++) {
+			stateOwners[s] = smg.stateOwners.get(s);
+		}
+		playerNames = new HashMap<Integer, String>(smg.playerNames);
+		copyCoalitionInfo(smg);
+	}
+
+	/**
+	 * Constructor: build from the sparse (CSR) storage of the transitions (as for
+	 * {@link MDPSparse#MDPSparse(int, int[], int[], int[], double[], Object[])}),
+	 * the player index owning each state and the player names (as for {@link SMG#setPlayerInfo(List)}).
+	 * The arrays are not copied. No coalition is set.
+	 */
+	public SMGSparse(int numStates, int rowStarts[], int choiceStarts[], int cols[], double nonZeros[], Object actions[], int stateOwners[], List<String> playerNamesList)
+	{
+		super(numStates, rowStarts, choiceStarts, cols, nonZeros, actions, new int[numStates]);
+		this.stateOwners = stateOwners;
+		playerNames = new HashMap<Integer, String>();
+		for (int i = 0; i < playerNamesList.size(); i++) {
+			playerNames.put(i + 1, playerNamesList.get(i));
+		}
+		updateStatePlayers();
+	}
+
+	// Mutators
+
+	/**
+	 * Set a coalition of players for this SMG
+	 * (which effectively makes it an STPG with player 1 representing the coalition and 2 the rest).
+	 * Pass null to remove any coalition info from this SMG.
+	 *
+	 * @param coalition Coalition info object
+	 */
+	public void setCoalition(Coalition coalition) throws PrismException
+	{
+		// Clear info if coalition is null
+		if (coalition == null) {
+			coalitionPlayerMap = null;
+			updateStatePlayers();
+			return;
+		}
+
+		// If player info has not been set, create it based on {@code stateOwners}
+		if (playerNames.isEmpty()) {
+			for (int i = 0; i < numStates; i++) {
+				if (!playerNames.containsKey(stateOwners[i])) {
+					playerNames.put(stateOwners[i], null);
+				}
+			}
+		}
+
+		// Find max player index
+		int maxIndex = 0;
+		for (int index : playerNames.keySet()) {
+			maxIndex = Math.max(maxIndex, index);
+		}
+
+		// Construct mapping
+		coalitionPlayerMap = new int[maxIndex + 1];
+		for (int i = 0; i < maxIndex + 1; i++) {
+			coalitionPlayerMap[i] = -1;
+		}
+		for (Entry<Integer, String> entry : playerNames.entrySet()) {
+			int playerIndex = entry.getKey();
+			boolean inCoalition = coalition.isPlayerIndexInCoalition(playerIndex, playerNames);
+			// In coalition => player 1; not in coalition (or undefined) => player 2
+			coalitionPlayerMap[playerIndex] = inCoalition ? 1 : 2;
+		}
+		updateStatePlayers();
+	}
+
+	/**
+	 * Copy coalition info from an SMG.
+	 */
+	public void copyCoalitionInfo(SMG smg)
+	{
+		coalitionPlayerMap = smg.coalitionPlayerMap == null ? null : smg.coalitionPlayerMap.clone();
+		updateStatePlayers();
+	}
+
+	/**
+	 * Recompute the (compact) array of the player owning each state,
+	 * i.e., the player index, or 1/2 if a coalition has been set.
+	 */
+	private void updateStatePlayers()
+	{
+		for (int s = 0; s < numStates; s++) {
+			int playerIndex = stateOwners[s];
+			if (coalitionPlayerMap == null) {
+				// No coalition: just use index
+				statePlayers[s] = playerIndex;
+			} else {
+				// Coalition defined: look up if player 1 or 2
+				// (note: undefined players are mapped to player 2)
+				statePlayers[s] = playerIndex == -1 ? 2 : coalitionPlayerMap[playerIndex];
+			}
+		}
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public ModelType getModelType()
+	{
+		return ModelType.SMG;
+	}
+
+	@Override
+	public void exportPlayers(int exportType, VarList varList, PrismLog log) throws PrismException
+	{
+		log.println(numStates);
+		for (int i = 0; i < numStates; i++) {
+			if (exportType != Prism.EXPORT_MATLAB)
+				log.println(i + ":" + stateOwners[i]);
+			else
+				log.println(stateOwners[i]);
+		}
+	}
+
+	// Accessors (for STPG/SMG)
+
+	public int getNumPlayers()
+	{
+		return playerNames.size();
+	}
+}
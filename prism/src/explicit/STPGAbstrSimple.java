@@ -135,6 +135,8 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 		//TODO: recompute maxNumDistrs
 		// Remove all distribution sets
 		trans.set(i, new ArrayList<DistributionSet>(0));
+		// Any stored predecessor relation is no longer valid
+		clearPredecessorRelation();
 	}
 
 	@Override
@@ -151,6 +153,8 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 			trans.add(new ArrayList<DistributionSet>());
 		}
 		numStates += numToAdd;
+		// Any stored predecessor relation is no longer valid
+		clearPredecessorRelation();
 	}
 
 	@Override
@@ -274,6 +278,8 @@ public class STPGAbstrSimple extends ModelExplicit implements STPG, NondetModelS
 		maxNumDistrs = Math.max(maxNumDistrs, newSet.size());
 		for (Distribution distr : newSet)
 			numTransitions += distr.size();
+		// Any stored predecessor relation is no longer valid
+		clearPredecessorRelation();
 		return set.size() - 1;
 	}
 
@@ -28,6 +28,7 @@
 package explicit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -36,20 +37,28 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import acceptance.AcceptanceReach;
+import common.IntSet;
 import common.IterableBitSet;
+import explicit.modelviews.MDPDroppedChoicesCached;
+import explicit.rewards.MDPRewards;
 import explicit.rewards.MDPRewardsSimple;
 import explicit.rewards.STPGRewards;
 import explicit.rewards.STPGRewardsSimple;
 import explicit.rewards.StateRewardsConstant;
 import parser.ast.Expression;
+import prism.Accuracy;
 import prism.AccuracyFactory;
 import prism.PrismComponent;
+import prism.PrismDevNullLog;
 import prism.PrismException;
+import prism.OptionsIntervalIteration;
 import prism.PrismFileLog;
 import prism.PrismLog;
 import prism.PrismNotSupportedException;
+import prism.Result;
 import prism.PrismUtils;
 import strat.BoundedRewardDeterministicStrategy;
+import strat.MDStrategyArray;
 import strat.MemorylessDeterministicStrategy;
 import strat.StepBoundedDeterministicStrategy;
 
@@ -74,6 +83,15 @@ public class STPGModelChecker extends ProbModelChecker
 	 * runs which don't reach the target get reward zero.
 	 */
 	public static final int R_ZERO = 2;
+	/**
+	 * Factor by which the termination criterion parameter is reduced when solving
+	 * the MDPs induced by strategies during strategy iteration.
+	 */
+	protected static final double STRAT_ITER_PRECISION_FACTOR = 1e-3;
+
+	// Sparse copy of a game being solved (see getSparseSTPG), and the game it was built from
+	protected STPGSparse sparseSTPG;
+	protected STPG sparseSTPGSource;
 
 	/**
 	 * Create a new STPGModelChecker, inherit basic state from parent (unless null).
@@ -83,6 +101,42 @@ public class STPGModelChecker extends ProbModelChecker
 		super(parent);
 	}
 
+	@Override
+	public Result check(Model model, Expression expr) throws PrismException
+	{
+		try {
+			return super.check(model, expr);
+		} finally {
+			// Don't keep the sparse copy of the game beyond this call
+			sparseSTPG = null;
+			sparseSTPGSource = null;
+		}
+	}
+
+	/**
+	 * Get a sparse copy of the game {@code stpg}, to be used for solving it, if it is an {@link STPGExplicit}
+	 * (for an {@link SMG}, the current coalition is copied across). Otherwise, {@code stpg} is returned.
+	 * The copy is stored, and reused for subsequent calls with the same game
+	 * (until the end of the current call to {@link #check(Model, Expression)}).
+	 */
+	protected STPG getSparseSTPG(STPG stpg)
+	{
+		if (!(stpg instanceof STPGExplicit)) {
+			return stpg;
+		}
+		if (stpg != sparseSTPGSource) {
+			if (stpg instanceof SMG) {
+				sparseSTPG = new SMGSparse((SMG) stpg);
+			} else {
+				sparseSTPG = new STPGSparse((STPGExplicit) stpg);
+			}
+			sparseSTPGSource = stpg;
+		} else if (stpg instanceof SMG) {
+			((SMGSparse) sparseSTPG).copyCoalitionInfo((SMG) stpg);
+		}
+		return sparseSTPG;
+	}
+
 	// Model checking functions
 
 	@Override
@@ -143,6 +197,9 @@ public class STPGModelChecker extends ProbModelChecker
 
 		timer = System.currentTimeMillis();
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Store num states
 		n = stpg.getNumStates();
 
@@ -260,6 +317,20 @@ public class STPGModelChecker extends ProbModelChecker
 		if (solnMethod == SolnMethod.VALUE_ITERATION && valIterDir == ValIterDir.ABOVE && !(precomp && prob0)) {
 			throw new PrismException("Precomputation (Prob0) must be enabled for value iteration from above");
 		}
+		if (doIntervalIteration) {
+			if (exportAdv || generateStrategy) {
+				throw new PrismNotSupportedException("Currently, explicit engine does not support strategy generation for interval iteration on games");
+			}
+			if (solnMethod == SolnMethod.OPTIMISTIC_VALUE_ITERATION) {
+				throw new PrismNotSupportedException("Interval iteration currently not supported for optimistic value iteration");
+			}
+			if (solnMethod == SolnMethod.POLICY_ITERATION) {
+				throw new PrismNotSupportedException("Interval iteration currently not supported for strategy iteration");
+			}
+		}
+		if (solnMethod == SolnMethod.POLICY_ITERATION && known != null) {
+			throw new PrismException("Strategy iteration cannot be passed 'known' values for some states");
+		}
 
 		// Are we generating an optimal adversary?
 		genAdv = exportAdv || generateStrategy;
@@ -269,6 +340,9 @@ public class STPGModelChecker extends ProbModelChecker
 		if (verbosity >= 1)
 			mainLog.println("\nStarting probabilistic reachability...");
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Check for deadlocks in non-target state (because breaks e.g. prob1)
 		stpg.checkForDeadlocks(target);
 
@@ -311,15 +385,25 @@ public class STPGModelChecker extends ProbModelChecker
 		// precomputation
 		if (bound < 1.0 || !(precomp && prob1 && !genAdv)) {
 			// Compute probabilities
-			switch (solnMethod) {
-			case VALUE_ITERATION:
-				res = computeReachProbsValIter(stpg, no, yes, min1, min2, init, known);
-				break;
-			case GAUSS_SEIDEL:
-				res = computeReachProbsGaussSeidel(stpg, no, yes, min1, min2, init, known);
-				break;
-			default:
-				throw new PrismException("Unknown STPG solution method " + solnMethod);
+			if (doIntervalIteration) {
+				res = computeReachProbsIntervalIter(stpg, no, yes, min1, min2, init, known);
+			} else {
+				switch (solnMethod) {
+				case VALUE_ITERATION:
+					res = computeReachProbsValIter(stpg, no, yes, min1, min2, init, known);
+					break;
+				case GAUSS_SEIDEL:
+					res = computeReachProbsGaussSeidel(stpg, no, yes, min1, min2, init, known);
+					break;
+				case POLICY_ITERATION:
+					res = computeReachProbsStratIter(stpg, no, yes, min1, min2);
+					break;
+				case OPTIMISTIC_VALUE_ITERATION:
+					res = computeReachProbsOptimistic(stpg, no, yes, min1, min2, init, known);
+					break;
+				default:
+					throw new PrismException("Unknown STPG solution method " + solnMethod);
+				}
 			}
 		} else {
 			res = new ModelCheckerResult();
@@ -384,22 +468,33 @@ public class STPGModelChecker extends ProbModelChecker
 		if (remain != null)
 			unknown.and(remain);
 
-		// Fixed point loop
 		iters = 0;
-		u_done = false;
-		// Least fixed point - should start from 0 but we optimise by
-		// starting from 'target', thus bypassing first iteration
-		u.or(target);
-		soln.or(target);
-		while (!u_done) {
-			iters++;
-			// Single step of Prob0
-			stpg.prob0step(unknown, u, min1, min2, soln);
-			// Check termination
-			u_done = soln.equals(u);
-			// u = soln
-			u.clear();
-			u.or(soln);
+		if (!min1 && !min2 && preRel) {
+			// If both players maximise, this is a graph search: calculate all states that can reach
+			// 'target' while remaining in 'remain', where all the 'target' states are made absorbing
+			u = stpg.getPredecessorRelation(this, true).calculatePreStar(remain, target, target);
+		} else if (useAttractors(stpg)) {
+			// Otherwise, compute the attractor using a worklist
+			Attractor attractor = new Attractor(stpg, stpg.getIncomingChoiceRelation(this, true));
+			u = attractor.compute(unknown, target, s -> stpg.getPlayer(s) == 1 ? min1 : min2, null, null);
+			iters = attractor.getNumIterations();
+		} else {
+			// Fixed point loop
+			u_done = false;
+			// Least fixed point - should start from 0 but we optimise by
+			// starting from 'target', thus bypassing first iteration
+			u.or(target);
+			soln.or(target);
+			while (!u_done) {
+				iters++;
+				// Single step of Prob0
+				stpg.prob0step(unknown, u, min1, min2, soln);
+				// Check termination
+				u_done = soln.equals(u);
+				// u = soln
+				u.clear();
+				u.or(soln);
+			}
 		}
 
 		// Negate
@@ -455,34 +550,52 @@ public class STPGModelChecker extends ProbModelChecker
 		if (remain != null)
 			unknown.and(remain);
 
-		// Nested fixed point loop
 		iters = 0;
-		u_done = false;
-		// Greatest fixed point
-		u.set(0, n);
-		while (!u_done) {
-			v_done = false;
-			// Least fixed point - should start from 0 but we optimise by
-			// starting from 'target', thus bypassing first iteration
-			v.clear();
-			v.or(target);
-			soln.clear();
-			soln.or(target);
-			while (!v_done) {
-				iters++;
-				// Single step of Prob1
-				stpg.prob1step(unknown, u, v, min1, min2, soln);
-				// Check termination (inner)
-				v_done = soln.equals(v);
-				// v = soln
+		if (useAttractors(stpg)) {
+			// Nested fixed point, using worklist-based attractor computations for the inner (least) fixed point,
+			// and disabling the choices leaving u incrementally (as states are removed) for the outer one
+			Attractor attractor = new Attractor(stpg, stpg.getIncomingChoiceRelation(this, true));
+			BitSet enabled = new BitSet();
+			enabled.set(0, attractor.getNumChoicesTotal());
+			u.set(0, n);
+			u_done = false;
+			while (!u_done) {
+				v = attractor.compute(unknown, target, s -> stpg.getPlayer(s) == 1 ? min1 : min2, enabled, null);
+				iters += attractor.getNumIterations();
+				u.andNot(v);
+				u_done = u.isEmpty();
+				attractor.disableChoicesInto(u, enabled);
+				u = v;
+			}
+		} else {
+			// Nested fixed point loop
+			u_done = false;
+			// Greatest fixed point
+			u.set(0, n);
+			while (!u_done) {
+				v_done = false;
+				// Least fixed point - should start from 0 but we optimise by
+				// starting from 'target', thus bypassing first iteration
 				v.clear();
-				v.or(soln);
+				v.or(target);
+				soln.clear();
+				soln.or(target);
+				while (!v_done) {
+					iters++;
+					// Single step of Prob1
+					stpg.prob1step(unknown, u, v, min1, min2, soln);
+					// Check termination (inner)
+					v_done = soln.equals(v);
+					// v = soln
+					v.clear();
+					v.or(soln);
+				}
+				// Check termination (outer)
+				u_done = v.equals(u);
+				// u = v
+				u.clear();
+				u.or(v);
 			}
-			// Check termination (outer)
-			u_done = v.equals(u);
-			// u = v
-			u.clear();
-			u.or(v);
 		}
 
 		// Finished precomputation
@@ -495,6 +608,17 @@ public class STPGModelChecker extends ProbModelChecker
 		return u;
 	}
 
+	/**
+	 * Can the qualitative precomputations for {@code stpg} use worklist-based attractor computations
+	 * (see {@link Attractor}), rather than fixed-point iterations? This requires the predecessor
+	 * relation to be enabled, and that the choices of each state are single distributions
+	 * (unlike, e.g., in the games of {@link STPGAbstrSimple}, where player 2 picks from a set).
+	 */
+	protected boolean useAttractors(STPG stpg)
+	{
+		return preRel && !(stpg instanceof STPGAbstrSimple);
+	}
+
 	/**
 	 * Compute reachability probabilities using value iteration.
 	 * @param stpg The STPG
@@ -576,15 +700,28 @@ public class STPGModelChecker extends ProbModelChecker
 			}
 		}
 
+		// If requested, and there is no adversary to generate, iterate with multiple threads
+		ParallelIteration parallel = (numThreads > 1 && !genAdv) ? new ParallelIteration(numThreads) : null;
+		ParallelIteration.Partition partition = (parallel != null) ? parallel.partition(stpg, IntSet.asIntSet(unknown)) : null;
+
 		// Start iterations
 		iters = 0;
 		done = false;
 		while (!done && iters < maxIters) {
 			iters++;
 			// Matrix-vector multiply and min/max ops
-			stpg.mvMultMinMax(soln, min1, min2, soln2, unknown, false, genAdv ? adv : null);
+			if (partition != null) {
+				final double vect[] = soln;
+				parallel.apply(partition, soln2, s -> stpg.mvMultMinMaxSingle(s, vect, min1, min2));
+			} else {
+				stpg.mvMultMinMax(soln, min1, min2, soln2, unknown, false, genAdv ? adv : null);
+			}
 			// Check termination
-			done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
+			if (parallel != null) {
+				done = parallel.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
+			} else {
+				done = PrismUtils.doublesAreClose(soln, soln2, termCritParam, termCrit == TermCrit.ABSOLUTE);
+			}
 			// Swap vectors for next iter
 			tmpsoln = soln;
 			soln = soln2;
@@ -724,6 +861,461 @@ public class STPGModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute reachability probabilities using optimistic value iteration.
+	 * @param stpg The STPG
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min1 Min or max probabilities for player 1 (true=min, false=max)
+	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are ignored, since iteration needs to start from a lower bound.
+	 */
+	protected ModelCheckerResult computeReachProbsOptimistic(STPG stpg, BitSet no, BitSet yes, boolean min1, boolean min2, double init[], BitSet known)
+			throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+		long timer;
+
+		if (exportAdv || generateStrategy) {
+			throw new PrismNotSupportedException("Strategy generation is currently not supported for optimistic value iteration");
+		}
+
+		// Start optimistic value iteration
+		timer = System.currentTimeMillis();
+		String description = (min1 ? "min" : "max") + (min2 ? "min" : "max");
+		if (verbosity >= 1)
+			mainLog.println("Starting optimistic value iteration (" + description + ")...");
+
+		// Store num states
+		n = stpg.getNumStates();
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 1.0/0.0 if in yes/no; (3) 0.0
+		soln = (init == null) ? new double[n] : init;
+		for (i = 0; i < n; i++)
+			soln[i] = (known != null && known.get(i)) ? init[i] : yes.get(i) ? 1.0 : 0.0;
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		OptimisticValueIteration.BellmanOperator op = (s, vect) -> stpg.mvMultMinMaxSingle(s, vect, min1, min2);
+		OptimisticValueIteration ovi = new OptimisticValueIteration(this, termCrit == TermCrit.ABSOLUTE, termCritParam, 1.0);
+		return ovi.solve(description, soln, unknown, op, op, timer);
+	}
+
+	/**
+	 * Compute reachability probabilities using interval iteration,
+	 * i.e., value iteration from below and from above, which yields sound lower and upper bounds.
+	 * Since end components give rise to spurious fixed points of the Bellman operator,
+	 * the upper bound is "deflated" in each iteration, as in:
+	 * Kelmendi, Kramer, Kretinsky and Weininger.
+	 * Value Iteration for Simple Stochastic Games: Stopping Criterion and Learning Algorithm (CAV 2018).
+	 * For each end component of the game in which the minimising player only uses choices
+	 * that are optimal with respect to the current lower bound, the upper bound of its states
+	 * is reduced to the best value that the maximising player can obtain by leaving it.
+	 * @param stpg The STPG
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min1 Min or max probabilities for player 1 (true=min, false=max)
+	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are ignored, since iteration needs to start from a lower and an upper bound.
+	 */
+	protected ModelCheckerResult computeReachProbsIntervalIter(STPG stpg, BitSet no, BitSet yes, boolean min1, boolean min2, double init[], BitSet known)
+			throws PrismException
+	{
+		ModelCheckerResult res;
+		BitSet unknown, inEC, optimal = null;
+		List<BitSet> ecs = null;
+		int i, n, iters, numECComps = 0;
+		double lower[], lower2[], upper[], upper2[], tmpsoln[];
+		boolean done, absolute;
+		long timer;
+
+		// Start interval iteration
+		timer = System.currentTimeMillis();
+		String description = (min1 ? "min" : "max") + (min2 ? "min" : "max");
+		if (verbosity >= 1)
+			mainLog.println("Starting interval iteration (" + description + ")...");
+
+		// Store num states
+		n = stpg.getNumStates();
+		absolute = termCrit == TermCrit.ABSOLUTE;
+
+		// Initialise bounds. Use (where available) the exact answer, if already known,
+		// otherwise 1.0/0.0 if in yes/no, or 0.0/1.0 for the lower/upper bound
+		lower = new double[n];
+		upper = new double[n];
+		for (i = 0; i < n; i++) {
+			if (known != null && known.get(i)) {
+				lower[i] = upper[i] = init[i];
+			} else {
+				lower[i] = yes.get(i) ? 1.0 : 0.0;
+				upper[i] = no.get(i) ? 0.0 : 1.0;
+			}
+		}
+		lower2 = lower.clone();
+		upper2 = upper.clone();
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		if (known != null)
+			unknown.andNot(known);
+
+		// Only states in end components (of the full game) may need deflation
+		ECComputer ecComputer = ECComputer.createECComputer(this, stpg);
+		ecComputer.computeMECStates((BitSet) unknown.clone());
+		inEC = new BitSet();
+		for (BitSet mec : ecComputer.getMECStates()) {
+			inEC.or(mec);
+		}
+		if (!inEC.isEmpty() && !(stpg instanceof MDP)) {
+			throw new PrismNotSupportedException("Interval iteration is not supported for games of type " + stpg.getClass().getSimpleName());
+		}
+		if (verbosity >= 1)
+			mainLog.println("States in end components: " + inEC.cardinality());
+		// Which player minimises in each state, and the first index of each state's choices (for storing sets of choices)
+		MDP mdp = inEC.isEmpty() ? null : (MDP) stpg;
+		BitSet minState = new BitSet();
+		int choiceStart[] = new int[n + 1];
+		for (i = 0; i < n; i++) {
+			if (stpg.getPlayer(i) == 1 ? min1 : min2) {
+				minState.set(i);
+			}
+			choiceStart[i + 1] = choiceStart[i] + (inEC.get(i) ? stpg.getNumChoices(i) : 0);
+		}
+
+		// If requested, iterate with multiple threads
+		ParallelIteration parallel = (numThreads > 1) ? new ParallelIteration(numThreads) : null;
+		ParallelIteration.Partition partition = (parallel != null) ? parallel.partition(stpg, IntSet.asIntSet(unknown)) : null;
+
+		// Start iterations
+		iters = 0;
+		done = false;
+		while (!done && iters < maxIters) {
+			iters++;
+			// Matrix-vector multiply and min/max ops, for both bounds
+			if (partition != null) {
+				final double vectLower[] = lower, vectUpper[] = upper;
+				parallel.apply(partition, lower2, s -> stpg.mvMultMinMaxSingle(s, vectLower, min1, min2));
+				parallel.apply(partition, upper2, s -> stpg.mvMultMinMaxSingle(s, vectUpper, min1, min2));
+			} else {
+				stpg.mvMultMinMax(lower, min1, min2, lower2, unknown, false, null);
+				stpg.mvMultMinMax(upper, min1, min2, upper2, unknown, false, null);
+			}
+			// Swap vectors for next iter
+			tmpsoln = lower;
+			lower = lower2;
+			lower2 = tmpsoln;
+			tmpsoln = upper;
+			upper = upper2;
+			upper2 = tmpsoln;
+			// Deflate the upper bound
+			if (!inEC.isEmpty()) {
+				// Find the choices of the minimising player that are optimal w.r.t. the lower bound,
+				// and (if these have changed) recompute the end components when restricted to them
+				BitSet optimalNew = new BitSet();
+				for (int s : new IterableBitSet(inEC)) {
+					if (minState.get(s)) {
+						double val = stpg.mvMultMinMaxSingle(s, lower, min1, min2);
+						for (int c = 0, numChoices = mdp.getNumChoices(s); c < numChoices; c++) {
+							if (mdp.mvMultSingle(s, c, lower) <= val + Accuracy.FLOATING_POINT_ERROR) {
+								optimalNew.set(choiceStart[s] + c);
+							}
+						}
+					}
+				}
+				if (!optimalNew.equals(optimal)) {
+					optimal = optimalNew;
+					final BitSet optimalChoices = optimal;
+					MDP restricted = new MDPDroppedChoicesCached(mdp, (s, c) -> minState.get(s) && !optimalChoices.get(choiceStart[s] + c));
+					ecComputer = ECComputer.createECComputer(this, restricted);
+					ecComputer.computeMECStates((BitSet) inEC.clone());
+					ecs = ecComputer.getMECStates();
+					numECComps++;
+				}
+				for (BitSet ec : ecs) {
+					deflate(mdp, ec, minState, upper);
+				}
+			}
+			// Check termination
+			if (parallel != null) {
+				done = parallel.doublesAreClose(lower, upper, termCritParam, absolute);
+			} else {
+				done = PrismUtils.doublesAreClose(lower, upper, termCritParam, absolute);
+			}
+		}
+
+		// The accuracy of the result is given as an absolute error bound,
+		// which (unlike a relative one) remains valid for, e.g., 1 - p
+		double maxError = Double.POSITIVE_INFINITY;
+		if (done) {
+			double diff = PrismUtils.measureSupNormInterval(lower, upper, absolute);
+			mainLog.println("Max " + (!absolute ? "relative " : "") + "diff between upper and lower bound on convergence: " + PrismUtils.formatDouble(diff));
+			maxError = PrismUtils.measureSupNormInterval(lower, upper, true);
+		}
+
+		// Finished interval iteration
+		timer = System.currentTimeMillis() - timer;
+		if (verbosity >= 1) {
+			mainLog.print("Interval iteration (" + description + ")");
+			mainLog.print(" took " + iters + " iterations (" + numECComps + " end component computations)");
+			mainLog.println(" and " + timer / 1000.0 + " seconds.");
+		}
+
+		if (done && OptionsIntervalIteration.from(this).isSelectMidpointForResult()) {
+			PrismUtils.selectMidpoint(lower, upper);
+		}
+
+		// Non-convergence is an error (usually)
+		if (!done && errorOnNonConverge) {
+			String msg = "Iterative method (interval iteration) did not converge within " + iters + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		res = new ModelCheckerResult();
+		res.soln = lower;
+		res.accuracy = AccuracyFactory.guaranteedNumericalIterative(maxError, true);
+		res.numIters = iters;
+		res.timeTaken = timer / 1000.0;
+		return res;
+	}
+
+	/**
+	 * Deflate the upper bound {@code upper} for the states of an end component {@code ec},
+	 * in which the minimising player (who controls the states in {@code minState}) can remain.
+	 * The value of these states is at most the best value that the maximising player
+	 * can achieve by choosing to leave the end component.
+	 */
+	private void deflate(MDP mdp, BitSet ec, BitSet minState, double upper[])
+	{
+		double bestExit = 0.0;
+		for (int s : new IterableBitSet(ec)) {
+			if (!minState.get(s)) {
+				for (int c = 0, numChoices = mdp.getNumChoices(s); c < numChoices; c++) {
+					if (!mdp.allSuccessorsInSet(s, c, ec)) {
+						bestExit = Math.max(bestExit, mdp.mvMultSingle(s, c, upper));
+					}
+				}
+			}
+		}
+		for (int s : new IterableBitSet(ec)) {
+			if (upper[s] > bestExit) {
+				upper[s] = bestExit;
+			}
+		}
+	}
+
+	/**
+	 * Compute reachability probabilities using strategy iteration (Hoffman-Karp style).
+	 * The strategy of the maximising player is improved in an outer loop, and for each one,
+	 * the resulting MDP (in which only the minimising player has choices) is solved
+	 * using policy iteration (see {@link MDPModelChecker#computeReachProbsPolIter}).
+	 * The initial strategy is an attractor strategy, ensuring a positive probability
+	 * of reaching the target against any strategy of the minimising player,
+	 * which guarantees that the values increase monotonically to the optimal ones
+	 * (i.e., end components do not lead to spurious fixed points).
+	 * @param stpg The STPG
+	 * @param no Probability 0 states
+	 * @param yes Probability 1 states
+	 * @param min1 Min or max probabilities for player 1 (true=min, false=max)
+	 * @param min2 Min or max probabilities for player 2 (true=min, false=max)
+	 */
+	protected ModelCheckerResult computeReachProbsStratIter(STPG stpg, BitSet no, BitSet yes, boolean min1, boolean min2) throws PrismException
+	{
+		ModelCheckerResult res;
+		BitSet unknown, attr, maxState;
+		int i, n, iters, totalIters;
+		double soln[], soln2[];
+		boolean done;
+		long timer;
+		MDPModelChecker mcMDP;
+
+		if (!(stpg instanceof MDP)) {
+			throw new PrismNotSupportedException("Strategy iteration is not supported for games of type " + stpg.getClass().getSimpleName());
+		}
+		MDP mdp = (MDP) stpg;
+
+		// Start strategy iteration
+		timer = System.currentTimeMillis();
+		String description = (min1 ? "min" : "max") + (min2 ? "min" : "max");
+		if (verbosity >= 1)
+			mainLog.println("Starting strategy iteration (" + description + ")...");
+
+		// Create an MDP model checker (for solving the MDPs induced by strategies)
+		// The induced MDPs are solved to a much tighter precision than the termination criterion,
+		// so that only gains larger than that precision (i.e., not numerical noise) lead to a switch
+		double innerTermCritParam = termCritParam * STRAT_ITER_PRECISION_FACTOR;
+		mcMDP = new MDPModelChecker(this);
+		mcMDP.inheritSettings(this);
+		mcMDP.setLog(new PrismDevNullLog());
+		mcMDP.setTermCritParam(innerTermCritParam);
+
+		// Store num states
+		n = stpg.getNumStates();
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(yes);
+		unknown.andNot(no);
+		maxState = new BitSet();
+		for (i = 0; i < n; i++) {
+			if (!(stpg.getPlayer(i) == 1 ? min1 : min2)) {
+				maxState.set(i);
+			}
+		}
+
+		// Initial strategy (for the maximising player): attractor strategy for the target
+		// States that are not in the attractor have probability 0
+		int strat[] = new int[n];
+		Arrays.fill(strat, -1);
+		attr = new Attractor(stpg, stpg.getIncomingChoiceRelation(this, true)).compute(unknown, yes, s -> !maxState.get(s), null, strat);
+		no = (BitSet) no.clone();
+		for (int s : new IterableBitSet(unknown)) {
+			if (!attr.get(s)) {
+				no.set(s);
+				strat[s] = -1;
+			}
+		}
+		unknown.and(attr);
+
+		// Start iterations
+		int minStrat[] = new int[n];
+		soln = soln2 = null;
+		iters = totalIters = 0;
+		done = false;
+		while (!done) {
+			iters++;
+			// Solve the MDP induced by the current strategy, i.e., where the maximising player has a single choice
+			MDP mdpStrat = new MDPDroppedChoicesCached(mdp, (s, c) -> strat[s] >= 0 && c != strat[s]);
+			res = mcMDP.computeReachProbsPolIter(mdpStrat, no, yes, true, minStrat);
+			soln = res.soln;
+			totalIters += res.numIters;
+			if (soln2 == null) {
+				soln2 = soln.clone();
+			}
+			// Check if optimal, improve non-optimal choices (if strictly better, up to the precision of the inner solve)
+			// (small gains count, since a small one-step gain can lead to a much larger one overall)
+			stpg.mvMultMinMax(soln, min1, min2, soln2, unknown, false, null);
+			done = true;
+			for (int s : new IterableBitSet(unknown)) {
+				if (maxState.get(s) && soln2[s] > soln[s] && !PrismUtils.doublesAreClose(soln[s], soln2[s], innerTermCritParam, termCrit == TermCrit.ABSOLUTE)) {
+					List<Integer> opt = stpg.mvMultMinMaxSingleChoices(s, soln, min1, min2, soln2[s]);
+					if (!opt.contains(strat[s])) {
+						strat[s] = opt.get(0);
+						done = false;
+					}
+				}
+			}
+			if (!done && iters == maxIters) {
+				throw new PrismException("Strategy iteration did not converge within " + maxIters + " cycles");
+			}
+		}
+
+		// Combine the strategies of both players: choices for the minimising player are those
+		// from the last MDP solved; in 'no' states, remain in 'no' (if possible); otherwise arbitrary
+		int adv[] = new int[n];
+		for (i = 0; i < n; i++) {
+			if (unknown.get(i)) {
+				adv[i] = maxState.get(i) ? strat[i] : minStrat[i];
+			} else {
+				adv[i] = -2;
+				if (no.get(i)) {
+					for (int c = 0, numChoices = stpg.getNumChoices(i); c < numChoices; c++) {
+						if (stpg.allSuccessorsInSet(i, c, no)) {
+							adv[i] = c;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		// The strategies are now optimal, so the only error is that of solving the induced models
+		// (whose iterative solution stops at the termination criterion, and can be far from the fixpoint).
+		// So, if possible, solve the final induced DTMC again, with interval iteration,
+		// to get a sound error bound (in 'no' states, any choice can be used since they are not in 'remain').
+		Accuracy accuracy;
+		if (precomp && prob0 && prob1) {
+			int advAll[] = adv.clone();
+			for (i = 0; i < n; i++) {
+				if (advAll[i] < 0) {
+					advAll[i] = 0;
+				}
+			}
+			BitSet remain = (BitSet) no.clone();
+			remain.flip(0, n);
+			DTMCModelChecker mcDTMC = new DTMCModelChecker(this);
+			mcDTMC.inheritSettings(this);
+			mcDTMC.setLog(new PrismDevNullLog());
+			mcDTMC.setDoIntervalIteration(true);
+			res = mcDTMC.computeReachProbs(new DTMCFromMDPMemorylessAdversary(mdp, advAll), remain, yes, null, null);
+			soln = res.soln;
+			totalIters += res.numIters;
+			accuracy = res.accuracy;
+		} else {
+			// Otherwise, estimate the error from the residual of the solution vector in the final induced model
+			double maxDiff = 0.0;
+			for (int s : new IterableBitSet(unknown)) {
+				double d = mdp.mvMultSingle(s, adv[s], soln);
+				double diff = termCrit == TermCrit.ABSOLUTE ? Math.abs(d - soln[s]) : Math.abs(d - soln[s]) / Math.abs(soln[s]);
+				maxDiff = Math.max(maxDiff, diff);
+			}
+			accuracy = AccuracyFactory.valueIteration(termCritParam, maxDiff, termCrit == TermCrit.ABSOLUTE);
+		}
+
+		// Finished strategy iteration
+		timer = System.currentTimeMillis() - timer;
+		if (verbosity >= 1) {
+			mainLog.print("Strategy iteration (" + description + ")");
+			mainLog.println(" took " + iters + " cycles (" + totalIters + " iterations in total) and " + timer / 1000.0 + " seconds.");
+		}
+
+		// Store results/strategy
+		res = new ModelCheckerResult();
+		res.soln = soln;
+		res.accuracy = accuracy;
+		res.numIters = totalIters;
+		res.timeTaken = timer / 1000.0;
+		if (generateStrategy || exportAdv) {
+			if (generateStrategy) {
+				res.strat = new MDStrategyArray(stpg, adv);
+			}
+			if (exportAdv) {
+				PrismLog out = new PrismFileLog(exportAdvFilename);
+				if (exportAdvFilename.lastIndexOf('.') != -1 && exportAdvFilename.substring(exportAdvFilename.lastIndexOf('.') + 1).equals("dot")) {
+					stpg.exportToDotFileWithStrat(out, null, adv);
+				} else {
+					for (i = 0; i < n; i++) {
+						out.println(i + " " + (adv[i] >= 0 ? stpg.getAction(i, adv[i]) : "-"));
+					}
+					out.println();
+				}
+				out.close();
+			}
+		}
+
+		return res;
+	}
+
 	/**
 	 * Construct strategy information for min/max reachability probabilities.
 	 * (More precisely, list of indices of player 1 choices resulting in min/max.)
@@ -801,6 +1393,9 @@ public class STPGModelChecker extends ProbModelChecker
 		if (verbosity >= 1)
 			mainLog.println("\nStarting bounded probabilistic reachability...");
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Store num states
 		n = stpg.getNumStates();
 
@@ -958,6 +1553,19 @@ public class STPGModelChecker extends ProbModelChecker
 	public ModelCheckerResult computeReachRewards(STPG stpg, STPGRewards rewards, BitSet target, boolean min1, boolean min2, double init[], BitSet known,
 			int unreachingSemantics) throws PrismException
 	{
+		if (doIntervalIteration) {
+			mainLog.printWarning("Interval iteration is currently not supported for expected rewards on games, using standard solution method");
+		}
+		// Strategy iteration is only implemented for probabilities, so use value iteration
+		if (solnMethod == SolnMethod.POLICY_ITERATION) {
+			mainLog.printWarning("Using value iteration, since strategy iteration is not supported for expected rewards on games");
+			solnMethod = SolnMethod.VALUE_ITERATION;
+			try {
+				return computeReachRewards(stpg, rewards, target, min1, min2, init, known, unreachingSemantics);
+			} finally {
+				solnMethod = SolnMethod.POLICY_ITERATION;
+			}
+		}
 		switch (unreachingSemantics) {
 		case R_INFINITY:
 			return computeReachRewardsInfinity(stpg, rewards, target, min1, min2, init, known);
@@ -1122,6 +1730,72 @@ public class STPGModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute expected reachability rewards using optimistic value iteration.
+	 * This is only sound if the values are the least fixed point of the Bellman operator,
+	 * e.g., if rewards are positive or unreaching runs get their cumulative reward.
+	 * @param stpg The STPG
+	 * @param rewards The rewards
+	 * @param target Target states
+	 * @param inf States for which reward is infinite
+	 * @param min1 Min or max rewards for player 1 (true=min, false=max)
+	 * @param min2 Min or max rewards for player 2 (true=min, false=max)
+	 * @param init Optionally, an initial solution vector (will be overwritten) 
+	 * @param known Optionally, a set of states for which the exact answer is known
+	 * Note: if 'known' is specified (i.e. is non-null, 'init' must also be given and is used for the exact values.
+	 * Other values in 'init' are ignored, since iteration needs to start from a lower bound.
+	 */
+	protected ModelCheckerResult computeReachRewardsOptimistic(STPG stpg, STPGRewards rewards, BitSet target, BitSet inf, boolean min1, boolean min2,
+			double init[], BitSet known) throws PrismException
+	{
+		BitSet unknown;
+		int i, n;
+		double soln[];
+		long timer;
+
+		if (exportAdv || generateStrategy) {
+			throw new PrismNotSupportedException("Strategy generation is currently not supported for optimistic value iteration");
+		}
+		if (useDiscounting) {
+			throw new PrismNotSupportedException("Optimistic value iteration is currently not supported for discounted rewards");
+		}
+
+		// Start optimistic value iteration
+		timer = System.currentTimeMillis();
+		String description = (min1 ? "min" : "max") + (min2 ? "min" : "max");
+		if (verbosity >= 1)
+			mainLog.println("Starting optimistic value iteration (" + description + ")...");
+
+		// Store num states
+		n = stpg.getNumStates();
+
+		// Initialise solution vector. Use (where available) the following in order of preference:
+		// (1) exact answer, if already known; (2) 0.0/infinity if in target/inf; (3) 0.0
+		soln = (init == null) ? new double[n] : init;
+		for (i = 0; i < n; i++)
+			soln[i] = (known != null && known.get(i)) ? init[i] : inf.get(i) ? Double.POSITIVE_INFINITY : 0.0;
+
+		// Determine set of states actually need to compute values for
+		unknown = new BitSet();
+		unknown.set(0, n);
+		unknown.andNot(target);
+		unknown.andNot(inf);
+		if (known != null)
+			unknown.andNot(known);
+
+		OptimisticValueIteration.BellmanOperator op;
+		if (stpg instanceof MDP) {
+			// Build the rewards once, rather than for every state update
+			MDP mdp = (MDP) stpg;
+			MDPRewards mdpRewards = rewards.buildMDPRewards();
+			op = (s, vect) -> mdp.mvMultRewMinMaxSingle(s, vect, mdpRewards, stpg.getPlayer(s) == 1 ? min1 : min2, null);
+		} else {
+			op = (s, vect) -> stpg.mvMultRewMinMaxSingle(s, vect, rewards, min1, min2, null);
+		}
+		OptimisticValueIteration ovi = new OptimisticValueIteration(this, termCrit == TermCrit.ABSOLUTE, termCritParam, Double.POSITIVE_INFINITY);
+		return ovi.solve(description, soln, unknown, op, op, timer);
+	}
+
 	/**
 	 * Computes the reachability reward under the semantics where nonreaching
 	 * runs get infinity.
@@ -1149,6 +1823,9 @@ public class STPGModelChecker extends ProbModelChecker
 		if (verbosity >= 1)
 			mainLog.println("\nStarting expected reachability...");
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Check for deadlocks in non-target state (because breaks e.g. prob1)
 		stpg.checkForDeadlocks(target);
 
@@ -1245,6 +1922,7 @@ public class STPGModelChecker extends ProbModelChecker
 			// Compute the value when rewards are nonzero
 			switch (solnMethod) {
 			case VALUE_ITERATION:
+			case OPTIMISTIC_VALUE_ITERATION:
 				res = computeReachRewardsValIter(stpg, rewards, target, inf, min1, min2, init, known);
 				break;
 			default:
@@ -1274,6 +1952,16 @@ public class STPGModelChecker extends ProbModelChecker
 		case VALUE_ITERATION:
 			res = computeReachRewardsValIter(stpg, rewards, target, inf, min1, min2, init, known);
 			break;
+		case OPTIMISTIC_VALUE_ITERATION:
+			// With zero rewards, the values are not the least fixed point
+			// (iteration is from the over-approximation computed above), so use value iteration
+			if (!allNonzero && !(rewards instanceof StateRewardsConstant)) {
+				mainLog.printWarning("Using value iteration, since optimistic value iteration is not applicable for zero rewards");
+				res = computeReachRewardsValIter(stpg, rewards, target, inf, min1, min2, init, known);
+			} else {
+				res = computeReachRewardsOptimistic(stpg, rewards, target, inf, min1, min2, init, known);
+			}
+			break;
 		default:
 			throw new PrismException("Unknown STPG solution method " + solnMethod);
 		}
@@ -1318,6 +2006,9 @@ public class STPGModelChecker extends ProbModelChecker
 		if (verbosity >= 1)
 			mainLog.println("\nStarting expected reachability...");
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Check for deadlocks in non-target state (because breaks e.g. prob1)
 		stpg.checkForDeadlocks(target);
 
@@ -1412,6 +2103,9 @@ public class STPGModelChecker extends ProbModelChecker
 		case VALUE_ITERATION:
 			res = computeReachRewardsValIter(stpg, rewards, target, inf, min1, min2, init, known);
 			break;
+		case OPTIMISTIC_VALUE_ITERATION:
+			res = computeReachRewardsOptimistic(stpg, rewards, target, inf, min1, min2, init, known);
+			break;
 		default:
 			throw new PrismException("Unknown STPG solution method " + solnMethod);
 		}
@@ -1454,11 +2148,26 @@ public class STPGModelChecker extends ProbModelChecker
 		int[] adv = null;
 		boolean updateChoice;
 
+		// The rich man's strategy (see below) is derived by comparing values exactly,
+		// so use (standard) value iteration rather than optimistic value iteration
+		if (solnMethod == SolnMethod.OPTIMISTIC_VALUE_ITERATION) {
+			mainLog.printWarning("Using value iteration, since optimistic value iteration is not applicable for zero-reward semantics");
+			solnMethod = SolnMethod.VALUE_ITERATION;
+			try {
+				return computeReachRewardsZero(stpg, rewards, target, min1, min2, init, known);
+			} finally {
+				solnMethod = SolnMethod.OPTIMISTIC_VALUE_ITERATION;
+			}
+		}
+
 		// Start expected reachability
 		timer = System.currentTimeMillis();
 		if (verbosity >= 1)
 			mainLog.println("\nStarting expected reachability...");
 
+		// Solve using a sparse copy of the game (if not already sparse)
+		stpg = getSparseSTPG(stpg);
+
 		// Check for deadlocks in non-target state (because breaks e.g. prob1)
 		stpg.checkForDeadlocks(target);
 
@@ -0,0 +1,465 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import explicit.rewards.MDPRewards;
+import explicit.rewards.STPGRewards;
+import parser.VarList;
+import prism.ModelType;
+import prism.Prism;
+import prism.PrismException;
+import prism.PrismLog;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a (turn-based) stochastic two-player game (STPG).
+ * Transitions are stored as for {@link MDPSparse}, and the player owning each state in a compact array.
+ * This is much faster to access than {@link STPGExplicit} and should also be more compact.
+ * The downside is that it cannot be modified once constructed.
+ */
+public class STPGSparse extends MDPSparse implements STPG
+{
+	/** Player (1 or 2) owning each state */
+	protected int statePlayers[];
+
+	// Constructors
+
+	/**
+	 * Copy constructor (from STPGExplicit).
+	 * Player info is taken from {@link STPGExplicit#getPlayer(int)} at the time of the copy.
+	 */
+	public STPGSparse(STPGExplicit stpg)
+	{
+		super(stpg);
+		statePlayers = new int[numStates];
+		for (int s = 0; s < numStates; s++) {
+			statePlayers[s] = stpg.getPlayer(s);
+		}
+	}
+
+	/**
+	 * Constructor: build from the sparse (CSR) storage of the transitions (as for
+	 * {@link MDPSparse#MDPSparse(int, int[], int[], int[], double[], Object[])})
+	 * and the player (1 or 2) owning each state. The arrays are not copied.
+	 */
+	public STPGSparse(int numStates, int rowStarts[], int choiceStarts[], int cols[], double nonZeros[], Object actions[], int statePlayers[])
+	{
+		super(numStates, rowStarts, choiceStarts, cols, nonZeros, actions);
+		this.statePlayers = statePlayers;
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public ModelType getModelType()
+	{
+		// Resolve conflict: STPG interface does not (currently) extend MDP
+		return STPG.super.getModelType();
+	}
+
+	@Override
+	public void exportToPrismExplicitTra(PrismLog out)
+	{
+		// Resolve conflict: STPG interface does not (currently) extend MDP
+		STPG.super.exportToPrismExplicitTra(out);
+	}
+
+	@Override
+	public void exportPlayers(int exportType, VarList varList, PrismLog log) throws PrismException
+	{
+		log.println(numStates);
+		for (int i = 0; i < numStates; i++) {
+			if (exportType != Prism.EXPORT_MATLAB)
+				log.println(i + ":" + getPlayer(i));
+			else
+				log.println(getPlayer(i));
+		}
+	}
+
+	@Override
+	public void exportToPrismLanguage(final String filename) throws PrismException
+	{
+		// Resolve conflict: STPG interface does not (currently) extend MDP
+		STPG.super.exportToPrismLanguage(filename);
+	}
+
+	@Override
+	public String infoString()
+	{
+		// Resolve conflict: STPG interface does not (currently) extend MDP
+		return STPG.super.infoString();
+	}
+
+	@Override
+	public String infoStringTable()
+	{
+		// Resolve conflict: STPG interface does not (currently) extend MDP
+		return STPG.super.infoStringTable();
+	}
+
+	@Override
+	public void checkForDeadlocks(BitSet except) throws PrismException
+	{
+		for (int i = 0; i < numStates; i++) {
+			if (rowStarts[i] == rowStarts[i + 1] && (except == null || !except.get(i)))
+				throw new PrismException("Game has a deadlock in state " + i + (statesList == null ? "" : ": " + statesList.get(i)));
+		}
+	}
+
+	// Accessors (for STPG)
+
+	@Override
+	public int getPlayer(int s)
+	{
+		return statePlayers[s];
+	}
+
+	@Override
+	public boolean isChoiceNested(int s, int i)
+	{
+		// No nested choices
+		return false;
+	}
+
+	@Override
+	public int getNumNestedChoices(int s, int i)
+	{
+		// No nested choices
+		return 0;
+	}
+
+	@Override
+	public Object getNestedAction(int s, int i, int j)
+	{
+		// No nested choices
+		return null;
+	}
+
+	@Override
+	public int getNumNestedTransitions(int s, int i, int j)
+	{
+		// No nested choices
+		return 0;
+	}
+
+	@Override
+	public Iterator<Entry<Integer, Double>> getNestedTransitionsIterator(int s, int i, int j)
+	{
+		// No nested choices
+		return null;
+	}
+
+	@Override
+	public boolean allSuccessorsInSet(int s, int i, BitSet set)
+	{
+		int j = rowStarts[s] + i;
+		for (int k = choiceStarts[j]; k < choiceStarts[j + 1]; k++) {
+			if (!set.get(cols[k]))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void prob0step(BitSet subset, BitSet u, boolean forall1, boolean forall2, BitSet result)
+	{
+		int j, k, l1, h1, l2, h2;
+		boolean b1, some, forall;
+
+		for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+			forall = (statePlayers[s] == 1) ? forall1 : forall2;
+			b1 = forall; // there exists or for all
+			l1 = rowStarts[s];
+			h1 = rowStarts[s + 1];
+			for (j = l1; j < h1; j++) {
+				some = false;
+				l2 = choiceStarts[j];
+				h2 = choiceStarts[j + 1];
+				for (k = l2; k < h2; k++) {
+					if (u.get(cols[k])) {
+						some = true;
+						break;
+					}
+				}
+				if (forall) {
+					if (!some) {
+						b1 = false;
+						break;
+					}
+				} else {
+					if (some) {
+						b1 = true;
+						break;
+					}
+				}
+			}
+			result.set(s, b1);
+		}
+	}
+
+	@Override
+	public void prob1step(BitSet subset, BitSet u, BitSet v, boolean forall1, boolean forall2, BitSet result)
+	{
+		int j, k, l1, h1, l2, h2;
+		boolean b1, some, all, forall;
+
+		for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+			forall = (statePlayers[s] == 1) ? forall1 : forall2;
+			b1 = forall; // there exists or for all
+			l1 = rowStarts[s];
+			h1 = rowStarts[s + 1];
+			for (j = l1; j < h1; j++) {
+				some = false;
+				all = true;
+				l2 = choiceStarts[j];
+				h2 = choiceStarts[j + 1];
+				for (k = l2; k < h2; k++) {
+					if (!u.get(cols[k])) {
+						all = false;
+						break;
+					}
+					if (v.get(cols[k])) {
+						some = true;
+					}
+				}
+				if (forall) {
+					if (!(some && all)) {
+						b1 = false;
+						break;
+					}
+				} else {
+					if (some && all) {
+						b1 = true;
+						break;
+					}
+				}
+			}
+			result.set(s, b1);
+		}
+	}
+
+	@Override
+	public void mvMultMinMax(double vect[], boolean min1, boolean min2, double result[], BitSet subset, boolean complement, int adv[])
+	{
+		int s;
+		// Loop depends on subset/complement arguments
+		if (subset == null) {
+			for (s = 0; s < numStates; s++) {
+				result[s] = mvMultMinMaxSingle(s, vect, statePlayers[s] == 1 ? min1 : min2, adv);
+			}
+		} else if (complement) {
+			for (s = subset.nextClearBit(0); s < numStates; s = subset.nextClearBit(s + 1)) {
+				result[s] = mvMultMinMaxSingle(s, vect, statePlayers[s] == 1 ? min1 : min2, adv);
+			}
+		} else {
+			for (s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+				result[s] = mvMultMinMaxSingle(s, vect, statePlayers[s] == 1 ? min1 : min2, adv);
+			}
+		}
+	}
+
+	@Override
+	public double mvMultMinMaxSingle(int s, double vect[], boolean min1, boolean min2)
+	{
+		return mvMultMinMaxSingle(s, vect, statePlayers[s] == 1 ? min1 : min2, null);
+	}
+
+	@Override
+	public List<Integer> mvMultMinMaxSingleChoices(int s, double vect[], boolean min1, boolean min2, double val)
+	{
+		return mvMultMinMaxSingleChoices(s, vect, statePlayers[s] == 1 ? min1 : min2, val);
+	}
+
+	@Override
+	public double mvMultGSMinMax(double vect[], boolean min1, boolean min2, BitSet subset, boolean complement, boolean absolute)
+	{
+		int s;
+		double d, diff, maxDiff = 0.0;
+		// Loop depends on subset/complement arguments
+		if (subset == null) {
+			for (s = 0; s < numStates; s++) {
+				d = mvMultJacMinMaxSingle(s, vect, min1, min2);
+				diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+				maxDiff = diff > maxDiff ? diff : maxDiff;
+				vect[s] = d;
+			}
+		} else if (complement) {
+			for (s = subset.nextClearBit(0); s < numStates; s = subset.nextClearBit(s + 1)) {
+				d = mvMultJacMinMaxSingle(s, vect, min1, min2);
+				diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+				maxDiff = diff > maxDiff ? diff : maxDiff;
+				vect[s] = d;
+			}
+		} else {
+			for (s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+				d = mvMultJacMinMaxSingle(s, vect, min1, min2);
+				diff = absolute ? (Math.abs(d - vect[s])) : (Math.abs(d - vect[s]) / d);
+				maxDiff = diff > maxDiff ? diff : maxDiff;
+				vect[s] = d;
+			}
+		}
+		return maxDiff;
+	}
+
+	@Override
+	public double mvMultJacMinMaxSingle(int s, double vect[], boolean min1, boolean min2)
+	{
+		return mvMultJacMinMaxSingle(s, vect, statePlayers[s] == 1 ? min1 : min2, null);
+	}
+
+	@Override
+	public void mvMultRewMinMax(double vect[], STPGRewards rewards, boolean min1, boolean min2, double result[], BitSet subset, boolean complement, int adv[])
+	{
+		mvMultRewMinMax(vect, rewards, min1, min2, result, subset, complement, adv, 1.0);
+	}
+
+	@Override
+	public void mvMultRewMinMax(double vect[], STPGRewards rewards, boolean min1, boolean min2, double result[], BitSet subset, boolean complement, int adv[],
+			double disc)
+	{
+		int s;
+		MDPRewards mdpRewards = rewards.buildMDPRewards();
+		// Loop depends on subset/complement arguments
+		if (subset == null) {
+			for (s = 0; s < numStates; s++) {
+				result[s] = mvMultRewMinMaxSingle(s, vect, mdpRewards, statePlayers[s] == 1 ? min1 : min2, adv, disc);
+			}
+		} else if (complement) {
+			for (s = subset.nextClearBit(0); s < numStates; s = subset.nextClearBit(s + 1)) {
+				result[s] = mvMultRewMinMaxSingle(s, vect, mdpRewards, statePlayers[s] == 1 ? min1 : min2, adv, disc);
+			}
+		} else {
+			for (s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+				result[s] = mvMultRewMinMaxSingle(s, vect, mdpRewards, statePlayers[s] == 1 ? min1 : min2, adv, disc);
+			}
+		}
+	}
+
+	@Override
+	public double mvMultRewMinMaxSingle(int s, double vect[], STPGRewards rewards, boolean min1, boolean min2, int adv[])
+	{
+		MDPRewards mdpRewards = rewards.buildMDPRewards();
+		return mvMultRewMinMaxSingle(s, vect, mdpRewards, statePlayers[s] == 1 ? min1 : min2, adv);
+	}
+
+	@Override
+	public List<Integer> mvMultRewMinMaxSingleChoices(int s, double vect[], STPGRewards rewards, boolean min1, boolean min2, double val)
+	{
+		MDPRewards mdpRewards = rewards.buildMDPRewards();
+		return mvMultRewMinMaxSingleChoices(s, vect, mdpRewards, statePlayers[s] == 1 ? min1 : min2, val);
+	}
+
+	/**
+	 * Do a single row of matrix-vector multiplication and sum of action reward followed by min/max,
+	 * discounting the vector values by {@code disc} (as for {@link STPGExplicit}).
+	 * Optionally, store optimal adversary info.
+	 * @param s Row index
+	 * @param vect Vector to multiply by
+	 * @param mdpRewards The rewards
+	 * @param min Min or max for (true=min, false=max)
+	 * @param adv Storage for adversary choice indices (ignored if null)
+	 * @param disc Discount factor
+	 */
+	public double mvMultRewMinMaxSingle(int s, double vect[], MDPRewards mdpRewards, boolean min, int adv[], double disc)
+	{
+		int j, k, l1, h1, l2, h2, advCh = -1;
+		double d, minmax;
+		boolean first;
+
+		minmax = 0;
+		first = true;
+		l1 = rowStarts[s];
+		h1 = rowStarts[s + 1];
+		for (j = l1; j < h1; j++) {
+			// Compute sum for this distribution
+			d = mdpRewards.getTransitionReward(s, j - l1);
+			l2 = choiceStarts[j];
+			h2 = choiceStarts[j + 1];
+			for (k = l2; k < h2; k++) {
+				d += nonZeros[k] * vect[cols[k]] * disc;
+			}
+			// Check whether we have exceeded min/max so far
+			if (first || (min && d < minmax) || (!min && d > minmax)) {
+				minmax = d;
+				// If adversary generation is enabled, remember optimal choice
+				if (adv != null) {
+					advCh = j - l1;
+				}
+			}
+			first = false;
+		}
+		// If adversary generation is enabled, store optimal choice
+		// (as for STPGExplicit, the choice is always updated)
+		if (adv != null & !first) {
+			adv[s] = advCh;
+		}
+
+		// Add state reward (doesn't affect min/max)
+		minmax += mdpRewards.getStateReward(s);
+
+		return minmax;
+	}
+
+	// Standard methods
+
+	@Override
+	public String toString()
+	{
+		int i, j, k, l1, h1, l2, h2;
+		Object o;
+		String s = "[ ";
+		for (i = 0; i < numStates; i++) {
+			if (i > 0)
+				s += ", ";
+			s += i + "(PP-" + getPlayer(i) + "): ";
+			s += "[";
+			l1 = rowStarts[i];
+			h1 = rowStarts[i + 1];
+			for (j = l1; j < h1; j++) {
+				if (j > l1)
+					s += ",";
+				o = getAction(i, j - l1);
+				if (o != null)
+					s += o + ":";
+				s += "{";
+				l2 = choiceStarts[j];
+				h2 = choiceStarts[j + 1];
+				for (k = l2; k < h2; k++) {
+					if (k > l2)
+						s += ", ";
+					s += cols[k] + "=" + nonZeros[k];
+				}
+				s += "}";
+			}
+			s += "]";
+		}
+		s += " ]\n";
+		return s;
+	}
+}
@@ -0,0 +1,607 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Vector;
+
+import prism.ModelType;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+import prism.PrismUtils;
+
+/**
+ * Class to build an explicit-state model directly in sparse (CSR) form, as its states are explored.
+ * Choices and transitions are appended to growable primitive arrays, so no intermediate mutable
+ * model (e.g., MDPSimple, with a {@link Distribution} per choice) needs to be stored.
+ * States must be explored in order of their indices (as in {@link ConstructModel}):
+ * call {@link #startState(int)} for each one, then {@link #startChoice(Object)} (or
+ * {@link #startChoice(int[])} for CSGs) and {@link #addTransition(int, double)} for its
+ * choices/transitions. Finally, call {@link #build(int[])} to create the model.
+ * <br><br>
+ * The treatment of choices matches that of the mutable models: duplicate transitions in a choice
+ * are merged (by summing probabilities), and duplicate choices (same action and distribution)
+ * in a state are only stored once. For DTMCs, all transitions of a state are merged into one.
+ * <br><br>
+ * The model is created from the CSR arrays, without copying them, once exploration is complete,
+ * in its final (permuted) state order: DTMCs, MDPs, STPGs, SMGs and CSGs are built as
+ * {@link DTMCSparse}, {@link MDPSparse}, {@link STPGSparse}, {@link SMGSparse} and {@link CSGSparse}, respectively.
+ */
+public class SparseModelBuilder
+{
+	// Model info
+	private ModelType modelType;
+	/** Should actions be attached to choices (and used to distinguish them)? */
+	private boolean distinguishActions = true;
+	/** Find deadlocks? */
+	private boolean findDeadlocks = true;
+	/** Fix deadlocks (by adding self-loops)? (always done for CSGs if deadlocks are found) */
+	private boolean fixDeadlocks = true;
+	/** Player names (games only) */
+	private List<String> playerNames;
+	/** Action names (CSGs only) */
+	private List<Object> csgActions;
+
+	// Model storage (CSR)
+	/** Number of states started so far */
+	private int numStates;
+	/** Start of the choices for each state (entry numStates is set once the last state is finished) */
+	private int rowStarts[] = new int[16];
+	/** Number of (finished) choices so far */
+	private int numChoices;
+	/** Start of the transitions for each choice (entry numChoices is the start of the current one) */
+	private int choiceStarts[] = new int[16];
+	/** Action for each choice (null until a non-null action is added) */
+	private Object actions[];
+	/** Action indexes for each choice (CSGs only) */
+	private int indexes[][];
+	/** Number of transitions so far (including those of the current choice) */
+	private int numTransitions;
+	/** Destination state for each transition */
+	private int cols[] = new int[64];
+	/** Probability for each transition */
+	private double probs[] = new double[64];
+	/** Player owning each state (turn-based games only; 0-indexed) */
+	private int players[];
+	/** Initial states */
+	private List<Integer> initialStates = new ArrayList<>();
+	/** Deadlock states */
+	private BitSet deadlocks = new BitSet();
+	/** Is there a choice currently being added to? */
+	private boolean inChoice = false;
+
+	/**
+	 * Can models of type {@code modelType} be built by this class?
+	 */
+	public static boolean canBuild(ModelType modelType)
+	{
+		switch (modelType) {
+		case DTMC:
+		case MDP:
+		case STPG:
+		case SMG:
+		case CSG:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Create a builder for a model of type {@code modelType}
+	 * (which should be one for which {@link #canBuild(ModelType)} is true).
+	 */
+	public SparseModelBuilder(ModelType modelType) throws PrismException
+	{
+		if (!canBuild(modelType)) {
+			throw new PrismNotSupportedException("Sparse model construction not supported for " + modelType + "s");
+		}
+		this.modelType = modelType;
+		if (modelType == ModelType.CSG) {
+			indexes = new int[16][];
+		}
+		if (modelType == ModelType.STPG || modelType == ModelType.SMG) {
+			players = new int[16];
+		}
+	}
+
+	// Options/info
+
+	/**
+	 * Should actions be attached to choices (and used to distinguish them)?
+	 */
+	public void setDistinguishActions(boolean distinguishActions)
+	{
+		this.distinguishActions = distinguishActions;
+	}
+
+	/**
+	 * Set whether deadlocks are found (and stored in the model)
+	 * and whether they are fixed (by adding self-loops).
+	 * For CSGs, deadlocks are always fixed, if found.
+	 */
+	public void setDeadlockHandling(boolean findDeadlocks, boolean fixDeadlocks)
+	{
+		this.findDeadlocks = findDeadlocks;
+		this.fixDeadlocks = fixDeadlocks;
+	}
+
+	/**
+	 * Set the player names (for games).
+	 */
+	public void setPlayerNames(List<String> playerNames)
+	{
+		this.playerNames = playerNames;
+	}
+
+	/**
+	 * Set the action names (for CSGs).
+	 */
+	public void setActions(List<Object> csgActions)
+	{
+		this.csgActions = csgActions;
+	}
+
+	/**
+	 * Get the number of states started so far.
+	 */
+	public int getNumStates()
+	{
+		return numStates;
+	}
+
+	// Incremental construction
+
+	/**
+	 * Add state {@code s} to the set of initial states.
+	 */
+	public void addInitialState(int s)
+	{
+		initialStates.add(s);
+	}
+
+	/**
+	 * Start adding choices/transitions for state {@code s},
+	 * which should be the next state, i.e., equal to the number of states started so far.
+	 */
+	public void startState(int s)
+	{
+		if (s != numStates) {
+			throw new IllegalArgumentException("States must be built in order (expected " + numStates + ", got " + s + ")");
+		}
+		if (numStates > 0) {
+			finishState();
+		}
+		if (numStates + 1 >= rowStarts.length) {
+			rowStarts = Arrays.copyOf(rowStarts, 2 * rowStarts.length);
+			if (players != null) {
+				players = Arrays.copyOf(players, rowStarts.length);
+			}
+		}
+		rowStarts[numStates++] = numChoices;
+		// For DTMCs, all transitions go in a single choice
+		if (modelType == ModelType.DTMC) {
+			openChoice(null, null);
+		}
+	}
+
+	/**
+	 * Set the player (0-indexed) owning the current state (turn-based games only).
+	 */
+	public void setPlayer(int player)
+	{
+		players[numStates - 1] = player;
+	}
+
+	/**
+	 * Start a new choice, labelled with {@code action}, for the current state
+	 * (ignored for DTMCs, where there is only one).
+	 */
+	public void startChoice(Object action)
+	{
+		if (modelType != ModelType.DTMC) {
+			closeChoice();
+			openChoice(distinguishActions ? action : null, null);
+		}
+	}
+
+	/**
+	 * Start a new choice, with action indexes {@code idx}, for the current state (CSGs only).
+	 */
+	public void startChoice(int idx[])
+	{
+		closeChoice();
+		openChoice(null, idx);
+	}
+
+	/**
+	 * Add a transition, to state {@code dest} with probability {@code prob}, to the current choice.
+	 */
+	public void addTransition(int dest, double prob)
+	{
+		if (numTransitions == cols.length) {
+			if (numTransitions == Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("Too many transitions to store");
+			}
+			int newLength = (int) Math.min(Integer.MAX_VALUE - 8, 2L * cols.length);
+			cols = Arrays.copyOf(cols, newLength);
+			probs = Arrays.copyOf(probs, newLength);
+		}
+		cols[numTransitions] = dest;
+		probs[numTransitions++] = prob;
+	}
+
+	/**
+	 * Open a new choice, with the given action/indexes.
+	 */
+	private void openChoice(Object action, int idx[])
+	{
+		if (numChoices + 1 >= choiceStarts.length) {
+			choiceStarts = Arrays.copyOf(choiceStarts, 2 * choiceStarts.length);
+			if (actions != null) {
+				actions = Arrays.copyOf(actions, choiceStarts.length);
+			}
+			if (indexes != null) {
+				indexes = Arrays.copyOf(indexes, choiceStarts.length);
+			}
+		}
+		choiceStarts[numChoices] = numTransitions;
+		if (action != null) {
+			if (actions == null) {
+				actions = new Object[choiceStarts.length];
+			}
+			actions[numChoices] = action;
+		} else if (actions != null) {
+			actions[numChoices] = null;
+		}
+		if (indexes != null) {
+			indexes[numChoices] = idx;
+		}
+		inChoice = true;
+	}
+
+	/**
+	 * Finish the current choice (if any): merge duplicate transitions,
+	 * and discard the choice if it duplicates an existing one for the same state.
+	 */
+	private void closeChoice()
+	{
+		if (!inChoice) {
+			return;
+		}
+		inChoice = false;
+		int start = choiceStarts[numChoices];
+		numTransitions = start + mergeTransitions(start, numTransitions);
+		// Only store a choice once per state (except for DTMCs, which have one)
+		if (modelType != ModelType.DTMC) {
+			for (int c = rowStarts[numStates - 1]; c < numChoices; c++) {
+				if (choicesEqual(c, numChoices)) {
+					numTransitions = start;
+					return;
+				}
+			}
+		}
+		choiceStarts[++numChoices] = numTransitions;
+	}
+
+	/**
+	 * Finish the current state, checking for (and maybe fixing) deadlocks.
+	 */
+	private void finishState()
+	{
+		int s = numStates - 1;
+		closeChoice();
+		boolean deadlock = modelType == ModelType.DTMC ? choiceStarts[numChoices] == choiceStarts[numChoices - 1] : rowStarts[s] == numChoices;
+		if (deadlock && findDeadlocks) {
+			deadlocks.set(s);
+			if (modelType == ModelType.DTMC) {
+				if (fixDeadlocks) {
+					addTransition(s, 1.0);
+					choiceStarts[numChoices] = numTransitions;
+				}
+			} else if (fixDeadlocks || modelType == ModelType.CSG) {
+				int idx[] = null;
+				if (modelType == ModelType.CSG) {
+					idx = new int[playerNames.size()];
+					Arrays.fill(idx, -1);
+				}
+				openChoice(null, idx);
+				addTransition(s, 1.0);
+				closeChoice();
+			}
+		}
+		rowStarts[numStates] = numChoices;
+	}
+
+	/**
+	 * Sort the transitions in positions {@code start...end-1} by destination,
+	 * merging duplicates (by summing, in order, their probabilities) and removing
+	 * those with probability 0. Returns the resulting number of transitions.
+	 */
+	private int mergeTransitions(int start, int end)
+	{
+		// Stable insertion sort (choices are generally small)
+		for (int i = start + 1; i < end; i++) {
+			int col = cols[i];
+			double prob = probs[i];
+			int j = i - 1;
+			while (j >= start && cols[j] > col) {
+				cols[j + 1] = cols[j];
+				probs[j + 1] = probs[j];
+				j--;
+			}
+			cols[j + 1] = col;
+			probs[j + 1] = prob;
+		}
+		int k = start;
+		for (int i = start; i < end; i++) {
+			if (k > start && cols[k - 1] == cols[i]) {
+				probs[k - 1] += probs[i];
+			} else {
+				cols[k] = cols[i];
+				probs[k++] = probs[i];
+			}
+		}
+		int n = start;
+		for (int i = start; i < k; i++) {
+			if (probs[i] != 0.0) {
+				cols[n] = cols[i];
+				probs[n++] = probs[i];
+			}
+		}
+		return n - start;
+	}
+
+	/**
+	 * Are choices {@code c1} and {@code c2} the same (action and distribution)?
+	 * Choice {@code c2} can be the current one (which needs to have had transitions merged).
+	 */
+	private boolean choicesEqual(int c1, int c2)
+	{
+		int start1 = choiceStarts[c1], start2 = choiceStarts[c2];
+		int n = choiceStarts[c1 + 1] - start1;
+		int end2 = c2 == numChoices ? numTransitions : choiceStarts[c2 + 1];
+		if (end2 - start2 != n) {
+			return false;
+		}
+		if (actions != null && !Objects.equals(actions[c1], actions[c2])) {
+			return false;
+		}
+		if (indexes != null && !Arrays.equals(indexes[c1], indexes[c2])) {
+			return false;
+		}
+		for (int i = 0; i < n; i++) {
+			if (cols[start1 + i] != cols[start2 + i] || !PrismUtils.doublesAreEqual(probs[start1 + i], probs[start2 + i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Model creation
+
+	/**
+	 * Create the model, once all states have been explored, applying the permutation
+	 * {@code permut} to state indices, i.e., state index i becomes permut[i] (if non-null).
+	 * Transitions within each choice are ordered by (permuted) destination.
+	 * The builder should not be used after this.
+	 */
+	public ModelExplicit build(int permut[]) throws PrismException
+	{
+		if (numStates > 0) {
+			finishState();
+		}
+		int n = numStates;
+		if (permut != null) {
+			permute(permut);
+		} else {
+			// Trim storage to size
+			rowStarts = Arrays.copyOf(rowStarts, n + 1);
+			choiceStarts = Arrays.copyOf(choiceStarts, numChoices + 1);
+			cols = Arrays.copyOf(cols, numTransitions);
+			probs = Arrays.copyOf(probs, numTransitions);
+			if (actions != null) {
+				actions = Arrays.copyOf(actions, numChoices);
+			}
+			if (indexes != null) {
+				indexes = Arrays.copyOf(indexes, numChoices);
+			}
+			if (players != null) {
+				players = Arrays.copyOf(players, n);
+			}
+		}
+
+		ModelExplicit model;
+		switch (modelType) {
+		case DTMC:
+			// One choice per state, so choice starts are row starts
+			model = new DTMCSparse(n, choiceStarts, cols, probs);
+			break;
+		case MDP:
+			model = new MDPSparse(n, rowStarts, choiceStarts, cols, probs, actions);
+			break;
+		case STPG:
+			// Players are stored 1-indexed
+			for (int s = 0; s < n; s++) {
+				players[s]++;
+			}
+			model = new STPGSparse(n, rowStarts, choiceStarts, cols, probs, actions, players);
+			break;
+		case SMG:
+			for (int s = 0; s < n; s++) {
+				players[s]++;
+			}
+			model = new SMGSparse(n, rowStarts, choiceStarts, cols, probs, actions, players, playerNames);
+			break;
+		case CSG:
+			model = buildCSG(n);
+			break;
+		default:
+			throw new PrismNotSupportedException("Sparse model construction not supported for " + modelType + "s");
+		}
+		cols = null;
+		probs = null;
+
+		for (int s : initialStates) {
+			model.addInitialState(permut == null ? s : permut[s]);
+		}
+		for (int s = deadlocks.nextSetBit(0); s >= 0; s = deadlocks.nextSetBit(s + 1)) {
+			model.addDeadlockState(permut == null ? s : permut[s]);
+		}
+		return model;
+	}
+
+	/**
+	 * Reorder the stored model according to a state index permutation
+	 * (with transitions within each choice sorted by permuted destination).
+	 */
+	private void permute(int permut[])
+	{
+		int n = numStates;
+		int permutInv[] = new int[n];
+		for (int s = 0; s < n; s++) {
+			permutInv[permut[s]] = s;
+		}
+		int newRowStarts[] = new int[n + 1];
+		int newChoiceStarts[] = new int[numChoices + 1];
+		int newCols[] = new int[numTransitions];
+		double newProbs[] = new double[numTransitions];
+		Object newActions[] = actions == null ? null : new Object[numChoices];
+		int newIndexes[][] = indexes == null ? null : new int[numChoices][];
+		int newPlayers[] = players == null ? null : new int[n];
+		int c2 = 0, t2 = 0;
+		for (int s2 = 0; s2 < n; s2++) {
+			int s = permutInv[s2];
+			newRowStarts[s2] = c2;
+			if (players != null) {
+				newPlayers[s2] = players[s];
+			}
+			for (int c = rowStarts[s]; c < rowStarts[s + 1]; c++) {
+				newChoiceStarts[c2] = t2;
+				if (newActions != null) {
+					newActions[c2] = actions[c];
+				}
+				if (newIndexes != null) {
+					newIndexes[c2] = indexes[c];
+				}
+				int start = t2;
+				for (int t = choiceStarts[c]; t < choiceStarts[c + 1]; t++) {
+					newCols[t2] = permut[cols[t]];
+					newProbs[t2++] = probs[t];
+				}
+				sortByColumn(newCols, newProbs, start, t2);
+				c2++;
+			}
+		}
+		newRowStarts[n] = c2;
+		newChoiceStarts[c2] = t2;
+		rowStarts = newRowStarts;
+		choiceStarts = newChoiceStarts;
+		cols = newCols;
+		probs = newProbs;
+		actions = newActions;
+		indexes = newIndexes;
+		players = newPlayers;
+	}
+
+	/**
+	 * Sort the (distinct) columns {@code cols[start...end-1]}, and the corresponding entries of {@code probs}.
+	 */
+	private static void sortByColumn(int cols[], double probs[], int start, int end)
+	{
+		if (end - start <= 16) {
+			for (int i = start + 1; i < end; i++) {
+				int col = cols[i];
+				double prob = probs[i];
+				int j = i - 1;
+				while (j >= start && cols[j] > col) {
+					cols[j + 1] = cols[j];
+					probs[j + 1] = probs[j];
+					j--;
+				}
+				cols[j + 1] = col;
+				probs[j + 1] = prob;
+			}
+		} else {
+			// Sort (column, index) pairs packed into longs
+			long keys[] = new long[end - start];
+			for (int i = start; i < end; i++) {
+				keys[i - start] = ((long) cols[i] << 32) | (i - start);
+			}
+			Arrays.sort(keys);
+			double probsCopy[] = Arrays.copyOfRange(probs, start, end);
+			for (int i = 0; i < keys.length; i++) {
+				cols[start + i] = (int) (keys[i] >>> 32);
+				probs[start + i] = probsCopy[(int) keys[i]];
+			}
+		}
+	}
+
+	/**
+	 * Create a CSG from the CSR storage, labelling each choice with its joint action
+	 * and adding the idle actions of the players (as for {@link CSGSimple}).
+	 */
+	private CSGSparse buildCSG(int n)
+	{
+		int numPlayers = playerNames.size();
+		Vector<String> actionNames = new Vector<String>();
+		for (Object action : csgActions) {
+			actionNames.add(action.toString());
+		}
+		BitSet playerIndexes[] = new BitSet[numPlayers];
+		for (int p = 0; p < numPlayers; p++) {
+			playerIndexes[p] = new BitSet();
+		}
+		// Choice labels (one string per distinct joint action)
+		Object labels[] = new Object[numChoices];
+		Map<String, String> labelStrings = new HashMap<>();
+		for (int c = 0; c < numChoices; c++) {
+			int idx[] = indexes[c];
+			StringBuilder label = new StringBuilder();
+			for (int p = 0; p < idx.length; p++) {
+				if (idx[p] >= 0) {
+					label.append("[").append(actionNames.get(idx[p] - 1)).append("]");
+					playerIndexes[p].set(idx[p]);
+				} else {
+					label.append("<").append(p).append(">");
+				}
+			}
+			labels[c] = labelStrings.computeIfAbsent(label.toString(), l -> l);
+		}
+		// Idle actions follow the others
+		int idles[] = new int[numPlayers];
+		for (int p = 0; p < numPlayers; p++) {
+			idles[p] = actionNames.size() + 1;
+			actionNames.add("<" + p + ">");
+		}
+		return new CSGSparse(n, rowStarts, choiceStarts, cols, probs, labels, indexes, playerNames.toArray(new String[0]), actionNames, playerIndexes, idles);
+	}
+}
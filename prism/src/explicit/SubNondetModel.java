@@ -64,6 +64,10 @@ public class SubNondetModel implements NondetModel
 	 * (Optionally) the stored predecessor relation. Becomes inaccurate after the model is changed!
 	 */
 	protected PredecessorRelation predecessorRelation;
+	/**
+	 * (Optionally) the stored incoming choice relation. Becomes inaccurate after the model is changed!
+	 */
+	protected IncomingChoiceRelation incomingChoiceRelation;
 
 	private int numTransitions = 0;
 	private int maxNumChoices = 0;
@@ -417,4 +421,28 @@ public class SubNondetModel implements NondetModel
 	public void clearPredecessorRelation() {
 		predecessorRelation = null;
 	}
+
+	@Override
+	public boolean hasStoredIncomingChoiceRelation() {
+		return (incomingChoiceRelation != null);
+	}
+
+	@Override
+	public IncomingChoiceRelation getIncomingChoiceRelation(prism.PrismComponent parent, boolean storeIfNew) {
+		if (incomingChoiceRelation != null) {
+			return incomingChoiceRelation;
+		}
+
+		IncomingChoiceRelation pre = IncomingChoiceRelation.forModel(parent, this);
+
+		if (storeIfNew) {
+			incomingChoiceRelation = pre;
+		}
+		return pre;
+	}
+
+	@Override
+	public void clearIncomingChoiceRelation() {
+		incomingChoiceRelation = null;
+	}
 }
@@ -0,0 +1,254 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+
+import explicit.rewards.MDPRewards;
+
+/**
+ * A cache of previous results of numerical computations on a model,
+ * used to "warm-start" subsequent computations of the same kind, e.g.,
+ * for successive points of a sweep over undefined property constants.
+ * <br><br>
+ * Results are stored as lower and/or upper bounds on the values computed.
+ * A previous bound is only reused if, by monotonicity, it is also a bound
+ * for the new computation, so that it is a valid starting point for iterative methods
+ * (e.g. the lower bound for value iteration from below, or both bounds for interval iteration):
+ * <ul>
+ * <li> reachability probabilities increase as the target or "remain" states are enlarged;
+ * <li> expected reachability rewards (for the same rewards) increase as the target is reduced.
+ * </ul>
+ * A (memoryless) strategy can also be stored, e.g., as an initial strategy for policy iteration
+ * (for which any strategy is valid, so monotonicity is not needed).
+ * A bounded number of entries are kept, the oldest ones being discarded.
+ * <p>
+ * Note: Naturally, if the model changes, the cache has to be cleared.
+ */
+public class WarmStartCache
+{
+	/** Maximum number of entries */
+	public static final int MAX_ENTRIES = 4;
+
+	/**
+	 * A stored result.
+	 */
+	private static class Entry
+	{
+		/** Rewards (null for probabilities) */
+		private double stateRewards[];
+		private double transRewards[];
+		/** Remain states (null means "all"), target states, min or max */
+		private BitSet remain;
+		private BitSet target;
+		private boolean min;
+		/** Lower/upper bound on the values (optional) */
+		private double lower[];
+		private double upper[];
+		/** Strategy (optional) */
+		private int strat[];
+	}
+
+	/** The entries, most recent first */
+	private Deque<Entry> entries = new ArrayDeque<Entry>();
+
+	/**
+	 * Find a lower bound on the min/max probabilities of reaching {@code target} while remaining in {@code remain},
+	 * i.e., a stored lower bound for a subset of the target states and a subset of the remain states.
+	 * Returns (a copy of) the most recent such bound, or null if there is none.
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 */
+	public synchronized double[] findReachProbsLowerBound(BitSet remain, BitSet target, boolean min)
+	{
+		for (Entry e : entries) {
+			if (e.lower != null && e.stateRewards == null && e.min == min && isSubset(e.remain, e.target, remain, target)) {
+				return e.lower.clone();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find an upper bound on the min/max probabilities of reaching {@code target} while remaining in {@code remain},
+	 * i.e., a stored upper bound for a superset of the target states and a superset of the remain states.
+	 * Returns (a copy of) the most recent such bound, or null if there is none.
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 */
+	public synchronized double[] findReachProbsUpperBound(BitSet remain, BitSet target, boolean min)
+	{
+		for (Entry e : entries) {
+			if (e.upper != null && e.stateRewards == null && e.min == min && isSubset(remain, target, e.remain, e.target)) {
+				return e.upper.clone();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find a strategy stored for min/max reachability probabilities (for any target).
+	 * Returns (a copy of) the most recent such strategy, or null if there is none.
+	 * @param min Min or max probabilities (true=min, false=max)
+	 */
+	public synchronized int[] findReachProbsStrategy(boolean min)
+	{
+		for (Entry e : entries) {
+			if (e.strat != null && e.stateRewards == null && e.min == min) {
+				return e.strat.clone();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find a lower bound on the min/max expected rewards {@code mdpRewards} to reach {@code target},
+	 * i.e., a stored lower bound for the same rewards and a superset of the target states.
+	 * Returns (a copy of) the most recent such bound, or null if there is none.
+	 * @param mdp The MDP
+	 * @param mdpRewards The rewards
+	 * @param target Target states
+	 * @param min Min or max rewards (true=min, false=max)
+	 */
+	public synchronized double[] findReachRewardsLowerBound(NondetModel mdp, MDPRewards mdpRewards, BitSet target, boolean min)
+	{
+		for (Entry e : entries) {
+			if (e.lower != null && e.stateRewards != null && e.min == min && isSubset(null, target, null, e.target) && rewardsEqual(e, mdp, mdpRewards)) {
+				return e.lower.clone();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Store a result for reachability probabilities.
+	 * Copies of all arguments are stored, so these can be subsequently modified by the caller.
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param min Min or max probabilities (true=min, false=max)
+	 * @param lower Lower bound on the probabilities (optional)
+	 * @param upper Upper bound on the probabilities (optional)
+	 * @param strat Strategy (optional)
+	 */
+	public synchronized void storeReachProbs(BitSet remain, BitSet target, boolean min, double lower[], double upper[], int strat[])
+	{
+		Entry e = new Entry();
+		e.remain = remain == null ? null : (BitSet) remain.clone();
+		add(e, target, min, lower, upper, strat);
+	}
+
+	/**
+	 * Store a result for expected reachability rewards.
+	 * Copies of all arguments are stored, so these can be subsequently modified by the caller.
+	 * @param mdp The MDP
+	 * @param mdpRewards The rewards
+	 * @param target Target states
+	 * @param min Min or max rewards (true=min, false=max)
+	 * @param lower Lower bound on the expected rewards
+	 */
+	public synchronized void storeReachRewards(NondetModel mdp, MDPRewards mdpRewards, BitSet target, boolean min, double lower[])
+	{
+		Entry e = new Entry();
+		int n = mdp.getNumStates();
+		e.stateRewards = new double[n];
+		e.transRewards = new double[mdp.getNumChoices()];
+		for (int s = 0, k = 0; s < n; s++) {
+			e.stateRewards[s] = mdpRewards.getStateReward(s);
+			for (int i = 0, numChoices = mdp.getNumChoices(s); i < numChoices; i++) {
+				e.transRewards[k++] = mdpRewards.getTransitionReward(s, i);
+			}
+		}
+		add(e, target, min, lower, null, null);
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+	}
+
+	private void add(Entry e, BitSet target, boolean min, double lower[], double upper[], int strat[])
+	{
+		e.target = (BitSet) target.clone();
+		e.min = min;
+		e.lower = lower == null ? null : lower.clone();
+		e.upper = upper == null ? null : upper.clone();
+		e.strat = strat == null ? null : strat.clone();
+		entries.addFirst(e);
+		if (entries.size() > MAX_ENTRIES) {
+			entries.removeLast();
+		}
+	}
+
+	/**
+	 * Are {@code remain1} and {@code target1} subsets of {@code remain2} and {@code target2}, respectively?
+	 * (where null for a "remain" set means "all")
+	 */
+	private static boolean isSubset(BitSet remain1, BitSet target1, BitSet remain2, BitSet target2)
+	{
+		if (remain2 != null && (remain1 == null || !isSubset(remain1, remain2))) {
+			return false;
+		}
+		return isSubset(target1, target2);
+	}
+
+	/**
+	 * Is {@code set1} a subset of {@code set2}?
+	 */
+	private static boolean isSubset(BitSet set1, BitSet set2)
+	{
+		BitSet diff = (BitSet) set1.clone();
+		diff.andNot(set2);
+		return diff.isEmpty();
+	}
+
+	/**
+	 * Are the rewards stored in entry {@code e} equal to {@code mdpRewards}?
+	 */
+	private static boolean rewardsEqual(Entry e, NondetModel mdp, MDPRewards mdpRewards)
+	{
+		int n = mdp.getNumStates();
+		if (e.stateRewards.length != n) {
+			return false;
+		}
+		for (int s = 0, k = 0; s < n; s++) {
+			if (e.stateRewards[s] != mdpRewards.getStateReward(s)) {
+				return false;
+			}
+			for (int i = 0, numChoices = mdp.getNumChoices(s); i < numChoices; i++) {
+				if (e.transRewards[k++] != mdpRewards.getTransitionReward(s, i)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -33,9 +33,11 @@ import java.util.PrimitiveIterator;
 
 import explicit.DTMCFromMDPAndMDStrategy;
 import explicit.Distribution;
+import explicit.IncomingChoiceRelation;
 import explicit.MDP;
 import explicit.Model;
 import explicit.SuccessorsIterator;
+import prism.PrismComponent;
 import strat.MDStrategy;
 
 /**
@@ -49,6 +51,8 @@ import strat.MDStrategy;
  */
 public abstract class MDPView extends ModelView implements MDP, Cloneable
 {
+	protected IncomingChoiceRelation incomingChoiceRelation;
+
 	public MDPView()
 	{
 		super();
@@ -104,4 +108,31 @@ public abstract class MDPView extends ModelView implements MDP, Cloneable
 	{
 		return new DTMCFromMDPAndMDStrategy(this, strat);
 	}
+
+	@Override
+	public boolean hasStoredIncomingChoiceRelation()
+	{
+		return (incomingChoiceRelation != null);
+	}
+
+	@Override
+	public IncomingChoiceRelation getIncomingChoiceRelation(PrismComponent parent, boolean storeIfNew)
+	{
+		if (incomingChoiceRelation != null) {
+			return incomingChoiceRelation;
+		}
+
+		final IncomingChoiceRelation pre = IncomingChoiceRelation.forModel(parent, this);
+
+		if (storeIfNew) {
+			incomingChoiceRelation = pre;
+		}
+		return pre;
+	}
+
+	@Override
+	public void clearIncomingChoiceRelation()
+	{
+		incomingChoiceRelation = null;
+	}
 }
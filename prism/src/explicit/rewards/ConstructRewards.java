@@ -38,7 +38,6 @@ import explicit.CSG;
 import explicit.DTMC;
 import explicit.MDP;
 import explicit.Model;
-import explicit.SMG;
 import explicit.STPG;
 import parser.State;
 import parser.Values;
@@ -89,7 +88,7 @@ public class ConstructRewards extends PrismComponent
 		case STPG:
 			return buildSTPGRewardStructure((STPG) model, rewardGen, r);
 		case SMG:
-			return buildSMGRewardStructure((SMG) model, rewardGen, r);
+			return buildSMGRewardStructure((STPG) model, rewardGen, r);
 		case CSG:
 			return buildCSGRewardStructure((CSG) model, rewardGen, r);
 		default:
@@ -193,7 +192,7 @@ public class ConstructRewards extends PrismComponent
 	 * @param rewardGen The RewardGenerator defining the rewards
 	 * @param r The index of the reward structure to build
 	 */
-	public SMGRewards buildSMGRewardStructure(SMG smg, RewardGenerator rewardGen, int r) throws PrismException
+	public SMGRewards buildSMGRewardStructure(STPG smg, RewardGenerator rewardGen, int r) throws PrismException
 	{
 		int numStates = smg.getNumStates();
 		List<State> statesList = smg.getStatesList();
@@ -319,7 +318,7 @@ public class ConstructRewards extends PrismComponent
 		case STPG:
 			return buildSTPGRewardStructure((STPG) model, rewStr, constantValues);
 		case SMG:
-			return buildSMGRewardStructure((SMG) model, rewStr, constantValues);
+			return buildSMGRewardStructure((STPG) model, rewStr, constantValues);
 		case CSG:
 			return buildCSGRewardStructure((CSG) model, rewStr, constantValues);
 		default:
@@ -501,7 +500,7 @@ public class ConstructRewards extends PrismComponent
 	 * @param rewStr The reward structure
 	 * @param constantValues Values for any undefined constants needed
 	 */
-	public SMGRewards buildSMGRewardStructure(SMG smg, RewardStruct rewStr, Values constantValues) throws PrismException
+	public SMGRewards buildSMGRewardStructure(STPG smg, RewardStruct rewStr, Values constantValues) throws PrismException
 	{
 		List<State> statesList;
 		SMGRewardsSimple rewSimple;
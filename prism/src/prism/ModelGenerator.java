@@ -65,6 +65,25 @@ public interface ModelGenerator extends ModelInfo
 	 */
 	public State getInitialState() throws PrismException;
 	
+	/**
+	 * Create a copy of this model generator, which can be used independently of
+	 * (and concurrently with) this one, e.g., for multi-threaded model construction.
+	 * Throws a {@link PrismNotSupportedException} if this is not possible (the default).
+	 */
+	public default ModelGenerator createCopy() throws PrismException
+	{
+		throw new PrismNotSupportedException("Model generator cannot be copied");
+	}
+	
+	/**
+	 * Notify a model generator created by {@link #createCopy()} that it is no longer needed,
+	 * e.g. so that it can pass any statistics it has gathered back to the original.
+	 * The copy should not be used afterwards. Does nothing by default.
+	 */
+	public default void releaseCopy()
+	{
+	}
+	
 	/**
 	 * Explore a given state of the model. After a call to this method,
 	 * the class should be able to respond to the various methods that are
@@ -101,6 +101,10 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_CUDD_EPSILON					= "prism.cuddEpsilon";
 	public static final	String PRISM_DD_EXTRA_STATE_VARS				= "prism.ddExtraStateVars";
 	public static final	String PRISM_DD_EXTRA_ACTION_VARS				= "prism.ddExtraActionVars";
+	public static final	String PRISM_NUM_THREADS					= "prism.numThreads";
+	public static final	String PRISM_STATE_STORAGE					= "prism.stateStorage";
+	public static final	String PRISM_STATE_STORAGE_DIR				= "prism.stateStorageDir";
+	public static final	String PRISM_WARM_START						= "prism.warmStart";
 	public static final	String PRISM_NUM_SB_LEVELS					= "prism.numSBLevels";//"prism.hybridNumLevels";
 	public static final	String PRISM_SB_MAX_MEM						= "prism.SBMaxMem";//"prism.hybridMaxMemory";
 	public static final	String PRISM_NUM_SOR_LEVELS					= "prism.numSORLevels";//"prism.hybridSORLevels";
@@ -109,6 +113,7 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_EXTRA_DD_INFO					= "prism.extraDDInfo";
 	public static final	String PRISM_EXTRA_REACH_INFO				= "prism.extraReachInfo";
 	public static final String PRISM_SCC_METHOD						= "prism.sccMethod";
+	public static final String PRISM_EXPLICIT_SCC_METHOD				= "prism.explicitSccMethod";
 	public static final String PRISM_SYMM_RED_PARAMS					= "prism.symmRedParams";
 	public static final	String PRISM_EXACT_ENABLED					= "prism.exact.enabled";
 	public static final String PRISM_PTA_METHOD					= "prism.ptaMethod";
@@ -128,9 +133,13 @@ public class PrismSettings implements Observer
 
 	// csg and equilibria
 	public static final String PRISM_ZS_LP_SCALE_FACTOR			= "prism.lpscalefactor";
+	public static final String PRISM_ZS_SIMPLEX_MAX_SIZE			= "prism.zsSimplexMaxSize";
+	public static final String PRISM_ZS_MG_CACHE_TOLERANCE			= "prism.zsMatrixGameCacheTolerance";
 
     // multi-objective synthesis for games
 	public static final     String PRISM_MULTI_GAUSS_SEIDEL					= "prism.multiGaussSeidel";
+	public static final     String PRISM_MULTI_PARETO_SETS					= "prism.multiParetoSets";
+	public static final     String PRISM_MULTI_WORKLIST					= "prism.multiWorklist";
         // iteration control
         public static final	String PRISM_MULTI_MAX_C_ITER			= "prism.multiMaxCIter";
         public static final	String PRISM_MULTI_MAX_R_ITER			= "prism.multiMaxRIter";
@@ -285,7 +294,7 @@ public class PrismSettings implements Observer
 																				"Use interval iteration (from above and below) in iterative numerical methods."},
 			{ STRING_TYPE,		PRISM_INTERVAL_ITER_OPTIONS,				"Interval iteration options",				"4.3.1",		"",																		"",
 																	"Interval iteration options, a comma-separated list of the following:\n" + OptionsIntervalIteration.getOptionsDescription() },
-			{ CHOICE_TYPE,		PRISM_MDP_SOLN_METHOD,					"MDP solution method",				"4.0",			"Value iteration",																"Value iteration,Gauss-Seidel,Policy iteration,Modified policy iteration,Linear programming",
+			{ CHOICE_TYPE,		PRISM_MDP_SOLN_METHOD,					"MDP solution method",				"4.0",			"Value iteration",																"Value iteration,Gauss-Seidel,Policy iteration,Modified policy iteration,Linear programming,Optimistic value iteration",
 																			"Which method to use when solving Markov decision processes." },
 			{ CHOICE_TYPE,		PRISM_MDP_MULTI_SOLN_METHOD,			"MDP multi-objective solution method",				"4.0.3",			"Value iteration",											"Value iteration,Gauss-Seidel,Linear programming",
 																			"Which method to use when solving multi-objective queries on Markov decision processes." },
@@ -320,6 +329,8 @@ public class PrismSettings implements Observer
 																			"Use steady-state detection during CTMC transient probability computation." },
 			{ CHOICE_TYPE,		PRISM_SCC_METHOD,						"SCC decomposition method",				"3.2",			"Lockstep",																	"Xie-Beerel,Lockstep,SCC-Find",																
 																			"Which algorithm to use for (symbolic) decomposition of a graph into strongly connected components (SCCs)." },
+			{ CHOICE_TYPE,		PRISM_EXPLICIT_SCC_METHOD,				"Explicit SCC decomposition method",	"4.7",			"Tarjan",																	"Tarjan,Forward-backward",
+																			"Which algorithm to use for decomposition of a graph into strongly connected components (SCCs) in the explicit engine (Forward-backward is multi-threaded)." },
 			{ STRING_TYPE,		PRISM_SYMM_RED_PARAMS,					"Symmetry reduction parameters",		"3.2",			"",																	"",																
 																			"Parameters for symmetry reduction (format: \"i j\" where i and j are the number of modules before and after the symmetric ones; empty string means symmetry reduction disabled)." },
 			{ STRING_TYPE,		PRISM_AR_OPTIONS,						"Abstraction refinement options",		"3.3",			"",																	"",																
@@ -339,6 +350,10 @@ public class PrismSettings implements Observer
 			// MULTI-OBJECTIVE SYNTHESIS:
 			{ BOOLEAN_TYPE,		PRISM_MULTI_GAUSS_SEIDEL,							"Use Gauss-Seidel value iteration for solving multi-objective SGs.",				"4.0.3",		new Boolean(true),															"",																							
 																			"Use Gauss-Seidel value iteration for solving multi-objective SGs. Only used for cumulative total rewards (Pareto set computation and strategy synthesis), and for strategy synthesis of average and ratio rewards." },
+			{ CHOICE_TYPE,		PRISM_MULTI_PARETO_SETS,					"Pareto set representation for multi-objective SGs",			"4.7",			"Polyhedra",															"Polyhedra,Point sets",
+																			"Representation of Pareto sets in value iteration for conjunctive queries of multi-objective SGs: exact polyhedra (using PPL), or (floating-point) downward closures of finite point sets, computed in Java (for up to 4 objectives; otherwise, polyhedra are used)." },
+			{ BOOLEAN_TYPE,		PRISM_MULTI_WORKLIST,					"Use worklist for conjunctive query value iteration",			"4.7",			new Boolean(false),															"",
+																			"In value iteration for conjunctive queries of multi-objective SGs, only recompute the Pareto sets of states for which the Pareto set of a successor changed in the previous iteration." },
 			{ INTEGER_TYPE,		PRISM_MULTI_MAX_C_ITER,					"Max. iterations for conjunctive query",			"4.0.3",			new Integer(500),															"0,",																						
 																			"Maximum number of iterations performed to solve conjunctive queries using value iteration. The same value is used for computing the conjunctions involved in mixed queries." },
 			{ INTEGER_TYPE,		PRISM_MULTI_MAX_R_ITER,					"Max. iterations for ratio rewards",			"4.0.3",			new Integer(500),															"0,",																						
@@ -360,6 +375,10 @@ public class PrismSettings implements Observer
 			// CSG ZERO-SUM LP SCALE FACTOR
 			{ DOUBLE_TYPE,		PRISM_ZS_LP_SCALE_FACTOR, 					"Scale factor for LPs",			"4.5", 				new Double(1.0), 			"1,",
 																			"Scale factor used when building linear programs for solving matrix games"},
+			{ INTEGER_TYPE,		PRISM_ZS_SIMPLEX_MAX_SIZE, 					"Max. size of matrix games solved in Java",			"4.7", 				new Integer(10), 			"0,",
+																			"Matrix games (for zero-sum CSGs) where both players have at most this many actions are solved with a simplex method implemented in Java, rather than with lp_solve (0 means always use lp_solve)."},
+			{ DOUBLE_TYPE,		PRISM_ZS_MG_CACHE_TOLERANCE, 				"Matrix game cache tolerance",			"4.7", 				new Double(-1.0), 			"",
+																			"When solving zero-sum CSGs by value iteration, the solution of a matrix game is reused if no entry has changed by more than this tolerance (relative to the termination epsilon) since it was last solved; the resulting error is accounted for in the convergence check (0 means only reuse for unchanged games; negative, the default, disables reuse)."},
 
 			// OUTPUT OPTIONS:
 			{ BOOLEAN_TYPE,		PRISM_VERBOSE,							"Verbose output",						"2.1",		new Boolean(false),															"",																							
@@ -387,6 +406,15 @@ public class PrismSettings implements Observer
 																			"Number of extra DD state variables preallocated for use in model transformation." },
 			{ INTEGER_TYPE,		PRISM_DD_EXTRA_ACTION_VARS,				"Extra DD action var allocation",		"4.3.1",			new Integer(20),														"",
 																			"Number of extra DD action variables preallocated for use in model transformation." },
+			// EXPLICIT ENGINE OPTIONS:
+			{ INTEGER_TYPE,		PRISM_NUM_THREADS,						"Number of threads",					"4.7",			new Integer(1),																"1,",
+																			"Number of threads used by the multi-threaded parts of the explicit engine (model construction, forward-backward SCC computation, value iteration with the Power/Jacobi methods and topological value iteration)." },
+			{ CHOICE_TYPE,		PRISM_STATE_STORAGE,					"State storage",						"4.7",			"Memory",																	"Memory,Disk",
+																			"Where the explicit engine stores reachable states during model construction (Disk uses memory-mapped temporary files)." },
+			{ STRING_TYPE,		PRISM_STATE_STORAGE_DIR,				"State storage directory",				"4.7",			"",																			"",
+																			"Directory for the temporary files used by disk-based state storage (default: system temporary directory)." },
+			{ BOOLEAN_TYPE,		PRISM_WARM_START,						"Warm-start from previous results",		"4.7",			false,																		"",
+																			"Start MDP reachability computations in the explicit engine from the results of previous ones on the same model, where these are (by monotonicity) valid lower bounds, e.g. when sweeping over undefined property constants." },
 
 
 			// ADVERSARIES/COUNTEREXAMPLES:
@@ -1163,6 +1191,8 @@ public class PrismSettings implements Observer
 			set(PRISM_MDP_SOLN_METHOD, "Policy iteration");
 		} else if (sw.equals("modpoliter")) {
 			set(PRISM_MDP_SOLN_METHOD, "Modified policy iteration");
+		} else if (sw.equals("ovi")) {
+			set(PRISM_MDP_SOLN_METHOD, "Optimistic value iteration");
 		} else if (sw.equals("linprog") || sw.equals("lp")) {
 			set(PRISM_MDP_SOLN_METHOD, "Linear programming");
 			set(PRISM_MDP_MULTI_SOLN_METHOD, "Linear programming");
@@ -1181,6 +1211,32 @@ public class PrismSettings implements Observer
 				throw new PrismException("No value specified for -" + sw + " switch");
 			}
 		}
+		else if (sw.equals("zssimplexmaxsize")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 0)
+						throw new NumberFormatException("");
+					set(PRISM_ZS_SIMPLEX_MAX_SIZE, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		else if (sw.equals("zsmgcachetol")) {
+			if (i < args.length - 1) {
+				try {
+					d = Double.parseDouble(args[++i]);
+					set(PRISM_ZS_MG_CACHE_TOLERANCE, d);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
 
 		// Interval iterations
 		else if (sw.equals("intervaliter") ||
@@ -1348,8 +1404,12 @@ public class PrismSettings implements Observer
 					set(PRISM_SCC_METHOD, "Lockstep");
 				else if (s.equals("sccfind"))
 					set(PRISM_SCC_METHOD, "SCC-Find");
+				else if (s.equals("tarjan"))
+					set(PRISM_EXPLICIT_SCC_METHOD, "Tarjan");
+				else if (s.equals("fb") || s.equals("forwardbackward"))
+					set(PRISM_EXPLICIT_SCC_METHOD, "Forward-backward");
 				else
-					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: xiebeerel, lockstep, sccfind)");
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: xiebeerel, lockstep, sccfind, tarjan, fb)");
 			} else {
 				throw new PrismException("No parameter specified for -" + sw + " switch");
 			}
@@ -1510,6 +1570,22 @@ public class PrismSettings implements Observer
 				throw new PrismException("No value specified for -" + sw + " switch");
 			}
 		}
+		else if (sw.equals("multiparetosets")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("polyhedra"))
+					set(PRISM_MULTI_PARETO_SETS, "Polyhedra");
+				else if (s.equals("points"))
+					set(PRISM_MULTI_PARETO_SETS, "Point sets");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: polyhedra, points)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		else if (sw.equals("multiworklist")) {
+			set(PRISM_MULTI_WORKLIST, true);
+		}
 		else if (sw.equals("multirounding")) {
 			set(PRISM_MULTI_ROUNDING, true);
 		}
@@ -1682,6 +1758,50 @@ public class PrismSettings implements Observer
 			}
 		}
 		
+		// EXPLICIT ENGINE OPTIONS:
+		
+		// Number of threads
+		else if (sw.equals("threads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_NUM_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// State storage
+		else if (sw.equals("statestorage")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("memory"))
+					set(PRISM_STATE_STORAGE, "Memory");
+				else if (s.equals("disk"))
+					set(PRISM_STATE_STORAGE, "Disk");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: memory, disk)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		// State storage directory
+		else if (sw.equals("statestoragedir")) {
+			if (i < args.length - 1) {
+				set(PRISM_STATE_STORAGE_DIR, args[++i]);
+			} else {
+				throw new PrismException("No directory specified for -" + sw + " switch");
+			}
+		}
+		// Warm-start from previous results
+		else if (sw.equals("warmstart")) {
+			set(PRISM_WARM_START, true);
+		}
+		
 		// ADVERSARIES/COUNTEREXAMPLES:
 		
 		// Export adversary to file
@@ -2042,6 +2162,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-gaussseidel (or -gs) .......... Use Gauss-Seidel value iteration for solving MDPs");
 		mainLog.println("-politer ....................... Use policy iteration for solving MDPs");
 		mainLog.println("-modpoliter .................... Use modified policy iteration for solving MDPs");
+		mainLog.println("-ovi ........................... Use optimistic value iteration for solving MDPs and games");
 		mainLog.println("-intervaliter (or -ii) ......... Use interval iteration to solve MDPs/MCs (see -help -ii)");
 		mainLog.println("-topological ................... Use topological value iteration");
 		mainLog.println();
@@ -2066,7 +2187,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-sumroundoff <x> ............... Set probability sum threshold [default: 1-e5]");
 		mainLog.println("-zerorewardcheck ............... Check for absence of zero-reward loops");
 		mainLog.println("-nossdetect .................... Disable steady-state detection for CTMC transient computations");
-		mainLog.println("-sccmethod <name> .............. Specify (symbolic) SCC computation method (xiebeerel, lockstep, sccfind)");
+		mainLog.println("-sccmethod <name> .............. Specify SCC computation method (symbolic: xiebeerel, lockstep, sccfind; explicit: tarjan, fb)");
 		mainLog.println("-symm <string> ................. Symmetry reduction options string");
 		mainLog.println("-aroptions <string> ............ Abstraction-refinement engine options string");
 		mainLog.println("-pathviaautomata ............... Handle all path formulas via automata constructions");
@@ -2094,12 +2215,16 @@ public class PrismSettings implements Observer
 		mainLog.println("-multiditeroffset <n> .......... Start disjunctive iteration at this count.");
 		mainLog.println("-multiminm <n> ................. Set the minimum box size (M) for mean-payoff objectives.");
 		mainLog.println("-multimaxm <n> ................. Set the maximum box size (M) for mean-payoff objectives.");
+		mainLog.println("-multiparetosets <x> ........... Representation of Pareto sets for CQs (polyhedra, points) [default: polyhedra]");
+		mainLog.println("-multiworklist ................. Only recompute Pareto sets of states whose successors changed (CQs)");
 		mainLog.println("-multirounding ................. Enable rounding for the multi-objective engine.");
 		mainLog.println("-baselineaccuracy <n> .......... Baseline accuracy for CQs.");
 		mainLog.println("-increasefactor <x> ............ Factor by which accuracy is increased every iteration for CQs.");
 		mainLog.println();
 		mainLog.println("CSG EQUILIBRIA COMPUTATION");
 		mainLog.println("-lpscalefactor <n> ............. Scale factor used when building linear programs for solving matrix games [default: 1.0]");
+		mainLog.println("-zssimplexmaxsize <n> .......... Max. number of actions per player for matrix games solved in Java [default: 10]");
+		mainLog.println("-zsmgcachetol <x> .............. Tolerance (relative to epsilon) for reusing matrix game solutions, <0 to disable [default: -1]");
 		mainLog.println();
 		mainLog.println("OUTPUT OPTIONS:");
 		mainLog.println("-verbose (or -v) ............... Verbose mode: print out state lists and probability vectors");
@@ -2118,6 +2243,12 @@ public class PrismSettings implements Observer
 		mainLog.println("-ddextrastatevars <n> .......... Set the number of preallocated state vars [default: 20]");
 		mainLog.println("-ddextraactionvars <n> ......... Set the number of preallocated action vars [default: 20]");
 		mainLog.println();
+		mainLog.println("EXPLICIT ENGINE OPTIONS:");
+		mainLog.println("-threads <n> ................... Set number of threads for multi-threaded computations [default: 1]");
+		mainLog.println("-statestorage <x> .............. Where to store states during model construction (memory, disk) [default: memory]");
+		mainLog.println("-statestoragedir <dir> ......... Directory for temporary files used by -statestorage disk");
+		mainLog.println("-warmstart ..................... Start MDP computations from previous results on the same model (e.g. in constant sweeps)");
+		mainLog.println();
 		mainLog.println("PARAMETRIC MODEL CHECKING OPTIONS:");
 		mainLog.println("-param <vals> .................. Do parametric model checking with parameters (and ranges) <vals>");
 		mainLog.println("-paramprecision <x> ............ Set max undecided region for parameter synthesis [default: 5/100]");
@@ -52,6 +52,9 @@ public class ChoiceListFlexi implements Choice
 	/*** ***/	
 	protected int[] actions;
 	/*** ***/
+
+	// Compiled versions of updates (optional; null if none)
+	protected Map<Update, CompiledUpdate> compiledUpdates;
 	
 	/**
 	 * Create empty choice.
@@ -81,6 +84,7 @@ public class ChoiceListFlexi implements Choice
 		for (double p : ch.probability) {
 			probability.add(p);
 		}
+		compiledUpdates = ch.compiledUpdates;
 	}
 
 	// Set methods
@@ -101,6 +105,15 @@ public class ChoiceListFlexi implements Choice
 		this.actions = actions;
 	}
 	/*** ***/
+
+	/**
+	 * Set compiled versions of (some of) the updates in this choice,
+	 * which will be used, where possible, when computing target states.
+	 */
+	public void setCompiledUpdates(Map<Update, CompiledUpdate> compiledUpdates)
+	{
+		this.compiledUpdates = compiledUpdates;
+	}
 	
 	/**
 	 * Add a transition to this choice.
@@ -234,6 +247,12 @@ public class ChoiceListFlexi implements Choice
 	@Override
 	public State computeTarget(int i, State currentState) throws PrismLangException
 	{
+		// Use compiled updates, if possible
+		if (compiledUpdates != null) {
+			State newState = computeTargetCompiled(i, currentState);
+			if (newState != null)
+				return newState;
+		}
 		//System.out.println("\n### Compute target currentState");
 		Set<String> variablesToUpdate = new HashSet<String>();
 		HashMap<String, HashSet<String>> dependencies = new HashMap<String, HashSet<String>>();
@@ -285,11 +304,50 @@ public class ChoiceListFlexi implements Choice
 	public void computeTarget(int i, State currentState, State newState) throws PrismLangException
 	{
 		//System.out.println("\n### Compute target currentState, newState");
-		for (Update up : updates.get(i))
-			up.update(currentState, newState);
+		for (Update up : updates.get(i)) {
+			CompiledUpdate cu = compiledUpdates == null ? null : compiledUpdates.get(up);
+			if (cu != null)
+				cu.update(currentState, newState);
+			else
+				up.update(currentState, newState);
+		}
 		//System.out.println();
 	}
 
+	/**
+	 * Compute the target for the {@code i}th transition, using compiled updates.
+	 * Returns null if this is not possible, i.e., if some update is not compiled
+	 * or if a variable is updated more than once (which is left to {@link #computeTarget(int, State)} to report).
+	 */
+	private State computeTargetCompiled(int i, State currentState) throws PrismLangException
+	{
+		List<Update> list = updates.get(i);
+		int n = list.size();
+		CompiledUpdate cus[] = new CompiledUpdate[n];
+		for (int j = 0; j < n; j++) {
+			cus[j] = compiledUpdates.get(list.get(j));
+			if (cus[j] == null)
+				return null;
+			// Check for multiple updates of the same variable
+			for (int e = 0; e < cus[j].getNumElements(); e++) {
+				int v = cus[j].getVarIndex(e);
+				for (int k = 0; k <= j; k++) {
+					int m = (k == j) ? e : cus[k].getNumElements();
+					for (int f = 0; f < m; f++) {
+						if (cus[k].getVarIndex(f) == v)
+							return null;
+					}
+				}
+			}
+		}
+		// No primed variables, so updates can be applied in any order
+		State newState = new State(currentState);
+		for (int j = 0; j < n; j++) {
+			cus[j].update(currentState, newState);
+		}
+		return newState;
+	}
+
 	@Override
 	public double getProbability(int i)
 	{
@@ -0,0 +1,382 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package simulator;
+
+import parser.State;
+import parser.Values;
+import parser.ast.Expression;
+import parser.ast.ExpressionFunc;
+import prism.PrismLangException;
+import prism.PrismUtils;
+
+/**
+ * An expression in "compiled" form, i.e., a flattened, register-based program
+ * that can be evaluated over the variable values of a State without walking
+ * the Expression tree (and boxing intermediate values at every node).
+ * <br>
+ * Integer and Boolean (as 0/1) values are stored in one register file, doubles in another.
+ * Each instruction is 4 ints long: opcode, destination register and two arguments.
+ * Compiled expressions are created with {@link ExpressionCompiler}; if an expression
+ * (or part of it) is not supported, or if evaluation fails for any reason (e.g. overflow),
+ * evaluation falls back to the original Expression, so results and errors are unchanged.
+ * <br>
+ * Note: evaluation uses temporary storage local to this object,
+ * so a CompiledExpression should not be used by multiple threads concurrently.
+ */
+public class CompiledExpression
+{
+	// Kinds of values
+	static final int INT = 0;
+	static final int BOOL = 1;
+	static final int DOUBLE = 2;
+
+	// Opcodes (i/b = int/bool register, d = double register)
+	static final int ICONST = 0; // i[dst] = a
+	static final int DCONST = 1; // d[dst] = pool[a]
+	static final int IVAR = 2; // i[dst] = (int) var a
+	static final int BVAR = 3; // i[dst] = (bool) var a
+	static final int IMOV = 4; // i[dst] = i[a]
+	static final int DMOV = 5; // d[dst] = d[a]
+	static final int I2D = 6; // d[dst] = i[a]
+	static final int NOT = 7; // b[dst] = !b[a]
+	static final int JZ = 8; // if (i[a] == 0) goto b
+	static final int JNZ = 9; // if (i[a] != 0) goto b
+	static final int JMP = 10; // goto b
+	static final int INEG = 11;
+	static final int DNEG = 12;
+	static final int IADD = 13;
+	static final int ISUB = 14;
+	static final int IMUL = 15;
+	static final int DADD = 16;
+	static final int DSUB = 17;
+	static final int DMUL = 18;
+	static final int DDIV = 19;
+	static final int IEQ = 20;
+	static final int INE = 21;
+	static final int IGT = 22;
+	static final int IGE = 23;
+	static final int ILT = 24;
+	static final int ILE = 25;
+	static final int DEQ = 26;
+	static final int DNE = 27;
+	static final int DGT = 28;
+	static final int DGE = 29;
+	static final int DLT = 30;
+	static final int DLE = 31;
+	static final int IMIN = 32;
+	static final int IMAX = 33;
+	static final int DMIN = 34;
+	static final int DMAX = 35;
+	static final int FLOOR = 36; // i[dst] = floor(d[a])
+	static final int CEIL = 37;
+	static final int ROUND = 38;
+	static final int IPOW = 39;
+	static final int DPOW = 40;
+	static final int MOD = 41;
+	static final int LOG = 42;
+
+	/** The original expression (used for fallback) */
+	private Expression expr;
+	/** Values of constants (used for fallback) */
+	private Values constantValues;
+
+	/** The program (null if the expression could not be compiled) */
+	private int code[];
+	/** Pool of double constants */
+	private double pool[];
+	/** Register (and kind) storing the result */
+	private int resultReg;
+	private int resultKind;
+
+	// Register files
+	private int iregs[];
+	private double dregs[];
+
+	/**
+	 * Create a compiled expression (see {@link ExpressionCompiler}).
+	 * Pass {@code code == null} if the expression could not be compiled.
+	 */
+	CompiledExpression(Expression expr, Values constantValues, int code[], double pool[], int numIntRegs, int numDoubleRegs, int resultReg, int resultKind)
+	{
+		this.expr = expr;
+		this.constantValues = constantValues;
+		this.code = code;
+		this.pool = pool;
+		this.resultReg = resultReg;
+		this.resultKind = resultKind;
+		iregs = new int[numIntRegs];
+		dregs = new double[numDoubleRegs];
+	}
+
+	/**
+	 * Get the original expression.
+	 */
+	public Expression getExpression()
+	{
+		return expr;
+	}
+
+	/**
+	 * Is this expression actually compiled (rather than evaluated using the original expression)?
+	 */
+	public boolean isCompiled()
+	{
+		return code != null;
+	}
+
+	/**
+	 * Evaluate this expression for a state, returning the result as an Object
+	 * (of the same class as {@link Expression#evaluate}).
+	 */
+	public Object evaluate(State state) throws PrismLangException
+	{
+		if (code != null) {
+			try {
+				run(state.varValues);
+				switch (resultKind) {
+				case INT:
+					return iregs[resultReg];
+				case BOOL:
+					return iregs[resultReg] != 0;
+				default:
+					return dregs[resultReg];
+				}
+			} catch (RuntimeException | PrismLangException e) {
+				// Fall back on original expression (below) to get correct result/error
+			}
+		}
+		return expr.evaluate(constantValues, state);
+	}
+
+	/**
+	 * Evaluate this expression for a state as an integer
+	 * (Booleans are converted to 0/1, as for {@link Expression#evaluateInt}).
+	 */
+	public int evaluateInt(State state) throws PrismLangException
+	{
+		if (code != null && resultKind != DOUBLE) {
+			try {
+				run(state.varValues);
+				return iregs[resultReg];
+			} catch (RuntimeException | PrismLangException e) {
+				// Fall back on original expression (below) to get correct result/error
+			}
+		}
+		return expr.evaluateInt(constantValues, state);
+	}
+
+	/**
+	 * Evaluate this expression for a state as a double
+	 * (integers/Booleans are converted, as for {@link Expression#evaluateDouble}).
+	 */
+	public double evaluateDouble(State state) throws PrismLangException
+	{
+		if (code != null) {
+			try {
+				run(state.varValues);
+				return resultKind == DOUBLE ? dregs[resultReg] : iregs[resultReg];
+			} catch (RuntimeException | PrismLangException e) {
+				// Fall back on original expression (below) to get correct result/error
+			}
+		}
+		return expr.evaluateDouble(constantValues, state);
+	}
+
+	/**
+	 * Evaluate this expression for a state as a Boolean.
+	 */
+	public boolean evaluateBoolean(State state) throws PrismLangException
+	{
+		if (code != null && resultKind == BOOL) {
+			try {
+				run(state.varValues);
+				return iregs[resultReg] != 0;
+			} catch (RuntimeException | PrismLangException e) {
+				// Fall back on original expression (below) to get correct result/error
+			}
+		}
+		return expr.evaluateBoolean(constantValues, state);
+	}
+
+	/**
+	 * Execute the program, for the given variable values.
+	 * Any errors result in an exception, with no meaningful message
+	 * (callers should re-evaluate the original expression).
+	 */
+	private void run(Object varValues[]) throws PrismLangException
+	{
+		final int code[] = this.code;
+		final int ir[] = iregs;
+		final double dr[] = dregs;
+		final int n = code.length;
+		int pc = 0;
+		while (pc < n) {
+			int dst = code[pc + 1];
+			int a = code[pc + 2];
+			int b = code[pc + 3];
+			switch (code[pc]) {
+			case ICONST:
+				ir[dst] = a;
+				break;
+			case DCONST:
+				dr[dst] = pool[a];
+				break;
+			case IVAR:
+				ir[dst] = ((Integer) varValues[a]).intValue();
+				break;
+			case BVAR:
+				ir[dst] = ((Boolean) varValues[a]).booleanValue() ? 1 : 0;
+				break;
+			case IMOV:
+				ir[dst] = ir[a];
+				break;
+			case DMOV:
+				dr[dst] = dr[a];
+				break;
+			case I2D:
+				dr[dst] = ir[a];
+				break;
+			case NOT:
+				ir[dst] = ir[a] == 0 ? 1 : 0;
+				break;
+			case JZ:
+				if (ir[a] == 0) {
+					pc = b;
+					continue;
+				}
+				break;
+			case JNZ:
+				if (ir[a] != 0) {
+					pc = b;
+					continue;
+				}
+				break;
+			case JMP:
+				pc = b;
+				continue;
+			case INEG:
+				ir[dst] = Math.negateExact(ir[a]);
+				break;
+			case DNEG:
+				dr[dst] = -dr[a];
+				break;
+			case IADD:
+				ir[dst] = Math.addExact(ir[a], ir[b]);
+				break;
+			case ISUB:
+				ir[dst] = Math.subtractExact(ir[a], ir[b]);
+				break;
+			case IMUL:
+				ir[dst] = Math.multiplyExact(ir[a], ir[b]);
+				break;
+			case DADD:
+				dr[dst] = dr[a] + dr[b];
+				break;
+			case DSUB:
+				dr[dst] = dr[a] - dr[b];
+				break;
+			case DMUL:
+				dr[dst] = dr[a] * dr[b];
+				break;
+			case DDIV:
+				dr[dst] = dr[a] / dr[b];
+				break;
+			case IEQ:
+				ir[dst] = ir[a] == ir[b] ? 1 : 0;
+				break;
+			case INE:
+				ir[dst] = ir[a] != ir[b] ? 1 : 0;
+				break;
+			case IGT:
+				ir[dst] = ir[a] > ir[b] ? 1 : 0;
+				break;
+			case IGE:
+				ir[dst] = ir[a] >= ir[b] ? 1 : 0;
+				break;
+			case ILT:
+				ir[dst] = ir[a] < ir[b] ? 1 : 0;
+				break;
+			case ILE:
+				ir[dst] = ir[a] <= ir[b] ? 1 : 0;
+				break;
+			case DEQ:
+				ir[dst] = dr[a] == dr[b] ? 1 : 0;
+				break;
+			case DNE:
+				ir[dst] = dr[a] != dr[b] ? 1 : 0;
+				break;
+			case DGT:
+				ir[dst] = dr[a] > dr[b] ? 1 : 0;
+				break;
+			case DGE:
+				ir[dst] = dr[a] >= dr[b] ? 1 : 0;
+				break;
+			case DLT:
+				ir[dst] = dr[a] < dr[b] ? 1 : 0;
+				break;
+			case DLE:
+				ir[dst] = dr[a] <= dr[b] ? 1 : 0;
+				break;
+			// NB: min/max as in ExpressionFunc (a is the current min/max)
+			case IMIN:
+				ir[dst] = (ir[b] < ir[a]) ? ir[b] : ir[a];
+				break;
+			case IMAX:
+				ir[dst] = (ir[b] > ir[a]) ? ir[b] : ir[a];
+				break;
+			case DMIN:
+				dr[dst] = (dr[b] < dr[a]) ? dr[b] : dr[a];
+				break;
+			case DMAX:
+				dr[dst] = (dr[b] > dr[a]) ? dr[b] : dr[a];
+				break;
+			case FLOOR:
+				ir[dst] = ExpressionFunc.evaluateFloor(dr[a]);
+				break;
+			case CEIL:
+				ir[dst] = ExpressionFunc.evaluateCeil(dr[a]);
+				break;
+			case ROUND:
+				ir[dst] = ExpressionFunc.evaluateRound(dr[a]);
+				break;
+			case IPOW:
+				ir[dst] = ExpressionFunc.evaluatePowInt(ir[a], ir[b]);
+				break;
+			case DPOW:
+				dr[dst] = ExpressionFunc.evaluatePowDouble(dr[a], dr[b]);
+				break;
+			case MOD:
+				ir[dst] = ExpressionFunc.evaluateMod(ir[a], ir[b]);
+				break;
+			case LOG:
+				dr[dst] = PrismUtils.log(dr[a], dr[b]);
+				break;
+			default:
+				throw new IllegalStateException("Unknown opcode " + code[pc]);
+			}
+			pc += 4;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package simulator;
+
+import parser.State;
+import parser.Values;
+import parser.ast.Update;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
+import prism.PrismLangException;
+
+/**
+ * An {@link Update} in "compiled" form, i.e., with a {@link CompiledExpression} for each element.
+ * Only updates whose expressions do not refer to primed variables
+ * (and so can be applied in any order) can be compiled.
+ */
+public class CompiledUpdate
+{
+	/** The original update */
+	private Update update;
+	/** Indices of updated variables */
+	private int varIndices[];
+	/** Compiled expressions for new values */
+	private CompiledExpression exprs[];
+
+	private CompiledUpdate(Update update, int varIndices[], CompiledExpression exprs[])
+	{
+		this.update = update;
+		this.varIndices = varIndices;
+		this.exprs = exprs;
+	}
+
+	/**
+	 * Compile an update; returns null if this is not possible
+	 * (i.e., if some expression refers to primed variables or is not of integer/Boolean type).
+	 * @param update The update
+	 * @param constantValues Values for any constants (may be null)
+	 */
+	public static CompiledUpdate compile(Update update, Values constantValues)
+	{
+		int n = update.getNumElements();
+		int varIndices[] = new int[n];
+		CompiledExpression exprs[] = new CompiledExpression[n];
+		try {
+			for (int i = 0; i < n; i++) {
+				if (!update.getExpression(i).getPrimedVars().isEmpty()) {
+					return null;
+				}
+				if (!(update.getExpression(i).getType() instanceof TypeInt || update.getExpression(i).getType() instanceof TypeBool)) {
+					return null;
+				}
+				varIndices[i] = update.getVarIndex(i);
+				exprs[i] = ExpressionCompiler.compile(update.getExpression(i), constantValues);
+			}
+		} catch (PrismLangException e) {
+			return null;
+		}
+		return new CompiledUpdate(update, varIndices, exprs);
+	}
+
+	/**
+	 * Get the original update.
+	 */
+	public Update getUpdate()
+	{
+		return update;
+	}
+
+	/**
+	 * Get the number of variables updated.
+	 */
+	public int getNumElements()
+	{
+		return varIndices.length;
+	}
+
+	/**
+	 * Get the index of the {@code i}th variable updated.
+	 */
+	public int getVarIndex(int i)
+	{
+		return varIndices[i];
+	}
+
+	/**
+	 * Execute this update, as for {@link Update#update(State, State)}.
+	 * @param oldState Variable values in current state
+	 * @param newState State object to apply changes to
+	 */
+	public void update(State oldState, State newState) throws PrismLangException
+	{
+		int n = varIndices.length;
+		for (int i = 0; i < n; i++) {
+			newState.setValue(varIndices[i], exprs[i].evaluate(oldState));
+		}
+	}
+}
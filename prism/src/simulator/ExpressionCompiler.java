@@ -0,0 +1,389 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import parser.EvaluateContextConstants;
+import parser.Values;
+import parser.ast.Expression;
+import parser.ast.ExpressionBinaryOp;
+import parser.ast.ExpressionConstant;
+import parser.ast.ExpressionFormula;
+import parser.ast.ExpressionFunc;
+import parser.ast.ExpressionITE;
+import parser.ast.ExpressionLiteral;
+import parser.ast.ExpressionUnaryOp;
+import parser.ast.ExpressionVar;
+import parser.type.Type;
+import parser.type.TypeBool;
+import parser.type.TypeDouble;
+import parser.type.TypeInt;
+import prism.PrismLangException;
+
+import static simulator.CompiledExpression.*;
+
+/**
+ * Compiler from (state-based) PRISM expressions to {@link CompiledExpression}s.
+ * Supported are literals/constants, (unprimed) integer/Boolean variables,
+ * unary/binary operators, if-then-else, formulas and the functions min, max,
+ * floor, ceil, round, pow, mod and log. Anything else is left to the original expression.
+ */
+public class ExpressionCompiler
+{
+	/**
+	 * Exception used internally to signal that an (sub)expression cannot be compiled.
+	 */
+	@SuppressWarnings("serial")
+	private static class UnsupportedException extends Exception
+	{
+	}
+
+	/** Values of constants (may be null) */
+	private Values constantValues;
+
+	// Program being built
+	private int code[] = new int[64];
+	private int codeSize = 0;
+	private List<Double> pool = new ArrayList<Double>();
+	private int numIntRegs = 0;
+	private int numDoubleRegs = 0;
+
+	private ExpressionCompiler(Values constantValues)
+	{
+		this.constantValues = constantValues;
+	}
+
+	/**
+	 * Compile an expression, to be evaluated over the variables of a State.
+	 * If the expression cannot be compiled, the returned object just evaluates
+	 * the original expression. The result is never null.
+	 * @param expr The expression
+	 * @param constantValues Values for any constants (may be null)
+	 */
+	public static CompiledExpression compile(Expression expr, Values constantValues)
+	{
+		ExpressionCompiler compiler = new ExpressionCompiler(constantValues);
+		try {
+			int kind = kindOf(expr);
+			int reg = compiler.compileAs(expr, kind);
+			double pool[] = new double[compiler.pool.size()];
+			for (int i = 0; i < pool.length; i++) {
+				pool[i] = compiler.pool.get(i);
+			}
+			int code[] = Arrays.copyOf(compiler.code, compiler.codeSize);
+			return new CompiledExpression(expr, constantValues, code, pool, compiler.numIntRegs, compiler.numDoubleRegs, reg, kind);
+		} catch (UnsupportedException e) {
+			return new CompiledExpression(expr, constantValues, null, null, 0, 0, 0, 0);
+		}
+	}
+
+	/**
+	 * Get the kind (int, Boolean, double) of values for an expression, based on its type.
+	 */
+	private static int kindOf(Expression expr) throws UnsupportedException
+	{
+		Type type = expr.getType();
+		if (type instanceof TypeInt) {
+			return INT;
+		} else if (type instanceof TypeBool) {
+			return BOOL;
+		} else if (type instanceof TypeDouble) {
+			return DOUBLE;
+		}
+		throw new UnsupportedException();
+	}
+
+	/**
+	 * Compile an expression, with the result converted to the required kind,
+	 * in the same way as by {@link Expression#evaluateInt}, {@link Expression#evaluateDouble}, etc.
+	 * Returns the index of the (int or double) register that stores the result.
+	 */
+	private int compileAs(Expression expr, int kind) throws UnsupportedException
+	{
+		int actual = kindOf(expr);
+		int reg = compile(expr, actual);
+		if (actual == kind || (kind == INT && actual == BOOL)) {
+			return reg;
+		}
+		if (kind == DOUBLE) {
+			int res = newDoubleReg();
+			emit(I2D, res, reg, 0);
+			return res;
+		}
+		throw new UnsupportedException();
+	}
+
+	/**
+	 * Compile an expression, whose result is of the given kind.
+	 * Returns the index of the (int or double) register that stores the result.
+	 */
+	private int compile(Expression expr, int kind) throws UnsupportedException
+	{
+		if (expr instanceof ExpressionLiteral || expr instanceof ExpressionConstant) {
+			return compileValue(expr, kind);
+		}
+		if (expr instanceof ExpressionVar) {
+			return compileVar((ExpressionVar) expr, kind);
+		}
+		if (expr instanceof ExpressionFormula) {
+			Expression defn = ((ExpressionFormula) expr).getDefinition();
+			if (defn == null) {
+				throw new UnsupportedException();
+			}
+			return compileAs(defn, kind);
+		}
+		if (expr instanceof ExpressionUnaryOp) {
+			return compileUnaryOp((ExpressionUnaryOp) expr, kind);
+		}
+		if (expr instanceof ExpressionBinaryOp) {
+			return compileBinaryOp((ExpressionBinaryOp) expr, kind);
+		}
+		if (expr instanceof ExpressionITE) {
+			return compileITE((ExpressionITE) expr, kind);
+		}
+		if (expr instanceof ExpressionFunc) {
+			return compileFunc((ExpressionFunc) expr, kind);
+		}
+		throw new UnsupportedException();
+	}
+
+	private int compileValue(Expression expr, int kind) throws UnsupportedException
+	{
+		Object value;
+		try {
+			value = expr.evaluate(new EvaluateContextConstants(constantValues));
+		} catch (PrismLangException e) {
+			throw new UnsupportedException();
+		}
+		if (kind == INT && value instanceof Integer) {
+			int res = newIntReg();
+			emit(ICONST, res, (Integer) value, 0);
+			return res;
+		} else if (kind == BOOL && value instanceof Boolean) {
+			int res = newIntReg();
+			emit(ICONST, res, ((Boolean) value) ? 1 : 0, 0);
+			return res;
+		} else if (kind == DOUBLE && value instanceof Double) {
+			int res = newDoubleReg();
+			pool.add((Double) value);
+			emit(DCONST, res, pool.size() - 1, 0);
+			return res;
+		}
+		throw new UnsupportedException();
+	}
+
+	private int compileVar(ExpressionVar expr, int kind) throws UnsupportedException
+	{
+		if (expr.getPrime() || expr.getIndex() < 0 || kind == DOUBLE) {
+			throw new UnsupportedException();
+		}
+		int res = newIntReg();
+		emit(kind == INT ? IVAR : BVAR, res, expr.getIndex(), 0);
+		return res;
+	}
+
+	private int compileUnaryOp(ExpressionUnaryOp expr, int kind) throws UnsupportedException
+	{
+		int res;
+		switch (expr.getOperator()) {
+		case ExpressionUnaryOp.NOT:
+			res = newIntReg();
+			emit(NOT, res, compileAs(expr.getOperand(), BOOL), 0);
+			return res;
+		case ExpressionUnaryOp.MINUS:
+			if (kind == INT) {
+				res = newIntReg();
+				emit(INEG, res, compileAs(expr.getOperand(), INT), 0);
+			} else {
+				res = newDoubleReg();
+				emit(DNEG, res, compileAs(expr.getOperand(), DOUBLE), 0);
+			}
+			return res;
+		case ExpressionUnaryOp.PARENTH:
+			return compileAs(expr.getOperand(), kind);
+		}
+		throw new UnsupportedException();
+	}
+
+	private int compileBinaryOp(ExpressionBinaryOp expr, int kind) throws UnsupportedException
+	{
+		Expression op1 = expr.getOperand1();
+		Expression op2 = expr.getOperand2();
+		int op = expr.getOperator();
+		int res, jump;
+		switch (op) {
+		case ExpressionBinaryOp.IMPLIES:
+		case ExpressionBinaryOp.OR:
+		case ExpressionBinaryOp.AND:
+			// Short-circuit evaluation, as for Expression
+			res = newIntReg();
+			int reg1 = compileAs(op1, BOOL);
+			emit(op == ExpressionBinaryOp.IMPLIES ? NOT : IMOV, res, reg1, 0);
+			jump = codeSize;
+			emit(op == ExpressionBinaryOp.AND ? JZ : JNZ, 0, res, 0);
+			emit(IMOV, res, compileAs(op2, BOOL), 0);
+			code[jump + 3] = codeSize;
+			return res;
+		case ExpressionBinaryOp.IFF:
+			res = newIntReg();
+			emit(IEQ, res, compileAs(op1, BOOL), compileAs(op2, BOOL));
+			return res;
+		case ExpressionBinaryOp.EQ:
+		case ExpressionBinaryOp.NE:
+		case ExpressionBinaryOp.GT:
+		case ExpressionBinaryOp.GE:
+		case ExpressionBinaryOp.LT:
+		case ExpressionBinaryOp.LE:
+			res = newIntReg();
+			boolean ints = isInt(op1) && isInt(op2);
+			int operandKind = ints ? INT : DOUBLE;
+			int opcode = (ints ? IEQ : DEQ) + (op - ExpressionBinaryOp.EQ);
+			emit(opcode, res, compileAs(op1, operandKind), compileAs(op2, operandKind));
+			return res;
+		case ExpressionBinaryOp.PLUS:
+		case ExpressionBinaryOp.MINUS:
+		case ExpressionBinaryOp.TIMES:
+			if (isInt(op1) && isInt(op2)) {
+				res = newIntReg();
+				emit(IADD + (op - ExpressionBinaryOp.PLUS), res, compileAs(op1, INT), compileAs(op2, INT));
+			} else {
+				res = newDoubleReg();
+				emit(DADD + (op - ExpressionBinaryOp.PLUS), res, compileAs(op1, DOUBLE), compileAs(op2, DOUBLE));
+			}
+			return asKind(res, isInt(op1) && isInt(op2) ? INT : DOUBLE, kind);
+		case ExpressionBinaryOp.DIVIDE:
+			res = newDoubleReg();
+			emit(DDIV, res, compileAs(op1, DOUBLE), compileAs(op2, DOUBLE));
+			return asKind(res, DOUBLE, kind);
+		}
+		throw new UnsupportedException();
+	}
+
+	private int compileITE(ExpressionITE expr, int kind) throws UnsupportedException
+	{
+		int res = kind == DOUBLE ? newDoubleReg() : newIntReg();
+		int mov = kind == DOUBLE ? DMOV : IMOV;
+		int cond = compileAs(expr.getOperand1(), BOOL);
+		int jumpElse = codeSize;
+		emit(JZ, 0, cond, 0);
+		emit(mov, res, compileAs(expr.getOperand2(), kind), 0);
+		int jumpEnd = codeSize;
+		emit(JMP, 0, 0, 0);
+		code[jumpElse + 3] = codeSize;
+		emit(mov, res, compileAs(expr.getOperand3(), kind), 0);
+		code[jumpEnd + 3] = codeSize;
+		return res;
+	}
+
+	private int compileFunc(ExpressionFunc expr, int kind) throws UnsupportedException
+	{
+		int res, n = expr.getNumOperands();
+		switch (expr.getNameCode()) {
+		case ExpressionFunc.MIN:
+		case ExpressionFunc.MAX:
+			boolean min = expr.getNameCode() == ExpressionFunc.MIN;
+			if (kind == INT) {
+				res = newIntReg();
+				emit(IMOV, res, compileAs(expr.getOperand(0), INT), 0);
+				for (int i = 1; i < n; i++) {
+					emit(min ? IMIN : IMAX, res, res, compileAs(expr.getOperand(i), INT));
+				}
+			} else {
+				res = newDoubleReg();
+				emit(DMOV, res, compileAs(expr.getOperand(0), DOUBLE), 0);
+				for (int i = 1; i < n; i++) {
+					emit(min ? DMIN : DMAX, res, res, compileAs(expr.getOperand(i), DOUBLE));
+				}
+			}
+			return res;
+		case ExpressionFunc.FLOOR:
+		case ExpressionFunc.CEIL:
+		case ExpressionFunc.ROUND:
+			res = newIntReg();
+			emit(FLOOR + (expr.getNameCode() - ExpressionFunc.FLOOR), res, compileAs(expr.getOperand(0), DOUBLE), 0);
+			return asKind(res, INT, kind);
+		case ExpressionFunc.POW:
+			if (kind == INT) {
+				res = newIntReg();
+				emit(IPOW, res, compileAs(expr.getOperand(0), INT), compileAs(expr.getOperand(1), INT));
+			} else {
+				res = newDoubleReg();
+				emit(DPOW, res, compileAs(expr.getOperand(0), DOUBLE), compileAs(expr.getOperand(1), DOUBLE));
+			}
+			return res;
+		case ExpressionFunc.MOD:
+			res = newIntReg();
+			emit(MOD, res, compileAs(expr.getOperand(0), INT), compileAs(expr.getOperand(1), INT));
+			return asKind(res, INT, kind);
+		case ExpressionFunc.LOG:
+			res = newDoubleReg();
+			emit(LOG, res, compileAs(expr.getOperand(0), DOUBLE), compileAs(expr.getOperand(1), DOUBLE));
+			return asKind(res, DOUBLE, kind);
+		}
+		throw new UnsupportedException();
+	}
+
+	// Utility methods
+
+	/**
+	 * Check that the kind of value computed for an operator matches the one expected from its type.
+	 */
+	private int asKind(int reg, int actual, int kind) throws UnsupportedException
+	{
+		if (actual != kind) {
+			throw new UnsupportedException();
+		}
+		return reg;
+	}
+
+	private static boolean isInt(Expression expr) throws UnsupportedException
+	{
+		return kindOf(expr) == INT;
+	}
+
+	private int newIntReg()
+	{
+		return numIntRegs++;
+	}
+
+	private int newDoubleReg()
+	{
+		return numDoubleRegs++;
+	}
+
+	private void emit(int opcode, int dst, int a, int b)
+	{
+		if (codeSize + 4 > code.length) {
+			code = Arrays.copyOf(code, code.length * 2);
+		}
+		code[codeSize++] = opcode;
+		code[codeSize++] = dst;
+		code[codeSize++] = a;
+		code[codeSize++] = b;
+	}
+}
@@ -0,0 +1,254 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Vector;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.DeclarationType;
+import parser.ast.Expression;
+import parser.ast.ExpressionBinaryOp;
+import parser.ast.ExpressionUnaryOp;
+import parser.ast.Module;
+import parser.ast.ModulesFile;
+import prism.PrismException;
+
+/**
+ * Index of the commands of each module of a model, used to skip evaluation
+ * of guards that cannot be true in a state.
+ * <br>
+ * For each module, a "key" variable with a small domain (e.g. a program counter/mode)
+ * is selected, based on the top-level conjuncts of the command guards that refer to it
+ * and no other variable (e.g. {@code pc=3} or {@code mode<2}).
+ * A decision table then gives, for each value of the key variable,
+ * the (ordered) list of commands whose guard may be true for that value.
+ */
+public class GuardIndex
+{
+	/** Maximum domain size of key variables */
+	public static final int MAX_DOMAIN = 256;
+
+	/** Variable info */
+	private VarList varList;
+	/** Key variable for each module (-1 if none) */
+	private int keyVars[];
+	/** Lower bound of key variable for each module */
+	private int keyLows[];
+	/** For each module and (offset) value of its key variable, the indices of candidate commands */
+	private int candidates[][][];
+
+	/**
+	 * Build the guard index for a model.
+	 * @param modulesFile The model (constants should have been replaced)
+	 * @param varList Variable info for the model
+	 */
+	public GuardIndex(ModulesFile modulesFile, VarList varList)
+	{
+		this.varList = varList;
+		int numModules = modulesFile.getNumModules();
+		keyVars = new int[numModules];
+		keyLows = new int[numModules];
+		candidates = new int[numModules][][];
+		for (int m = 0; m < numModules; m++) {
+			buildForModule(m, modulesFile.getModule(m));
+		}
+	}
+
+	/**
+	 * Select the key variable for a module and build its decision table.
+	 */
+	private void buildForModule(int m, Module module)
+	{
+		int numCommands = module.getNumCommands();
+		int numVars = varList.getNumVars();
+		// For each (small-domain) variable and command, values for which the guard may be true
+		// (null if unconstrained)
+		boolean possible[][][] = new boolean[numVars][][];
+		for (int c = 0; c < numCommands; c++) {
+			List<Expression> conjuncts = new ArrayList<Expression>();
+			splitConjunction(module.getCommand(c).getGuard(), conjuncts);
+			for (Expression conj : conjuncts) {
+				int v = getSingleVar(conj);
+				if (v == -1) {
+					continue;
+				}
+				if (possible[v] == null) {
+					possible[v] = new boolean[numCommands][];
+				}
+				int range = varList.getRange(v);
+				if (possible[v][c] == null) {
+					possible[v][c] = new boolean[range];
+					for (int k = 0; k < range; k++) {
+						possible[v][c][k] = true;
+					}
+				}
+				State state = new State(numVars);
+				for (int k = 0; k < range; k++) {
+					state.setValue(v, varList.decodeFromInt(v, k));
+					try {
+						if (!conj.evaluateBoolean(state)) {
+							possible[v][c][k] = false;
+						}
+					} catch (PrismException e) {
+						// Can't tell (e.g. depends on another variable): keep as possible
+					}
+				}
+			}
+		}
+		// Pick the variable that excludes the most commands, on average over its values
+		int best = -1;
+		double bestScore = 0;
+		for (int v = 0; v < numVars; v++) {
+			if (possible[v] == null) {
+				continue;
+			}
+			long numExcluded = 0;
+			for (int c = 0; c < numCommands; c++) {
+				if (possible[v][c] != null) {
+					for (boolean b : possible[v][c]) {
+						if (!b) {
+							numExcluded++;
+						}
+					}
+				}
+			}
+			double score = (double) numExcluded / varList.getRange(v);
+			if (score > bestScore) {
+				best = v;
+				bestScore = score;
+			}
+		}
+		keyVars[m] = best;
+		if (best == -1) {
+			return;
+		}
+		// Build decision table
+		int range = varList.getRange(best);
+		keyLows[m] = varList.getLow(best);
+		candidates[m] = new int[range][];
+		int list[] = new int[numCommands];
+		for (int k = 0; k < range; k++) {
+			int n = 0;
+			for (int c = 0; c < numCommands; c++) {
+				if (possible[best][c] == null || possible[best][c][k]) {
+					list[n++] = c;
+				}
+			}
+			candidates[m][k] = Arrays.copyOf(list, n);
+		}
+	}
+
+	/**
+	 * Split an expression into its top-level conjuncts.
+	 */
+	private static void splitConjunction(Expression expr, List<Expression> conjuncts)
+	{
+		if (expr instanceof ExpressionBinaryOp && ((ExpressionBinaryOp) expr).getOperator() == ExpressionBinaryOp.AND) {
+			splitConjunction(((ExpressionBinaryOp) expr).getOperand1(), conjuncts);
+			splitConjunction(((ExpressionBinaryOp) expr).getOperand2(), conjuncts);
+		} else if (expr instanceof ExpressionUnaryOp && ((ExpressionUnaryOp) expr).getOperator() == ExpressionUnaryOp.PARENTH) {
+			splitConjunction(((ExpressionUnaryOp) expr).getOperand(), conjuncts);
+		} else {
+			conjuncts.add(expr);
+		}
+	}
+
+	/**
+	 * If an expression refers to exactly one variable, which is suitable as a key
+	 * (a bounded integer or Boolean with small domain), return its index; otherwise -1.
+	 */
+	private int getSingleVar(Expression expr)
+	{
+		Vector<String> vars;
+		try {
+			vars = expr.getAllVars();
+		} catch (PrismException e) {
+			return -1;
+		}
+		if (vars.size() != 1) {
+			return -1;
+		}
+		int v = varList.getIndex(vars.get(0));
+		if (v == -1) {
+			return -1;
+		}
+		DeclarationType declType = varList.getDeclarationType(v);
+		if (!(declType instanceof DeclarationInt || declType instanceof DeclarationBool)) {
+			return -1;
+		}
+		if (varList.getRange(v) > MAX_DOMAIN) {
+			return -1;
+		}
+		return v;
+	}
+
+	/**
+	 * Get the indices of the commands of module {@code m} whose guards may be true in a state,
+	 * in ascending order, or null if all of them need to be checked.
+	 */
+	public int[] getCandidates(int m, State state)
+	{
+		int v = keyVars[m];
+		if (v == -1) {
+			return null;
+		}
+		Object val = state.varValues[v];
+		int k;
+		if (val instanceof Integer) {
+			k = ((Integer) val) - keyLows[m];
+		} else if (val instanceof Boolean) {
+			k = ((Boolean) val) ? 1 : 0;
+		} else {
+			return null;
+		}
+		if (k < 0 || k >= candidates[m].length) {
+			return null;
+		}
+		return candidates[m][k];
+	}
+
+	/**
+	 * Get a description of the key variables used for each module.
+	 */
+	public String getKeyVarsString(ModulesFile modulesFile)
+	{
+		String s = "";
+		for (int m = 0; m < keyVars.length; m++) {
+			if (keyVars[m] != -1) {
+				if (!s.isEmpty()) {
+					s += ", ";
+				}
+				s += varList.getName(keyVars[m]) + " (" + modulesFile.getModuleName(m) + ")";
+			}
+		}
+		return s.isEmpty() ? "none" : s;
+	}
+}
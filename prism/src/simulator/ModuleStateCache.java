@@ -0,0 +1,163 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package simulator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import parser.State;
+
+/**
+ * Bounded cache of information about the commands of a single module, for use by {@link Updater}.
+ * Entries are indexed by the values of the variables that the guards and probabilities/rates
+ * of the module's commands depend on (its "local state"), which typically repeat across
+ * many global states. The least recently used entries are evicted once the cache is full.
+ */
+public class ModuleStateCache
+{
+	/**
+	 * Cached information for one local state: the enabled commands
+	 * and (once computed) the probabilities/rates of each one's updates.
+	 */
+	public static class Entry
+	{
+		/** Indices of enabled commands (ascending) */
+		public final int enabled[];
+		/** Probabilities/rates for the updates of each command (null if not yet computed) */
+		public final double probs[][];
+
+		public Entry(int enabled[], int numCommands)
+		{
+			this.enabled = enabled;
+			this.probs = new double[numCommands][];
+		}
+	}
+
+	/**
+	 * Key for the cache: values of the relevant variables.
+	 */
+	private static class Key
+	{
+		private final int values[];
+		private final int hash;
+
+		Key(int values[])
+		{
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof Key && hash == ((Key) o).hash && Arrays.equals(values, ((Key) o).values);
+		}
+	}
+
+	/** Indices of the variables which determine the local state */
+	private int vars[];
+	/** Maximum number of entries */
+	private int maxSize;
+	/** The cache (in access order) */
+	private LinkedHashMap<Key, Entry> cache;
+	/** Key for the last lookup */
+	private Key lastKey;
+
+	// Statistics
+	private long numHits;
+	private long numMisses;
+
+	/**
+	 * Create a cache.
+	 * @param vars Indices of the variables which determine the local state
+	 * @param maxSize Maximum number of entries
+	 */
+	@SuppressWarnings("serial")
+	public ModuleStateCache(int vars[], int maxSize)
+	{
+		this.vars = vars;
+		this.maxSize = maxSize;
+		cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest)
+			{
+				return size() > ModuleStateCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Look up the entry for the local state of a (global) state; null if not present.
+	 * If not present, a subsequent call to {@link #add} stores an entry for it.
+	 */
+	public Entry lookup(State state)
+	{
+		int values[] = new int[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			Object o = state.varValues[vars[i]];
+			values[i] = (o instanceof Boolean) ? (((Boolean) o) ? 1 : 0) : ((Integer) o).intValue();
+		}
+		lastKey = new Key(values);
+		Entry entry = cache.get(lastKey);
+		if (entry == null) {
+			numMisses++;
+		} else {
+			numHits++;
+		}
+		return entry;
+	}
+
+	/**
+	 * Add an entry for the local state of the state passed to the last call to {@link #lookup}.
+	 */
+	public void add(Entry entry)
+	{
+		cache.put(lastKey, entry);
+	}
+
+	/**
+	 * Get the number of lookups that found an entry.
+	 */
+	public long getNumHits()
+	{
+		return numHits;
+	}
+
+	/**
+	 * Get the number of lookups that did not find an entry.
+	 */
+	public long getNumMisses()
+	{
+		return numMisses;
+	}
+}
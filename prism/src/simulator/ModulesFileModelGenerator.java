@@ -18,6 +18,8 @@ import prism.ModelType;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismLangException;
+import prism.PrismLog;
+import prism.PrismUtils;
 import prism.RewardGenerator;
 
 public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerator
@@ -46,6 +48,18 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 	protected TransitionList transitionList;
 	// Has the transition list been built? 
 	protected boolean transitionListBuilt;
+	// Compiled expressions for labels and reward structures (guards/rewards of each item)
+	protected CompiledExpression labelExprs[];
+	protected CompiledExpression rewardGuards[][];
+	protected CompiledExpression rewardExprs[][];
+	// Model generator that this is a copy of (see createCopy), if any
+	protected ModulesFileModelGenerator original;
+	// Exploration statistics passed back by released copies (see releaseCopy)
+	protected long copiesGuardsEvaluated;
+	protected long copiesGuardsEnabled;
+	protected long copiesGuardsSkipped;
+	protected long copiesModuleCacheHits;
+	protected long copiesModuleCacheMisses;
 		
 	/**
 	 * Build a ModulesFileModelGenerator for a particular PRISM model, represented by a ModuleFile instance.
@@ -88,6 +102,21 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		}
 	}
 	
+	/**
+	 * Copy constructor, used by {@link #createCopy()}.
+	 * The copy has its own copy of the (initialised) modules file.
+	 */
+	private ModulesFileModelGenerator(ModulesFileModelGenerator mfmg) throws PrismException
+	{
+		parent = mfmg.parent;
+		originalModulesFile = mfmg.originalModulesFile;
+		modulesFile = mfmg.modulesFile;
+		modelType = mfmg.modelType;
+		mfConstants = mfmg.mfConstants;
+		initialise();
+		original = mfmg;
+	}
+	
 	/**
 	 * (Re-)Initialise the class ready for model exploration
 	 * (can only be done once any constants needed have been provided)
@@ -108,6 +137,38 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 			updater.initialiseCSG();
 		transitionList = new TransitionList();
 		transitionListBuilt = false;
+		
+		// Compile labels/rewards for faster evaluation
+		compileLabelsAndRewards();
+		synchronized (this) {
+			copiesGuardsEvaluated = copiesGuardsEnabled = copiesGuardsSkipped = 0;
+			copiesModuleCacheHits = copiesModuleCacheMisses = 0;
+		}
+	}
+	
+	/**
+	 * Compile the expressions for labels and reward structures (see {@link ExpressionCompiler}).
+	 */
+	private void compileLabelsAndRewards()
+	{
+		int numLabels = labelList.size();
+		labelExprs = new CompiledExpression[numLabels];
+		for (int i = 0; i < numLabels; i++) {
+			labelExprs[i] = ExpressionCompiler.compile(labelList.getLabel(i), null);
+		}
+		int numRewardStructs = modulesFile.getNumRewardStructs();
+		rewardGuards = new CompiledExpression[numRewardStructs][];
+		rewardExprs = new CompiledExpression[numRewardStructs][];
+		for (int r = 0; r < numRewardStructs; r++) {
+			RewardStruct rewStr = modulesFile.getRewardStruct(r);
+			int n = rewStr.getNumItems();
+			rewardGuards[r] = new CompiledExpression[n];
+			rewardExprs[r] = new CompiledExpression[n];
+			for (int i = 0; i < n; i++) {
+				rewardGuards[r][i] = ExpressionCompiler.compile(rewStr.getStates(i), modulesFile.getConstantValues());
+				rewardExprs[r][i] = ExpressionCompiler.compile(rewStr.getReward(i), modulesFile.getConstantValues());
+			}
+		}
 	}
 	
 	// Methods for ModelInfo interface
@@ -288,6 +349,31 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		return initStates;
 	}
 
+	@Override
+	public ModelGenerator createCopy() throws PrismException
+	{
+		if (mfConstants == null) {
+			throw new PrismException("Model generator cannot be copied before constants are defined");
+		}
+		return new ModulesFileModelGenerator(this);
+	}
+
+	@Override
+	public void releaseCopy()
+	{
+		if (original == null) {
+			return;
+		}
+		synchronized (original) {
+			original.copiesGuardsEvaluated += updater.getNumGuardsEvaluated();
+			original.copiesGuardsEnabled += updater.getNumGuardsEnabled();
+			original.copiesGuardsSkipped += updater.getNumGuardsSkipped();
+			original.copiesModuleCacheHits += updater.getNumModuleCacheHits();
+			original.copiesModuleCacheMisses += updater.getNumModuleCacheMisses();
+		}
+		original = null;
+	}
+
 	@Override
 	public void exploreState(State exploreState) throws PrismException
 	{
@@ -549,8 +635,7 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 	@Override
 	public boolean isLabelTrue(int i) throws PrismException
 	{
-		Expression expr = labelList.getLabel(i);
-		return expr.evaluateBoolean(exploreState);
+		return labelExprs[i].evaluateBoolean(exploreState);
 	}
 	
 	@Override
@@ -596,9 +681,8 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		double d = 0;
 		for (int i = 0; i < n; i++) {
 			if (!rewStr.getRewardStructItem(i).isTransitionReward()) {
-				Expression guard = rewStr.getStates(i);
-				if (guard.evaluateBoolean(modulesFile.getConstantValues(), state)) {
-					double rew = rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+				if (rewardGuards[r][i].evaluateBoolean(state)) {
+					double rew = rewardExprs[r][i].evaluateDouble(state);
 					// Check reward is finite/non-negative (would be checked at model construction time,
 					// but more fine grained error reporting can be done here)
 					// Note use of original model since modulesFile may have been simplified
@@ -622,17 +706,15 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		double d = 0;
 		RewardStruct rewStr = modulesFile.getRewardStruct(r);
 		int n = rewStr.getNumItems();
-		Expression guard;
 
 		if (modelType != ModelType.CSG) {
 			String cmdAction;
 			for (int i = 0; i < n; i++) {
 				if (rewStr.getRewardStructItem(i).isTransitionReward()) {
-					guard = rewStr.getStates(i);
 					cmdAction = rewStr.getSynch(i);
 					if (action == null ? (cmdAction.isEmpty()) : action.equals(cmdAction)) {
-						if (guard.evaluateBoolean(modulesFile.getConstantValues(), state)) {
-							double rew = rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+						if (rewardGuards[r][i].evaluateBoolean(state)) {
+							double rew = rewardExprs[r][i].evaluateDouble(state);
 							// Check reward is finite/non-negative (would be checked at model construction time,
 							// but more fine grained error reporting can be done here)
 							// Note use of original model since modulesFile may have been simplified
@@ -659,7 +741,6 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 			}
 			for (int i = 0; i < n; i++) {
 				if (rewStr.getRewardStructItem(i).isTransitionReward()) {
-					guard = rewStr.getStates(i);
 					indexes.clear();
 					for (int j : rewStr.getRewardStructItem(i).getSynchIndices()) {
 						if (j != 0)
@@ -668,8 +749,8 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 					tmp = (BitSet) indexes.clone();
 					tmp.andNot(active);
 					if (indexes.isEmpty() || (!indexes.isEmpty() && tmp.isEmpty())) {
-						if (guard.evaluateBoolean(modulesFile.getConstantValues(), state)) {
-							double rew = rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+						if (rewardGuards[r][i].evaluateBoolean(state)) {
+							double rew = rewardExprs[r][i].evaluateDouble(state);
 							// Check reward is finite/non-negative (would be checked at model construction time,
 							// but more fine grained error reporting can be done here)
 							// Note use of original model since modulesFile may have been simplified
@@ -690,6 +771,38 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		return d;
 	}
 
+	/**
+	 * Print statistics about the index used to skip evaluation of guards (see {@link GuardIndex})
+	 * and the caches of module local states (see {@link ModuleStateCache}) during exploration,
+	 * including exploration done by any copies of this model generator that have been released
+	 * (see {@link #releaseCopy()}).
+	 */
+	public void printExplorationStats(PrismLog log)
+	{
+		long evaluated, enabled, skipped, cacheHits, cacheMisses;
+		synchronized (this) {
+			evaluated = copiesGuardsEvaluated + updater.getNumGuardsEvaluated();
+			enabled = copiesGuardsEnabled + updater.getNumGuardsEnabled();
+			skipped = copiesGuardsSkipped + updater.getNumGuardsSkipped();
+			cacheHits = copiesModuleCacheHits + updater.getNumModuleCacheHits();
+			cacheMisses = copiesModuleCacheMisses + updater.getNumModuleCacheMisses();
+		}
+		// Hits are guards skipped, misses are guards evaluated to false
+		long misses = evaluated - enabled;
+		log.println("Guard index: key variables " + updater.getGuardIndex().getKeyVarsString(modulesFile));
+		log.print("Guard index: " + evaluated + " guards evaluated (" + enabled + " true), ");
+		log.print(skipped + " hits (skipped), " + misses + " misses (evaluated to false)");
+		if (skipped + misses > 0) {
+			log.print(", hit rate " + PrismUtils.formatPercent1dp((double) skipped / (skipped + misses)));
+		}
+		log.println();
+		log.print("Module cache: " + cacheHits + " hits, " + cacheMisses + " misses");
+		if (cacheHits + cacheMisses > 0) {
+			log.print(", hit rate " + PrismUtils.formatPercent1dp((double) cacheHits / (cacheHits + cacheMisses)));
+		}
+		log.println();
+	}
+
 	// Local utility methods
 	
 	/**
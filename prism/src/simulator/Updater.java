@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,10 +40,13 @@ import java.util.Vector;
 import parser.State;
 import parser.VarList;
 import parser.ast.Command;
+import parser.ast.Expression;
 import parser.ast.Module;
 import parser.ast.ModulesFile;
 import parser.ast.Update;
 import parser.ast.Updates;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
 import prism.ModelType;
 import prism.PrismComponent;
 import prism.PrismException;
@@ -92,6 +96,30 @@ public class Updater extends PrismComponent
 	
 	protected ArrayList<ArrayList<Set<BitSet>>> expansions;
 	
+	// Compiled expressions:
+	
+	// Element i,j of guards is the (compiled) guard of command j of module i
+	protected CompiledExpression guards[][];
+	// Compiled probabilities/rates for each Updates object
+	protected Map<Updates, CompiledExpression[]> compiledProbs;
+	// Compiled versions of each Update object (where possible)
+	protected Map<Update, CompiledUpdate> compiledUpdates;
+	
+	// Index used to skip commands whose guards cannot be true
+	protected GuardIndex guardIndex;
+	// Guard index statistics: number of guards evaluated, found to be true and skipped
+	protected long numGuardsEvaluated;
+	protected long numGuardsEnabled;
+	protected long numGuardsSkipped;
+	
+	// Caches of enabled commands/probabilities for each module, indexed by local state (null if not used)
+	protected int moduleCacheSize = 10000;
+	protected ModuleStateCache moduleCaches[];
+	// Cache entries for the state currently being explored (null if not used)
+	protected ModuleStateCache.Entry currentEntries[];
+	// Module and command index for each Updates object
+	protected Map<Updates, int[]> updatesLocations;
+	
 	public Updater(ModulesFile modulesFile, VarList varList)
 	{
 		this(modulesFile, varList, null);
@@ -142,6 +170,96 @@ public class Updater extends PrismComponent
 			enabledModules[j] = new BitSet(numModules);
 		}
 		numPlayers = modulesFile.getNumPlayers();
+		// Compile guards/updates
+		compileCommands();
+		// Build index of guards
+		guardIndex = new GuardIndex(modulesFile, varList);
+		// Create caches for modules
+		createModuleCaches();
+	}
+
+	/**
+	 * Compile the guards, probabilities/rates and updates of all commands
+	 * (see {@link ExpressionCompiler}), for faster evaluation.
+	 */
+	private void compileCommands()
+	{
+		guards = new CompiledExpression[numModules][];
+		compiledProbs = new IdentityHashMap<Updates, CompiledExpression[]>();
+		compiledUpdates = new IdentityHashMap<Update, CompiledUpdate>();
+		updatesLocations = new IdentityHashMap<Updates, int[]>();
+		for (int m = 0; m < numModules; m++) {
+			Module module = modulesFile.getModule(m);
+			int n = module.getNumCommands();
+			guards[m] = new CompiledExpression[n];
+			for (int c = 0; c < n; c++) {
+				Command command = module.getCommand(c);
+				guards[m][c] = ExpressionCompiler.compile(command.getGuard(), null);
+				Updates ups = command.getUpdates();
+				int numUpdates = ups.getNumUpdates();
+				CompiledExpression probs[] = new CompiledExpression[numUpdates];
+				for (int i = 0; i < numUpdates; i++) {
+					Expression p = ups.getProbability(i);
+					probs[i] = (p == null) ? null : ExpressionCompiler.compile(p, null);
+					CompiledUpdate cu = CompiledUpdate.compile(ups.getUpdate(i), null);
+					if (cu != null)
+						compiledUpdates.put(ups.getUpdate(i), cu);
+				}
+				compiledProbs.put(ups, probs);
+				updatesLocations.put(ups, new int[] { m, c });
+			}
+		}
+	}
+
+	/**
+	 * Create caches (see {@link ModuleStateCache}) for each module whose
+	 * guards and probabilities/rates depend on only some of the model's variables.
+	 */
+	private void createModuleCaches()
+	{
+		moduleCaches = new ModuleStateCache[numModules];
+		currentEntries = new ModuleStateCache.Entry[numModules];
+		if (moduleCacheSize <= 0) {
+			return;
+		}
+		int numVars = varList.getNumVars();
+		for (int m = 0; m < numModules; m++) {
+			Module module = modulesFile.getModule(m);
+			BitSet vars = new BitSet();
+			try {
+				for (int c = 0; c < module.getNumCommands(); c++) {
+					Command command = module.getCommand(c);
+					addVarIndices(command.getGuard(), vars);
+					Updates ups = command.getUpdates();
+					for (int i = 0; i < ups.getNumUpdates(); i++) {
+						if (ups.getProbability(i) != null)
+							addVarIndices(ups.getProbability(i), vars);
+					}
+				}
+			} catch (PrismLangException e) {
+				// Can't determine dependencies: no cache
+				continue;
+			}
+			// Only worthwhile if the local state is smaller than the global state
+			if (vars.cardinality() < numVars) {
+				moduleCaches[m] = new ModuleStateCache(vars.stream().toArray(), moduleCacheSize);
+			}
+		}
+	}
+
+	/**
+	 * Add the indices of the variables appearing in an expression to a BitSet.
+	 * Throws an exception if they cannot all be stored in a {@link ModuleStateCache}.
+	 */
+	private void addVarIndices(Expression expr, BitSet vars) throws PrismLangException
+	{
+		for (String name : expr.getAllVars()) {
+			int v = varList.getIndex(name);
+			if (v == -1 || !(varList.getType(v) instanceof TypeInt || varList.getType(v) instanceof TypeBool)) {
+				throw new PrismLangException("Cannot cache variable " + name);
+			}
+			vars.set(v);
+		}
 	}
 
 	/**
@@ -206,6 +324,74 @@ public class Updater extends PrismComponent
 		}
 	}
 	
+	/**
+	 * Set the maximum number of entries in the cache of each module, indexed by local state
+	 * (see {@link ModuleStateCache}); 0 disables caching.
+	 */
+	public void setModuleCacheSize(int moduleCacheSize)
+	{
+		this.moduleCacheSize = moduleCacheSize;
+		createModuleCaches();
+	}
+
+	/**
+	 * Get the total number of hits in the caches of modules (see {@link ModuleStateCache}).
+	 */
+	public long getNumModuleCacheHits()
+	{
+		long n = 0;
+		for (ModuleStateCache cache : moduleCaches) {
+			if (cache != null)
+				n += cache.getNumHits();
+		}
+		return n;
+	}
+
+	/**
+	 * Get the total number of misses in the caches of modules (see {@link ModuleStateCache}).
+	 */
+	public long getNumModuleCacheMisses()
+	{
+		long n = 0;
+		for (ModuleStateCache cache : moduleCaches) {
+			if (cache != null)
+				n += cache.getNumMisses();
+		}
+		return n;
+	}
+
+	/**
+	 * Get the index used to skip commands whose guards cannot be true.
+	 */
+	public GuardIndex getGuardIndex()
+	{
+		return guardIndex;
+	}
+
+	/**
+	 * Get the number of guards evaluated so far.
+	 */
+	public long getNumGuardsEvaluated()
+	{
+		return numGuardsEvaluated;
+	}
+
+	/**
+	 * Get the number of guards evaluated so far that were true.
+	 */
+	public long getNumGuardsEnabled()
+	{
+		return numGuardsEnabled;
+	}
+
+	/**
+	 * Get the number of guards skipped so far, thanks to the guard index.
+	 */
+	public long getNumGuardsSkipped()
+	{
+		return numGuardsSkipped;
+	}
+
 	/**
 	 * Set the precision to which we check that probabilities sum to 1.
 	 */
@@ -356,8 +542,24 @@ public class Updater extends PrismComponent
 		e = -1;
 
 		for (i = 0; i < n; i++) {
-			command = module.getCommand(i);
 			expansions.get(m).get(i).clear();
+		}
+		// Use cached info for the module's local state, if available
+		ModuleStateCache.Entry entry = (moduleCaches[m] == null) ? null : moduleCaches[m].lookup(state);
+		currentEntries[m] = entry;
+		if (entry != null) {
+			for (int c : entry.enabled) {
+				active.set(c);
+			}
+			return;
+		}
+		// Only check commands whose guards might be true (see GuardIndex)
+		int cands[] = guardIndex.getCandidates(m, state);
+		int numCands = (cands == null) ? n : cands.length;
+		numGuardsSkipped += n - numCands;
+		for (int k = 0; k < numCands; k++) {
+			i = (cands == null) ? k : cands[k];
+			command = module.getCommand(i);
 			if (command.getSynchIndices().get(0) == 0) {
 				p = playersIndexes[m];
 				if (p != -1) {
@@ -365,7 +567,7 @@ public class Updater extends PrismComponent
 				   										   + " from to player " + p
 				   										   + " has an unlabelled command");
 				}
-				else if (command.getGuard().evaluateBoolean(state)) {
+				else if (evaluateGuard(m, i, state)) {
 					if (e == -1) {
 						active.set(i);
 						e = i;
@@ -376,7 +578,7 @@ public class Updater extends PrismComponent
 				}
 			}
 			else {
-				if (command.getGuard().evaluateBoolean(state)) {
+				if (evaluateGuard(m, i, state)) {
 					indexes.clear();
 					for(int j : command.getSynchIndices()) {
 						indexes.set(j);
@@ -399,6 +601,12 @@ public class Updater extends PrismComponent
 				}
 			}
 		}
+		// Store in cache
+		if (moduleCaches[m] != null) {
+			entry = new ModuleStateCache.Entry(active.stream().toArray(), n);
+			moduleCaches[m].add(entry);
+			currentEntries[m] = entry;
+		}
 	}
 		
 	/**
@@ -667,15 +875,61 @@ public class Updater extends PrismComponent
 
 		module = modulesFile.getModule(m);
 		n = module.getNumCommands();
-		for (i = 0; i < n; i++) {
+		// Use cached info for the module's local state, if available
+		ModuleStateCache.Entry entry = (moduleCaches[m] == null) ? null : moduleCaches[m].lookup(state);
+		currentEntries[m] = entry;
+		if (entry != null) {
+			for (int c : entry.enabled) {
+				addEnabledCommand(m, module.getCommand(c));
+			}
+			return;
+		}
+		// Only check commands whose guards might be true (see GuardIndex)
+		int cands[] = guardIndex.getCandidates(m, state);
+		int numCands = (cands == null) ? n : cands.length;
+		int enabled[] = new int[numCands];
+		int numEnabled = 0;
+		numGuardsSkipped += n - numCands;
+		for (int k = 0; k < numCands; k++) {
+			i = (cands == null) ? k : cands[k];
 			command = module.getCommand(i);
-			if (command.getGuard().evaluateBoolean(state)) {
-				j = command.getSynchIndex();
-				updateLists.get(m).get(j).add(command.getUpdates());
-				enabledSynchs.set(j);
-				enabledModules[j].set(m);
+			if (evaluateGuard(m, i, state)) {
+				addEnabledCommand(m, command);
+				enabled[numEnabled++] = i;
 			}
 		}
+		// Store in cache
+		if (moduleCaches[m] != null) {
+			entry = new ModuleStateCache.Entry(Arrays.copyOf(enabled, numEnabled), n);
+			moduleCaches[m].add(entry);
+			currentEntries[m] = entry;
+		}
+	}
+
+	/**
+	 * Store the updates for an enabled command of the {@code m}th module
+	 * (in updateLists, enabledSynchs and enabledModules).
+	 */
+	private void addEnabledCommand(int m, Command command)
+	{
+		int j = command.getSynchIndex();
+		updateLists.get(m).get(j).add(command.getUpdates());
+		enabledSynchs.set(j);
+		enabledModules[j].set(m);
+	}
+
+	/**
+	 * Evaluate the guard of the {@code i}th command of the {@code m}th module in a state
+	 * (and update guard index statistics).
+	 */
+	private boolean evaluateGuard(int m, int i, State state) throws PrismLangException
+	{
+		numGuardsEvaluated++;
+		if (guards[m][i].evaluateBoolean(state)) {
+			numGuardsEnabled++;
+			return true;
+		}
+		return false;
 	}
 
 	/**
@@ -690,17 +944,19 @@ public class Updater extends PrismComponent
 	{
 		ChoiceListFlexi ch;
 		List<Update> list;
+		double probs[];
 		int i, n;
 		double p, sum;
 
 		// Create choice and add all info
 		ch = new ChoiceListFlexi();
 		ch.setModuleOrActionIndex(moduleOrActionIndex);
+		ch.setCompiledUpdates(compiledUpdates);
+		probs = getProbabilities(ups, state);
 		n = ups.getNumUpdates();
 		sum = 0;
 		for (i = 0; i < n; i++) {
-			// Compute probability/rate
-			p = ups.getProbabilityInState(i, state);
+			p = probs[i];
 			// Check for non-finite/NaN probabilities/rates
 			if (!Double.isFinite(p) || p < 0) {
 				String s = modelType.choicesSumToOne() ? "Probability" : "Rate";
@@ -732,6 +988,35 @@ public class Updater extends PrismComponent
 		return ch;
 	}
 
+	/**
+	 * Get the probabilities/rates for an Updates object in a (global) state,
+	 * using cached values for the local state of its module, if available.
+	 * @param ups The Updates object 
+	 * @param state Global state
+	 */
+	private double[] getProbabilities(Updates ups, State state) throws PrismLangException
+	{
+		int loc[] = updatesLocations.get(ups);
+		ModuleStateCache.Entry entry = (loc == null) ? null : currentEntries[loc[0]];
+		if (entry != null && entry.probs[loc[1]] != null) {
+			return entry.probs[loc[1]];
+		}
+		// Compute probabilities/rates (using compiled versions, if available)
+		CompiledExpression compiled[] = compiledProbs.get(ups);
+		int n = ups.getNumUpdates();
+		double probs[] = new double[n];
+		for (int i = 0; i < n; i++) {
+			if (compiled != null)
+				probs[i] = compiled[i] == null ? 1.0 : compiled[i].evaluateDouble(state);
+			else
+				probs[i] = ups.getProbabilityInState(i, state);
+		}
+		if (entry != null) {
+			entry.probs[loc[1]] = probs;
+		}
+		return probs;
+	}
+
 	/**
 	 * Create a new Choice object (currently ChoiceListFlexi) based on the product
 	 * of an existing ChoiceListFlexi and an Updates object, for some (global) state.
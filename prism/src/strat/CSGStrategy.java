@@ -396,7 +396,8 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 			c = prechoices[(p + 1) % 2].strat.getNextMove(s).getSupport().size();
 			for (int t : prechoices[(p + 1) % 2].strat.getNextMove(s).getSupport()) {
 				v = prechoices[(p + 1) % 2].strat.getNextMove(s).get(t);
-				for (int u : model.getChoice(s, t).getSupport()) {
+				Distribution choice = model.getChoice(s, t);
+				for (int u : choice.getSupport()) {
 					if (!onmap.containsKey(u)) {
 						m = mdp.addState();
 						onmap.put(u, m);
@@ -407,7 +408,7 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 					}
 					if (!explored.get(u))
 						addPrecompStrategies(mdp, onmap, statelist, goals, reach, explored, p, u);							
-					d.add(m, v * model.getChoice(s, t).get(u));
+					d.add(m, v * choice.get(u));
 				}
 				for (i = 0; i < model.getActions(s, t).length; i++) {
 					joint += "[" + model.getActions(s, t)[i] + "]";
@@ -490,7 +491,8 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 						tmp.set((i > 0)? i : model.getIdles()[q]);
 					}
 					if (prods.containsKey(tmp)) {						
-						for (int u : model.getChoice(s, t).getSupport()) {
+						Distribution choice = model.getChoice(s, t);
+						for (int u : choice.getSupport()) {
 							if (!onmap.containsKey(u)) {
 								m = mdp.addState();
 								onmap.put(u, m);
@@ -500,10 +502,10 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 							}
 							else {
 								m = onmap.get(u);
-								if (m == n && model.getChoice(s, t).getSupport().size() == 1 && model.getNumChoices(s) == 1)
+								if (m == n && choice.getSupport().size() == 1 && model.getNumChoices(s) == 1)
 									loop = true;
 							}
-							d.add(m, model.getChoice(s, t).get(u) * prods.get(tmp));
+							d.add(m, choice.get(u) * prods.get(tmp));
 						}
 					}
 				}
@@ -576,7 +578,8 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 						tmp.set((i > 0)? i : model.getIdles()[q]);
 					}
 					if (prods.containsKey(tmp)) {
-						for (int u : model.getChoice(s, t).getSupport()) {
+						Distribution choice = model.getChoice(s, t);
+						for (int u : choice.getSupport()) {
 							if (!onmap.containsKey(u)) {
 								m = mdp.addState();
 								onmap.put(u, m);
@@ -587,7 +590,7 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 							else {
 								m = onmap.get(u);
 							}
-							d.add(m, model.getChoice(s, t).get(u) * prods.get(tmp));
+							d.add(m, choice.get(u) * prods.get(tmp));
 						}
 					}
 				}
@@ -651,7 +654,8 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 					tmp2.andNot(tmp1);
 					if (tmp2.isEmpty()) {
 						d = new Distribution();
-						for (int u : model.getChoice(s, t).getSupport()) {
+						Distribution choice = model.getChoice(s, t);
+						for (int u : choice.getSupport()) {
 							if (!onmap.containsKey(u)) {
 								m = mdp.addState();
 								onmap.put(u, m);
@@ -662,7 +666,7 @@ public class CSGStrategy extends PrismComponent implements Strategy {
 							else {
 								m = onmap.get(u);
 							}
-							d.add(m, model.getChoice(s, t).get(u) * csgchoices.get(p).get(k).get(s).get(act));
+							d.add(m, choice.get(u) * csgchoices.get(p).get(k).get(s).get(act));
 						}
 						for (i = tmp1.nextSetBit(0); i >= 0; i = tmp1.nextSetBit(i + 1)) {
 							if (act.get(i))
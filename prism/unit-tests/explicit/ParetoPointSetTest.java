@@ -0,0 +1,311 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link ParetoPointSet}: pruning to the vertices of the downward-closed convex hull,
+ * membership, and the set operations, in 2 to {@link ParetoPointSet#MAX_DIMENSION} dimensions.
+ */
+public class ParetoPointSetTest extends TestCase
+{
+	private static final int NUM_TRIALS = 50;
+
+	public void testSinglePoint()
+	{
+		ParetoPointSet set = new ParetoPointSet(new double[] { 1.0, 2.0 });
+		assertEquals(1, set.getNumPoints());
+		assertTrue(set.containsPoint(new double[] { 1.0, 2.0 }));
+		assertTrue(set.containsPoint(new double[] { -10.0, 0.5 }));
+		assertFalse(set.containsPoint(new double[] { 1.1, 2.0 }));
+		assertFalse(set.containsPoint(new double[] { 1.0, 2.1 }));
+	}
+
+	public void testEmpty()
+	{
+		ParetoPointSet empty = new ParetoPointSet(3);
+		ParetoPointSet set = new ParetoPointSet(new double[] { 1.0, 1.0, 1.0 });
+		assertTrue(empty.isEmpty());
+		assertFalse(empty.containsPoint(new double[] { -1.0, -1.0, -1.0 }));
+		assertTrue(set.union(empty).isEqualTo(set));
+		assertTrue(set.intersection(empty).isEmpty());
+		assertTrue(ParetoPointSet.weightedSum(new double[] { 0.5, 0.5 }, new ParetoPointSet[] { set, empty }).isEmpty());
+	}
+
+	public void testHull2D()
+	{
+		// (1,1) and (0.5,0.5) are dominated, and (1.9,0.05) lies below the segment from (1,1.5) to (2,0)
+		ParetoPointSet set = points(2, new double[][] { { 0, 2 }, { 2, 0 }, { 1, 1.5 }, { 1, 1 }, { 1.9, 0.05 }, { 0.5, 0.5 } });
+		assertEquals(3, set.getNumPoints());
+		assertTrue(set.containsPoint(new double[] { 1.0, 1.5 }));
+		assertTrue(set.containsPoint(new double[] { 0.5, 1.75 }));
+		assertTrue(set.containsPoint(new double[] { -100.0, 2.0 }));
+		assertFalse(set.containsPoint(new double[] { 0.5, 1.8 }));
+		assertFalse(set.containsPoint(new double[] { 2.0, 0.1 }));
+		assertFalse(set.containsPoint(new double[] { 2.1, -100.0 }));
+	}
+
+	public void testCollinear2D()
+	{
+		// The midpoint of a segment is not a vertex
+		ParetoPointSet set = points(2, new double[][] { { 0, 2 }, { 1, 1 }, { 2, 0 } });
+		assertEquals(2, set.getNumPoints());
+		assertTrue(set.containsPoint(new double[] { 1.0, 1.0 }));
+	}
+
+	public void testHull3D()
+	{
+		// The unit vectors, plus a point below (and one above) the plane x+y+z=1
+		ParetoPointSet set = points(3, new double[][] { { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 }, { 0.3, 0.3, 0.3 } });
+		assertEquals(3, set.getNumPoints());
+		assertTrue(set.containsPoint(new double[] { 1.0 / 3, 1.0 / 3, 1.0 / 3 }));
+		assertFalse(set.containsPoint(new double[] { 0.34, 0.34, 0.34 }));
+		set = set.union(new ParetoPointSet(new double[] { 0.4, 0.4, 0.4 }));
+		assertEquals(4, set.getNumPoints());
+		assertTrue(set.containsPoint(new double[] { 0.7, 0.2, 0.0 }));
+		assertFalse(set.containsPoint(new double[] { 0.7, 0.3, 0.1 }));
+	}
+
+	public void testRandomHull()
+	{
+		Random rnd = new Random(1);
+		for (int n = 2; n <= ParetoPointSet.MAX_DIMENSION; n++) {
+			for (int trial = 0; trial < NUM_TRIALS; trial++) {
+				List<double[]> pts = randomPoints(rnd, n, 1 + rnd.nextInt(12));
+				ParetoPointSet set = new ParetoPointSet(n, new ArrayList<double[]>(pts));
+				// All the points are in the set
+				for (double p[] : pts) {
+					assertTrue(set.containsPoint(p));
+				}
+				for (double v[] : set.getPoints()) {
+					// Vertices are among the points
+					boolean found = false;
+					for (double p[] : pts) {
+						found |= Arrays.equals(v, p);
+					}
+					assertTrue(found);
+					// No vertex is in the hull of the others
+					List<double[]> others = new ArrayList<double[]>(set.getPoints());
+					others.remove(v);
+					assertFalse(!others.isEmpty() && new ParetoPointSet(n, others).containsPoint(v));
+					// Points strictly dominating a vertex are not in the set
+					double above[] = v.clone();
+					for (int i = 0; i < n; i++) {
+						above[i] += 1e-3;
+					}
+					assertFalse(set.containsPoint(above));
+				}
+				// The result does not depend on the order of the points
+				List<double[]> shuffled = new ArrayList<double[]>(pts);
+				Collections.shuffle(shuffled, rnd);
+				assertTrue(set.isEqualTo(new ParetoPointSet(n, shuffled)));
+			}
+		}
+	}
+
+	public void testRandomDownwardClosure()
+	{
+		Random rnd = new Random(2);
+		for (int n = 2; n <= ParetoPointSet.MAX_DIMENSION; n++) {
+			for (int trial = 0; trial < NUM_TRIALS; trial++) {
+				List<double[]> pts = randomPoints(rnd, n, 1 + rnd.nextInt(12));
+				ParetoPointSet set = new ParetoPointSet(n, new ArrayList<double[]>(pts));
+				for (int k = 0; k < 20; k++) {
+					// Random convex combinations of the points, shifted downwards, are in the set
+					double q[] = new double[n];
+					double weights[] = randomWeights(rnd, pts.size());
+					for (int j = 0; j < pts.size(); j++) {
+						for (int i = 0; i < n; i++) {
+							q[i] += weights[j] * pts.get(j)[i];
+						}
+					}
+					for (int i = 0; i < n; i++) {
+						q[i] -= rnd.nextInt(2) * rnd.nextDouble();
+					}
+					assertTrue(set.containsPoint(q));
+					// A point in the set cannot beat every point in any direction
+					double w[] = randomWeights(rnd, n);
+					double max = Double.NEGATIVE_INFINITY;
+					for (double p[] : pts) {
+						max = Math.max(max, dot(w, p));
+					}
+					assertTrue(dot(w, q) <= max + 1e-9);
+				}
+			}
+		}
+	}
+
+	public void testRandomOperations()
+	{
+		Random rnd = new Random(3);
+		for (int n = 2; n <= ParetoPointSet.MAX_DIMENSION; n++) {
+			for (int trial = 0; trial < NUM_TRIALS; trial++) {
+				ParetoPointSet a = new ParetoPointSet(n, randomPoints(rnd, n, 1 + rnd.nextInt(6)));
+				ParetoPointSet b = new ParetoPointSet(n, randomPoints(rnd, n, 1 + rnd.nextInt(6)));
+				// Union contains both sets, and is the smallest such downward-closed convex set
+				ParetoPointSet union = a.union(b);
+				assertTrue(union.contains(a, 0.0));
+				assertTrue(union.contains(b, 0.0));
+				List<double[]> all = new ArrayList<double[]>(a.getPoints());
+				all.addAll(b.getPoints());
+				assertTrue(union.isEqualTo(new ParetoPointSet(n, all)));
+				assertTrue(union.isEqualTo(ParetoPointSet.union(n, Arrays.asList(a, b))));
+				// Intersection is contained in both sets, and contains any point in both
+				ParetoPointSet inter = a.intersection(b);
+				assertTrue(a.contains(inter, 1e-9));
+				assertTrue(b.contains(inter, 1e-9));
+				for (int k = 0; k < 20; k++) {
+					double q[] = randomPoints(rnd, n, 1).get(0);
+					if (a.containsPoint(q) && b.containsPoint(q)) {
+						assertTrue(inter.containsPoint(q));
+					}
+				}
+				// Weighted sum of the sets contains the weighted sums of their vertices
+				double probs[] = randomWeights(rnd, 2);
+				ParetoPointSet sum = ParetoPointSet.weightedSum(probs, new ParetoPointSet[] { a, b });
+				for (double p[] : a.getPoints()) {
+					for (double q[] : b.getPoints()) {
+						double r[] = new double[n];
+						for (int i = 0; i < n; i++) {
+							r[i] = probs[0] * p[i] + probs[1] * q[i];
+						}
+						assertTrue(sum.containsPoint(r));
+					}
+				}
+				// Translating and scaling move the vertices accordingly
+				double shift[] = randomPoints(rnd, n, 1).get(0);
+				ParetoPointSet translated = a.translate(shift);
+				ParetoPointSet scaled = a.scale(2.0);
+				for (double p[] : a.getPoints()) {
+					double t[] = new double[n];
+					double s[] = new double[n];
+					for (int i = 0; i < n; i++) {
+						t[i] = p[i] + shift[i];
+						s[i] = 2.0 * p[i];
+					}
+					assertTrue(translated.containsPoint(t));
+					assertTrue(scaled.containsPoint(s));
+				}
+				assertTrue(translated.translate(negate(shift)).isEqualTo(a));
+				assertTrue(scaled.scale(0.5).isEqualTo(a));
+			}
+		}
+	}
+
+	public void testCutBox()
+	{
+		Random rnd = new Random(4);
+		for (int n = 2; n <= ParetoPointSet.MAX_DIMENSION; n++) {
+			for (int trial = 0; trial < NUM_TRIALS; trial++) {
+				ParetoPointSet set = new ParetoPointSet(n, randomPoints(rnd, n, 1 + rnd.nextInt(8)));
+				ParetoPointSet cut = set.cutBox(1);
+				// All vertices are in the box, and within the original set
+				for (double v[] : cut.getPoints()) {
+					for (int i = 0; i < n; i++) {
+						assertTrue(v[i] <= 1e-9 && v[i] >= -1 - 1e-9);
+					}
+				}
+				assertTrue(set.contains(cut, 1e-9));
+				// Points of the set within the box are kept
+				for (int k = 0; k < 20; k++) {
+					double q[] = randomPoints(rnd, n, 1).get(0);
+					boolean inBox = true;
+					for (int i = 0; i < n; i++) {
+						inBox &= q[i] <= 0 && q[i] >= -1;
+					}
+					if (inBox && set.containsPoint(q)) {
+						assertTrue(cut.containsPoint(q));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Create a set from an array of points.
+	 */
+	private static ParetoPointSet points(int n, double pts[][])
+	{
+		return new ParetoPointSet(n, new ArrayList<double[]>(Arrays.asList(pts)));
+	}
+
+	/**
+	 * Generate {@code num} random points of dimension {@code n}, with coordinates in [-2,1].
+	 */
+	private static List<double[]> randomPoints(Random rnd, int n, int num)
+	{
+		List<double[]> pts = new ArrayList<double[]>();
+		for (int j = 0; j < num; j++) {
+			double p[] = new double[n];
+			for (int i = 0; i < n; i++) {
+				p[i] = 3.0 * rnd.nextDouble() - 2.0;
+			}
+			pts.add(p);
+		}
+		return pts;
+	}
+
+	/**
+	 * Generate {@code num} random non-negative weights, summing to 1.
+	 */
+	private static double[] randomWeights(Random rnd, int num)
+	{
+		double w[] = new double[num];
+		double sum = 0.0;
+		for (int i = 0; i < num; i++) {
+			w[i] = rnd.nextDouble();
+			sum += w[i];
+		}
+		for (int i = 0; i < num; i++) {
+			w[i] /= sum;
+		}
+		return w;
+	}
+
+	private static double dot(double w[], double x[])
+	{
+		double d = 0.0;
+		for (int i = 0; i < w.length; i++) {
+			d += w[i] * x[i];
+		}
+		return d;
+	}
+
+	private static double[] negate(double x[])
+	{
+		double y[] = new double[x.length];
+		for (int i = 0; i < x.length; i++) {
+			y[i] = -x[i];
+		}
+		return y;
+	}
+}
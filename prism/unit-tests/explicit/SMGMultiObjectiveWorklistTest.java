@@ -0,0 +1,178 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import prism.PrismException;
+import explicit.rewards.SMGRewards;
+import explicit.rewards.SMGRewardsSimple;
+
+/**
+ * Tests that the worklist variant of the multi-objective value iteration for SMGs
+ * ({@link SMG#pMultiObjective} with a {@code todo} set), which only recomputes states
+ * whose successors' Pareto sets changed, gives exactly the same Pareto sets as the full sweep,
+ * both for acyclic games and for cyclic games (with energy-style rewards, cut to a box).
+ */
+public class SMGMultiObjectiveWorklistTest extends TestCase
+{
+	private static final int NUM_TRIALS = 40;
+	private static final int NUM_ITERATIONS = 30;
+	/** Size of the box that Pareto sets are cut to, for cyclic games */
+	private static final long M = 4;
+
+	public void testWorklistJacobi() throws PrismException
+	{
+		checkWorklist(false, null, false);
+	}
+
+	public void testWorklistGaussSeidel() throws PrismException
+	{
+		checkWorklist(true, null, false);
+	}
+
+	public void testWorklistJacobiParallel() throws PrismException
+	{
+		checkWorklist(false, new ParallelIteration(3), false);
+	}
+
+	public void testWorklistGaussSeidelParallel() throws PrismException
+	{
+		checkWorklist(true, new ParallelIteration(3), false);
+	}
+
+	public void testWorklistJacobiCyclic() throws PrismException
+	{
+		checkWorklist(false, null, true);
+	}
+
+	public void testWorklistGaussSeidelCyclic() throws PrismException
+	{
+		checkWorklist(true, null, true);
+	}
+
+	public void testWorklistJacobiParallelCyclic() throws PrismException
+	{
+		checkWorklist(false, new ParallelIteration(3), true);
+	}
+
+	/**
+	 * Run value iteration on random SMGs, both with a full sweep and with the worklist,
+	 * and check that the Pareto sets are identical after each iteration.
+	 * For cyclic games, the sets are cut to the box [-M,0]^n, so that the iteration converges.
+	 */
+	@SuppressWarnings("unchecked")
+	private void checkWorklist(boolean gaussSeidel, ParallelIteration parallel, boolean cyclic) throws PrismException
+	{
+		Random rnd = new Random(1);
+		int skipped = 0;
+		for (int trial = 0; trial < NUM_TRIALS; trial++) {
+			int numStates = 6 + rnd.nextInt(20);
+			int numObjectives = 2 + rnd.nextInt(2);
+			SMG smg = new SMG();
+			List<SMGRewards> rewards = new ArrayList<SMGRewards>();
+			SMGRewardsSimple rews[] = new SMGRewardsSimple[numObjectives];
+			buildRandomGame(rnd, smg, numStates, rews, cyclic);
+			rewards.addAll(Arrays.asList(rews));
+			PredecessorRelation pre = new PredecessorRelation(smg);
+			double biggestReward[] = new double[numObjectives];
+			Arrays.fill(biggestReward, 3.0);
+
+			ParetoPointSet full[] = new ParetoPointSet[numStates];
+			ParetoPointSet worklist[] = new ParetoPointSet[numStates];
+			for (int s = 0; s < numStates; s++) {
+				full[s] = new ParetoPointSet(new double[numObjectives]);
+				worklist[s] = full[s];
+			}
+			List<ParetoPointSet> fullStochastic[] = new List[numStates];
+			List<ParetoPointSet> worklistStochastic[] = new List[numStates];
+			BitSet todo = new BitSet();
+			todo.set(0, numStates);
+			for (int k = 0; k < NUM_ITERATIONS; k++) {
+				skipped += numStates - todo.cardinality();
+				full = smg.pMultiObjective(full, rewards, gaussSeidel, 1000, biggestReward, fullStochastic, false, true, cyclic, M, null, null, null);
+				worklist = smg.pMultiObjective(worklist, rewards, gaussSeidel, 1000, biggestReward, worklistStochastic, false, true, cyclic, M, parallel,
+						todo, pre);
+				for (int s = 0; s < numStates; s++) {
+					String msg = "trial " + trial + ", iteration " + k + ", state " + s;
+					assertTrue(msg, full[s].isIdenticalTo(worklist[s]));
+					assertEquals(msg, fullStochastic[s].size(), worklistStochastic[s].size());
+					for (int c = 0; c < fullStochastic[s].size(); c++) {
+						assertTrue(msg + ", choice " + c, fullStochastic[s].get(c).isIdenticalTo(worklistStochastic[s].get(c)));
+					}
+				}
+			}
+		}
+		// Make sure that the worklist was actually used
+		assertTrue(skipped > 0);
+	}
+
+	/**
+	 * Build a random SMG with some absorbing states, and random state/transition rewards.
+	 * If {@code cyclic} is false, the game is acyclic (successors have larger indices), with non-negative rewards.
+	 * Otherwise, successors are arbitrary, and rewards can also be negative.
+	 */
+	private static void buildRandomGame(Random rnd, SMG smg, int numStates, SMGRewardsSimple rews[], boolean cyclic)
+	{
+		for (int s = 0; s < numStates; s++) {
+			smg.addState(1 + rnd.nextInt(2));
+		}
+		for (int i = 0; i < rews.length; i++) {
+			rews[i] = new SMGRewardsSimple(numStates);
+		}
+		int minReward = cyclic ? -2 : 0;
+		for (int s = 0; s < numStates; s++) {
+			int numChoices = s >= numStates - 2 ? 0 : rnd.nextInt(4);
+			for (int c = 0; c < numChoices; c++) {
+				Distribution distr = new Distribution();
+				int numSuccs = 1 + rnd.nextInt(2);
+				for (int j = 0; j < numSuccs; j++) {
+					int succ = cyclic ? rnd.nextInt(numStates) : s + 1 + rnd.nextInt(numStates - s - 1);
+					distr.add(succ, 1.0 / numSuccs);
+				}
+				smg.addChoice(s, distr);
+			}
+			for (int i = 0; i < rews.length; i++) {
+				if (rnd.nextInt(3) == 0) {
+					rews[i].setStateReward(s, minReward + rnd.nextInt(3 - minReward));
+				}
+			}
+		}
+		for (int s = 0; s < numStates; s++) {
+			for (int c = 0; c < smg.getNumChoices(s); c++) {
+				for (int i = 0; i < rews.length; i++) {
+					if (rnd.nextInt(4) == 0) {
+						rews[i].setTransitionReward(s, c, minReward + rnd.nextInt(3 - minReward));
+					}
+				}
+			}
+		}
+	}
+}